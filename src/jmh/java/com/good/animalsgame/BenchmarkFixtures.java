@@ -0,0 +1,205 @@
+package com.good.animalsgame;
+
+import com.good.animalsgame.app.cache.AnimalNameDictionary;
+import com.good.animalsgame.app.localization.LanguageFallbackProperties;
+import com.good.animalsgame.app.localization.LanguageFallbacks;
+import com.good.animalsgame.app.repository.AnimalRepository;
+import com.good.animalsgame.app.repository.FirstRoundLevelRepository;
+import com.good.animalsgame.app.repository.SecondRoundLevelRepository;
+import com.good.animalsgame.app.service.AnimalService;
+import com.good.animalsgame.domain.Animal;
+import com.good.animalsgame.domain.AnimalName;
+import com.good.animalsgame.domain.Coordinates;
+import com.good.animalsgame.domain.FirstRoundLevel;
+import com.good.animalsgame.domain.Language;
+import com.good.animalsgame.domain.LevelAnswerKey;
+import com.good.animalsgame.domain.SecondRoundLevel;
+import com.good.animalsgame.domain.UiText;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Тестовые данные и заглушки репозиториев для бенчмарков.
+ * Заглушки построены на {@link Proxy}, а не на Mockito, чтобы не мерить накладные расходы мок-фреймворка
+ */
+public final class BenchmarkFixtures {
+
+    /**
+     * Количество животных в каталоге
+     */
+    public static final int ANIMALS_COUNT = 200;
+
+    /**
+     * Количество уровней в каждом раунде
+     */
+    public static final int LEVELS_COUNT = 10_000;
+
+    /**
+     * Количество животных в списке уровня
+     */
+    private static final int ANIMALS_PER_LEVEL = 4;
+
+    private BenchmarkFixtures() {
+    }
+
+    /**
+     * Животные с названиями и описаниями на всех языках, идентификаторы с 1
+     */
+    public static List<Animal> animals() {
+        List<Animal> animals = new ArrayList<>(ANIMALS_COUNT);
+        for (long id = 1; id <= ANIMALS_COUNT; id++) {
+            Map<Language, String> names = new EnumMap<>(Language.class);
+            Map<Language, String> descriptions = new EnumMap<>(Language.class);
+            for (Language language : Language.values()) {
+                names.put(language, language.name().toLowerCase() + " animal " + id);
+                descriptions.put(language, language.name().toLowerCase() + " description " + id);
+            }
+            animals.add(Animal.builder().id(id).names(names).descriptions(descriptions).build());
+        }
+        return animals;
+    }
+
+    /**
+     * Уровни первого раунда, идентификаторы с 1
+     */
+    public static List<FirstRoundLevel> firstRoundLevels(List<Animal> animals) {
+        List<FirstRoundLevel> levels = new ArrayList<>(LEVELS_COUNT);
+        for (long id = 1; id <= LEVELS_COUNT; id++) {
+            Set<Animal> levelAnimals = levelAnimals(animals, id);
+            levels.add(FirstRoundLevel.builder()
+                    .id(id)
+                    .animals(levelAnimals)
+                    .correctAnimal(levelAnimals.iterator().next())
+                    .imageHash("0".repeat(64))
+                    .animalCoordinates(new Coordinates(10, 20, 30, 40))
+                    .build());
+        }
+        return levels;
+    }
+
+    /**
+     * Уровни второго раунда, идентификаторы с 1
+     */
+    public static List<SecondRoundLevel> secondRoundLevels(List<Animal> animals) {
+        List<SecondRoundLevel> levels = new ArrayList<>(LEVELS_COUNT);
+        for (long id = 1; id <= LEVELS_COUNT; id++) {
+            Set<Animal> levelAnimals = levelAnimals(animals, id);
+            levels.add(SecondRoundLevel.builder()
+                    .id(id)
+                    .animals(levelAnimals)
+                    .correctAnimal(levelAnimals.iterator().next())
+                    .animalInQuestion(animals.get((int) ((id * 7) % animals.size())))
+                    .imageHash("0".repeat(64))
+                    .animalCoordinates(new Coordinates(10, 20, 30, 40))
+                    .build());
+        }
+        return levels;
+    }
+
+    /**
+     * Тексты интерфейса на всех языках
+     *
+     * @param count количество текстов
+     */
+    public static List<UiText> uiTexts(int count) {
+        List<UiText> uiTexts = new ArrayList<>(count);
+        for (long id = 1; id <= count; id++) {
+            Map<Language, String> texts = new EnumMap<>(Language.class);
+            for (Language language : Language.values()) {
+                texts.put(language, language.name().toLowerCase() + " text " + id);
+            }
+            uiTexts.add(UiText.builder().id(id).title("title" + id).texts(texts).build());
+        }
+        return uiTexts;
+    }
+
+    /**
+     * Сервис животных, чей словарь названий загружен из переданных животных
+     */
+    public static AnimalService animalService(List<Animal> animals) {
+        AnimalRepository animalRepository = animalRepository(animals);
+        LanguageFallbacks languageFallbacks = new LanguageFallbacks(new LanguageFallbackProperties(Map.of(), Language.RUSSIAN));
+        return new AnimalService(animalRepository, new AnimalNameDictionary(animalRepository, languageFallbacks), languageFallbacks, event -> {
+        });
+    }
+
+    /**
+     * Репозиторий животных, отдающий названия для словаря
+     */
+    public static AnimalRepository animalRepository(List<Animal> animals) {
+        List<AnimalName> animalNames = new ArrayList<>();
+        for (Animal animal : animals) {
+            animal.getNames().forEach((language, name) -> animalNames.add(new AnimalName(animal.getId(), language, name)));
+        }
+
+        return stub(AnimalRepository.class, Map.of(
+                "findAllNames", args -> animalNames
+        ));
+    }
+
+    /**
+     * Репозиторий уровней первого раунда поверх списка уровней
+     */
+    public static FirstRoundLevelRepository firstRoundLevelRepository(List<FirstRoundLevel> levels) {
+        List<LevelAnswerKey> answerKeys = levels.stream()
+                .map(level -> new LevelAnswerKey(level.getId(), level.getCorrectAnimal().getId()))
+                .toList();
+
+        return stub(FirstRoundLevelRepository.class, Map.of(
+                "findAnswerKeys", args -> answerKeys,
+                "findWithAnimalsById", args -> Optional.of(levels.get((int) ((Long) args[0] - 1)))
+        ));
+    }
+
+    /**
+     * Репозиторий уровней второго раунда поверх списка уровней
+     */
+    public static SecondRoundLevelRepository secondRoundLevelRepository(List<SecondRoundLevel> levels) {
+        List<LevelAnswerKey> answerKeys = levels.stream()
+                .map(level -> new LevelAnswerKey(level.getId(), level.getCorrectAnimal().getId(), level.getAnimalInQuestion().getId()))
+                .toList();
+
+        return stub(SecondRoundLevelRepository.class, Map.of(
+                "findAnswerKeys", args -> answerKeys,
+                "findWithAnimalsById", args -> Optional.of(levels.get((int) ((Long) args[0] - 1)))
+        ));
+    }
+
+    /**
+     * Создаёт заглушку интерфейса, отвечающую только на перечисленные методы
+     *
+     * @param type    интерфейс
+     * @param answers имя метода -> ответ по аргументам
+     */
+    private static <T> T stub(Class<T> type, Map<String, Function<Object[], Object>> answers) {
+        Object proxy = Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (instance, method, args) -> {
+            Function<Object[], Object> answer = answers.get(method.getName());
+            if (answer != null) {
+                return answer.apply(args);
+            }
+            return switch (method.getName()) {
+                case "toString" -> type.getSimpleName() + "Stub";
+                case "hashCode" -> System.identityHashCode(instance);
+                case "equals" -> instance == args[0];
+                default -> throw new UnsupportedOperationException(method.getName());
+            };
+        });
+        return type.cast(proxy);
+    }
+
+    private static Set<Animal> levelAnimals(List<Animal> animals, long levelId) {
+        Set<Animal> levelAnimals = new HashSet<>();
+        for (int i = 0; i < ANIMALS_PER_LEVEL; i++) {
+            levelAnimals.add(animals.get((int) ((levelId * 31 + i * 17) % animals.size())));
+        }
+        return levelAnimals;
+    }
+}
@@ -0,0 +1,23 @@
+package com.good.animalsgame.app.cache;
+
+import com.good.animalsgame.exception.NoSuchRoundException;
+
+/**
+ * Создание сессионного кэша вне Spring: в приложении init вызывается контейнером при начале сессии
+ */
+public final class BenchmarkSessions {
+
+    private BenchmarkSessions() {
+    }
+
+    /**
+     * Создаёт кэш новой сессии поверх каталога уровней
+     *
+     * @param levelCatalog каталог уровней
+     */
+    public static LevelsSessionCache start(LevelCatalog levelCatalog) throws NoSuchRoundException {
+        LevelsSessionCache levelsSessionCache = new LevelsSessionCache(levelCatalog);
+        levelsSessionCache.init();
+        return levelsSessionCache;
+    }
+}
@@ -0,0 +1,57 @@
+package com.good.animalsgame.app.cache;
+
+import com.good.animalsgame.BenchmarkFixtures;
+import com.good.animalsgame.app.repository.LevelRepository;
+import com.good.animalsgame.domain.Animal;
+import com.good.animalsgame.exception.NoLevelsLeftException;
+import com.good.animalsgame.exception.NoSuchRoundException;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Выдача уровней из сессионного кэша: атомарный сдвиг курсора и вычисление перестановки.
+ * Когда уровни сессии заканчиваются, начинается новая сессия - это тоже часть измерения,
+ * как и в игре, где сессия создаётся при первом запросе
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LevelsSessionCacheBenchmark {
+
+    private static final int ROUND = 1;
+
+    private LevelCatalog levelCatalog;
+    private LevelsSessionCache levelsSessionCache;
+
+    @Setup
+    public void setUp() throws NoSuchRoundException {
+        List<Animal> animals = BenchmarkFixtures.animals();
+        Map<String, LevelRepository<?, ?>> repositories = Map.of(
+                "1", BenchmarkFixtures.firstRoundLevelRepository(BenchmarkFixtures.firstRoundLevels(animals)));
+        levelCatalog = new LevelCatalog(repositories);
+        levelCatalog.getSnapshot(ROUND);
+        startSession();
+    }
+
+    @Benchmark
+    public long drawLevelId() throws NoSuchRoundException {
+        try {
+            return levelsSessionCache.drawLevelId(ROUND);
+        } catch (NoLevelsLeftException e) {
+            startSession();
+            return -1;
+        }
+    }
+
+    @Benchmark
+    public LevelsSessionCache startSession() throws NoSuchRoundException {
+        levelsSessionCache = BenchmarkSessions.start(levelCatalog);
+        return levelsSessionCache;
+    }
+}
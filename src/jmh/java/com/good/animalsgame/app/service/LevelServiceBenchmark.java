@@ -0,0 +1,105 @@
+package com.good.animalsgame.app.service;
+
+import com.good.animalsgame.BenchmarkFixtures;
+import com.good.animalsgame.app.cache.BenchmarkSessions;
+import com.good.animalsgame.app.cache.LevelCache;
+import com.good.animalsgame.app.cache.LevelCatalog;
+import com.good.animalsgame.app.cache.LevelsSessionCache;
+import com.good.animalsgame.app.repository.FirstRoundLevelRepository;
+import com.good.animalsgame.app.repository.SecondRoundLevelRepository;
+import com.good.animalsgame.domain.Animal;
+import com.good.animalsgame.domain.FirstRoundLevel;
+import com.good.animalsgame.domain.SecondRoundLevel;
+import com.good.animalsgame.exception.EntityNotFoundException;
+import com.good.animalsgame.exception.NoLevelsLeftException;
+import com.good.animalsgame.exception.NoSuchRoundException;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Выдача случайного уровня и проверка ответов через сервисы уровней с заглушками репозиториев
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LevelServiceBenchmark {
+
+    private static final int FIRST_ROUND = 1;
+    private static final int SECOND_ROUND = 2;
+
+    private LevelCatalog levelCatalog;
+    private FirstRoundLevelRepository firstRoundLevelRepository;
+    private SecondRoundLevelRepository secondRoundLevelRepository;
+    private AnimalService animalService;
+
+    private FirstRoundLevelService firstRoundLevelService;
+    private SecondRoundLevelService secondRoundLevelService;
+
+    private String correctAnswer;
+    private long levelId;
+
+    @Setup
+    public void setUp() throws NoSuchRoundException {
+        List<Animal> animals = BenchmarkFixtures.animals();
+        List<FirstRoundLevel> firstRoundLevels = BenchmarkFixtures.firstRoundLevels(animals);
+        firstRoundLevelRepository = BenchmarkFixtures.firstRoundLevelRepository(firstRoundLevels);
+        secondRoundLevelRepository = BenchmarkFixtures.secondRoundLevelRepository(BenchmarkFixtures.secondRoundLevels(animals));
+        levelCatalog = new LevelCatalog(Map.of("1", firstRoundLevelRepository, "2", secondRoundLevelRepository));
+        animalService = BenchmarkFixtures.animalService(animals);
+
+        FirstRoundLevel level = firstRoundLevels.get(firstRoundLevels.size() / 2);
+        levelId = level.getId();
+        correctAnswer = level.getCorrectAnimal().getNames().values().iterator().next();
+
+        startSession();
+    }
+
+    @Benchmark
+    public FirstRoundLevel getRandomFirstRoundLevel() throws NoSuchRoundException {
+        try {
+            return firstRoundLevelService.getRandomLevel(FIRST_ROUND);
+        } catch (NoLevelsLeftException e) {
+            startSession();
+            return null;
+        }
+    }
+
+    @Benchmark
+    public SecondRoundLevel getRandomSecondRoundLevel() throws NoSuchRoundException {
+        try {
+            return secondRoundLevelService.getRandomLevel(SECOND_ROUND);
+        } catch (NoLevelsLeftException e) {
+            startSession();
+            return null;
+        }
+    }
+
+    @Benchmark
+    public boolean isCorrectAnswer() throws EntityNotFoundException {
+        return firstRoundLevelService.isCorrectAnswer(levelId, correctAnswer);
+    }
+
+    @Benchmark
+    public boolean isCorrectYesNoAnswer() throws EntityNotFoundException {
+        return secondRoundLevelService.isCorrectYesNoAnswer(levelId, true);
+    }
+
+    /**
+     * Начинает новую сессию игрока: свежий сессионный кэш и сервисы поверх него
+     */
+    private void startSession() throws NoSuchRoundException {
+        LevelsSessionCache levelsSessionCache = BenchmarkSessions.start(levelCatalog);
+        firstRoundLevelService = new FirstRoundLevelService(levelsSessionCache, levelCatalog, new LevelCache(false, 0), firstRoundLevelRepository,
+                animalService, event -> {
+        });
+        secondRoundLevelService = new SecondRoundLevelService(levelsSessionCache, levelCatalog, new LevelCache(false, 0), secondRoundLevelRepository,
+                animalService, event -> {
+        });
+    }
+}
@@ -0,0 +1,60 @@
+package com.good.animalsgame.extern.api.assembler;
+
+import com.good.animalsgame.BenchmarkFixtures;
+import com.good.animalsgame.domain.Animal;
+import com.good.animalsgame.domain.UiText;
+import com.good.animalsgame.extern.api.dto.AnimalDTO;
+import com.good.animalsgame.extern.api.dto.UiTextDTO;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Маппинг животных и текстов интерфейса в DTO: преобразование карт язык -> строка по всем языкам
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DtoAssemblerBenchmark {
+
+    private static final int UI_TEXTS_COUNT = 100;
+
+    private AnimalAssembler animalAssembler;
+    private UiTextAssembler uiTextAssembler;
+
+    private Animal animal;
+    private List<UiText> uiTexts;
+
+    @Setup
+    public void setUp() {
+        animalAssembler = new AnimalAssembler();
+        uiTextAssembler = new UiTextAssembler();
+        animal = BenchmarkFixtures.animals().getFirst();
+        uiTexts = BenchmarkFixtures.uiTexts(UI_TEXTS_COUNT);
+    }
+
+    @Benchmark
+    public AnimalDTO animalToModel() {
+        return animalAssembler.toModel(animal);
+    }
+
+    @Benchmark
+    public UiTextDTO uiTextToModel() {
+        return uiTextAssembler.toModel(uiTexts.getFirst());
+    }
+
+    /**
+     * Все тексты интерфейса, как в GET /ui-texts
+     */
+    @Benchmark
+    public void allUiTextsToModel(Blackhole blackhole) {
+        for (UiText uiText : uiTexts) {
+            blackhole.consume(uiTextAssembler.toModel(uiText));
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.good.animalsgame.extern.api.assembler.level;
+
+import com.good.animalsgame.BenchmarkFixtures;
+import com.good.animalsgame.app.service.AnimalService;
+import com.good.animalsgame.app.storage.ImageStorage;
+import com.good.animalsgame.app.storage.ImageVariantService;
+import com.good.animalsgame.app.storage.StoredImage;
+import com.good.animalsgame.domain.Animal;
+import com.good.animalsgame.domain.FirstRoundLevel;
+import com.good.animalsgame.domain.SecondRoundLevel;
+import com.good.animalsgame.exception.EntityNotFoundException;
+import com.good.animalsgame.exception.LanguageException;
+import com.good.animalsgame.extern.api.dto.level.FirstRoundLevelDTO;
+import com.good.animalsgame.extern.api.dto.level.SecondRoundLevelDTO;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.core.io.Resource;
+
+import java.io.InputStream;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Маппинг уровней в DTO на выбранном языке: названия животных из словаря и ссылки HATEOAS
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LevelAssemblerBenchmark {
+
+    @Param({"RUSSIAN", "ENGLISH"})
+    public String language;
+
+    private FirstRoundLevelAssembler firstRoundLevelAssembler;
+    private SecondRoundLevelAssembler secondRoundLevelAssembler;
+
+    private FirstRoundLevel firstRoundLevel;
+    private SecondRoundLevel secondRoundLevel;
+
+    @Setup
+    public void setUp() {
+        List<Animal> animals = BenchmarkFixtures.animals();
+        AnimalService animalService = BenchmarkFixtures.animalService(animals);
+        ImageStorage imageStorage = new UnusedImageStorage();
+        ImageVariantService imageVariantService = new ImageVariantService(imageStorage, null, true, List.of(480, 960, 1920), 0.8f, 1, 1);
+
+        firstRoundLevelAssembler = new FirstRoundLevelAssembler(animalService, imageStorage, imageVariantService);
+        secondRoundLevelAssembler = new SecondRoundLevelAssembler(animalService, imageStorage, imageVariantService);
+        firstRoundLevel = BenchmarkFixtures.firstRoundLevels(animals).getFirst();
+        secondRoundLevel = BenchmarkFixtures.secondRoundLevels(animals).getFirst();
+    }
+
+    @Benchmark
+    public FirstRoundLevelDTO firstRoundToModel() throws LanguageException, EntityNotFoundException {
+        return firstRoundLevelAssembler.toModel(firstRoundLevel, language);
+    }
+
+    @Benchmark
+    public SecondRoundLevelDTO secondRoundToModel() throws LanguageException, EntityNotFoundException {
+        return secondRoundLevelAssembler.toModel(secondRoundLevel, language);
+    }
+
+    /**
+     * Хранилище картинок не участвует в маппинге в DTO
+     */
+    private static final class UnusedImageStorage implements ImageStorage {
+
+        @Override
+        public StoredImage store(InputStream inputStream) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public StoredImage store(InputStream inputStream, String expectedHash) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Optional<Resource> find(String hash) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public boolean exists(String hash) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
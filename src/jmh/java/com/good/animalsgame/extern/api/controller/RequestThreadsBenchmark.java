@@ -0,0 +1,162 @@
+package com.good.animalsgame.extern.api.controller;
+
+import com.good.animalsgame.AnimalsGameApplication;
+import com.good.animalsgame.app.cache.AnimalNameDictionary;
+import com.good.animalsgame.app.repository.AnimalRepository;
+import com.good.animalsgame.app.repository.FirstRoundLevelRepository;
+import com.good.animalsgame.domain.Animal;
+import com.good.animalsgame.domain.Coordinates;
+import com.good.animalsgame.domain.FirstRoundLevel;
+import com.good.animalsgame.domain.Language;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.sql.Connection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Нагрузочный бенчмарк обработки HTTP-запросов на платформенных и виртуальных потоках.
+ * Поднимает приложение на H2 со случайным портом и нагружает GET /first-round/{id} из {@value #CLIENTS} клиентов,
+ * то есть больше, чем потоков в пуле Tomcat по умолчанию.
+ * Задержка Postgres имитируется паузой dbLatencyMillis на каждый SQL-запрос, пока соединение занято.
+ * Режим Throughput даёт пропускную способность, SampleTime - p50 и p99 задержки
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Threads(RequestThreadsBenchmark.CLIENTS)
+@Fork(1)
+public class RequestThreadsBenchmark {
+
+    /**
+     * Количество одновременных клиентов
+     */
+    static final int CLIENTS = 256;
+
+    private static final int LEVELS_COUNT = 1_000;
+
+    @Param({"false", "true"})
+    public boolean virtualThreads;
+
+    @Param({"0", "5"})
+    public int dbLatencyMillis;
+
+    private ConfigurableApplicationContext context;
+    private HttpClient httpClient;
+    private String baseUrl;
+    private long firstLevelId;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, InterruptedException {
+        context = new SpringApplicationBuilder(AnimalsGameApplication.class)
+                .initializers(applicationContext -> applicationContext.getBeanFactory()
+                        .addBeanPostProcessor(new DatabaseLatency(dbLatencyMillis)))
+                .run("--server.port=0",
+                        "--spring.threads.virtual.enabled=" + virtualThreads,
+                        "--spring.datasource.url=jdbc:h2:mem:request-threads;DB_CLOSE_DELAY=-1",
+                        "--spring.datasource.username=sa",
+                        "--spring.datasource.password=",
+                        "--spring.jpa.hibernate.ddl-auto=create-drop",
+                        "--images.storage.root=target/benchmark-images",
+                        "--logging.level.root=WARN",
+                        "--spring.main.banner-mode=off");
+
+        seedLevels();
+
+        httpClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port") + "/first-round/";
+        int status = getLevel(firstLevelId);
+        if (status != 200) {
+            throw new IllegalStateException("Уровень не найден, статус " + status);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        httpClient.close();
+        context.close();
+    }
+
+    @Benchmark
+    public int levelById() throws IOException, InterruptedException {
+        return getLevel(firstLevelId + ThreadLocalRandom.current().nextInt(LEVELS_COUNT));
+    }
+
+    private int getLevel(long levelId) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + levelId + "?language=ENGLISH")).GET().build();
+        return httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    private void seedLevels() {
+        Animal lion = context.getBean(AnimalRepository.class).save(Animal.builder()
+                .names(new HashMap<>(Map.of(Language.RUSSIAN, "Лев", Language.ENGLISH, "Lion")))
+                .descriptions(new HashMap<>(Map.of(Language.RUSSIAN, "Описание", Language.ENGLISH, "Description")))
+                .build());
+
+        FirstRoundLevelRepository levelRepository = context.getBean(FirstRoundLevelRepository.class);
+        for (int i = 0; i < LEVELS_COUNT; i++) {
+            FirstRoundLevel level = levelRepository.save(FirstRoundLevel.builder()
+                    .correctAnimal(lion)
+                    .animalCoordinates(new Coordinates(1, 2, 3, 4))
+                    .build());
+            if (i == 0) {
+                firstLevelId = level.getId();
+            }
+        }
+        context.getBean(AnimalNameDictionary.class).invalidate();
+    }
+
+    /**
+     * Оборачивает источник данных так, что каждая подготовка SQL-запроса ждёт заданную задержку,
+     * удерживая соединение пула - как при обращении к удалённой БД
+     */
+    private record DatabaseLatency(int latencyMillis) implements BeanPostProcessor {
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if (latencyMillis == 0 || !(bean instanceof DataSource dataSource)) {
+                return bean;
+            }
+
+            return Proxy.newProxyInstance(DataSource.class.getClassLoader(), new Class<?>[]{DataSource.class},
+                    (proxy, method, args) -> {
+                        Object result = invoke(dataSource, method, args);
+                        return result instanceof Connection connection ? delayed(connection) : result;
+                    });
+        }
+
+        private Connection delayed(Connection connection) {
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                    (proxy, method, args) -> {
+                        if (method.getName().startsWith("prepare")) {
+                            Thread.sleep(latencyMillis);
+                        }
+                        return invoke(connection, method, args);
+                    });
+        }
+
+        private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.good.animalsgame.extern.infrastructure.storage;
+
+import com.good.animalsgame.app.storage.StoredImage;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Загрузка картинки уровня в хранилище: потоковое вычисление SHA-256 и запись во временный файл.
+ * Картинка одна и та же, поэтому после первой записи измеряется путь дедупликации
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ImageStorageBenchmark {
+
+    @Param({"65536", "1048576"})
+    public int imageSize;
+
+    private Path root;
+    private FileSystemImageStorage imageStorage;
+    private byte[] image;
+
+    @Setup
+    public void setUp() throws IOException {
+        root = Files.createTempDirectory("image-storage-benchmark");
+        imageStorage = new FileSystemImageStorage(root.toString());
+        image = new byte[imageSize];
+        new Random(42).nextBytes(image);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        try (Stream<Path> paths = Files.walk(root)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    @Benchmark
+    public StoredImage store() throws IOException {
+        return imageStorage.store(new ByteArrayInputStream(image));
+    }
+}
@@ -0,0 +1,14 @@
+package com.good.animalsgame.app.backup;
+
+import com.good.animalsgame.domain.Language;
+
+import java.util.Map;
+
+/**
+ * Животное в выгрузке каталога
+ * @param id идентификатор животного в выгружаемой БД, на него ссылаются уровни выгрузки
+ * @param names названия по языкам
+ * @param descriptions описания по языкам
+ */
+public record AnimalRecord(Long id, Map<Language, String> names, Map<Language, String> descriptions) implements CatalogRecord {
+}
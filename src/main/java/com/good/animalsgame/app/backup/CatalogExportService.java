@@ -0,0 +1,214 @@
+package com.good.animalsgame.app.backup;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.good.animalsgame.app.repository.AnimalRepository;
+import com.good.animalsgame.app.repository.FirstRoundLevelRepository;
+import com.good.animalsgame.app.repository.SecondRoundLevelRepository;
+import com.good.animalsgame.app.repository.UiTextRepository;
+import com.good.animalsgame.app.storage.ImageStorage;
+import com.good.animalsgame.domain.Animal;
+import com.good.animalsgame.domain.AnimalDescription;
+import com.good.animalsgame.domain.Language;
+import com.good.animalsgame.domain.Level;
+import com.good.animalsgame.domain.SecondRoundLevel;
+import com.good.animalsgame.domain.UiText;
+import jakarta.persistence.EntityManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Выгрузка каталога игры: животные, тексты интерфейса и уровни всех раундов в формате NDJSON, по записи на строку.
+ * Записи читаются из БД курсором порциями фиксированного размера и сразу отсоединяются от контекста постоянства,
+ * поэтому потребление памяти не зависит от размера каталога. Картинки уровней в выгрузку не входят,
+ * уровни ссылаются на них хэшем, а сами картинки выгружаются отдельным архивом tar
+ */
+@Service
+public class CatalogExportService {
+
+    private static final int FIRST_ROUND_NUMBER = 1;
+    private static final int SECOND_ROUND_NUMBER = 2;
+
+    private final AnimalRepository animalRepository;
+    private final UiTextRepository uiTextRepository;
+    private final FirstRoundLevelRepository firstRoundLevelRepository;
+    private final SecondRoundLevelRepository secondRoundLevelRepository;
+    private final ImageStorage imageStorage;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+    private final Logger log = LoggerFactory.getLogger(this.getClass());
+
+    public CatalogExportService(AnimalRepository animalRepository,
+                                UiTextRepository uiTextRepository,
+                                FirstRoundLevelRepository firstRoundLevelRepository,
+                                SecondRoundLevelRepository secondRoundLevelRepository,
+                                ImageStorage imageStorage,
+                                EntityManager entityManager,
+                                ObjectMapper objectMapper) {
+        this.animalRepository = animalRepository;
+        this.uiTextRepository = uiTextRepository;
+        this.firstRoundLevelRepository = firstRoundLevelRepository;
+        this.secondRoundLevelRepository = secondRoundLevelRepository;
+        this.imageStorage = imageStorage;
+        this.entityManager = entityManager;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Пишет выгрузку каталога в поток: сначала животные, затем тексты интерфейса, затем уровни по раундам.
+     * Поток не закрывается
+     *
+     * @param outputStream поток выгрузки
+     */
+    @Transactional(readOnly = true)
+    public void exportCatalog(OutputStream outputStream) throws IOException {
+        int count = 0;
+        try (SequenceWriter writer = objectMapper.writerFor(CatalogRecord.class)
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                .withRootValueSeparator("\n")
+                .writeValues(outputStream)) {
+
+            count += writeAnimals(writer);
+
+            try (Stream<UiText> uiTexts = uiTextRepository.streamAllWithTexts()) {
+                Iterator<UiText> iterator = uiTexts.iterator();
+                while (iterator.hasNext()) {
+                    UiText uiText = iterator.next();
+                    writer.write(new UiTextRecord(uiText.getTitle(), new HashMap<>(uiText.getTexts())));
+                    entityManager.detach(uiText);
+                    count++;
+                }
+            }
+
+            count += writeLevels(writer, FIRST_ROUND_NUMBER, firstRoundLevelRepository.streamAllWithAnimals());
+            count += writeLevels(writer, SECOND_ROUND_NUMBER, secondRoundLevelRepository.streamAllWithAnimals());
+        }
+
+        outputStream.write('\n');
+        outputStream.flush();
+        log.info("Выгружено записей каталога: {}", count);
+    }
+
+    /**
+     * Пишет картинки всех уровней в поток архивом tar, имя файла - хэш картинки.
+     * Поток не закрывается
+     *
+     * @param outputStream поток архива
+     */
+    @Transactional(readOnly = true)
+    public void exportImages(OutputStream outputStream) throws IOException {
+        Set<String> exportedHashes = new HashSet<>();
+        TarWriter tarWriter = new TarWriter(outputStream);
+
+        writeImages(tarWriter, firstRoundLevelRepository.streamImageHashes(), exportedHashes);
+        writeImages(tarWriter, secondRoundLevelRepository.streamImageHashes(), exportedHashes);
+
+        tarWriter.close();
+        log.info("Выгружено картинок: {}", exportedHashes.size());
+    }
+
+    /**
+     * Пишет животных. Названия загружаются вместе с животными, а описания - отдельным потоком строк проекции
+     * в том же порядке, поэтому на всех животных приходится два запроса, а строки запроса не умножаются
+     * на число языков, как при загрузке обеих коллекций одним запросом
+     */
+    private int writeAnimals(SequenceWriter writer) throws IOException {
+        int count = 0;
+        try (Stream<Animal> animals = animalRepository.streamAllWithNames();
+             Stream<AnimalDescription> descriptions = animalRepository.streamAllDescriptions()) {
+            Iterator<Animal> iterator = animals.iterator();
+            Iterator<AnimalDescription> descriptionIterator = descriptions.iterator();
+            AnimalDescription description = descriptionIterator.hasNext() ? descriptionIterator.next() : null;
+            while (iterator.hasNext()) {
+                Animal animal = iterator.next();
+                Map<Language, String> animalDescriptions = new HashMap<>();
+                // описания животных, удалённых между запросами, пропускаются
+                while (description != null && description.animalId() <= animal.getId()) {
+                    if (description.animalId().equals(animal.getId())) {
+                        animalDescriptions.put(description.language(), description.description());
+                    }
+                    description = descriptionIterator.hasNext() ? descriptionIterator.next() : null;
+                }
+
+                writer.write(new AnimalRecord(animal.getId(), new HashMap<>(animal.getNames()), animalDescriptions));
+                entityManager.detach(animal);
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private int writeLevels(SequenceWriter writer, int round, Stream<? extends Level> levels) throws IOException {
+        int count = 0;
+        try (levels) {
+            Iterator<? extends Level> iterator = levels.iterator();
+            while (iterator.hasNext()) {
+                Level level = iterator.next();
+                Long animalInQuestionId = level instanceof SecondRoundLevel secondRoundLevel
+                        ? secondRoundLevel.getAnimalInQuestion().getId()
+                        : null;
+
+                writer.write(new LevelRecord(round,
+                        level.getId(),
+                        level.getAnimals().stream().map(Animal::getId).collect(Collectors.toSet()),
+                        level.getCorrectAnimal().getId(),
+                        animalInQuestionId,
+                        level.getImageHash(),
+                        level.getImageSize(),
+                        level.getImageContentType(),
+                        level.getImageWidth(),
+                        level.getImageHeight(),
+                        level.getAnimalCoordinates()));
+                entityManager.detach(level);
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Пишет в архив картинки с ещё не записанными хэшами
+     *
+     * @param imageHashes хэши картинок уровней одного раунда
+     * @param exportedHashes хэши уже записанных картинок
+     */
+    private void writeImages(TarWriter tarWriter, Stream<String> imageHashes, Set<String> exportedHashes) throws IOException {
+        try (imageHashes) {
+            Iterator<String> iterator = imageHashes.iterator();
+            while (iterator.hasNext()) {
+                String imageHash = iterator.next();
+                if (exportedHashes.add(imageHash)) {
+                    writeImage(tarWriter, imageHash);
+                }
+            }
+        }
+    }
+
+    private void writeImage(TarWriter tarWriter, String imageHash) throws IOException {
+        Optional<Resource> image = imageStorage.find(imageHash);
+        if (image.isEmpty()) {
+            log.warn("Картинки {} нет в хранилище, она не попадёт в выгрузку", imageHash);
+            return;
+        }
+
+        try (InputStream imageStream = image.get().getInputStream()) {
+            tarWriter.writeEntry(imageHash, image.get().contentLength(), imageStream);
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.good.animalsgame.app.backup;
+
+import com.good.animalsgame.app.importing.LevelImportError;
+
+import java.util.List;
+
+/**
+ * Итог восстановления каталога из выгрузки
+ * @param created сколько записей создано
+ * @param skipped сколько записей пропущено, потому что они уже есть
+ * @param failed сколько записей не удалось восстановить
+ * @param errors ошибки первых невосстановленных записей, номер записи - номер строки выгрузки
+ */
+public record CatalogImportReport(int created, int skipped, int failed, List<LevelImportError> errors) {
+}
@@ -0,0 +1,376 @@
+package com.good.animalsgame.app.backup;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.RuntimeJsonMappingException;
+import com.good.animalsgame.app.importing.LevelImportError;
+import com.good.animalsgame.app.repository.AnimalRepository;
+import com.good.animalsgame.app.repository.FirstRoundLevelRepository;
+import com.good.animalsgame.app.repository.LevelRepository;
+import com.good.animalsgame.app.repository.SecondRoundLevelRepository;
+import com.good.animalsgame.app.repository.UiTextRepository;
+import com.good.animalsgame.app.service.AnimalService;
+import com.good.animalsgame.app.service.FirstRoundLevelService;
+import com.good.animalsgame.app.service.LevelService;
+import com.good.animalsgame.app.service.SecondRoundLevelService;
+import com.good.animalsgame.app.service.UiTextService;
+import com.good.animalsgame.app.storage.ImageStorage;
+import com.good.animalsgame.app.storage.StoredImage;
+import com.good.animalsgame.domain.Animal;
+import com.good.animalsgame.domain.AnimalNameKey;
+import com.good.animalsgame.domain.AnimalNameNormalizer;
+import com.good.animalsgame.domain.FirstRoundLevel;
+import com.good.animalsgame.domain.Level;
+import com.good.animalsgame.domain.LevelContentKey;
+import com.good.animalsgame.domain.SecondRoundLevel;
+import com.good.animalsgame.domain.UiText;
+import com.good.animalsgame.exception.EntityDuplicateException;
+import com.good.animalsgame.exception.EntityNotFoundException;
+import com.good.animalsgame.exception.IncorrectArchiveException;
+import com.good.animalsgame.exception.IncorrectLevelException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Восстановление каталога игры из выгрузки {@link CatalogExportService}.
+ * Восстановление идемпотентно: уже существующие записи пропускаются, поэтому выгрузку можно
+ * загружать повторно, в том числе после ошибки на середине. Животное считается существующим,
+ * если занято хоть одно его название, текст интерфейса - по названию, уровень - по картинке,
+ * верному животному и координатам животного в том же раунде.
+ * Выгрузка читается потоком по строке, уровни сохраняются пачками
+ */
+@Service
+public class CatalogImportService {
+
+    /**
+     * Сколько ошибок записей попадает в отчёт
+     */
+    private static final int MAX_REPORTED_ERRORS = 100;
+
+    private static final int FIRST_ROUND_NUMBER = 1;
+    private static final int SECOND_ROUND_NUMBER = 2;
+
+    private final AnimalService animalService;
+    private final AnimalRepository animalRepository;
+    private final UiTextService uiTextService;
+    private final UiTextRepository uiTextRepository;
+    private final FirstRoundLevelService firstRoundLevelService;
+    private final SecondRoundLevelService secondRoundLevelService;
+    private final FirstRoundLevelRepository firstRoundLevelRepository;
+    private final SecondRoundLevelRepository secondRoundLevelRepository;
+    private final ImageStorage imageStorage;
+    private final ObjectMapper objectMapper;
+    private final Logger log = LoggerFactory.getLogger(this.getClass());
+
+    /**
+     * Количество уровней одного раунда, сохраняемых в одной транзакции
+     */
+    private final int batchSize;
+
+    public CatalogImportService(AnimalService animalService,
+                                AnimalRepository animalRepository,
+                                UiTextService uiTextService,
+                                UiTextRepository uiTextRepository,
+                                FirstRoundLevelService firstRoundLevelService,
+                                SecondRoundLevelService secondRoundLevelService,
+                                FirstRoundLevelRepository firstRoundLevelRepository,
+                                SecondRoundLevelRepository secondRoundLevelRepository,
+                                ImageStorage imageStorage,
+                                ObjectMapper objectMapper,
+                                @Value("${levels.import.batch-size}") int batchSize) {
+        this.animalService = animalService;
+        this.animalRepository = animalRepository;
+        this.uiTextService = uiTextService;
+        this.uiTextRepository = uiTextRepository;
+        this.firstRoundLevelService = firstRoundLevelService;
+        this.secondRoundLevelService = secondRoundLevelService;
+        this.firstRoundLevelRepository = firstRoundLevelRepository;
+        this.secondRoundLevelRepository = secondRoundLevelRepository;
+        this.imageStorage = imageStorage;
+        this.objectMapper = objectMapper;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Восстанавливает каталог из выгрузки NDJSON.
+     * Картинки уровней должны быть восстановлены заранее через {@link #importImages(InputStream)}
+     *
+     * @param inputStream выгрузка
+     * @return отчёт о восстановлении
+     * @throws IncorrectArchiveException если строку выгрузки не удаётся разобрать.
+     *                                   Записи до неё, включая накопленные в пачки уровни, остаются восстановленными
+     */
+    public CatalogImportReport importCatalog(InputStream inputStream) throws IOException, IncorrectArchiveException {
+        Restore restore = new Restore();
+
+        try (MappingIterator<CatalogRecord> records = objectMapper.readerFor(CatalogRecord.class).readValues(inputStream)) {
+            while (true) {
+                CatalogRecord record;
+                try {
+                    if (!records.hasNextValue()) {
+                        break;
+                    }
+                    restore.number++;
+                    record = records.nextValue();
+                } catch (JsonProcessingException | RuntimeJsonMappingException e) {
+                    throw new IncorrectArchiveException(String.format("Некорректная запись %d выгрузки: %s", restore.number, e.getMessage()));
+                }
+
+                switch (record) {
+                    case AnimalRecord animalRecord -> restore.restoreAnimal(animalRecord);
+                    case UiTextRecord uiTextRecord -> restore.restoreUiText(uiTextRecord);
+                    case LevelRecord levelRecord -> restore.restoreLevel(levelRecord);
+                }
+            }
+        } finally {
+            // уровни до некорректной строки уже приняты: недописанные пачки сохраняются и при её отклонении
+            restore.firstRoundLevels.flush();
+            restore.secondRoundLevels.flush();
+        }
+
+        log.info("Каталог восстановлен: создано {}, пропущено {}, ошибок {}", restore.created, restore.skipped, restore.failed);
+        return new CatalogImportReport(restore.created, restore.skipped, restore.failed, List.copyOf(restore.errors));
+    }
+
+    /**
+     * Восстанавливает картинки из архива tar, выгруженного {@link CatalogExportService#exportImages}.
+     * Картинки, уже лежащие в хранилище, пропускаются
+     *
+     * @param inputStream архив tar
+     * @return отчёт о восстановлении, номер записи - номер файла в архиве
+     */
+    public CatalogImportReport importImages(InputStream inputStream) throws IOException {
+        TarReader tarReader = new TarReader(inputStream);
+        int number = 0;
+        int created = 0;
+        int skipped = 0;
+        List<LevelImportError> errors = new ArrayList<>();
+
+        TarReader.Entry entry;
+        while ((entry = tarReader.next()) != null) {
+            number++;
+            if (imageStorage.exists(entry.name())) {
+                skipped++;
+                continue;
+            }
+
+            // файл с неверным хэшем не сохраняется, чтобы не оставлять в хранилище картинку, на которую не ссылается ни один уровень
+            StoredImage storedImage = imageStorage.store(entry.content(), entry.name());
+            if (storedImage.hash().equals(entry.name())) {
+                created++;
+            } else if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(new LevelImportError(number, String.format("Хэш содержимого %s не совпадает с именем файла %s", storedImage.hash(), entry.name())));
+            }
+        }
+
+        log.info("Картинки восстановлены: создано {}, пропущено {}", created, skipped);
+        return new CatalogImportReport(created, skipped, number - created - skipped, List.copyOf(errors));
+    }
+
+    /**
+     * Состояние одного восстановления
+     */
+    private final class Restore {
+
+        /**
+         * Идентификатор животного в выгрузке -> идентификатор в этой БД
+         */
+        private final Map<Long, Long> animalIds = new HashMap<>();
+
+        /**
+         * Экземпляры животных для ссылок из уровней, по одному на животное,
+         * чтобы проверки уровня могли сравнивать их по ссылке
+         */
+        private final Map<Long, Animal> animalReferences = new HashMap<>();
+
+        private final List<LevelImportError> errors = new ArrayList<>();
+        private final LevelBatch<FirstRoundLevel> firstRoundLevels = new LevelBatch<>(this, firstRoundLevelService, firstRoundLevelRepository);
+        private final LevelBatch<SecondRoundLevel> secondRoundLevels = new LevelBatch<>(this, secondRoundLevelService, secondRoundLevelRepository);
+        private int number;
+        private int created;
+        private int skipped;
+        private int failed;
+
+        private void restoreAnimal(AnimalRecord record) {
+            if (record.id() == null || record.names() == null || record.names().isEmpty()) {
+                fail(number, "У животного должны быть идентификатор и хотя бы одно название");
+                return;
+            }
+
+            Set<String> nameKeys = record.names().values().stream()
+                    .map(AnimalNameNormalizer::normalize)
+                    .collect(Collectors.toSet());
+            List<AnimalNameKey> existing = animalRepository.findIdsByNameKeys(nameKeys);
+            if (!existing.isEmpty()) {
+                animalIds.put(record.id(), existing.get(0).animalId());
+                skipped++;
+                return;
+            }
+
+            Animal animal = Animal.builder()
+                    .names(new HashMap<>(record.names()))
+                    .descriptions(record.descriptions() == null ? new HashMap<>() : new HashMap<>(record.descriptions()))
+                    .build();
+            try {
+                animalService.createAnimal(animal);
+                animalIds.put(record.id(), animal.getId());
+                created++;
+            } catch (EntityDuplicateException e) {
+                fail(number, e.getMessage());
+            }
+        }
+
+        private void restoreUiText(UiTextRecord record) {
+            if (record.title() == null) {
+                fail(number, "У текста интерфейса должно быть название");
+                return;
+            }
+            if (uiTextRepository.existsByTitle(record.title())) {
+                skipped++;
+                return;
+            }
+
+            try {
+                uiTextService.createUiText(UiText.builder()
+                        .title(record.title())
+                        .texts(record.texts() == null ? new HashMap<>() : new HashMap<>(record.texts()))
+                        .build());
+                created++;
+            } catch (EntityDuplicateException e) {
+                fail(number, e.getMessage());
+            }
+        }
+
+        private void restoreLevel(LevelRecord record) {
+            try {
+                if (record.imageHash() == null || !imageStorage.exists(record.imageHash())) {
+                    throw new IncorrectLevelException(String.format("Картинки %s нет в хранилище, сначала восстановите картинки", record.imageHash()));
+                }
+
+                Set<Animal> animals = new HashSet<>();
+                if (record.animalIds() != null) {
+                    for (Long animalId : record.animalIds()) {
+                        animals.add(getAnimal(animalId));
+                    }
+                }
+                Animal correctAnimal = getAnimal(record.correctAnimalId());
+
+                if (record.round() == FIRST_ROUND_NUMBER) {
+                    firstRoundLevels.add(FirstRoundLevel.builder()
+                            .animals(animals)
+                            .correctAnimal(correctAnimal)
+                            .imageHash(record.imageHash())
+                            .imageSize(record.imageSize())
+                            .imageContentType(record.imageContentType())
+                            .imageWidth(record.imageWidth())
+                            .imageHeight(record.imageHeight())
+                            .animalCoordinates(record.animalCoordinates())
+                            .build());
+                } else if (record.round() == SECOND_ROUND_NUMBER) {
+                    secondRoundLevels.add(SecondRoundLevel.builder()
+                            .animals(animals)
+                            .correctAnimal(correctAnimal)
+                            .animalInQuestion(getAnimal(record.animalInQuestionId()))
+                            .imageHash(record.imageHash())
+                            .imageSize(record.imageSize())
+                            .imageContentType(record.imageContentType())
+                            .imageWidth(record.imageWidth())
+                            .imageHeight(record.imageHeight())
+                            .animalCoordinates(record.animalCoordinates())
+                            .build());
+                } else {
+                    throw new IncorrectLevelException("Номер раунда должен быть 1 или 2");
+                }
+            } catch (IncorrectLevelException | EntityNotFoundException e) {
+                fail(number, e.getMessage());
+            }
+        }
+
+        /**
+         * Возвращает ссылку на животное этой БД по идентификатору животного из выгрузки
+         */
+        private Animal getAnimal(Long exportedId) throws EntityNotFoundException {
+            Long animalId = animalIds.get(exportedId);
+            if (animalId == null) {
+                throw new EntityNotFoundException(String.format("Животное с id %s не найдено в выгрузке", exportedId));
+            }
+            return animalReferences.computeIfAbsent(animalId, id -> Animal.builder().id(id).build());
+        }
+
+        private void fail(int number, String error) {
+            failed++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(new LevelImportError(number, error));
+            }
+        }
+    }
+
+    /**
+     * Пачка уровней одного раунда. Перед сохранением уровни пачки, уже существующие в БД
+     * или повторяющиеся в самой выгрузке, отбрасываются по ключу содержимого одним запросом на пачку
+     */
+    private final class LevelBatch<T extends Level> {
+
+        private final Restore restore;
+        private final LevelService<T, ?> levelService;
+        private final LevelRepository<T, Long> levelRepository;
+        private final Map<LevelContentKey, T> levels = new HashMap<>();
+
+        private LevelBatch(Restore restore, LevelService<T, ?> levelService, LevelRepository<T, Long> levelRepository) {
+            this.restore = restore;
+            this.levelService = levelService;
+            this.levelRepository = levelRepository;
+        }
+
+        private void add(T level) throws IncorrectLevelException {
+            levelService.validateLevel(level);
+
+            LevelContentKey contentKey = new LevelContentKey(level.getImageHash(), level.getCorrectAnimal().getId(), level.getAnimalCoordinates());
+            if (levels.putIfAbsent(contentKey, level) != null) {
+                restore.skipped++;
+                return;
+            }
+
+            if (levels.size() >= batchSize) {
+                flush();
+            }
+        }
+
+        private void flush() {
+            if (levels.isEmpty()) {
+                return;
+            }
+
+            Set<String> imageHashes = levels.keySet().stream()
+                    .map(LevelContentKey::imageHash)
+                    .collect(Collectors.toSet());
+            for (LevelContentKey existingKey : levelRepository.findContentKeysByImageHashIn(imageHashes)) {
+                if (levels.remove(existingKey) != null) {
+                    restore.skipped++;
+                }
+            }
+
+            if (!levels.isEmpty()) {
+                try {
+                    restore.created += levelService.createLevels(new ArrayList<>(levels.values())).size();
+                } catch (IncorrectLevelException e) {
+                    throw new IllegalStateException("Проверенный уровень не прошёл проверку при сохранении", e);
+                }
+            }
+            levels.clear();
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.good.animalsgame.app.backup;
+
+import com.fasterxml.jackson.annotation.JsonSubTypes;
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+
+/**
+ * Строка выгрузки каталога игры в формате NDJSON - животное, текст интерфейса или уровень.
+ * Тип строки записывается в поле type
+ */
+@JsonTypeInfo(use = JsonTypeInfo.Id.NAME, property = "type")
+@JsonSubTypes({
+        @JsonSubTypes.Type(value = AnimalRecord.class, name = "animal"),
+        @JsonSubTypes.Type(value = UiTextRecord.class, name = "uiText"),
+        @JsonSubTypes.Type(value = LevelRecord.class, name = "level")
+})
+public sealed interface CatalogRecord permits AnimalRecord, UiTextRecord, LevelRecord {
+}
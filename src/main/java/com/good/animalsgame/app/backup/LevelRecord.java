@@ -0,0 +1,33 @@
+package com.good.animalsgame.app.backup;
+
+import com.good.animalsgame.domain.Coordinates;
+
+import java.util.Set;
+
+/**
+ * Уровень в выгрузке каталога. Животные указываются идентификаторами из строк животных той же выгрузки,
+ * картинка - хэшем в хранилище картинок
+ * @param round номер раунда
+ * @param id идентификатор уровня в выгружаемой БД
+ * @param animalIds животные списка уровня
+ * @param correctAnimalId верное животное
+ * @param animalInQuestionId животное в вопросе, только для 2 раунда
+ * @param imageHash SHA-256 картинки
+ * @param imageSize размер картинки в байтах
+ * @param imageContentType MIME-тип картинки
+ * @param imageWidth ширина картинки
+ * @param imageHeight высота картинки
+ * @param animalCoordinates координаты животного на картинке
+ */
+public record LevelRecord(int round,
+                          Long id,
+                          Set<Long> animalIds,
+                          Long correctAnimalId,
+                          Long animalInQuestionId,
+                          String imageHash,
+                          Long imageSize,
+                          String imageContentType,
+                          Integer imageWidth,
+                          Integer imageHeight,
+                          Coordinates animalCoordinates) implements CatalogRecord {
+}
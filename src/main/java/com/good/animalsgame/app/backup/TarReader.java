@@ -0,0 +1,149 @@
+package com.good.animalsgame.app.backup;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Чтение архива tar потоком. Возвращаются только обычные файлы, остальные записи пропускаются
+ */
+class TarReader {
+
+    private final InputStream inputStream;
+
+    /**
+     * Содержимое текущего файла
+     */
+    private BoundedInputStream current;
+
+    /**
+     * Выравнивание текущего файла до целого блока
+     */
+    private long padding;
+
+    TarReader(InputStream inputStream) {
+        this.inputStream = inputStream;
+    }
+
+    /**
+     * Переходит к следующему обычному файлу архива
+     *
+     * @return файл или null, если архив закончился
+     * @throws IOException если архив повреждён
+     */
+    Entry next() throws IOException {
+        if (current != null) {
+            inputStream.skipNBytes(current.left + padding);
+            current = null;
+        }
+
+        while (true) {
+            byte[] header = inputStream.readNBytes(TarWriter.BLOCK_SIZE);
+            if (header.length < TarWriter.BLOCK_SIZE || isZeroBlock(header)) {
+                return null;
+            }
+
+            String name = readString(header, 0, 100);
+            long size = readOctal(header, 124, 12);
+            long padded = (size + TarWriter.BLOCK_SIZE - 1) / TarWriter.BLOCK_SIZE * TarWriter.BLOCK_SIZE;
+            byte type = header[156];
+
+            if (type == '0' || type == 0) {
+                current = new BoundedInputStream(inputStream, size);
+                padding = padded - size;
+                return new Entry(name, size, current);
+            }
+            inputStream.skipNBytes(padded);
+        }
+    }
+
+    private static boolean isZeroBlock(byte[] block) {
+        for (byte b : block) {
+            if (b != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String readString(byte[] header, int offset, int length) {
+        int end = offset;
+        while (end < offset + length && header[end] != 0) {
+            end++;
+        }
+        return new String(header, offset, end - offset, StandardCharsets.UTF_8);
+    }
+
+    private static long readOctal(byte[] header, int offset, int length) throws IOException {
+        String value = readString(header, offset, length).trim();
+        try {
+            return value.isEmpty() ? 0 : Long.parseLong(value, 8);
+        } catch (NumberFormatException e) {
+            throw new IOException("Повреждён заголовок архива tar");
+        }
+    }
+
+    /**
+     * Файл архива
+     * @param name имя
+     * @param size размер содержимого
+     * @param content содержимое, действительно до перехода к следующему файлу
+     */
+    record Entry(String name, long size, InputStream content) {
+    }
+
+    /**
+     * Поток содержимого одного файла: отдаёт не больше size байт и не закрывает архив
+     */
+    private static final class BoundedInputStream extends FilterInputStream {
+
+        private long left;
+
+        private BoundedInputStream(InputStream inputStream, long size) {
+            super(inputStream);
+            this.left = size;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (left <= 0) {
+                return -1;
+            }
+            int b = super.read();
+            if (b >= 0) {
+                left--;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            if (left <= 0) {
+                return -1;
+            }
+            int read = super.read(buffer, offset, (int) Math.min(length, left));
+            if (read > 0) {
+                left -= read;
+            }
+            return read;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(Math.min(n, left));
+            left -= skipped;
+            return skipped;
+        }
+
+        @Override
+        public int available() throws IOException {
+            return (int) Math.min(super.available(), left);
+        }
+
+        @Override
+        public void close() {
+            // архив закрывает владелец потока
+        }
+    }
+}
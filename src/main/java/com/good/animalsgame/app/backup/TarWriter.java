@@ -0,0 +1,87 @@
+package com.good.animalsgame.app.backup;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Запись архива tar (формат ustar) потоком: только обычные файлы с именем до 100 байт
+ */
+class TarWriter implements Closeable {
+
+    static final int BLOCK_SIZE = 512;
+
+    private final OutputStream outputStream;
+
+    TarWriter(OutputStream outputStream) {
+        this.outputStream = outputStream;
+    }
+
+    /**
+     * Записывает файл архива, копируя содержимое потоком
+     *
+     * @param name имя файла
+     * @param size размер содержимого
+     * @param content содержимое, читается ровно size байт
+     */
+    void writeEntry(String name, long size, InputStream content) throws IOException {
+        outputStream.write(header(name, size));
+
+        long copied = content.transferTo(outputStream);
+        if (copied != size) {
+            throw new IOException(String.format("Размер файла %s изменился при записи: %d вместо %d", name, copied, size));
+        }
+
+        int padding = (int) ((BLOCK_SIZE - size % BLOCK_SIZE) % BLOCK_SIZE);
+        outputStream.write(new byte[padding]);
+    }
+
+    /**
+     * Дописывает два пустых блока конца архива, сам поток не закрывается
+     */
+    @Override
+    public void close() throws IOException {
+        outputStream.write(new byte[2 * BLOCK_SIZE]);
+        outputStream.flush();
+    }
+
+    private static byte[] header(String name, long size) {
+        byte[] header = new byte[BLOCK_SIZE];
+        byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+        if (nameBytes.length > 100) {
+            throw new IllegalArgumentException(String.format("Имя файла %s длиннее 100 байт", name));
+        }
+
+        System.arraycopy(nameBytes, 0, header, 0, nameBytes.length);
+        putOctal(header, 100, 8, 0644);
+        putOctal(header, 108, 8, 0);
+        putOctal(header, 116, 8, 0);
+        putOctal(header, 124, 12, size);
+        putOctal(header, 136, 12, System.currentTimeMillis() / 1000);
+        header[156] = '0';
+        System.arraycopy(("ustar" + '\0' + "00").getBytes(StandardCharsets.US_ASCII), 0, header, 257, 8);
+
+        // контрольная сумма считается с полем суммы, заполненным пробелами
+        for (int i = 148; i < 156; i++) {
+            header[i] = ' ';
+        }
+        long checksum = 0;
+        for (byte b : header) {
+            checksum += b & 0xFF;
+        }
+        putOctal(header, 148, 7, checksum);
+
+        return header;
+    }
+
+    /**
+     * Записывает число восьмеричными цифрами с ведущими нулями и завершающим нулевым байтом
+     */
+    private static void putOctal(byte[] header, int offset, int length, long value) {
+        String octal = String.format("%0" + (length - 1) + "o", value);
+        System.arraycopy(octal.getBytes(StandardCharsets.US_ASCII), 0, header, offset, length - 1);
+        header[offset + length - 1] = 0;
+    }
+}
@@ -0,0 +1,13 @@
+package com.good.animalsgame.app.backup;
+
+import com.good.animalsgame.domain.Language;
+
+import java.util.Map;
+
+/**
+ * Текст интерфейса в выгрузке каталога
+ * @param title название текста
+ * @param texts тексты по языкам
+ */
+public record UiTextRecord(String title, Map<Language, String> texts) implements CatalogRecord {
+}
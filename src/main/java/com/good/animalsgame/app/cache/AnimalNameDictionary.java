@@ -0,0 +1,148 @@
+package com.good.animalsgame.app.cache;
+
+import com.good.animalsgame.app.event.AnimalsChangedEvent;
+import com.good.animalsgame.app.localization.LanguageFallbacks;
+import com.good.animalsgame.app.repository.AnimalRepository;
+import com.good.animalsgame.domain.Language;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Общий словарь названий животных на всех языках.
+ * Позволяет получать название животного по идентификатору и идентификатор по названию без обращения к БД.
+ * Названия выдаются с учётом цепочек запасных языков {@link LanguageFallbacks}, раскрытых при построении словаря.
+ * Словарь строится при старте приложения одним запросом и перестраивается
+ * при следующем обращении после фиксации транзакции, изменившей названия животных.
+ */
+@Component
+public class AnimalNameDictionary {
+
+    private final AnimalRepository animalRepository;
+    private final LanguageFallbacks languageFallbacks;
+    private final Logger log = LoggerFactory.getLogger(this.getClass());
+
+    /**
+     * Минимальная версия, которой должен соответствовать актуальный снимок
+     */
+    private final AtomicLong requiredVersion = new AtomicLong(1);
+
+    private final ReentrantLock loadLock = new ReentrantLock();
+
+    private volatile AnimalNamesSnapshot snapshot;
+
+    public AnimalNameDictionary(AnimalRepository animalRepository, LanguageFallbacks languageFallbacks) {
+        this.animalRepository = animalRepository;
+        this.languageFallbacks = languageFallbacks;
+    }
+
+    /**
+     * Проверяет, есть ли животное в словаре
+     *
+     * @param animalId идентификатор животного
+     */
+    public boolean contains(long animalId) {
+        return getSnapshot().contains(animalId);
+    }
+
+    /**
+     * Возвращает название животного на языке, а если его нет - на первом доступном языке цепочки запасных
+     *
+     * @param animalId идентификатор животного
+     * @param language язык
+     * @return название или null, если животного нет или у него нет ни одного названия
+     */
+    public String getName(long animalId, Language language) {
+        return getSnapshot().getName(animalId, language);
+    }
+
+    /**
+     * Возвращает названия нескольких животных на языке из одного снимка словаря
+     *
+     * @param animalIds идентификаторы животных
+     * @param language  язык
+     * @return идентификатор -> название, животных без названий в результате нет
+     */
+    public Map<Long, String> getNames(Collection<Long> animalIds, Language language) {
+        AnimalNamesSnapshot current = getSnapshot();
+        Map<Long, String> names = new HashMap<>(animalIds.size() * 2);
+        for (Long animalId : animalIds) {
+            String name = current.getName(animalId, language);
+            if (name != null) {
+                names.put(animalId, name);
+            }
+        }
+        return names;
+    }
+
+    /**
+     * Ищет идентификатор животного по названию на любом языке, без учёта регистра
+     *
+     * @param name название
+     * @return идентификатор или null, если животного с таким названием нет
+     */
+    public Long findAnimalId(String name) {
+        return getSnapshot().findAnimalId(name);
+    }
+
+    /**
+     * Помечает словарь устаревшим, он будет перестроен при следующем обращении
+     */
+    public void invalidate() {
+        requiredVersion.incrementAndGet();
+    }
+
+    /**
+     * Строит словарь при старте приложения, чтобы первые запросы не ждали загрузки
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    void warmUp() {
+        getSnapshot();
+    }
+
+    /**
+     * Сбрасывает словарь после фиксации транзакции, изменившей названия животных
+     *
+     * @param event событие изменения животных
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    void onAnimalsChanged(AnimalsChangedEvent event) {
+        invalidate();
+    }
+
+    private AnimalNamesSnapshot getSnapshot() {
+        AnimalNamesSnapshot current = snapshot;
+        if (isActual(current)) {
+            return current;
+        }
+
+        loadLock.lock();
+        try {
+            current = snapshot;
+            if (isActual(current)) {
+                return current;
+            }
+
+            long version = requiredVersion.get();
+            current = AnimalNamesSnapshot.of(version, animalRepository.findAllNames(), languageFallbacks);
+            snapshot = current;
+            log.info("Загружен словарь названий животных версии {}, животных: {}", version, current.size());
+            return current;
+        } finally {
+            loadLock.unlock();
+        }
+    }
+
+    private boolean isActual(AnimalNamesSnapshot current) {
+        return current != null && current.version() >= requiredVersion.get();
+    }
+}
@@ -0,0 +1,110 @@
+package com.good.animalsgame.app.cache;
+
+import com.good.animalsgame.app.localization.LanguageFallbacks;
+import com.good.animalsgame.domain.AnimalName;
+import com.good.animalsgame.domain.AnimalNameNormalizer;
+import com.good.animalsgame.domain.Language;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Неизменяемый снимок названий животных.
+ * Идентификаторы хранятся отсортированным массивом примитивов, а названия - параллельными
+ * массивами по каждому языку, поэтому поиск названия - это двоичный поиск без упаковки ключей.
+ * Массивы уже разложены по цепочкам запасных языков: если у животного нет названия на языке,
+ * на его месте лежит название на первом доступном языке цепочки.
+ * Обратный поиск идентификатора по названию идёт по нормализованным названиям
+ */
+final class AnimalNamesSnapshot {
+
+    /**
+     * Версия снимка
+     */
+    private final long version;
+
+    /**
+     * Отсортированные идентификаторы животных
+     */
+    private final long[] animalIds;
+
+    /**
+     * Язык -> названия животных в порядке {@link #animalIds} с учётом запасных языков
+     */
+    private final Map<Language, String[]> names;
+
+    /**
+     * Нормализованное название на любом языке -> идентификатор животного
+     */
+    private final Map<String, Long> animalIdsByName;
+
+    private AnimalNamesSnapshot(long version, long[] animalIds, Map<Language, String[]> names, Map<String, Long> animalIdsByName) {
+        this.version = version;
+        this.animalIds = animalIds;
+        this.names = names;
+        this.animalIdsByName = animalIdsByName;
+    }
+
+    /**
+     * Строит снимок из строк проекции
+     *
+     * @param version     версия снимка
+     * @param animalNames названия животных
+     * @param fallbacks   цепочки запасных языков
+     */
+    static AnimalNamesSnapshot of(long version, List<AnimalName> animalNames, LanguageFallbacks fallbacks) {
+        long[] animalIds = animalNames.stream()
+                .mapToLong(AnimalName::animalId)
+                .sorted()
+                .distinct()
+                .toArray();
+
+        Map<Language, String[]> names = new EnumMap<>(Language.class);
+        Map<String, Long> animalIdsByName = new HashMap<>();
+        for (AnimalName animalName : animalNames) {
+            String[] languageNames = names.computeIfAbsent(animalName.language(), language -> new String[animalIds.length]);
+            languageNames[Arrays.binarySearch(animalIds, animalName.animalId())] = animalName.name();
+            animalIdsByName.putIfAbsent(AnimalNameNormalizer.normalize(animalName.name()), animalName.animalId());
+        }
+
+        return new AnimalNamesSnapshot(version, animalIds, fallbacks.flatten(names, animalIds.length), animalIdsByName);
+    }
+
+    long version() {
+        return version;
+    }
+
+    int size() {
+        return animalIds.length;
+    }
+
+    boolean contains(long animalId) {
+        return Arrays.binarySearch(animalIds, animalId) >= 0;
+    }
+
+    /**
+     * Возвращает название животного на языке или на первом доступном языке цепочки запасных
+     *
+     * @return название или null, если нет животного или у него нет ни одного названия
+     */
+    String getName(long animalId, Language language) {
+        int index = Arrays.binarySearch(animalIds, animalId);
+        if (index < 0) {
+            return null;
+        }
+
+        return names.get(language)[index];
+    }
+
+    /**
+     * Ищет идентификатор животного по названию на любом языке
+     *
+     * @return идентификатор или null, если животного с таким названием нет
+     */
+    Long findAnimalId(String name) {
+        return animalIdsByName.get(AnimalNameNormalizer.normalize(name));
+    }
+}
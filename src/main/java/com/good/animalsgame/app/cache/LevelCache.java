@@ -0,0 +1,178 @@
+package com.good.animalsgame.app.cache;
+
+import com.good.animalsgame.app.event.AnimalsChangedEvent;
+import com.good.animalsgame.app.event.LevelImagesProcessedEvent;
+import com.good.animalsgame.app.event.LevelsChangedEvent;
+import com.good.animalsgame.domain.Level;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+
+/**
+ * Кэш уровней со списками животных для игровых эндпоинтов чтения.
+ * Уровень загружается из БД один раз и дальше выдаётся из памяти, поэтому выдача случайного уровня,
+ * набора уровней и уровня по id не занимает соединение с БД, и число одновременных игроков
+ * не ограничено пулом соединений.
+ * Включается настройкой game.reads.level-cache.enabled (профиль game-reads), выключенный кэш
+ * передаёт все обращения в БД.
+ * Уровни не изменяются после создания, поэтому кэш раунда сбрасывается целиком после создания
+ * или удаления уровня, после изменения животных и после сохранения заглушек картинок.
+ * Уровни в кэше отсоединены от сессии Hibernate и используются только для чтения
+ */
+@Component
+public class LevelCache {
+
+    private final boolean enabled;
+
+    /**
+     * Максимальное количество уровней в кэше одного раунда, при превышении вытесняются давно не запрошенные
+     */
+    private final int maxSize;
+
+    /**
+     * Номер раунда -> уровни раунда. При сбросе заменяется новым объектом, поэтому уровни,
+     * прочитанные до сброса, попадают в уже отброшенный объект
+     */
+    private final ConcurrentMap<Integer, RoundLevels> rounds = new ConcurrentHashMap<>();
+
+    public LevelCache(@Value("${game.reads.level-cache.enabled:false}") boolean enabled,
+                      @Value("${game.reads.level-cache.max-size:10000}") int maxSize) {
+        this.enabled = enabled;
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Возвращает уровень из кэша или загружает его
+     *
+     * @param round   номер раунда
+     * @param levelId идентификатор уровня
+     * @param loader  загрузка уровня со списком животных из БД
+     */
+    @SuppressWarnings("unchecked")
+    public <T extends Level> Optional<T> getLevel(int round, long levelId, Function<Long, Optional<T>> loader) {
+        if (!enabled) {
+            return loader.apply(levelId);
+        }
+
+        RoundLevels roundLevels = getRoundLevels(round);
+        Level cached = roundLevels.get(levelId);
+        if (cached != null) {
+            return Optional.of((T) cached);
+        }
+
+        Optional<T> loaded = loader.apply(levelId);
+        loaded.ifPresent(roundLevels::put);
+        return loaded;
+    }
+
+    /**
+     * Возвращает несколько уровней из кэша, недостающие загружаются одним обращением к БД.
+     * Уровни, которых нет и в БД, пропускаются, порядок результата не гарантируется
+     *
+     * @param round    номер раунда
+     * @param levelIds идентификаторы уровней
+     * @param loader   загрузка уровней со списками животных из БД
+     */
+    @SuppressWarnings("unchecked")
+    public <T extends Level> List<T> getLevels(int round, Collection<Long> levelIds, Function<Collection<Long>, List<T>> loader) {
+        if (!enabled) {
+            return loader.apply(levelIds);
+        }
+
+        RoundLevels roundLevels = getRoundLevels(round);
+        List<T> levels = new ArrayList<>(levelIds.size());
+        List<Long> missingIds = new ArrayList<>();
+        for (Long levelId : levelIds) {
+            Level cached = roundLevels.get(levelId);
+            if (cached != null) {
+                levels.add((T) cached);
+            } else {
+                missingIds.add(levelId);
+            }
+        }
+
+        if (!missingIds.isEmpty()) {
+            for (T level : loader.apply(missingIds)) {
+                roundLevels.put(level);
+                levels.add(level);
+            }
+        }
+        return levels;
+    }
+
+    /**
+     * Сбрасывает кэш раунда
+     *
+     * @param round номер раунда
+     */
+    public void invalidate(int round) {
+        rounds.remove(round);
+    }
+
+    /**
+     * Сбрасывает кэш раунда после фиксации транзакции, изменившей уровни
+     *
+     * @param event событие изменения уровней
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    void onLevelsChanged(LevelsChangedEvent event) {
+        invalidate(event.round());
+    }
+
+    /**
+     * Сбрасывает кэш раунда после сохранения результатов фоновой обработки картинок его уровней
+     *
+     * @param event событие обработки картинок
+     */
+    @EventListener
+    void onImagesProcessed(LevelImagesProcessedEvent event) {
+        invalidate(event.round());
+    }
+
+    /**
+     * Сбрасывает кэш всех раундов после фиксации транзакции, изменившей животных:
+     * удаление животного меняет списки животных уровней
+     *
+     * @param event событие изменения животных
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    void onAnimalsChanged(AnimalsChangedEvent event) {
+        rounds.clear();
+    }
+
+    private RoundLevels getRoundLevels(int round) {
+        return rounds.computeIfAbsent(round, key -> new RoundLevels());
+    }
+
+    /**
+     * Уровни одного раунда в порядке обращений. Доступ под блокировкой самого объекта
+     */
+    private final class RoundLevels {
+
+        private final LinkedHashMap<Long, Level> levels = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Level> eldest) {
+                return size() > maxSize;
+            }
+        };
+
+        private synchronized Level get(long levelId) {
+            return levels.get(levelId);
+        }
+
+        private synchronized void put(Level level) {
+            levels.putIfAbsent(level.getId(), level);
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.good.animalsgame.app.cache;
+
+import com.good.animalsgame.app.event.LevelsChangedEvent;
+import com.good.animalsgame.app.repository.LevelRepository;
+import com.good.animalsgame.exception.NoSuchRoundException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Общий для всех сессий каталог уровней.
+ * Хранит для каждого раунда версионированный неизменяемый снимок идентификаторов уровней
+ * и их ключей ответов, который перечитывается из БД только после изменения уровней раунда.
+ * Одновременные загрузки одного раунда объединяются в один запрос.
+ */
+@Component
+public class LevelCatalog {
+
+    /**
+     * Номер раунда -> каталог раунда
+     */
+    private final Map<Integer, RoundCatalog> roundCatalogs = new HashMap<>();
+    private final Logger log = LoggerFactory.getLogger(this.getClass());
+
+    /**
+     * @param levelRepositories номер раунда в виде строки (из имени бина) -> репозиторий
+     */
+    public LevelCatalog(Map<String, LevelRepository<?, ?>> levelRepositories) {
+        levelRepositories.forEach((roundKey, levelRepository) ->
+                roundCatalogs.put(Integer.parseInt(roundKey), new RoundCatalog(Integer.parseInt(roundKey), levelRepository)));
+    }
+
+    /**
+     * Возвращает номера всех раундов
+     */
+    public Set<Integer> getRounds() {
+        return roundCatalogs.keySet();
+    }
+
+    /**
+     * Возвращает актуальный снимок уровней раунда, при необходимости загружая его
+     *
+     * @param round номер раунда
+     * @throws NoSuchRoundException если раунд не найден
+     */
+    public LevelCatalogSnapshot getSnapshot(int round) throws NoSuchRoundException {
+        RoundCatalog roundCatalog = roundCatalogs.get(round);
+        if (roundCatalog != null) {
+            return roundCatalog.getSnapshot();
+        } else {
+            throw new NoSuchRoundException(String.format("Не найден раунд %d!", round));
+        }
+    }
+
+    /**
+     * Помечает снимок раунда устаревшим, он будет перечитан при следующем обращении
+     *
+     * @param round номер раунда
+     */
+    public void invalidate(int round) {
+        RoundCatalog roundCatalog = roundCatalogs.get(round);
+        if (roundCatalog != null) {
+            roundCatalog.invalidate();
+        }
+    }
+
+    /**
+     * Сбрасывает снимок раунда после фиксации транзакции, изменившей уровни
+     *
+     * @param event событие изменения уровней
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    void onLevelsChanged(LevelsChangedEvent event) {
+        invalidate(event.round());
+    }
+
+    /**
+     * Каталог одного раунда
+     */
+    private final class RoundCatalog {
+
+        private final int round;
+        private final LevelRepository<?, ?> levelRepository;
+
+        /**
+         * Минимальная версия, которой должен соответствовать актуальный снимок
+         */
+        private final AtomicLong requiredVersion = new AtomicLong(1);
+
+        private final ReentrantLock loadLock = new ReentrantLock();
+
+        private volatile LevelCatalogSnapshot snapshot;
+
+        private RoundCatalog(int round, LevelRepository<?, ?> levelRepository) {
+            this.round = round;
+            this.levelRepository = levelRepository;
+        }
+
+        private LevelCatalogSnapshot getSnapshot() {
+            LevelCatalogSnapshot current = snapshot;
+            if (isActual(current)) {
+                return current;
+            }
+
+            loadLock.lock();
+            try {
+                current = snapshot;
+                if (isActual(current)) {
+                    return current;
+                }
+
+                long version = requiredVersion.get();
+                current = LevelCatalogSnapshot.of(version, levelRepository.findAnswerKeys());
+                snapshot = current;
+                log.info("Загружен снимок уровней раунда {} версии {}, уровней: {}", round, version, current.size());
+                return current;
+            } finally {
+                loadLock.unlock();
+            }
+        }
+
+        private boolean isActual(LevelCatalogSnapshot current) {
+            return current != null && current.version() >= requiredVersion.get();
+        }
+
+        private void invalidate() {
+            requiredVersion.incrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.good.animalsgame.app.cache;
+
+import com.good.animalsgame.domain.LevelAnswerKey;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Неизменяемый снимок уровней раунда: отсортированные идентификаторы уровней
+ * и параллельные им массивы ключей ответов.
+ * Массивы разделяются всеми сессиями и не должны изменяться
+ * @param version версия снимка
+ * @param levelIds отсортированные идентификаторы уровней
+ * @param correctAnimalIds идентификаторы верных животных в порядке levelIds
+ * @param animalInQuestionIds идентификаторы животных в вопросе в порядке levelIds, null для раунда без вопроса
+ */
+public record LevelCatalogSnapshot(long version, long[] levelIds, long[] correctAnimalIds, long[] animalInQuestionIds) {
+
+    /**
+     * Строит снимок из ключей ответов уровней
+     *
+     * @param version    версия снимка
+     * @param answerKeys ключи ответов уровней
+     */
+    public static LevelCatalogSnapshot of(long version, List<LevelAnswerKey> answerKeys) {
+        List<LevelAnswerKey> sortedKeys = answerKeys.stream()
+                .sorted((first, second) -> Long.compare(first.levelId(), second.levelId()))
+                .toList();
+        boolean withQuestion = sortedKeys.stream().anyMatch(answerKey -> answerKey.animalInQuestionId() != null);
+
+        long[] levelIds = new long[sortedKeys.size()];
+        long[] correctAnimalIds = new long[sortedKeys.size()];
+        long[] animalInQuestionIds = withQuestion ? new long[sortedKeys.size()] : null;
+        for (int i = 0; i < levelIds.length; i++) {
+            LevelAnswerKey answerKey = sortedKeys.get(i);
+            levelIds[i] = answerKey.levelId();
+            correctAnimalIds[i] = answerKey.correctAnimalId();
+            if (withQuestion) {
+                animalInQuestionIds[i] = answerKey.animalInQuestionId();
+            }
+        }
+
+        return new LevelCatalogSnapshot(version, levelIds, correctAnimalIds, animalInQuestionIds);
+    }
+
+    /**
+     * Количество уровней в снимке
+     */
+    public int size() {
+        return levelIds.length;
+    }
+
+    /**
+     * Возвращает ключ ответа уровня за O(log n) без обращения к БД
+     *
+     * @param levelId идентификатор уровня
+     * @return ключ ответа или null, если уровня нет в снимке
+     */
+    public LevelAnswerKey findAnswerKey(long levelId) {
+        int index = Arrays.binarySearch(levelIds, levelId);
+        if (index < 0) {
+            return null;
+        }
+
+        return animalInQuestionIds != null
+                ? new LevelAnswerKey(levelId, correctAnimalIds[index], animalInQuestionIds[index])
+                : new LevelAnswerKey(levelId, correctAnimalIds[index]);
+    }
+}
@@ -0,0 +1,75 @@
+package com.good.animalsgame.app.cache;
+
+/**
+ * Псевдослучайная перестановка индексов [0, size), задаваемая ключом (seed).
+ * Построена на сбалансированной сети Фейстеля с cycle-walking, поэтому
+ * для выдачи уровней без повторений достаточно хранить только ключ и курсор,
+ * а не весь перемешанный список.
+ */
+final class LevelPermutation {
+
+    /**
+     * Количество раундов сети Фейстеля
+     */
+    private static final int ROUNDS = 4;
+
+    /**
+     * Константа золотого сечения для генерации ключей раундов
+     */
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    private LevelPermutation() {
+    }
+
+    /**
+     * Возвращает индекс, в который перестановка переводит позицию.
+     * Для фиксированных seed и size отображение взаимно однозначно на [0, size)
+     *
+     * @param seed     ключ перестановки
+     * @param size     размер множества индексов
+     * @param position позиция в перестановке (0 <= position < size)
+     */
+    static int indexAt(long seed, int size, int position) {
+        if (position < 0 || position >= size) {
+            throw new IndexOutOfBoundsException(String.format("Позиция %d вне диапазона [0, %d)", position, size));
+        }
+        if (size == 1) {
+            return 0;
+        }
+
+        int halfBits = (Integer.SIZE - Integer.numberOfLeadingZeros(size - 1) + 1) / 2;
+        long mask = (1L << halfBits) - 1;
+
+        long value = position;
+        do {
+            value = encrypt(seed, value, halfBits, mask);
+        } while (value >= size);
+
+        return (int) value;
+    }
+
+    /**
+     * Один проход сети Фейстеля по домену [0, 2^(2 * halfBits))
+     */
+    private static long encrypt(long seed, long value, int halfBits, long mask) {
+        long left = value >>> halfBits;
+        long right = value & mask;
+
+        for (int round = 0; round < ROUNDS; round++) {
+            long next = left ^ (mix(right ^ mix(seed + round * GOLDEN_GAMMA)) & mask);
+            left = right;
+            right = next;
+        }
+
+        return (left << halfBits) | right;
+    }
+
+    /**
+     * Финализатор SplitMix64
+     */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
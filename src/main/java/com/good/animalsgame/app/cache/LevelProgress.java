@@ -0,0 +1,39 @@
+package com.good.animalsgame.app.cache;
+
+import com.good.animalsgame.exception.NoLevelsLeftException;
+import com.good.animalsgame.exception.NoSuchRoundException;
+
+/**
+ * Прогресс игрока по раундам: какие уровни ему уже выданы.
+ * Реализация выбирается настройкой game.progress.mode: session - состояние в HTTP-сессии ({@link LevelsSessionCache}),
+ * token - состояние в подписанном токене, который клиент присылает с каждым запросом.
+ * При включённой истории игроков (game.history.enabled=true) выбранная реализация используется
+ * для запросов без идентификатора игрока
+ */
+public interface LevelProgress {
+
+    /**
+     * Квалификатор реализации, выбранной настройкой game.progress.mode
+     */
+    String MODE_QUALIFIER = "modeLevelProgress";
+
+    /**
+     * Выдаёт айди следующего ещё не выданного уровня раунда
+     *
+     * @param round номер раунда
+     * @throws NoSuchRoundException  если раунд не найден
+     * @throws NoLevelsLeftException если все уровни раунда уже выданы
+     */
+    long drawLevelId(int round) throws NoSuchRoundException, NoLevelsLeftException;
+
+    /**
+     * Выдаёт айди нескольких следующих ещё не выданных уровней раунда.
+     * Если уровней осталось меньше запрошенного, выдаются все оставшиеся
+     *
+     * @param round номер раунда
+     * @param count сколько уровней выдать
+     * @throws NoSuchRoundException  если раунд не найден
+     * @throws NoLevelsLeftException если все уровни раунда уже выданы
+     */
+    long[] drawLevelIds(int round, int count) throws NoSuchRoundException, NoLevelsLeftException;
+}
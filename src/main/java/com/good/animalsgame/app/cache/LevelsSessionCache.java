@@ -1,95 +1,182 @@
 package com.good.animalsgame.app.cache;
 
-import com.good.animalsgame.app.repository.LevelRepository;
+import com.good.animalsgame.exception.NoLevelsLeftException;
 import com.good.animalsgame.exception.NoSuchRoundException;
 import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
 import org.springframework.web.context.annotation.SessionScope;
 
+import java.security.SecureRandom;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Кэш уровней пользователей.
  * Нужен, чтобы отслеживать - какие уровни уже пройдены пользователем, а какие ещё можно ему выдать.
+ * Для каждого раунда хранится только ключ перестановки и курсор: уровни выдаются
+ * в порядке псевдослучайной перестановки {@link LevelPermutation} над общим снимком из {@link LevelCatalog}.
+ * Сессия остаётся на снимке, полученном при её начале, новые уровни увидят новые сессии.
+ * Выдача уровня атомарна и не блокирует потоки, поэтому параллельные запросы одной сессии
+ * никогда не получат один и тот же уровень.
+ * Используется по умолчанию (game.progress.mode=session)
  */
 @Component
 @SessionScope
-public class LevelsSessionCache {
+@Qualifier(LevelProgress.MODE_QUALIFIER)
+@ConditionalOnProperty(name = "game.progress.mode", havingValue = "session", matchIfMissing = true)
+public class LevelsSessionCache implements LevelProgress {
 
     /**
-     * Номер раунда -> идентификаторы уровней
+     * Номер раунда -> курсор по уровням раунда
      */
-    private final Map<Integer, List<Long>> roundsCache = new HashMap<>();
+    private volatile Map<Integer, RoundCursor> roundsCache = Map.of();
 
-    /**
-     * Номер раунда в виде строки (из имени бина) -> репозиторий
-     */
-    private final Map<String, LevelRepository<?, ?>> levelRepositories;
+    private final LevelCatalog levelCatalog;
+
+    private static final Random SEED_GENERATOR = new SecureRandom();
 
-    public LevelsSessionCache(Map<String, LevelRepository<?, ?>> levelRepositories) {
-        this.levelRepositories = levelRepositories;
+    public LevelsSessionCache(LevelCatalog levelCatalog) {
+        this.levelCatalog = levelCatalog;
     }
 
     /**
-     * Инициализация кэша - при начале новой сессии для неё подгружается список всех айди уровней всех раундов
+     * Инициализация кэша - при начале новой сессии она получает актуальные снимки уровней всех раундов
+     * и случайный ключ перестановки для каждого раунда
      */
     @PostConstruct
-    void init() {
-        roundsCache.clear();
-        levelRepositories.forEach((roundKey, levelRepository) -> {
-            List<Long> levelIds = levelRepository.findLevelIds();
-            Integer roundNumber = Integer.parseInt(roundKey);
-            roundsCache.put(roundNumber, levelIds);
-        });
+    void init() throws NoSuchRoundException {
+        Map<Integer, RoundCursor> cursors = new HashMap<>();
+        for (Integer round : levelCatalog.getRounds()) {
+            LevelCatalogSnapshot snapshot = levelCatalog.getSnapshot(round);
+            cursors.put(round, new RoundCursor(snapshot, SEED_GENERATOR.nextLong()));
+        }
+        roundsCache = Map.copyOf(cursors);
     }
 
     /**
-     * Получение размера списка уровней
+     * Получение количества ещё не выданных уровней раунда
      *
      * @param round номер раунда
      * @throws NoSuchRoundException если раунд не найден
      */
     public int getRoundSize(int round) throws NoSuchRoundException {
-        List<Long> levels = roundsCache.get(round);
-        if (levels != null) {
-            return levels.size();
-        } else {
-            throw new NoSuchRoundException(String.format("Не найден раунд %d!", round));
+        return getRoundCursor(round).remaining();
+    }
+
+    /**
+     * Атомарно выдаёт айди следующего уровня раунда за O(1), сдвигая курсор.
+     * Каждый уровень выдаётся не более одного раза за сессию, в том числе при параллельных запросах
+     *
+     * @param round номер раунда
+     * @throws NoSuchRoundException  если раунд не найден
+     * @throws NoLevelsLeftException если все уровни раунда уже выданы
+     */
+    @Override
+    public long drawLevelId(int round) throws NoSuchRoundException, NoLevelsLeftException {
+        RoundCursor roundCursor = getRoundCursor(round);
+        int position = roundCursor.advance();
+        if (position < 0) {
+            throw new NoLevelsLeftException(String.format("Уровней в раунде %d больше нет", round));
         }
+
+        return roundCursor.levelIdAt(position);
     }
 
     /**
-     * Получение айди уровня для указанного раунда по индексу
+     * Атомарно выдаёт айди нескольких следующих уровней раунда одним сдвигом курсора.
+     * Если уровней осталось меньше запрошенного, выдаются все оставшиеся
      *
      * @param round номер раунда
-     * @param index индекс уровня
-     * @throws NoSuchRoundException если раунд не найден
+     * @param count сколько уровней выдать
+     * @throws NoSuchRoundException  если раунд не найден
+     * @throws NoLevelsLeftException если все уровни раунда уже выданы
      */
-    public Long getLevelId(int round, int index) throws NoSuchRoundException {
-        List<Long> levels = roundsCache.get(round);
-        if (levels != null) {
-            return levels.get(index);
-        } else {
-            throw new NoSuchRoundException(String.format("Не найден раунд %d!", round));
+    @Override
+    public long[] drawLevelIds(int round, int count) throws NoSuchRoundException, NoLevelsLeftException {
+        RoundCursor roundCursor = getRoundCursor(round);
+        int from = roundCursor.advance(count);
+        if (from < 0) {
+            throw new NoLevelsLeftException(String.format("Уровней в раунде %d больше нет", round));
+        }
+
+        long[] levelIds = new long[Math.min(count, roundCursor.snapshot.size() - from)];
+        for (int i = 0; i < levelIds.length; i++) {
+            levelIds[i] = roundCursor.levelIdAt(from + i);
         }
+        return levelIds;
     }
 
     /**
-     * Удаление уровня для указанного раунда по индексу за O(1)
+     * Возвращает курсор раунда
      *
      * @param round номер раунда
-     * @param index индекс уровня
      * @throws NoSuchRoundException если раунд не найден
      */
-    public void removeLevel(int round, int index) throws NoSuchRoundException {
-        List<Long> levels = roundsCache.get(round);
-        if (levels != null) {
-            levels.set(index, levels.getLast());
-            levels.removeLast();
+    private RoundCursor getRoundCursor(int round) throws NoSuchRoundException {
+        RoundCursor roundCursor = roundsCache.get(round);
+        if (roundCursor != null) {
+            return roundCursor;
         } else {
             throw new NoSuchRoundException(String.format("Не найден раунд %d!", round));
         }
     }
+
+    /**
+     * Состояние раунда в сессии: ключ перестановки и позиция курсора
+     */
+    private static final class RoundCursor {
+
+        /**
+         * Снимок уровней раунда, общий для всех сессий
+         */
+        private final LevelCatalogSnapshot snapshot;
+
+        /**
+         * Ключ перестановки
+         */
+        private final long seed;
+
+        /**
+         * Количество уже выданных уровней
+         */
+        private final AtomicInteger cursor = new AtomicInteger();
+
+        private RoundCursor(LevelCatalogSnapshot snapshot, long seed) {
+            this.snapshot = snapshot;
+            this.seed = seed;
+        }
+
+        private int remaining() {
+            return snapshot.size() - cursor.get();
+        }
+
+        /**
+         * Занимает следующую позицию перестановки
+         *
+         * @return занятая позиция или -1, если уровни закончились
+         */
+        private int advance() {
+            return advance(1);
+        }
+
+        /**
+         * Занимает несколько следующих позиций перестановки, но не дальше её конца
+         *
+         * @param count количество позиций
+         * @return первая занятая позиция или -1, если уровни закончились
+         */
+        private int advance(int count) {
+            int size = snapshot.size();
+            int position = cursor.getAndUpdate(current -> current < size ? Math.min(size - current, count) + current : current);
+            return position < size ? position : -1;
+        }
+
+        private long levelIdAt(int position) {
+            return snapshot.levelIds()[LevelPermutation.indexAt(seed, snapshot.size(), position)];
+        }
+    }
 }
@@ -0,0 +1,318 @@
+package com.good.animalsgame.app.cache;
+
+import com.good.animalsgame.app.repository.PlayerProgressRepository;
+import com.good.animalsgame.domain.PlayerProgress;
+import com.good.animalsgame.domain.PlayerProgressId;
+import com.good.animalsgame.exception.NoLevelsLeftException;
+import com.good.animalsgame.exception.NoSuchRoundException;
+import jakarta.annotation.PreDestroy;
+import org.roaringbitmap.RoaringBitmap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Постоянная история игроков: какие уровни каждого раунда уже показаны игроку, между сессиями.
+ * Показанные уровни хранятся Roaring-битмапом (контейнеры-массивы, битмапы и серии), поэтому история
+ * занимает байты, а не килобайты, и в БД лежит одним столбцом bytea.
+ * Выдача уровня - случайный выбор из дополнения истории до текущего снимка раунда через ранги битмапа,
+ * её стоимость логарифмическая от размера раунда и не зависит от длины истории.
+ * Изменения копятся в памяти и записываются в БД пачками по расписанию (write-behind); при записи
+ * история объединяется с уже сохранённой, поэтому записи с разных узлов не затирают друг друга.
+ * Неиспользуемые истории вытесняются из памяти после записи.
+ */
+@Component
+@ConditionalOnProperty(name = "game.history.enabled", havingValue = "true")
+public class PlayerHistory {
+
+    /**
+     * Количество историй в одной транзакции записи
+     */
+    private static final int BATCH_SIZE = 100;
+
+    private final PlayerProgressRepository playerProgressRepository;
+    private final LevelCatalog levelCatalog;
+    private final TransactionTemplate transactionTemplate;
+    private final long idleTimeoutMillis;
+    private final Logger log = LoggerFactory.getLogger(this.getClass());
+
+    /**
+     * Загруженные истории
+     */
+    private final ConcurrentMap<PlayerProgressId, HistoryEntry> entries = new ConcurrentHashMap<>();
+
+    /**
+     * Номер раунда -> айди уровней последнего снимка в виде битмапа
+     */
+    private final ConcurrentMap<Integer, SnapshotLevels> snapshotLevels = new ConcurrentHashMap<>();
+
+    public PlayerHistory(PlayerProgressRepository playerProgressRepository,
+                         LevelCatalog levelCatalog,
+                         TransactionTemplate transactionTemplate,
+                         @Value("${game.history.idle-timeout}") Duration idleTimeout) {
+        this.playerProgressRepository = playerProgressRepository;
+        this.levelCatalog = levelCatalog;
+        this.transactionTemplate = transactionTemplate;
+        this.idleTimeoutMillis = idleTimeout.toMillis();
+    }
+
+    /**
+     * Выдаёт игроку до count случайных уровней раунда, которые он ещё не видел, и добавляет их в историю
+     *
+     * @param playerId идентификатор игрока
+     * @param round    номер раунда
+     * @param count    сколько уровней выдать
+     * @throws NoSuchRoundException  если раунд не найден
+     * @throws NoLevelsLeftException если игрок видел все уровни раунда
+     */
+    public long[] drawLevelIds(String playerId, int round, int count) throws NoSuchRoundException, NoLevelsLeftException {
+        LevelCatalogSnapshot snapshot = levelCatalog.getSnapshot(round);
+        RoaringBitmap levels = getSnapshotLevels(round, snapshot);
+        PlayerProgressId id = new PlayerProgressId(playerId, round);
+
+        while (true) {
+            HistoryEntry entry = getEntry(id);
+            synchronized (entry) {
+                if (entry.evicted) {
+                    continue;
+                }
+
+                long[] levelIds = entry.draw(snapshot, levels, count);
+                if (levelIds.length == 0) {
+                    throw new NoLevelsLeftException(String.format("Уровней в раунде %d больше нет", round));
+                }
+                return levelIds;
+            }
+        }
+    }
+
+    /**
+     * Записывает накопленные изменения историй в БД пачками и вытесняет из памяти
+     * истории, к которым давно не обращались. Вызывается по расписанию и при остановке приложения
+     */
+    @Scheduled(fixedDelayString = "${game.history.flush-interval}")
+    @PreDestroy
+    public void flush() {
+        long idleBefore = System.currentTimeMillis() - idleTimeoutMillis;
+        List<DirtyHistory> dirtyHistories = new ArrayList<>();
+        entries.forEach((id, entry) -> {
+            synchronized (entry) {
+                if (entry.dirty) {
+                    dirtyHistories.add(new DirtyHistory(id, entry, entry.seen.clone()));
+                    entry.dirty = false;
+                } else if (entry.lastAccess < idleBefore) {
+                    entry.evicted = true;
+                    entries.remove(id, entry);
+                }
+            }
+        });
+
+        for (int from = 0; from < dirtyHistories.size(); from += BATCH_SIZE) {
+            List<DirtyHistory> batch = dirtyHistories.subList(from, Math.min(from + BATCH_SIZE, dirtyHistories.size()));
+            try {
+                transactionTemplate.executeWithoutResult(status -> writeBatch(batch));
+            } catch (RuntimeException e) {
+                log.error("Не удалось записать истории игроков: {}", batch.size(), e);
+                for (DirtyHistory dirtyHistory : batch) {
+                    synchronized (dirtyHistory.entry()) {
+                        dirtyHistory.entry().dirty = true;
+                    }
+                }
+            }
+        }
+
+        if (!dirtyHistories.isEmpty()) {
+            log.debug("Записаны истории игроков: {}", dirtyHistories.size());
+        }
+    }
+
+    /**
+     * Записывает пачку историй: существующие записи читаются одним запросом и объединяются с изменениями
+     */
+    private void writeBatch(List<DirtyHistory> batch) {
+        Map<PlayerProgressId, PlayerProgress> existing = new HashMap<>();
+        playerProgressRepository.findAllById(batch.stream().map(DirtyHistory::id).toList())
+                .forEach(playerProgress -> existing.put(playerProgress.getId(), playerProgress));
+
+        List<PlayerProgress> created = new ArrayList<>();
+        for (DirtyHistory dirtyHistory : batch) {
+            PlayerProgress playerProgress = existing.get(dirtyHistory.id());
+            if (playerProgress != null) {
+                RoaringBitmap merged = deserialize(playerProgress.getSeenLevels());
+                merged.or(dirtyHistory.seen());
+                playerProgress.setSeenLevels(serialize(merged));
+            } else {
+                created.add(new PlayerProgress(dirtyHistory.id(), serialize(dirtyHistory.seen())));
+            }
+        }
+        playerProgressRepository.saveAll(created);
+    }
+
+    private HistoryEntry getEntry(PlayerProgressId id) {
+        HistoryEntry entry = entries.get(id);
+        if (entry != null) {
+            return entry;
+        }
+
+        RoaringBitmap seen = playerProgressRepository.findById(id)
+                .map(playerProgress -> deserialize(playerProgress.getSeenLevels()))
+                .orElseGet(RoaringBitmap::new);
+        HistoryEntry loaded = new HistoryEntry(seen);
+        entry = entries.putIfAbsent(id, loaded);
+        return entry != null ? entry : loaded;
+    }
+
+    private RoaringBitmap getSnapshotLevels(int round, LevelCatalogSnapshot snapshot) {
+        SnapshotLevels current = snapshotLevels.get(round);
+        if (current == null || current.snapshot() != snapshot) {
+            RoaringBitmap levels = new RoaringBitmap();
+            for (long levelId : snapshot.levelIds()) {
+                levels.add(toBitmapValue(levelId));
+            }
+            levels.runOptimize();
+            current = new SnapshotLevels(snapshot, levels);
+            snapshotLevels.put(round, current);
+        }
+        return current.levels();
+    }
+
+    private static int toBitmapValue(long levelId) {
+        if (levelId < 0 || levelId > Integer.MAX_VALUE) {
+            throw new IllegalStateException(String.format("Айди уровня %d не помещается в историю игрока", levelId));
+        }
+        return (int) levelId;
+    }
+
+    private static byte[] serialize(RoaringBitmap bitmap) {
+        bitmap.runOptimize();
+        ByteBuffer buffer = ByteBuffer.allocate(bitmap.serializedSizeInBytes());
+        bitmap.serialize(buffer);
+        return buffer.array();
+    }
+
+    private static RoaringBitmap deserialize(byte[] bytes) {
+        RoaringBitmap bitmap = new RoaringBitmap();
+        try {
+            bitmap.deserialize(ByteBuffer.wrap(bytes));
+        } catch (IOException e) {
+            throw new IllegalStateException("Повреждена история игрока", e);
+        }
+        return bitmap;
+    }
+
+    /**
+     * История игрока в раунде, загруженная в память. Все поля меняются под монитором самого объекта
+     */
+    private static final class HistoryEntry {
+
+        /**
+         * Айди показанных уровней
+         */
+        private final RoaringBitmap seen;
+
+        /**
+         * Снимок, до уровней которого история уже урезана
+         */
+        private LevelCatalogSnapshot prunedFor;
+
+        /**
+         * Есть изменения, ещё не записанные в БД
+         */
+        private boolean dirty;
+
+        /**
+         * История вытеснена из памяти, изменять её нельзя
+         */
+        private boolean evicted;
+
+        private long lastAccess = System.currentTimeMillis();
+
+        private HistoryEntry(RoaringBitmap seen) {
+            this.seen = seen;
+        }
+
+        /**
+         * Выбирает до count случайных непоказанных уровней снимка и отмечает их показанными
+         *
+         * @return выбранные айди или пустой массив, если непоказанных уровней нет
+         */
+        private long[] draw(LevelCatalogSnapshot snapshot, RoaringBitmap levels, int count) {
+            lastAccess = System.currentTimeMillis();
+            if (prunedFor != snapshot) {
+                seen.and(levels);
+                prunedFor = snapshot;
+            }
+
+            long[] levelIds = snapshot.levelIds();
+            int unseen = snapshot.size() - seen.getCardinality();
+            long[] drawn = new long[Math.max(0, Math.min(count, unseen))];
+            for (int i = 0; i < drawn.length; i++) {
+                int index = selectUnseen(levelIds, ThreadLocalRandom.current().nextInt(unseen - i));
+                drawn[i] = levelIds[index];
+                seen.add(toBitmapValue(levelIds[index]));
+            }
+
+            if (drawn.length > 0) {
+                dirty = true;
+            }
+            return drawn;
+        }
+
+        /**
+         * Находит индекс непоказанного уровня с заданным порядковым номером среди непоказанных.
+         * Количество непоказанных уровней до индекса i включительно равно i + 1 - rank(levelIds[i]),
+         * поэтому индекс ищется двоичным поиском по рангам
+         *
+         * @param levelIds отсортированные айди уровней снимка
+         * @param ordinal  порядковый номер среди непоказанных, с нуля
+         */
+        private int selectUnseen(long[] levelIds, int ordinal) {
+            int low = 0;
+            int high = levelIds.length - 1;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                long unseenUpToMiddle = middle + 1 - seen.rankLong(toBitmapValue(levelIds[middle]));
+                if (unseenUpToMiddle > ordinal) {
+                    high = middle;
+                } else {
+                    low = middle + 1;
+                }
+            }
+            return low;
+        }
+    }
+
+    /**
+     * Изменённая история, ожидающая записи
+     *
+     * @param id    игрок и раунд
+     * @param entry история в памяти
+     * @param seen  копия показанных уровней на момент записи
+     */
+    private record DirtyHistory(PlayerProgressId id, HistoryEntry entry, RoaringBitmap seen) {
+    }
+
+    /**
+     * Айди уровней снимка раунда в виде битмапа
+     *
+     * @param snapshot снимок
+     * @param levels   айди уровней снимка
+     */
+    private record SnapshotLevels(LevelCatalogSnapshot snapshot, RoaringBitmap levels) {
+    }
+}
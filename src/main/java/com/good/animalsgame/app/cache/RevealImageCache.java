@@ -0,0 +1,294 @@
+package com.good.animalsgame.app.cache;
+
+import com.good.animalsgame.exception.EntityNotFoundException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Кэш отрисованных картинок ответа (картинка уровня с выделенным животным).
+ * Картинки отрисовываются при первом запросе и хранятся в двух уровнях, каждый ограничен по объёму
+ * и вытесняет давно не запрошенные картинки: в памяти (images.reveal.cache.max-memory-size)
+ * и в папке на диске (images.reveal.cache.max-disk-size), которая переживает перезапуск приложения.
+ * Параллельные запросы одной ещё не отрисованной картинки ждут одну отрисовку, а не запускают свои
+ */
+@Component
+public class RevealImageCache {
+
+    /**
+     * Ключ картинки - он же имя файла на диске
+     */
+    private static final Pattern KEY_PATTERN = Pattern.compile("[0-9a-z-]+");
+
+    private static final String FILE_SUFFIX = ".jpg";
+
+    private final Path root;
+    private final long maxMemorySize;
+    private final long maxDiskSize;
+    private final Logger log = LoggerFactory.getLogger(this.getClass());
+
+    /**
+     * Ключ -> картинка, в порядке обращений. Доступ под блокировкой самого объекта
+     */
+    private final LinkedHashMap<String, byte[]> memory = new LinkedHashMap<>(16, 0.75f, true);
+    private long memorySize;
+
+    /**
+     * Ключ -> размер файла на диске, в порядке обращений. Доступ под блокировкой самого объекта
+     */
+    private final LinkedHashMap<String, Long> disk = new LinkedHashMap<>(16, 0.75f, true);
+    private long diskSize;
+
+    /**
+     * Отрисовки, которые выполняются прямо сейчас
+     */
+    private final ConcurrentMap<String, CompletableFuture<byte[]>> rendering = new ConcurrentHashMap<>();
+
+    public RevealImageCache(@Value("${images.reveal.cache.root}") String root,
+                            @Value("${images.reveal.cache.max-memory-size}") DataSize maxMemorySize,
+                            @Value("${images.reveal.cache.max-disk-size}") DataSize maxDiskSize) throws IOException {
+        this.root = Paths.get(root).toAbsolutePath().normalize();
+        this.maxMemorySize = maxMemorySize.toBytes();
+        this.maxDiskSize = maxDiskSize.toBytes();
+        Files.createDirectories(this.root);
+        loadDiskIndex();
+    }
+
+    /**
+     * Отрисовка картинки
+     */
+    @FunctionalInterface
+    public interface Renderer {
+
+        byte[] render() throws EntityNotFoundException, IOException;
+    }
+
+    /**
+     * Возвращает картинку из памяти или с диска, а если её нет - отрисовывает и сохраняет в кэш.
+     * Если эту картинку уже отрисовывает другой поток, дожидается его результата
+     *
+     * @param key ключ картинки из строчных латинских букв, цифр и дефисов
+     * @param renderer отрисовка картинки
+     * @throws EntityNotFoundException если картинку нельзя отрисовать
+     */
+    public byte[] get(String key, Renderer renderer) throws EntityNotFoundException, IOException {
+        if (!KEY_PATTERN.matcher(key).matches()) {
+            throw new IllegalArgumentException(String.format("Недопустимый ключ картинки: %s", key));
+        }
+
+        byte[] cached = find(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        CompletableFuture<byte[]> future = new CompletableFuture<>();
+        CompletableFuture<byte[]> running = rendering.putIfAbsent(key, future);
+        if (running != null) {
+            return await(running);
+        }
+
+        try {
+            // картинку могли сохранить, пока этот поток проверял кэш
+            byte[] content = find(key);
+            if (content == null) {
+                content = renderer.render();
+                putInMemory(key, content);
+                putOnDisk(key, content);
+            }
+            future.complete(content);
+            return content;
+        } catch (EntityNotFoundException | IOException | RuntimeException e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            rendering.remove(key, future);
+        }
+    }
+
+    /**
+     * Ищет картинку в памяти, затем на диске. Картинка с диска поднимается в память
+     */
+    private byte[] find(String key) throws IOException {
+        synchronized (memory) {
+            byte[] content = memory.get(key);
+            if (content != null) {
+                return content;
+            }
+        }
+
+        synchronized (disk) {
+            if (disk.get(key) == null) {
+                return null;
+            }
+        }
+
+        byte[] content;
+        try {
+            content = Files.readAllBytes(resolve(key));
+        } catch (NoSuchFileException e) {
+            removeFromDisk(key);
+            return null;
+        }
+        putInMemory(key, content);
+        return content;
+    }
+
+    private void putInMemory(String key, byte[] content) {
+        if (content.length > maxMemorySize) {
+            return;
+        }
+
+        synchronized (memory) {
+            byte[] previous = memory.put(key, content);
+            memorySize += content.length - (previous != null ? previous.length : 0);
+
+            Iterator<byte[]> eldest = memory.values().iterator();
+            while (memorySize > maxMemorySize && eldest.hasNext()) {
+                memorySize -= eldest.next().length;
+                eldest.remove();
+            }
+        }
+    }
+
+    /**
+     * Записывает картинку на диск через временный файл, чтобы читатели не увидели недописанный файл,
+     * и удаляет давно не запрошенные файлы сверх лимита
+     */
+    private void putOnDisk(String key, byte[] content) {
+        if (content.length > maxDiskSize) {
+            return;
+        }
+
+        try {
+            Path tempFile = Files.createTempFile(root, key, ".part");
+            try {
+                Files.write(tempFile, content);
+                Files.move(tempFile, resolve(key), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(tempFile);
+            }
+        } catch (IOException e) {
+            log.warn("Не удалось сохранить на диск картинку ответа {}: {}", key, e.getMessage());
+            return;
+        }
+
+        List<String> evicted = new ArrayList<>();
+        synchronized (disk) {
+            Long previous = disk.put(key, (long) content.length);
+            diskSize += content.length - (previous != null ? previous : 0);
+
+            Iterator<Map.Entry<String, Long>> eldest = disk.entrySet().iterator();
+            while (diskSize > maxDiskSize && eldest.hasNext()) {
+                Map.Entry<String, Long> entry = eldest.next();
+                diskSize -= entry.getValue();
+                evicted.add(entry.getKey());
+                eldest.remove();
+            }
+        }
+
+        for (String evictedKey : evicted) {
+            try {
+                Files.deleteIfExists(resolve(evictedKey));
+            } catch (IOException e) {
+                log.warn("Не удалось удалить с диска картинку ответа {}: {}", evictedKey, e.getMessage());
+            }
+        }
+    }
+
+    private void removeFromDisk(String key) {
+        synchronized (disk) {
+            Long size = disk.remove(key);
+            if (size != null) {
+                diskSize -= size;
+            }
+        }
+    }
+
+    /**
+     * Восстанавливает индекс диска после перезапуска: файлы упорядочиваются по времени изменения,
+     * недописанные файлы удаляются
+     */
+    private void loadDiskIndex() throws IOException {
+        record CachedFile(String key, long size, long modified) {
+        }
+
+        List<CachedFile> files;
+        try (Stream<Path> paths = Files.list(root)) {
+            files = paths.map(path -> {
+                        String name = path.getFileName().toString();
+                        try {
+                            if (!name.endsWith(FILE_SUFFIX)) {
+                                Files.deleteIfExists(path);
+                                return null;
+                            }
+                            BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+                            return new CachedFile(name.substring(0, name.length() - FILE_SUFFIX.length()),
+                                    attributes.size(), attributes.lastModifiedTime().toMillis());
+                        } catch (IOException e) {
+                            return null;
+                        }
+                    })
+                    .filter(file -> file != null && KEY_PATTERN.matcher(file.key()).matches())
+                    .sorted(Comparator.comparingLong(CachedFile::modified))
+                    .toList();
+        }
+
+        synchronized (disk) {
+            for (CachedFile file : files) {
+                disk.put(file.key(), file.size());
+                diskSize += file.size();
+            }
+        }
+        log.info("Картинок ответа в кэше на диске: {}", files.size());
+    }
+
+    private Path resolve(String key) {
+        return root.resolve(key + FILE_SUFFIX);
+    }
+
+    /**
+     * Ждёт отрисовку, запущенную другим потоком, и пробрасывает её ошибку
+     */
+    private static byte[] await(CompletableFuture<byte[]> future) throws EntityNotFoundException, IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Ожидание отрисовки картинки прервано", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof EntityNotFoundException entityNotFoundException) {
+                throw entityNotFoundException;
+            }
+            if (cause instanceof IOException ioException) {
+                throw ioException;
+            }
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IOException(cause);
+        }
+    }
+}
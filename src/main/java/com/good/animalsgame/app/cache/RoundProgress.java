@@ -0,0 +1,107 @@
+package com.good.animalsgame.app.cache;
+
+import java.util.Arrays;
+
+/**
+ * Неизменяемый прогресс игрока в одном раунде без состояния на сервере:
+ * ключ перестановки, отсортированные айди уже выданных уровней и место в перестановке, с которого продолжается выдача.
+ * Уровни выдаются в порядке псевдослучайной перестановки {@link LevelPermutation} над текущим снимком раунда,
+ * выданные пропускаются. Прогресс не привязан к версии снимка, поэтому переживает
+ * изменения уровней и одинаково читается на любом узле.
+ *
+ * @param seed         ключ перестановки
+ * @param seenLevelIds отсортированные айди выданных уровней
+ * @param snapshotSize размер снимка, над которым построена перестановка, 0 - место в перестановке неизвестно
+ * @param position     позиция в перестановке, с которой продолжается выдача
+ */
+public record RoundProgress(long seed, long[] seenLevelIds, int snapshotSize, int position) {
+
+    /**
+     * Прогресс без места в перестановке: выдача начнётся с начала перестановки
+     *
+     * @param seed         ключ перестановки
+     * @param seenLevelIds отсортированные айди выданных уровней
+     */
+    public RoundProgress(long seed, long[] seenLevelIds) {
+        this(seed, seenLevelIds, 0, 0);
+    }
+
+    /**
+     * Прогресс нового раунда
+     *
+     * @param seed ключ перестановки
+     */
+    public static RoundProgress start(long seed) {
+        return new RoundProgress(seed, new long[0]);
+    }
+
+    /**
+     * Выдаёт до count ещё не выданных уровней снимка, продолжая перестановку с сохранённой позиции.
+     * Если размер снимка изменился, перестановка другая: выдача начинается с её начала,
+     * а айди уровней, которых больше нет в снимке, из прогресса убираются.
+     * Дойдя до конца перестановки, выдача продолжается с её начала - так выдаются уровни, пропущенные
+     * после изменения снимка того же размера или забытые при сжатии прогресса.
+     * Стоимость пропорциональна количеству просмотренных позиций, а за весь раунд - размеру снимка
+     *
+     * @param snapshot текущий снимок раунда
+     * @param count    сколько уровней выдать
+     * @return выданные айди (пустой массив, если уровни закончились) и новый прогресс
+     */
+    public Draw draw(LevelCatalogSnapshot snapshot, int count) {
+        int size = snapshot.size();
+        long[] levelIds = snapshot.levelIds();
+
+        long[] seen = seenLevelIds;
+        int next = position;
+        if (snapshotSize != size || next >= size) {
+            seen = Arrays.stream(seenLevelIds)
+                    .filter(levelId -> Arrays.binarySearch(levelIds, levelId) >= 0)
+                    .toArray();
+            next = 0;
+        }
+
+        long[] drawn = new long[Math.min(count, size)];
+        int drawnCount = 0;
+        for (int scanned = 0; scanned < size && drawnCount < drawn.length; scanned++) {
+            long levelId = levelIds[LevelPermutation.indexAt(seed, size, next)];
+            if (Arrays.binarySearch(seen, levelId) < 0) {
+                drawn[drawnCount++] = levelId;
+            }
+            next = next + 1 == size ? 0 : next + 1;
+        }
+
+        if (drawnCount == 0) {
+            return new Draw(new long[0], new RoundProgress(seed, seen, size, next));
+        }
+        drawn = Arrays.copyOf(drawn, drawnCount);
+
+        return new Draw(drawn, new RoundProgress(seed, merge(seen, drawn), size, next));
+    }
+
+    /**
+     * Сливает отсортированные айди с несколькими новыми
+     */
+    private static long[] merge(long[] seen, long[] drawn) {
+        long[] added = drawn.clone();
+        Arrays.sort(added);
+
+        long[] merged = new long[seen.length + added.length];
+        int i = 0;
+        int j = 0;
+        int k = 0;
+        while (j < added.length) {
+            merged[k++] = i < seen.length && seen[i] < added[j] ? seen[i++] : added[j++];
+        }
+        System.arraycopy(seen, i, merged, k, seen.length - i);
+        return merged;
+    }
+
+    /**
+     * Результат выдачи уровней
+     *
+     * @param levelIds выданные айди в порядке выдачи
+     * @param progress прогресс после выдачи
+     */
+    public record Draw(long[] levelIds, RoundProgress progress) {
+    }
+}
@@ -0,0 +1,11 @@
+package com.good.animalsgame.app.cache;
+
+/**
+ * Набор текстов интерфейса на одном языке, заранее сериализованный в JSON вида название -> текст
+ *
+ * @param json        JSON набора
+ * @param gzippedJson тот же JSON, сжатый gzip
+ * @param eTag        слабый ETag, вычисленный по содержимому, одинаковый для обоих представлений
+ */
+public record UiTextBundle(byte[] json, byte[] gzippedJson, String eTag) {
+}
@@ -0,0 +1,182 @@
+package com.good.animalsgame.app.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.good.animalsgame.app.event.UiTextsChangedEvent;
+import com.good.animalsgame.app.localization.LanguageFallbacks;
+import com.good.animalsgame.app.repository.UiTextRepository;
+import com.good.animalsgame.domain.Language;
+import com.good.animalsgame.domain.UiTextEntry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.EnumMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Кэш наборов текстов интерфейса по языкам.
+ * Для каждого языка набор хранится уже сериализованным в JSON и сжатым gzip,
+ * поэтому отдача набора - это запись готового массива байт в ответ.
+ * Недостающие переводы подставляются по цепочкам запасных языков {@link LanguageFallbacks} при построении набора.
+ * Наборы строятся одним запросом и перестраиваются при следующем обращении
+ * после фиксации транзакции, изменившей тексты интерфейса.
+ */
+@Component
+public class UiTextBundleCache {
+
+    private final UiTextRepository uiTextRepository;
+    private final ObjectMapper objectMapper;
+    private final LanguageFallbacks languageFallbacks;
+    private final Logger log = LoggerFactory.getLogger(this.getClass());
+
+    /**
+     * Минимальная версия, которой должен соответствовать актуальный снимок
+     */
+    private final AtomicLong requiredVersion = new AtomicLong(1);
+
+    private final ReentrantLock loadLock = new ReentrantLock();
+
+    private volatile BundlesSnapshot snapshot;
+
+    public UiTextBundleCache(UiTextRepository uiTextRepository, ObjectMapper objectMapper, LanguageFallbacks languageFallbacks) {
+        this.uiTextRepository = uiTextRepository;
+        this.objectMapper = objectMapper;
+        this.languageFallbacks = languageFallbacks;
+    }
+
+    /**
+     * Возвращает набор текстов на языке. Тексты без перевода на этот язык взяты на первом доступном языке цепочки
+     *
+     * @param language язык
+     */
+    public UiTextBundle getBundle(Language language) {
+        return getSnapshot().bundles().get(language);
+    }
+
+    /**
+     * Помечает кэш устаревшим, наборы будут перестроены при следующем обращении
+     */
+    public void invalidate() {
+        requiredVersion.incrementAndGet();
+    }
+
+    /**
+     * Строит наборы при старте приложения, чтобы первые запросы не ждали загрузки
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    void warmUp() {
+        getSnapshot();
+    }
+
+    /**
+     * Сбрасывает кэш после фиксации транзакции, изменившей тексты интерфейса
+     *
+     * @param event событие изменения текстов
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    void onUiTextsChanged(UiTextsChangedEvent event) {
+        invalidate();
+    }
+
+    private BundlesSnapshot getSnapshot() {
+        BundlesSnapshot current = snapshot;
+        if (isActual(current)) {
+            return current;
+        }
+
+        loadLock.lock();
+        try {
+            current = snapshot;
+            if (isActual(current)) {
+                return current;
+            }
+
+            long version = requiredVersion.get();
+            current = new BundlesSnapshot(version, buildBundles(uiTextRepository.findAllEntries()));
+            snapshot = current;
+            log.info("Загружены наборы текстов интерфейса версии {}", version);
+            return current;
+        } finally {
+            loadLock.unlock();
+        }
+    }
+
+    private boolean isActual(BundlesSnapshot current) {
+        return current != null && current.version() >= requiredVersion.get();
+    }
+
+    /**
+     * Строит наборы для всех языков. Названия в наборе отсортированы, чтобы одинаковое содержимое
+     * всегда давало одинаковые байты и ETag
+     */
+    private Map<Language, UiTextBundle> buildBundles(List<UiTextEntry> entries) {
+        Map<String, Map<Language, String>> textsByTitle = new TreeMap<>();
+        for (UiTextEntry entry : entries) {
+            textsByTitle.computeIfAbsent(entry.title(), title -> new EnumMap<>(Language.class))
+                    .put(entry.language(), entry.text());
+        }
+
+        Map<Language, UiTextBundle> bundles = new EnumMap<>(Language.class);
+        for (Language language : Language.values()) {
+            Map<String, String> languageTexts = new LinkedHashMap<>();
+            textsByTitle.forEach((title, texts) ->
+                    languageTexts.put(title, texts.get(languageFallbacks.resolve(texts, language))));
+            bundles.put(language, createBundle(languageTexts));
+        }
+        return bundles;
+    }
+
+    private UiTextBundle createBundle(Map<String, String> texts) {
+        byte[] json;
+        try {
+            json = objectMapper.writeValueAsBytes(texts);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Не удалось сериализовать набор текстов интерфейса", e);
+        }
+
+        return new UiTextBundle(json, gzip(json), "W/\"" + sha256(json) + "\"");
+    }
+
+    private static byte[] gzip(byte[] content) {
+        ByteArrayOutputStream output = new ByteArrayOutputStream(content.length / 2 + 32);
+        try (GZIPOutputStream gzipOutput = new GZIPOutputStream(output)) {
+            gzipOutput.write(content);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return output.toByteArray();
+    }
+
+    private static String sha256(byte[] content) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 недоступен", e);
+        }
+    }
+
+    /**
+     * Снимок наборов всех языков
+     *
+     * @param version версия снимка
+     * @param bundles язык -> набор текстов
+     */
+    private record BundlesSnapshot(long version, Map<Language, UiTextBundle> bundles) {
+    }
+}
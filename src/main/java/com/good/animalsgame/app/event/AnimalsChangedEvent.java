@@ -0,0 +1,8 @@
+package com.good.animalsgame.app.event;
+
+/**
+ * Событие изменения названий животных (создание, удаление животного, добавление или удаление языка)
+ * @param animalId идентификатор изменённого животного
+ */
+public record AnimalsChangedEvent(Long animalId) {
+}
@@ -0,0 +1,10 @@
+package com.good.animalsgame.app.event;
+
+import java.util.Map;
+
+/**
+ * Событие появления новых картинок уровней (создание уровней)
+ * @param imageWidths хэш картинки -> её ширина в пикселях
+ */
+public record LevelImagesAddedEvent(Map<String, Integer> imageWidths) {
+}
@@ -0,0 +1,8 @@
+package com.good.animalsgame.app.event;
+
+/**
+ * Событие сохранения результатов фоновой обработки картинок у уровней раунда (заглушки, тайлы)
+ * @param round номер раунда
+ */
+public record LevelImagesProcessedEvent(int round) {
+}
@@ -0,0 +1,8 @@
+package com.good.animalsgame.app.event;
+
+/**
+ * Событие изменения набора уровней раунда (создание или удаление уровня)
+ * @param round номер раунда
+ */
+public record LevelsChangedEvent(int round) {
+}
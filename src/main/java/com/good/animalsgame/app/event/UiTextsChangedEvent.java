@@ -0,0 +1,8 @@
+package com.good.animalsgame.app.event;
+
+/**
+ * Событие изменения текстов интерфейса (создание, удаление текста, добавление или удаление языка)
+ * @param uiTextId идентификатор изменённого текста
+ */
+public record UiTextsChangedEvent(Long uiTextId) {
+}
@@ -0,0 +1,187 @@
+package com.good.animalsgame.app.importing;
+
+import com.good.animalsgame.domain.Coordinates;
+import com.good.animalsgame.exception.IncorrectArchiveException;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Манифест в формате CSV (UTF-8, разделитель - запятая) с заголовком из названий колонок.
+ * Названия животных списка перечисляются в одной колонке через "|".
+ * Файл читается построчно, в памяти держится только текущая строка
+ */
+class CsvLevelManifest implements LevelManifest {
+
+    private static final String ROUND = "round";
+    private static final String IMAGE = "image";
+    private static final String ANIMAL_NAMES = "animalNames";
+    private static final String CORRECT_ANIMAL_NAME = "correctAnimalName";
+    private static final String ANIMAL_NAME_IN_QUESTION = "animalNameInQuestion";
+    private static final String X = "x";
+    private static final String Y = "y";
+    private static final String WIDTH = "width";
+    private static final String HEIGHT = "height";
+
+    private static final List<String> REQUIRED_COLUMNS = List.of(ROUND, IMAGE, ANIMAL_NAMES, CORRECT_ANIMAL_NAME, X, Y, WIDTH, HEIGHT);
+
+    private final BufferedReader reader;
+
+    /**
+     * Название колонки -> её индекс в строке
+     */
+    private Map<String, Integer> columns;
+
+    private int number;
+
+    CsvLevelManifest(InputStream inputStream) {
+        this.reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public LevelManifestEntry next() throws IOException, IncorrectArchiveException {
+        if (columns == null) {
+            readHeader();
+        }
+
+        String line;
+        do {
+            line = reader.readLine();
+            if (line == null) {
+                return null;
+            }
+        } while (line.isBlank());
+
+        number++;
+        List<String> values = split(line);
+        if (values.size() != columns.size()) {
+            throw new IncorrectArchiveException(String.format("В записи %d манифеста %d колонок вместо %d", number, values.size(), columns.size()));
+        }
+
+        Integer x = parseInt(values, X);
+        Integer y = parseInt(values, Y);
+        Integer width = parseInt(values, WIDTH);
+        Integer height = parseInt(values, HEIGHT);
+        Coordinates animalCoordinates = x != null && y != null && width != null && height != null
+                ? new Coordinates(x, y, width, height)
+                : null;
+
+        return new LevelManifestEntry(number,
+                parseInt(values, ROUND),
+                value(values, IMAGE),
+                parseNames(value(values, ANIMAL_NAMES)),
+                value(values, CORRECT_ANIMAL_NAME),
+                value(values, ANIMAL_NAME_IN_QUESTION),
+                animalCoordinates);
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    /**
+     * Читает заголовок и проверяет, что в нём есть все обязательные колонки
+     */
+    private void readHeader() throws IOException, IncorrectArchiveException {
+        String header = reader.readLine();
+        if (header == null) {
+            throw new IncorrectArchiveException("Манифест CSV пуст");
+        }
+        if (header.startsWith("\uFEFF")) {
+            header = header.substring(1);
+        }
+
+        Map<String, Integer> headerColumns = new HashMap<>();
+        List<String> names = split(header);
+        for (int i = 0; i < names.size(); i++) {
+            headerColumns.put(names.get(i).trim(), i);
+        }
+
+        for (String column : REQUIRED_COLUMNS) {
+            if (!headerColumns.containsKey(column)) {
+                throw new IncorrectArchiveException(String.format("В манифесте CSV нет колонки %s", column));
+            }
+        }
+        columns = headerColumns;
+    }
+
+    /**
+     * Возвращает значение колонки или null, если колонки нет или значение пустое
+     */
+    private String value(List<String> values, String column) {
+        Integer index = columns.get(column);
+        if (index == null) {
+            return null;
+        }
+
+        String value = values.get(index).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    private Integer parseInt(List<String> values, String column) throws IncorrectArchiveException {
+        String value = value(values, column);
+        if (value == null) {
+            return null;
+        }
+
+        try {
+            return Integer.valueOf(value);
+        } catch (NumberFormatException e) {
+            throw new IncorrectArchiveException(String.format("В записи %d манифеста колонка %s не число: %s", number, column, value));
+        }
+    }
+
+    private static List<String> parseNames(String value) {
+        if (value == null) {
+            return List.of();
+        }
+
+        return Arrays.stream(value.split("\\|"))
+                .map(String::trim)
+                .filter(name -> !name.isEmpty())
+                .toList();
+    }
+
+    /**
+     * Разбивает строку CSV на значения. Значение в двойных кавычках может содержать запятые,
+     * кавычка внутри него записывается двумя кавычками
+     */
+    private static List<String> split(String line) {
+        List<String> values = new ArrayList<>();
+        StringBuilder value = new StringBuilder();
+        boolean quoted = false;
+
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    value.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    value.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                values.add(value.toString());
+                value.setLength(0);
+            } else {
+                value.append(c);
+            }
+        }
+        values.add(value.toString());
+
+        return values;
+    }
+}
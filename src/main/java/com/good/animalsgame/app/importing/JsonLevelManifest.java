@@ -0,0 +1,65 @@
+package com.good.animalsgame.app.importing;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.good.animalsgame.domain.Coordinates;
+import com.good.animalsgame.exception.IncorrectArchiveException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+
+/**
+ * Манифест в формате JSON - массив объектов с полями уровня.
+ * Массив разбирается потоково, в памяти держится только текущая запись
+ */
+class JsonLevelManifest implements LevelManifest {
+
+    private final JsonParser parser;
+    private final ObjectMapper objectMapper;
+    private int number;
+
+    JsonLevelManifest(InputStream inputStream, ObjectMapper objectMapper) throws IOException {
+        this.parser = objectMapper.getFactory().createParser(inputStream);
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public LevelManifestEntry next() throws IOException, IncorrectArchiveException {
+        try {
+            if (number == 0 && parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new IncorrectArchiveException("Манифест JSON должен быть массивом уровней");
+            }
+
+            JsonToken token = parser.nextToken();
+            if (token == JsonToken.END_ARRAY || token == null) {
+                return null;
+            }
+
+            number++;
+            JsonEntry entry = objectMapper.readValue(parser, JsonEntry.class);
+            return new LevelManifestEntry(number, entry.round(), entry.image(), entry.animalNames(),
+                    entry.correctAnimalName(), entry.animalNameInQuestion(), entry.animalCoordinates());
+        } catch (JsonProcessingException e) {
+            throw new IncorrectArchiveException(String.format("Некорректная запись %d манифеста: %s", number, e.getOriginalMessage()));
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        parser.close();
+    }
+
+    /**
+     * Запись манифеста в том виде, в каком она лежит в JSON
+     */
+    private record JsonEntry(Integer round,
+                             String image,
+                             List<String> animalNames,
+                             String correctAnimalName,
+                             String animalNameInQuestion,
+                             Coordinates animalCoordinates) {
+    }
+}
@@ -0,0 +1,9 @@
+package com.good.animalsgame.app.importing;
+
+/**
+ * Ошибка импорта одного уровня
+ * @param entry порядковый номер записи в манифесте
+ * @param error текст ошибки
+ */
+public record LevelImportError(int entry, String error) {
+}
@@ -0,0 +1,12 @@
+package com.good.animalsgame.app.importing;
+
+import java.util.List;
+
+/**
+ * Итог импорта архива уровней
+ * @param imported сколько уровней создано
+ * @param failed сколько записей манифеста пропущено из-за ошибок
+ * @param errors ошибки первых пропущенных записей
+ */
+public record LevelImportReport(int imported, int failed, List<LevelImportError> errors) {
+}
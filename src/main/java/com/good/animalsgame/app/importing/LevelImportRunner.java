@@ -0,0 +1,61 @@
+package com.good.animalsgame.app.importing;
+
+import com.good.animalsgame.exception.IncorrectArchiveException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Импорт архива уровней из командной строки: запускается при старте приложения,
+ * если задан путь levels.import.archive, например --levels.import.archive=/data/pack.zip.
+ * Если levels.import.exit=true, после импорта приложение завершается с кодом 0,
+ * когда все записи импортированы, и 1 в остальных случаях
+ */
+@Component
+@ConditionalOnProperty(name = "levels.import.archive")
+public class LevelImportRunner implements ApplicationRunner {
+
+    private final LevelImportService levelImportService;
+    private final ConfigurableApplicationContext applicationContext;
+    private final Path archive;
+    private final boolean exit;
+    private final Logger log = LoggerFactory.getLogger(this.getClass());
+
+    public LevelImportRunner(LevelImportService levelImportService,
+                             ConfigurableApplicationContext applicationContext,
+                             @Value("${levels.import.archive}") Path archive,
+                             @Value("${levels.import.exit}") boolean exit) {
+        this.levelImportService = levelImportService;
+        this.applicationContext = applicationContext;
+        this.archive = archive;
+        this.exit = exit;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        int exitCode = 1;
+        try {
+            LevelImportReport report = levelImportService.importArchive(archive);
+            for (LevelImportError error : report.errors()) {
+                log.warn("Запись {} манифеста пропущена: {}", error.entry(), error.error());
+            }
+            exitCode = report.failed() == 0 ? 0 : 1;
+        } catch (IncorrectArchiveException | IOException e) {
+            log.error("Не удалось импортировать архив {}: {}", archive, e.getMessage());
+        }
+
+        if (exit) {
+            int code = exitCode;
+            System.exit(SpringApplication.exit(applicationContext, () -> code));
+        }
+    }
+}
@@ -0,0 +1,361 @@
+package com.good.animalsgame.app.importing;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.good.animalsgame.app.repository.AnimalRepository;
+import com.good.animalsgame.app.service.FirstRoundLevelService;
+import com.good.animalsgame.app.service.SecondRoundLevelService;
+import com.good.animalsgame.app.storage.ImageHeader;
+import com.good.animalsgame.app.storage.ImageHeaderReader;
+import com.good.animalsgame.app.storage.ImageStorage;
+import com.good.animalsgame.app.storage.StoredImage;
+import com.good.animalsgame.domain.Animal;
+import com.good.animalsgame.domain.AnimalNameKey;
+import com.good.animalsgame.domain.AnimalNameNormalizer;
+import com.good.animalsgame.domain.FirstRoundLevel;
+import com.good.animalsgame.domain.Level;
+import com.good.animalsgame.domain.SecondRoundLevel;
+import com.good.animalsgame.exception.EntityNotFoundException;
+import com.good.animalsgame.exception.IncorrectArchiveException;
+import com.good.animalsgame.exception.IncorrectLevelException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipFile;
+
+/**
+ * Импорт уровней обоих раундов из ZIP-архива с картинками и манифестом (manifest.json или manifest.csv в корне архива).
+ * Архив читается с диска через центральный каталог ZIP, поэтому ни архив, ни манифест целиком в память не загружаются:
+ * манифест читается потоком по одной записи, а картинка каждой записи - прямо из архива в хранилище картинок.
+ * Манифест проходится дважды: первый проход проверяет его формат и собирает названия животных,
+ * которые затем ищутся в БД одним запросом, второй - создаёт уровни пачками.
+ * Записи с ошибками пропускаются и попадают в отчёт, остальные уровни создаются
+ */
+@Service
+public class LevelImportService {
+
+    /**
+     * Сколько ошибок записей попадает в отчёт
+     */
+    private static final int MAX_REPORTED_ERRORS = 100;
+
+    private static final int FIRST_ROUND_NUMBER = 1;
+    private static final int SECOND_ROUND_NUMBER = 2;
+
+    private final FirstRoundLevelService firstRoundLevelService;
+    private final SecondRoundLevelService secondRoundLevelService;
+    private final AnimalRepository animalRepository;
+    private final ImageStorage imageStorage;
+    private final ObjectMapper objectMapper;
+    private final Logger log = LoggerFactory.getLogger(this.getClass());
+
+    /**
+     * Количество уровней одного раунда, сохраняемых в одной транзакции
+     */
+    private final int batchSize;
+
+    public LevelImportService(FirstRoundLevelService firstRoundLevelService,
+                              SecondRoundLevelService secondRoundLevelService,
+                              AnimalRepository animalRepository,
+                              ImageStorage imageStorage,
+                              ObjectMapper objectMapper,
+                              @Value("${levels.import.batch-size}") int batchSize) {
+        this.firstRoundLevelService = firstRoundLevelService;
+        this.secondRoundLevelService = secondRoundLevelService;
+        this.animalRepository = animalRepository;
+        this.imageStorage = imageStorage;
+        this.objectMapper = objectMapper;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Импортирует уровни из архива
+     *
+     * @param archive путь к ZIP-архиву
+     * @return отчёт об импорте
+     * @throws IncorrectArchiveException если файл не ZIP-архив, в нём нет манифеста или манифест не удаётся разобрать.
+     *                                   В этом случае не создаётся ни один уровень
+     */
+    public LevelImportReport importArchive(Path archive) throws IOException, IncorrectArchiveException {
+        try (ZipFile zipFile = openZipFile(archive)) {
+            ZipEntry manifestEntry = findManifest(zipFile);
+
+            Set<String> nameKeys = new HashSet<>();
+            int total = 0;
+            try (LevelManifest manifest = openManifest(zipFile, manifestEntry)) {
+                LevelManifestEntry entry;
+                while ((entry = manifest.next()) != null) {
+                    collectNameKeys(entry, nameKeys);
+                    total++;
+                }
+            }
+
+            Map<String, Animal> animals = findAnimals(nameKeys);
+            log.info("Начат импорт {} уровней из архива {}", total, archive.getFileName());
+
+            ImportBatch batch = new ImportBatch(total);
+            try (LevelManifest manifest = openManifest(zipFile, manifestEntry)) {
+                LevelManifestEntry entry;
+                while ((entry = manifest.next()) != null) {
+                    try {
+                        batch.add(createLevel(zipFile, entry, animals));
+                    } catch (IncorrectLevelException | EntityNotFoundException e) {
+                        batch.fail(entry, e.getMessage());
+                    }
+                }
+            }
+            batch.flush();
+
+            log.info("Импорт из архива {} завершён: создано {}, пропущено {}", archive.getFileName(), batch.imported, batch.failed);
+            return new LevelImportReport(batch.imported, batch.failed, List.copyOf(batch.errors));
+        }
+    }
+
+    private static ZipFile openZipFile(Path archive) throws IOException, IncorrectArchiveException {
+        try {
+            return new ZipFile(archive.toFile());
+        } catch (ZipException e) {
+            throw new IncorrectArchiveException("Файл не является ZIP-архивом");
+        }
+    }
+
+    private static ZipEntry findManifest(ZipFile zipFile) throws IncorrectArchiveException {
+        ZipEntry manifestEntry = zipFile.getEntry(LevelManifest.JSON_NAME);
+        if (manifestEntry == null) {
+            manifestEntry = zipFile.getEntry(LevelManifest.CSV_NAME);
+        }
+        if (manifestEntry == null) {
+            throw new IncorrectArchiveException(String.format("В корне архива нет манифеста %s или %s",
+                    LevelManifest.JSON_NAME, LevelManifest.CSV_NAME));
+        }
+        return manifestEntry;
+    }
+
+    private LevelManifest openManifest(ZipFile zipFile, ZipEntry manifestEntry) throws IOException {
+        return LevelManifest.open(manifestEntry.getName(), zipFile.getInputStream(manifestEntry), objectMapper);
+    }
+
+    private static void collectNameKeys(LevelManifestEntry entry, Set<String> nameKeys) {
+        if (entry.animalNames() != null) {
+            for (String animalName : entry.animalNames()) {
+                addNameKey(animalName, nameKeys);
+            }
+        }
+        addNameKey(entry.correctAnimalName(), nameKeys);
+        addNameKey(entry.animalNameInQuestion(), nameKeys);
+    }
+
+    private static void addNameKey(String animalName, Set<String> nameKeys) {
+        if (animalName != null) {
+            nameKeys.add(AnimalNameNormalizer.normalize(animalName));
+        }
+    }
+
+    /**
+     * Ищет животных всех записей манифеста одним запросом.
+     * Уровням нужны только ссылки на животных, поэтому вместо сущностей используются
+     * экземпляры с одним идентификатором - по одному на животное, чтобы проверки уровня могли сравнивать их по ссылке
+     *
+     * @param nameKeys нормализованные названия животных
+     * @return нормализованное название -> животное
+     */
+    private Map<String, Animal> findAnimals(Set<String> nameKeys) {
+        if (nameKeys.isEmpty()) {
+            return Map.of();
+        }
+
+        Map<Long, Animal> animalsById = new HashMap<>();
+        Map<String, Animal> animals = new HashMap<>();
+        for (AnimalNameKey animalNameKey : animalRepository.findIdsByNameKeys(nameKeys)) {
+            Animal animal = animalsById.computeIfAbsent(animalNameKey.animalId(), id -> Animal.builder().id(id).build());
+            animals.put(animalNameKey.nameKey(), animal);
+        }
+        return animals;
+    }
+
+    /**
+     * Собирает уровень по записи манифеста, проверяет его по правилам создания уровней
+     * и только после этого сохраняет картинку в хранилище
+     */
+    private ImportedLevel createLevel(ZipFile zipFile, LevelManifestEntry entry, Map<String, Animal> animals)
+            throws IOException, IncorrectLevelException, EntityNotFoundException {
+        if (entry.round() == null || entry.round() != FIRST_ROUND_NUMBER && entry.round() != SECOND_ROUND_NUMBER) {
+            throw new IncorrectLevelException("Номер раунда должен быть 1 или 2");
+        }
+        if (entry.image() == null || entry.image().isBlank()) {
+            throw new IncorrectLevelException("Не указана картинка уровня");
+        }
+        if (entry.correctAnimalName() == null) {
+            throw new IncorrectLevelException("Не указано верное животное");
+        }
+        if (entry.animalCoordinates() == null) {
+            throw new IncorrectLevelException("Не указаны координаты животного");
+        }
+        if (entry.round() == SECOND_ROUND_NUMBER && entry.animalNameInQuestion() == null) {
+            throw new IncorrectLevelException("Не указано животное в вопросе");
+        }
+
+        Set<Animal> levelAnimals = new HashSet<>();
+        if (entry.animalNames() != null) {
+            for (String animalName : entry.animalNames()) {
+                levelAnimals.add(getAnimal(animalName, animals));
+            }
+        }
+        Animal correctAnimal = getAnimal(entry.correctAnimalName(), animals);
+
+        ZipEntry imageEntry = zipFile.getEntry(entry.image());
+        if (imageEntry == null || imageEntry.isDirectory()) {
+            throw new IncorrectLevelException(String.format("Картинка %s не найдена в архиве", entry.image()));
+        }
+
+        ImageHeader imageHeader;
+        try (InputStream imageStream = zipFile.getInputStream(imageEntry)) {
+            imageHeader = ImageHeaderReader.read(imageStream)
+                    .orElseThrow(() -> new IncorrectLevelException("Картинка уровня должна быть в формате JPEG, PNG или WebP"));
+        }
+
+        // картинка сохраняется только для прошедших проверку уровней, чтобы отклонённые записи не оставляли файлов в хранилище
+        Level level;
+        ImportedLevel importedLevel;
+        if (entry.round() == FIRST_ROUND_NUMBER) {
+            FirstRoundLevel firstRoundLevel = FirstRoundLevel.builder()
+                    .animals(levelAnimals)
+                    .correctAnimal(correctAnimal)
+                    .imageContentType(imageHeader.format().getContentType())
+                    .imageWidth(imageHeader.width())
+                    .imageHeight(imageHeader.height())
+                    .animalCoordinates(entry.animalCoordinates())
+                    .build();
+            firstRoundLevelService.validateLevel(firstRoundLevel);
+            level = firstRoundLevel;
+            importedLevel = new ImportedLevel(firstRoundLevel, null);
+        } else {
+            SecondRoundLevel secondRoundLevel = SecondRoundLevel.builder()
+                    .animals(levelAnimals)
+                    .correctAnimal(correctAnimal)
+                    .animalInQuestion(getAnimal(entry.animalNameInQuestion(), animals))
+                    .imageContentType(imageHeader.format().getContentType())
+                    .imageWidth(imageHeader.width())
+                    .imageHeight(imageHeader.height())
+                    .animalCoordinates(entry.animalCoordinates())
+                    .build();
+            secondRoundLevelService.validateLevel(secondRoundLevel);
+            level = secondRoundLevel;
+            importedLevel = new ImportedLevel(null, secondRoundLevel);
+        }
+
+        StoredImage storedImage;
+        try (InputStream imageStream = zipFile.getInputStream(imageEntry)) {
+            storedImage = imageStorage.store(imageStream);
+        }
+        level.setImageHash(storedImage.hash());
+        level.setImageSize(storedImage.size());
+        return importedLevel;
+    }
+
+    private static Animal getAnimal(String animalName, Map<String, Animal> animals) throws EntityNotFoundException {
+        Animal animal = animals.get(AnimalNameNormalizer.normalize(animalName));
+        if (animal == null) {
+            throw new EntityNotFoundException(String.format("Животное с названием %s не найдено", animalName));
+        }
+        return animal;
+    }
+
+    /**
+     * Проверенный уровень одного из раундов
+     */
+    private record ImportedLevel(FirstRoundLevel firstRoundLevel, SecondRoundLevel secondRoundLevel) {
+    }
+
+    /**
+     * Накопитель уровней: уровни каждого раунда сохраняются пачками по {@link #batchSize} в одной транзакции,
+     * после сохранения пачка отпускается, поэтому в памяти одновременно не больше двух пачек
+     */
+    private final class ImportBatch {
+
+        private final int total;
+        private List<FirstRoundLevel> firstRoundLevels = new ArrayList<>(batchSize);
+        private List<SecondRoundLevel> secondRoundLevels = new ArrayList<>(batchSize);
+        private final List<LevelImportError> errors = new ArrayList<>();
+        private int imported;
+        private int failed;
+
+        private ImportBatch(int total) {
+            this.total = total;
+        }
+
+        private void add(ImportedLevel level) {
+            if (level.firstRoundLevel() != null) {
+                firstRoundLevels.add(level.firstRoundLevel());
+                if (firstRoundLevels.size() >= batchSize) {
+                    flushFirstRound();
+                }
+            } else {
+                secondRoundLevels.add(level.secondRoundLevel());
+                if (secondRoundLevels.size() >= batchSize) {
+                    flushSecondRound();
+                }
+            }
+        }
+
+        private void fail(LevelManifestEntry entry, String error) {
+            failed++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(new LevelImportError(entry.number(), error));
+            }
+        }
+
+        private void flush() {
+            flushFirstRound();
+            flushSecondRound();
+        }
+
+        private void flushFirstRound() {
+            if (!firstRoundLevels.isEmpty()) {
+                imported += save(firstRoundLevelService::createLevels, firstRoundLevels);
+                firstRoundLevels = new ArrayList<>(batchSize);
+                log.info("Импортировано уровней: {} из {}", imported, total);
+            }
+        }
+
+        private void flushSecondRound() {
+            if (!secondRoundLevels.isEmpty()) {
+                imported += save(secondRoundLevelService::createLevels, secondRoundLevels);
+                secondRoundLevels = new ArrayList<>(batchSize);
+                log.info("Импортировано уровней: {} из {}", imported, total);
+            }
+        }
+
+        /**
+         * Сохраняет пачку уровней. Каждый уровень уже проверен при сборке,
+         * поэтому ошибка проверки здесь означает ошибку в самом импорте
+         */
+        private <T> int save(LevelSaver<T> saver, List<T> levels) {
+            try {
+                return saver.save(levels).size();
+            } catch (IncorrectLevelException e) {
+                throw new IllegalStateException("Проверенный уровень не прошёл проверку при сохранении", e);
+            }
+        }
+    }
+
+    /**
+     * Сохранение пачки уровней одного раунда
+     */
+    @FunctionalInterface
+    private interface LevelSaver<T> {
+        List<T> save(List<T> levels) throws IncorrectLevelException;
+    }
+}
@@ -0,0 +1,47 @@
+package com.good.animalsgame.app.importing;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.good.animalsgame.exception.IncorrectArchiveException;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Манифест архива уровней, читаемый потоком по одной записи
+ */
+public interface LevelManifest extends Closeable {
+
+    /**
+     * Имя манифеста в формате JSON
+     */
+    String JSON_NAME = "manifest.json";
+
+    /**
+     * Имя манифеста в формате CSV
+     */
+    String CSV_NAME = "manifest.csv";
+
+    /**
+     * Читает следующую запись манифеста
+     *
+     * @return запись или null, если записи закончились
+     * @throws IncorrectArchiveException если манифест не удаётся разобрать
+     */
+    LevelManifestEntry next() throws IOException, IncorrectArchiveException;
+
+    /**
+     * Открывает манифест по его имени в архиве
+     *
+     * @param name имя манифеста, {@link #JSON_NAME} или {@link #CSV_NAME}
+     * @param inputStream содержимое манифеста
+     * @param objectMapper маппер JSON
+     */
+    static LevelManifest open(String name, InputStream inputStream, ObjectMapper objectMapper) throws IOException {
+        return switch (name) {
+            case JSON_NAME -> new JsonLevelManifest(inputStream, objectMapper);
+            case CSV_NAME -> new CsvLevelManifest(inputStream);
+            default -> throw new IllegalArgumentException(String.format("Неизвестный формат манифеста %s", name));
+        };
+    }
+}
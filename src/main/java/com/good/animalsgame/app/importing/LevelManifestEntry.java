@@ -0,0 +1,24 @@
+package com.good.animalsgame.app.importing;
+
+import com.good.animalsgame.domain.Coordinates;
+
+import java.util.List;
+
+/**
+ * Запись манифеста архива уровней - один уровень
+ * @param number порядковый номер записи в манифесте, с 1
+ * @param round номер раунда
+ * @param image путь к картинке уровня внутри архива
+ * @param animalNames названия животных списка уровня
+ * @param correctAnimalName название верного животного
+ * @param animalNameInQuestion название животного в вопросе, только для 2 раунда
+ * @param animalCoordinates координаты животного на картинке
+ */
+public record LevelManifestEntry(int number,
+                                 Integer round,
+                                 String image,
+                                 List<String> animalNames,
+                                 String correctAnimalName,
+                                 String animalNameInQuestion,
+                                 Coordinates animalCoordinates) {
+}
@@ -0,0 +1,22 @@
+package com.good.animalsgame.app.localization;
+
+import com.good.animalsgame.domain.Language;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Настройки запасных языков для локализованных названий и текстов
+ *
+ * @param fallbacks       язык -> запасные языки в порядке предпочтения, цепочки раскрываются транзитивно
+ * @param defaultLanguage язык по умолчанию, проверяется после всех запасных, по умолчанию русский
+ */
+@ConfigurationProperties("localization")
+public record LanguageFallbackProperties(Map<Language, List<Language>> fallbacks, Language defaultLanguage) {
+
+    public LanguageFallbackProperties {
+        fallbacks = fallbacks != null ? Map.copyOf(fallbacks) : Map.of();
+        defaultLanguage = defaultLanguage != null ? defaultLanguage : Language.RUSSIAN;
+    }
+}
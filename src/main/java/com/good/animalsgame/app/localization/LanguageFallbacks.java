@@ -0,0 +1,112 @@
+package com.good.animalsgame.app.localization;
+
+import com.good.animalsgame.domain.Language;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Раскрытые цепочки запасных языков.
+ * Для каждого языка цепочка вычисляется один раз при старте: сам язык, его запасные языки (транзитивно),
+ * язык по умолчанию и затем все остальные языки. Поэтому у содержимого хотя бы с одним языком
+ * перевод по цепочке находится всегда.
+ * Кэши локализованного содержимого раскладывают по цепочкам свои таблицы при перестроении,
+ * и на запрос приходится одно обращение к массиву без обхода цепочки.
+ */
+@Component
+public class LanguageFallbacks {
+
+    private static final Language[] LANGUAGES = Language.values();
+
+    /**
+     * Язык -> раскрытая цепочка языков
+     */
+    private final Map<Language, Language[]> chains = new EnumMap<>(Language.class);
+
+    public LanguageFallbacks(LanguageFallbackProperties properties) {
+        for (Language language : LANGUAGES) {
+            Set<Language> chain = EnumSet.noneOf(Language.class);
+            Language[] ordered = new Language[LANGUAGES.length];
+            int size = appendWithFallbacks(language, properties.fallbacks(), chain, ordered, 0);
+            size = appendWithFallbacks(properties.defaultLanguage(), properties.fallbacks(), chain, ordered, size);
+            for (Language other : LANGUAGES) {
+                size = append(other, chain, ordered, size);
+            }
+            chains.put(language, ordered);
+        }
+    }
+
+    /**
+     * Возвращает раскрытую цепочку языка, начиная с него самого
+     *
+     * @param language язык
+     */
+    public List<Language> getChain(Language language) {
+        return List.of(chains.get(language));
+    }
+
+    /**
+     * Находит первый язык цепочки, на котором есть значение
+     *
+     * @param values   значения по языкам
+     * @param language запрошенный язык
+     * @return язык значения или null, если значений нет ни на одном языке
+     */
+    public Language resolve(Map<Language, ?> values, Language language) {
+        for (Language candidate : chains.get(language)) {
+            if (values.get(candidate) != null) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Раскладывает значения по цепочкам: для каждого языка и позиции берётся первое значение по цепочке
+     *
+     * @param values язык -> значения, null если языка нет совсем или значения нет на позиции
+     * @param size   количество позиций
+     * @return язык -> значения с учётом запасных языков, для каждого языка
+     */
+    public Map<Language, String[]> flatten(Map<Language, String[]> values, int size) {
+        Map<Language, String[]> flattened = new EnumMap<>(Language.class);
+        for (Language language : LANGUAGES) {
+            String[] resolved = new String[size];
+            for (int index = 0; index < size; index++) {
+                for (Language candidate : chains.get(language)) {
+                    String[] candidateValues = values.get(candidate);
+                    if (candidateValues != null && candidateValues[index] != null) {
+                        resolved[index] = candidateValues[index];
+                        break;
+                    }
+                }
+            }
+            flattened.put(language, resolved);
+        }
+        return flattened;
+    }
+
+    private static int appendWithFallbacks(Language language, Map<Language, List<Language>> fallbacks,
+                                           Set<Language> chain, Language[] ordered, int size) {
+        if (chain.contains(language)) {
+            return size;
+        }
+
+        size = append(language, chain, ordered, size);
+        for (Language fallback : fallbacks.getOrDefault(language, List.of())) {
+            size = appendWithFallbacks(fallback, fallbacks, chain, ordered, size);
+        }
+        return size;
+    }
+
+    private static int append(Language language, Set<Language> chain, Language[] ordered, int size) {
+        if (chain.add(language)) {
+            ordered[size++] = language;
+        }
+        return size;
+    }
+}
@@ -1,14 +1,24 @@
 package com.good.animalsgame.app.repository;
 
 import com.good.animalsgame.domain.Animal;
+import com.good.animalsgame.domain.AnimalDescription;
+import com.good.animalsgame.domain.AnimalName;
+import com.good.animalsgame.domain.AnimalNameKey;
 import com.good.animalsgame.domain.Language;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Репозиторий животных
@@ -16,9 +26,10 @@ import java.util.Optional;
 public interface AnimalRepository extends JpaRepository<Animal, Long> {
 
     /**
-     * Ищет животного по идентификатору
+     * Ищет животного по идентификатору вместе с названиями, описания догружаются отдельным запросом
      * @param id идентификатор
      */
+    @EntityGraph(attributePaths = "names")
     Optional<Animal> findById(Long id);
 
     /**
@@ -34,10 +45,60 @@ public interface AnimalRepository extends JpaRepository<Animal, Long> {
     boolean existsById(Long id);
 
     /**
-     * Ищет животного по названию
-     * @param name название
+     * Ищет животного по нормализованному названию, используя уникальный индекс ключей названий
+     * @param nameKey нормализованное название
      */
-    @Query("SELECT a FROM Animal a JOIN a.names n WHERE n = :name")
-    Optional<Animal> findByName(@Param("name") String name);
+    @Query("SELECT a FROM Animal a JOIN a.nameKeys k WHERE k = :nameKey")
+    Optional<Animal> findByNameKey(@Param("nameKey") String nameKey);
 
+    /**
+     * Возвращает идентификатор животного, которому принадлежит нормализованное название
+     * @param nameKey нормализованное название
+     */
+    @Query("SELECT a.id FROM Animal a JOIN a.nameKeys k WHERE k = :nameKey")
+    Optional<Long> findIdByNameKey(@Param("nameKey") String nameKey);
+
+    /**
+     * Возвращает идентификаторы животных по нормализованным названиям одним запросом
+     * @param nameKeys нормализованные названия
+     */
+    @Query("SELECT new com.good.animalsgame.domain.AnimalNameKey(k, a.id) FROM Animal a JOIN a.nameKeys k WHERE k IN :nameKeys")
+    List<AnimalNameKey> findIdsByNameKeys(@Param("nameKeys") Collection<String> nameKeys);
+
+    /**
+     * Возвращает те из нормализованных названий, что уже заняты животными, одним запросом
+     * @param nameKeys нормализованные названия
+     */
+    @Query("SELECT k FROM Animal a JOIN a.nameKeys k WHERE k IN :nameKeys")
+    List<String> findExistingNameKeys(@Param("nameKeys") Collection<String> nameKeys);
+
+    /**
+     * Возвращает животных, у которых ещё не заполнены ключи названий, по возрастанию идентификатора
+     * @param afterId идентификатор, после которого начинается пачка
+     * @param pageable размер пачки
+     */
+    @Query("SELECT a FROM Animal a WHERE a.nameKeys IS EMPTY AND a.id > :afterId ORDER BY a.id")
+    List<Animal> findWithoutNameKeys(@Param("afterId") Long afterId, Pageable pageable);
+
+    /**
+     * Возвращает всех животных с названиями потоком по возрастанию идентификатора.
+     * Строки читаются курсором на стороне БД порциями по 500, поэтому поток нужно читать внутри транзакции
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT a FROM Animal a LEFT JOIN FETCH a.names ORDER BY a.id")
+    Stream<Animal> streamAllWithNames();
+
+    /**
+     * Возвращает описания всех животных на всех языках потоком по возрастанию идентификатора животного,
+     * без загрузки сущностей. Поток нужно читать внутри транзакции
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT new com.good.animalsgame.domain.AnimalDescription(a.id, KEY(d), VALUE(d)) FROM Animal a JOIN a.descriptions d ORDER BY a.id")
+    Stream<AnimalDescription> streamAllDescriptions();
+
+    /**
+     * Возвращает названия всех животных на всех языках для словаря названий
+     */
+    @Query("SELECT new com.good.animalsgame.domain.AnimalName(a.id, KEY(n), VALUE(n)) FROM Animal a JOIN a.names n")
+    List<AnimalName> findAllNames();
 }
@@ -0,0 +1,30 @@
+package com.good.animalsgame.app.repository;
+
+import com.good.animalsgame.domain.ImageTile;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Optional;
+
+/**
+ * Репозиторий тайлов больших картинок
+ */
+public interface ImageTileRepository extends JpaRepository<ImageTile, Long> {
+
+    /**
+     * Ищет тайл картинки
+     * @param sourceHash хэш исходной картинки
+     * @param zoom уровень пирамиды
+     * @param x номер тайла по горизонтали
+     * @param y номер тайла по вертикали
+     */
+    Optional<ImageTile> findBySourceHashAndZoomAndXAndY(String sourceHash, int zoom, int x, int y);
+
+    /**
+     * Возвращает наибольший уровень готовой пирамиды картинки или null, если тайлов нет
+     * @param sourceHash хэш исходной картинки
+     */
+    @Query("SELECT MAX(t.zoom) FROM ImageTile t WHERE t.sourceHash = :sourceHash")
+    Integer findMaxZoomBySourceHash(@Param("sourceHash") String sourceHash);
+}
@@ -0,0 +1,26 @@
+package com.good.animalsgame.app.repository;
+
+import com.good.animalsgame.domain.ImageVariant;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Репозиторий уменьшенных копий картинок
+ */
+public interface ImageVariantRepository extends JpaRepository<ImageVariant, Long> {
+
+    /**
+     * Ищет копию картинки заданной ширины
+     * @param sourceHash хэш исходной картинки
+     * @param width ширина копии
+     */
+    Optional<ImageVariant> findBySourceHashAndWidth(String sourceHash, int width);
+
+    /**
+     * Возвращает все копии картинки
+     * @param sourceHash хэш исходной картинки
+     */
+    List<ImageVariant> findBySourceHash(String sourceHash);
+}
@@ -1,10 +1,23 @@
 package com.good.animalsgame.app.repository;
 
+import com.good.animalsgame.domain.LevelAnswerKey;
+import com.good.animalsgame.domain.LevelContentKey;
+import com.good.animalsgame.domain.LevelImage;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.NoRepositoryBean;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Репозиторий уровней
@@ -15,8 +28,94 @@ import java.util.List;
 public interface LevelRepository<T, ID> extends JpaRepository<T, ID> {
 
     /**
-     * Возвращает список всех идентификаторов уровней
+     * Возвращает ключи ответов всех уровней
      */
-    @Query("SELECT l.id FROM #{#entityName} l")
-    List<Long> findLevelIds();
+    @Query("SELECT new com.good.animalsgame.domain.LevelAnswerKey(l.id, l.correctAnimal.id) FROM #{#entityName} l")
+    List<LevelAnswerKey> findAnswerKeys();
+
+    /**
+     * Возвращает только метаданные картинки уровня, не загружая остальные данные
+     * @param id идентификатор уровня
+     */
+    @Query("SELECT new com.good.animalsgame.domain.LevelImage(l.imageHash, l.imageContentType, l.imageSize, l.imageWidth) FROM #{#entityName} l WHERE l.id = :id")
+    Optional<LevelImage> findLevelImageById(@Param("id") Long id);
+
+    /**
+     * Ищет уровень для показа игроку вместе со списком животных.
+     * Названия животных берутся из словаря названий, а не из БД
+     * @param id идентификатор уровня
+     */
+    @EntityGraph(attributePaths = "animals")
+    Optional<T> findWithAnimalsById(ID id);
+
+    /**
+     * Ищет несколько уровней для показа игроку вместе со списками животных одним запросом.
+     * Порядок результата не определён
+     * @param ids идентификаторы уровней
+     */
+    @EntityGraph(attributePaths = "animals")
+    List<T> findWithAnimalsByIdIn(Collection<ID> ids);
+
+    /**
+     * Возвращает все уровни со списками животных потоком по возрастанию идентификатора.
+     * Строки читаются курсором на стороне БД порциями по 500, поэтому поток нужно читать внутри транзакции
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT l FROM #{#entityName} l LEFT JOIN FETCH l.animals ORDER BY l.id")
+    Stream<T> streamAllWithAnimals();
+
+    /**
+     * Возвращает ключи содержимого уровней с указанными картинками
+     * @param imageHashes хэши картинок
+     */
+    @Query("SELECT new com.good.animalsgame.domain.LevelContentKey(l.imageHash, l.correctAnimal.id, l.animalCoordinates) FROM #{#entityName} l WHERE l.imageHash IN :imageHashes")
+    List<LevelContentKey> findContentKeysByImageHashIn(@Param("imageHashes") Collection<String> imageHashes);
+
+    /**
+     * Возвращает хэши картинок всех уровней потоком, курсором на стороне БД порциями по 500
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT DISTINCT l.imageHash FROM #{#entityName} l WHERE l.imageHash IS NOT NULL")
+    Stream<String> streamImageHashes();
+
+    /**
+     * Возвращает хэши картинок, для которых ещё не вычислены заглушки
+     *
+     * @param pageable сколько хэшей вернуть
+     */
+    @Query("SELECT DISTINCT l.imageHash FROM #{#entityName} l WHERE l.imageHash IS NOT NULL AND l.imageBlurHash IS NULL")
+    List<String> findImageHashesWithoutPlaceholder(Pageable pageable);
+
+    /**
+     * Сохраняет заглушку картинки во всех уровнях с этой картинкой
+     *
+     * @param imageHash хэш картинки
+     * @param blurHash BlurHash картинки
+     * @param color основной цвет картинки
+     * @return количество изменённых уровней
+     */
+    @Modifying
+    @Query("UPDATE #{#entityName} l SET l.imageBlurHash = :blurHash, l.imageColor = :color WHERE l.imageHash = :imageHash")
+    int updateImagePlaceholder(@Param("imageHash") String imageHash, @Param("blurHash") String blurHash, @Param("color") String color);
+
+    /**
+     * Возвращает хэши больших картинок, для которых ещё не построены тайлы
+     *
+     * @param minSize длина большей стороны в пикселях, начиная с которой картинка разбивается на тайлы
+     * @param pageable размер пачки
+     */
+    @Query("SELECT DISTINCT l.imageHash FROM #{#entityName} l WHERE l.imageHash IS NOT NULL AND l.imageTileZoom IS NULL " +
+            "AND (l.imageWidth >= :minSize OR l.imageHeight >= :minSize)")
+    List<String> findImageHashesWithoutTiles(@Param("minSize") int minSize, Pageable pageable);
+
+    /**
+     * Сохраняет уровень пирамиды тайлов во всех уровнях с этой картинкой
+     *
+     * @param imageHash хэш картинки
+     * @param tileZoom наибольший уровень пирамиды, -1 - картинку не удалось разбить
+     * @return количество изменённых уровней
+     */
+    @Modifying
+    @Query("UPDATE #{#entityName} l SET l.imageTileZoom = :tileZoom WHERE l.imageHash = :imageHash")
+    int updateImageTileZoom(@Param("imageHash") String imageHash, @Param("tileZoom") int tileZoom);
 }
@@ -0,0 +1,11 @@
+package com.good.animalsgame.app.repository;
+
+import com.good.animalsgame.domain.PlayerProgress;
+import com.good.animalsgame.domain.PlayerProgressId;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+/**
+ * Репозиторий историй игроков
+ */
+public interface PlayerProgressRepository extends JpaRepository<PlayerProgress, PlayerProgressId> {
+}
@@ -1,11 +1,19 @@
 package com.good.animalsgame.app.repository;
 
+import com.good.animalsgame.domain.LevelAnswerKey;
 import com.good.animalsgame.domain.SecondRoundLevel;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+
 /**
  * Репозиторий уровней второго раунда
  */
 @Repository("2")
 public interface SecondRoundLevelRepository extends LevelRepository<SecondRoundLevel, Long> {
+
+    @Override
+    @Query("SELECT new com.good.animalsgame.domain.LevelAnswerKey(l.id, l.correctAnimal.id, l.animalInQuestion.id) FROM SecondRoundLevel l")
+    List<LevelAnswerKey> findAnswerKeys();
 }
@@ -1,10 +1,16 @@
 package com.good.animalsgame.app.repository;
 
 import com.good.animalsgame.domain.UiText;
+import com.good.animalsgame.domain.UiTextEntry;
 import org.springframework.data.jpa.repository.JpaRepository;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Репозиторий текстов интерфейса
@@ -33,4 +39,18 @@ public interface UiTextRepository extends JpaRepository<UiText, Long> {
      * @param title название
      */
     boolean existsByTitle(String title);
+
+    /**
+     * Возвращает все тексты с переводами потоком по возрастанию идентификатора.
+     * Строки читаются курсором на стороне БД порциями по 500, поэтому поток нужно читать внутри транзакции
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT u FROM UiText u LEFT JOIN FETCH u.texts ORDER BY u.id")
+    Stream<UiText> streamAllWithTexts();
+
+    /**
+     * Возвращает все тексты на всех языках одним запросом, без загрузки сущностей
+     */
+    @Query("SELECT new com.good.animalsgame.domain.UiTextEntry(u.title, KEY(t), VALUE(t)) FROM UiText u JOIN u.texts t")
+    List<UiTextEntry> findAllEntries();
 }
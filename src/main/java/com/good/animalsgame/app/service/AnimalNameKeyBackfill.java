@@ -0,0 +1,108 @@
+package com.good.animalsgame.app.service;
+
+import com.good.animalsgame.app.repository.AnimalRepository;
+import com.good.animalsgame.domain.Animal;
+import com.good.animalsgame.domain.AnimalNameNormalizer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Заполнение ключей названий у животных, созданных до их появления.
+ * Запускается при старте приложения и ничего не делает, если у всех животных ключи уже есть.
+ * Каждая пачка заполняется в отдельной транзакции.
+ */
+@Component
+public class AnimalNameKeyBackfill implements ApplicationRunner {
+
+    /**
+     * Количество животных в одной транзакции
+     */
+    private static final int BATCH_SIZE = 100;
+
+    private final AnimalRepository animalRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Logger log = LoggerFactory.getLogger(this.getClass());
+
+    public AnimalNameKeyBackfill(AnimalRepository animalRepository, TransactionTemplate transactionTemplate) {
+        this.animalRepository = animalRepository;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        int total = 0;
+        long lastId = 0;
+        BatchResult batchResult;
+        do {
+            long afterId = lastId;
+            batchResult = transactionTemplate.execute(status -> fillBatch(afterId));
+            if (batchResult != null) {
+                total += batchResult.filled();
+                lastId = batchResult.lastId();
+            }
+        } while (batchResult != null && batchResult.lastId() > 0);
+
+        if (total > 0) {
+            log.info("Заполнены ключи названий у животных: {}", total);
+        }
+    }
+
+    /**
+     * Заполняет ключи названий одной пачки животных.
+     * Название, чей ключ уже занят другим животным, пропускается с предупреждением -
+     * такие дубликаты остались от старой проверки уникальности и требуют ручного разбора
+     *
+     * @param afterId идентификатор, после которого начинается пачка
+     */
+    BatchResult fillBatch(long afterId) {
+        List<Animal> animals = animalRepository.findWithoutNameKeys(afterId, PageRequest.ofSize(BATCH_SIZE));
+        if (animals.isEmpty()) {
+            return new BatchResult(0, 0);
+        }
+
+        Set<String> candidateKeys = new HashSet<>();
+        for (Animal animal : animals) {
+            animal.getNames().values().forEach(name -> candidateKeys.add(AnimalNameNormalizer.normalize(name)));
+        }
+        Set<String> usedKeys = new HashSet<>(animalRepository.findExistingNameKeys(candidateKeys));
+
+        int filled = 0;
+        for (Animal animal : animals) {
+            Set<String> animalKeys = new HashSet<>();
+            for (String name : animal.getNames().values()) {
+                String nameKey = AnimalNameNormalizer.normalize(name);
+                if (animalKeys.contains(nameKey) || usedKeys.add(nameKey)) {
+                    animalKeys.add(nameKey);
+                } else {
+                    log.warn("Название {} животного {} совпадает с названием другого животного и не получит ключ", name, animal.getId());
+                }
+            }
+
+            if (animalKeys.isEmpty()) {
+                log.warn("У животного {} не осталось уникальных названий, ключи не заполнены", animal.getId());
+                continue;
+            }
+            animal.getNameKeys().addAll(animalKeys);
+            filled++;
+        }
+
+        return new BatchResult(filled, animals.getLast().getId());
+    }
+
+    /**
+     * Итог пачки
+     * @param filled количество животных, получивших ключи
+     * @param lastId последний обработанный идентификатор, 0 если животных не осталось
+     */
+    record BatchResult(int filled, long lastId) {
+    }
+}
@@ -1,13 +1,18 @@
 package com.good.animalsgame.app.service;
 
+import com.good.animalsgame.app.cache.AnimalNameDictionary;
+import com.good.animalsgame.app.event.AnimalsChangedEvent;
+import com.good.animalsgame.app.localization.LanguageFallbacks;
 import com.good.animalsgame.app.repository.AnimalRepository;
 import com.good.animalsgame.domain.Animal;
+import com.good.animalsgame.domain.AnimalNameNormalizer;
 import com.good.animalsgame.domain.Language;
 import com.good.animalsgame.exception.EntityDuplicateException;
 import com.good.animalsgame.exception.EntityNotFoundException;
 import com.good.animalsgame.exception.LanguageException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
 import java.util.*;
@@ -20,10 +25,19 @@ import java.util.stream.Collectors;
 public class AnimalService {
 
     private final AnimalRepository animalRepository;
+    private final AnimalNameDictionary animalNameDictionary;
+    private final LanguageFallbacks languageFallbacks;
+    private final ApplicationEventPublisher eventPublisher;
     private final Logger log = LoggerFactory.getLogger(this.getClass());
 
-    public AnimalService(AnimalRepository animalRepository) {
+    public AnimalService(AnimalRepository animalRepository,
+                         AnimalNameDictionary animalNameDictionary,
+                         LanguageFallbacks languageFallbacks,
+                         ApplicationEventPublisher eventPublisher) {
         this.animalRepository = animalRepository;
+        this.animalNameDictionary = animalNameDictionary;
+        this.languageFallbacks = languageFallbacks;
+        this.eventPublisher = eventPublisher;
     }
 
     /**
@@ -38,6 +52,7 @@ public class AnimalService {
         }
 
         animalRepository.save(animal);
+        eventPublisher.publishEvent(new AnimalsChangedEvent(animal.getId()));
         log.info("Создано животное: {}", animal.getId());
     }
 
@@ -59,6 +74,7 @@ public class AnimalService {
     public void deleteAnimalById(Long id) throws EntityNotFoundException {
         if (animalRepository.existsById(id)) {
             animalRepository.deleteById(id);
+            eventPublisher.publishEvent(new AnimalsChangedEvent(id));
             log.info("Удалено животное: {}", id);
         } else {
             throw new EntityNotFoundException(String.format("Животное с id %s не найдено", id));
@@ -71,37 +87,101 @@ public class AnimalService {
      * @param name название
      */
     public Animal getAnimalByName(String name) throws EntityNotFoundException {
-        Optional<Animal> foundAnimal = animalRepository.findByName(formatAnimalName(name));
+        Optional<Animal> foundAnimal = animalRepository.findByNameKey(AnimalNameNormalizer.normalize(name));
         return foundAnimal.orElseThrow(() -> new EntityNotFoundException(String.format("Животное с названием %s не найдено", name)));
     }
 
     /**
-     * Возвращает данные о животном на одном языке
+     * Ищет идентификатор животного по названию в словаре названий, без обращения к БД
+     *
+     * @param name название
+     */
+    public Long getAnimalIdByName(String name) throws EntityNotFoundException {
+        Long animalId = animalNameDictionary.findAnimalId(name);
+        if (animalId == null) {
+            throw new EntityNotFoundException(String.format("Животное с названием %s не найдено", name));
+        }
+
+        return animalId;
+    }
+
+    /**
+     * Возвращает данные о животном на одном языке.
+     * Если у животного нет этого языка, данные берутся на первом доступном языке цепочки запасных
      * @param id идентификатор
      * @param language язык
-     * @throws LanguageException если не найден язык в целом или у животного
+     * @throws LanguageException если не найден язык в целом или у животного нет ни одного названия
      */
     public AnimalSingleLanguageData getAnimalSingleLanguageData(Long id, String language) throws EntityNotFoundException, LanguageException {
         Animal animal = getAnimalById(id);
 
         Language languageConst = getLanguageEnumValue(language);
+        Language resolvedLanguage = languageFallbacks.resolve(animal.getNames(), languageConst);
 
-        if (!animal.getNames().containsKey(languageConst)) {
+        if (resolvedLanguage == null) {
             throw new LanguageException("Язык " + language + " отсутствует у животного!");
         }
 
-        String name = animal.getNames().get(languageConst);
-        String description = animal.getDescriptions().get(languageConst);
+        String name = animal.getNames().get(resolvedLanguage);
+        String description = animal.getDescriptions().get(resolvedLanguage);
 
         return new AnimalSingleLanguageData(name, description);
     }
 
+    /**
+     * Возвращает название животного на одном языке из словаря названий, без обращения к БД.
+     * Если у животного нет этого языка, возвращается название на первом доступном языке цепочки запасных
+     * @param id идентификатор
+     * @param language язык
+     * @throws LanguageException если не найден язык в целом или у животного нет ни одного названия
+     */
+    public String getAnimalName(Long id, String language) throws EntityNotFoundException, LanguageException {
+        Language languageConst = getLanguageEnumValue(language);
+
+        String name = animalNameDictionary.getName(id, languageConst);
+        if (name == null) {
+            if (!animalNameDictionary.contains(id)) {
+                throw new EntityNotFoundException(String.format("Животное с id %s не найдено", id));
+            }
+            throw new LanguageException("Язык " + language + " отсутствует у животного!");
+        }
+
+        return name;
+    }
+
+    /**
+     * Возвращает названия нескольких животных на одном языке из словаря названий, без обращения к БД.
+     * Язык разбирается один раз, все названия берутся из одного снимка словаря
+     * @param ids идентификаторы животных
+     * @param language язык
+     * @return идентификатор -> название
+     * @throws EntityNotFoundException если какого-то животного нет
+     * @throws LanguageException если не найден язык в целом или у животного нет ни одного названия
+     */
+    public Map<Long, String> getAnimalNames(Collection<Long> ids, String language) throws EntityNotFoundException, LanguageException {
+        Language languageConst = getLanguageEnumValue(language);
+
+        Map<Long, String> names = animalNameDictionary.getNames(ids, languageConst);
+        if (names.size() < ids.size()) {
+            for (Long id : ids) {
+                if (!names.containsKey(id)) {
+                    if (!animalNameDictionary.contains(id)) {
+                        throw new EntityNotFoundException(String.format("Животное с id %s не найдено", id));
+                    }
+                    throw new LanguageException("Язык " + language + " отсутствует у животного!");
+                }
+            }
+        }
+
+        return names;
+    }
+
     /**
      * Добавляет животному язык
      * @param id идентификатор
      * @param language язык
      * @param animalSingleLanguageData информация о животном
-     * @throws LanguageException если язык уже есть или если не найден
+     * @throws LanguageException если язык уже есть, название занято другим животным или язык не найден
      */
     public void addLanguage(Long id, String language, AnimalSingleLanguageData animalSingleLanguageData) throws EntityNotFoundException, LanguageException {
         Animal animal = getAnimalById(id);
@@ -112,10 +192,17 @@ public class AnimalService {
             throw new LanguageException("Язык " + language + " уже есть!");
         }
 
+        Optional<Long> nameOwnerId = animalRepository.findIdByNameKey(AnimalNameNormalizer.normalize(animalSingleLanguageData.name()));
+        if (nameOwnerId.isPresent() && !nameOwnerId.get().equals(id)) {
+            throw new LanguageException("Название " + animalSingleLanguageData.name() + " уже есть у другого животного!");
+        }
+
         animal.getNames().put(languageConst, animalSingleLanguageData.name());
         animal.getDescriptions().put(languageConst, animalSingleLanguageData.description());
+        animal.updateNameKeys();
 
         animalRepository.save(animal);
+        eventPublisher.publishEvent(new AnimalsChangedEvent(id));
         log.info("Добавлен язык {} к животному {}", language, id);
     }
 
@@ -140,32 +227,22 @@ public class AnimalService {
 
         animal.getNames().remove(languageConst);
         animal.getDescriptions().remove(languageConst);
+        animal.updateNameKeys();
 
         animalRepository.save(animal);
+        eventPublisher.publishEvent(new AnimalsChangedEvent(id));
         log.info("Удалён язык {} у животного {}", language, id);
     }
 
     /**
-     * Форматирует название животного в формат "Как в предложениях"
-     *
-     * @param animalName название животного
-     */
-    private String formatAnimalName(String animalName) {
-        if (!animalName.isEmpty()) {
-            return animalName.substring(0, 1).toUpperCase() + animalName.substring(1).toLowerCase();
-        } else {
-            return animalName;
-        }
-    }
-
-    /**
-     * Проверяет, что такого животного нет в базе
+     * Проверяет одним запросом, что ни одно из названий не занято другим животным
      * @param names названия на языках
      */
     private boolean isDuplicateAnimal(Map<Language, String> names) {
-        return names.values().stream()
-                .map(this::formatAnimalName)
-                .anyMatch(name -> animalRepository.findByName(name).isPresent());
+        Set<String> nameKeys = names.values().stream()
+                .map(AnimalNameNormalizer::normalize)
+                .collect(Collectors.toSet());
+        return !animalRepository.findExistingNameKeys(nameKeys).isEmpty();
     }
 
     /**
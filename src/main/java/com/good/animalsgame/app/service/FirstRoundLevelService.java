@@ -1,8 +1,11 @@
 package com.good.animalsgame.app.service;
 
 import com.good.animalsgame.app.repository.FirstRoundLevelRepository;
-import com.good.animalsgame.app.cache.LevelsSessionCache;
+import com.good.animalsgame.app.cache.LevelCache;
+import com.good.animalsgame.app.cache.LevelCatalog;
+import com.good.animalsgame.app.cache.LevelProgress;
 import com.good.animalsgame.domain.FirstRoundLevel;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
 /**
@@ -11,10 +14,15 @@ import org.springframework.stereotype.Service;
 @Service
 public class FirstRoundLevelService extends LevelService<FirstRoundLevel, FirstRoundLevelRepository> {
 
-    public FirstRoundLevelService(LevelsSessionCache levelsSessionCache,
+    private static final int FIRST_ROUND_NUMBER = 1;
+
+    public FirstRoundLevelService(LevelProgress levelProgress,
+                                  LevelCatalog levelCatalog,
+                                  LevelCache levelCache,
                                   FirstRoundLevelRepository firstRoundLevelRepository,
-                                  AnimalService animalService) {
-        super(levelsSessionCache, firstRoundLevelRepository, animalService);
+                                  AnimalService animalService,
+                                  ApplicationEventPublisher eventPublisher) {
+        super(FIRST_ROUND_NUMBER, levelProgress, levelCatalog, levelCache, firstRoundLevelRepository, animalService, eventPublisher);
     }
 
 }
@@ -1,15 +1,28 @@
 package com.good.animalsgame.app.service;
 
-import com.good.animalsgame.app.cache.LevelsSessionCache;
+import com.good.animalsgame.app.cache.LevelCache;
+import com.good.animalsgame.app.cache.LevelCatalog;
+import com.good.animalsgame.app.cache.LevelCatalogSnapshot;
+import com.good.animalsgame.app.cache.LevelProgress;
+import com.good.animalsgame.app.event.LevelImagesAddedEvent;
+import com.good.animalsgame.app.event.LevelsChangedEvent;
+import com.good.animalsgame.app.repository.LevelRepository;
 import com.good.animalsgame.domain.Animal;
+import com.good.animalsgame.domain.Coordinates;
 import com.good.animalsgame.domain.Level;
+import com.good.animalsgame.domain.LevelAnswerKey;
+import com.good.animalsgame.domain.LevelImage;
 import com.good.animalsgame.exception.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.context.ApplicationEventPublisher;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.Random;
 
 /**
  * Абстрактный сервис для работы с уровнями
@@ -17,12 +30,15 @@ import java.util.Random;
  * @param <T> тип уровня (раунд)
  * @param <R> тип репозитория
  */
-public abstract class LevelService<T extends Level, R extends JpaRepository<T, Long>> {
+public abstract class LevelService<T extends Level, R extends LevelRepository<T, Long>> {
 
-    private final LevelsSessionCache levelsSessionCache;
+    private final int round;
+    private final LevelProgress levelProgress;
+    private final LevelCatalog levelCatalog;
+    private final LevelCache levelCache;
     private final R levelRepository;
     private final AnimalService animalService;
-    private final Random random = new Random();
+    private final ApplicationEventPublisher eventPublisher;
     private final Logger log = LoggerFactory.getLogger(this.getClass());
 
     /**
@@ -30,12 +46,25 @@ public abstract class LevelService<T extends Level, R extends JpaRepository<T, L
      */
     private static final int ANIMALS_LIST_SIZE = 4;
 
-    protected LevelService(LevelsSessionCache levelsSessionCache,
+    /**
+     * Максимальное количество уровней, выдаваемых за один запрос
+     */
+    public static final int MAX_DEAL_SIZE = 20;
+
+    protected LevelService(int round,
+                           LevelProgress levelProgress,
+                           LevelCatalog levelCatalog,
+                           LevelCache levelCache,
                            R levelRepository,
-                           AnimalService animalService) {
-        this.levelsSessionCache = levelsSessionCache;
+                           AnimalService animalService,
+                           ApplicationEventPublisher eventPublisher) {
+        this.round = round;
+        this.levelProgress = levelProgress;
+        this.levelCatalog = levelCatalog;
+        this.levelCache = levelCache;
         this.levelRepository = levelRepository;
         this.animalService = animalService;
+        this.eventPublisher = eventPublisher;
     }
 
     /**
@@ -45,6 +74,60 @@ public abstract class LevelService<T extends Level, R extends JpaRepository<T, L
      * @return созданный уровень
      */
     public T createLevel(T level) throws IncorrectLevelException {
+        validateLevel(level);
+
+        T savedLevel = levelRepository.save(level);
+        eventPublisher.publishEvent(new LevelsChangedEvent(round));
+        publishImagesAdded(List.of(savedLevel));
+        log.info("Создан новый уровень с id {}", savedLevel.getId());
+        return savedLevel;
+    }
+
+    /**
+     * Создаёт несколько уровней одного раунда.
+     * Все уровни проверяются до сохранения, поэтому при ошибке не сохраняется ни один.
+     * Вставки отправляются в БД пачками JDBC, а снимок раунда сбрасывается один раз на все уровни
+     *
+     * @param levels уровни
+     * @return созданные уровни
+     */
+    public List<T> createLevels(List<T> levels) throws IncorrectLevelException {
+        for (T level : levels) {
+            validateLevel(level);
+        }
+
+        List<T> savedLevels = levelRepository.saveAll(levels);
+        eventPublisher.publishEvent(new LevelsChangedEvent(round));
+        publishImagesAdded(savedLevels);
+        log.info("Создано новых уровней: {}", savedLevels.size());
+        return savedLevels;
+    }
+
+    /**
+     * Сообщает о картинках созданных уровней, чтобы для них были созданы уменьшенные копии
+     *
+     * @param levels созданные уровни
+     */
+    private void publishImagesAdded(List<T> levels) {
+        Map<String, Integer> imageWidths = new HashMap<>();
+        for (T level : levels) {
+            if (level.getImageHash() != null && level.getImageWidth() != null) {
+                imageWidths.put(level.getImageHash(), level.getImageWidth());
+            }
+        }
+
+        if (!imageWidths.isEmpty()) {
+            eventPublisher.publishEvent(new LevelImagesAddedEvent(imageWidths));
+        }
+    }
+
+    /**
+     * Проверяет уровень по правилам создания уровней, не сохраняя его
+     *
+     * @param level уровень
+     * @throws IncorrectLevelException если уровень некорректен
+     */
+    public void validateLevel(T level) throws IncorrectLevelException {
         if (level == null) {
             throw new IllegalArgumentException("Уровень не может быть null");
         }
@@ -58,22 +141,60 @@ public abstract class LevelService<T extends Level, R extends JpaRepository<T, L
             }
         }
 
-        T savedLevel = levelRepository.save(level);
-        log.info("Создан новый уровень с id {}", savedLevel.getId());
-        return savedLevel;
+        checkAnimalCoordinates(level);
     }
 
     /**
-     * Получает уровень по идентификатору.
+     * Проверяет, что область животного лежит внутри картинки уровня.
+     * Проверка выполняется, если размеры картинки известны
+     *
+     * @param level уровень
+     * @throws IncorrectLevelException если область пустая или выходит за пределы картинки
+     */
+    private void checkAnimalCoordinates(T level) throws IncorrectLevelException {
+        Coordinates coordinates = level.getAnimalCoordinates();
+        if (level.getImageWidth() == null || level.getImageHeight() == null || coordinates == null) {
+            return;
+        }
+
+        boolean isInside = coordinates.x() >= 0 && coordinates.y() >= 0
+                && coordinates.width() > 0 && coordinates.height() > 0
+                && (long) coordinates.x() + coordinates.width() <= level.getImageWidth()
+                && (long) coordinates.y() + coordinates.height() <= level.getImageHeight();
+        if (!isInside) {
+            throw new IncorrectLevelException(String.format("Координаты животного выходят за пределы картинки %dx%d",
+                    level.getImageWidth(), level.getImageHeight()));
+        }
+    }
+
+    /**
+     * Получает уровень по идентификатору вместе с животными, через кэш уровней.
      *
      * @param levelId идентификатор
      * @throws EntityNotFoundException если уровень не найден
      */
     public T getLevelById(long levelId) throws EntityNotFoundException {
-        Optional<T> foundLevel = levelRepository.findById(levelId);
+        Optional<T> foundLevel = levelCache.getLevel(round, levelId, levelRepository::findWithAnimalsById);
         return foundLevel.orElseThrow(() -> new EntityNotFoundException(String.format("Уровень с id %d не найден", levelId)));
     }
 
+    /**
+     * Получает метаданные картинки уровня по идентификатору уровня, не загружая сам уровень.
+     *
+     * @param levelId идентификатор
+     * @throws EntityNotFoundException если уровень не найден или у него нет картинки в хранилище
+     */
+    public LevelImage getLevelImage(long levelId) throws EntityNotFoundException {
+        LevelImage levelImage = levelRepository.findLevelImageById(levelId)
+                .orElseThrow(() -> new EntityNotFoundException(String.format("Уровень с id %d не найден", levelId)));
+
+        if (levelImage.hash() == null) {
+            throw new EntityNotFoundException(String.format("Картинка уровня с id %d ещё не перенесена в хранилище", levelId));
+        }
+
+        return levelImage;
+    }
+
     /**
      * Удаляет уровень по идентификатору.
      *
@@ -82,6 +203,7 @@ public abstract class LevelService<T extends Level, R extends JpaRepository<T, L
     public void deleteLevel(long levelId) throws EntityNotFoundException {
         if (levelRepository.existsById(levelId)) {
             levelRepository.deleteById(levelId);
+            eventPublisher.publishEvent(new LevelsChangedEvent(round));
             log.info("Удален уровень с id {}", levelId);
         } else {
             throw new EntityNotFoundException(String.format("Уровень с id %d не найден", levelId));
@@ -89,32 +211,69 @@ public abstract class LevelService<T extends Level, R extends JpaRepository<T, L
     }
 
     /**
-     * Возвращает случайный уровень, удаляя его из кэша.
-     * Удаляет, чтобы пользователь не ловил дублирования
+     * Возвращает случайный уровень, сдвигая прогресс игрока в раунде.
+     * Уже выданные уровни не повторяются, чтобы пользователь не ловил дублирования.
+     * Уровни, удалённые после начала сессии, пропускаются
      *
      * @param round раунд
-     * @throws EntityNotFoundException если не найден уровень
+     * @throws NoLevelsLeftException если в раунде не осталось уровней
      */
-    public T getRandomLevel(int round) throws EntityNotFoundException, NoSuchRoundException, NoLevelsLeftException {
-        int roundSize = levelsSessionCache.getRoundSize(round);
+    public T getRandomLevel(int round) throws NoSuchRoundException, NoLevelsLeftException {
+        while (true) {
+            long randomLevelId = levelProgress.drawLevelId(round);
+            Optional<T> randomLevel = levelCache.getLevel(this.round, randomLevelId, levelRepository::findWithAnimalsById);
+            if (randomLevel.isPresent()) {
+                return randomLevel.get();
+            }
+            log.warn("Уровень с id {} из снимка раунда {} уже удалён", randomLevelId, round);
+        }
+    }
 
-        if (roundSize == 0) {
-            throw new NoLevelsLeftException(String.format("Уровней в раунде %d больше нет", round));
+    /**
+     * Выдаёт несколько следующих случайных уровней раунда за один запрос: уровни атомарно
+     * берутся из прогресса игрока, а отсутствующие в кэше уровней загружаются вместе с животными одним запросом к БД.
+     * Уровни, удалённые после начала сессии, пропускаются и заменяются следующими.
+     * Если уровней осталось меньше запрошенного, возвращаются все оставшиеся
+     *
+     * @param round раунд
+     * @param count количество уровней, от 1 до {@link #MAX_DEAL_SIZE}
+     * @return уровни в порядке выдачи
+     * @throws NoLevelsLeftException если в раунде не осталось уровней
+     */
+    public List<T> dealLevels(int round, int count) throws NoSuchRoundException, NoLevelsLeftException {
+        if (count < 1 || count > MAX_DEAL_SIZE) {
+            throw new IllegalArgumentException(String.format("Количество уровней должно быть от 1 до %d", MAX_DEAL_SIZE));
         }
 
-        int randomLevelIndex = random.nextInt(roundSize);
+        List<T> dealtLevels = new ArrayList<>(count);
+        while (dealtLevels.size() < count) {
+            long[] levelIds;
+            try {
+                levelIds = levelProgress.drawLevelIds(round, count - dealtLevels.size());
+            } catch (NoLevelsLeftException e) {
+                if (dealtLevels.isEmpty()) {
+                    throw e;
+                }
+                break;
+            }
 
-        try {
-            Long randomLevelId = levelsSessionCache.getLevelId(round, randomLevelIndex);
-            T randomLevel = levelRepository
-                    .findById(randomLevelId)
-                    .orElseThrow(() -> new EntityNotFoundException(String.format("Уровень с id %d не найден", randomLevelId)));
-
-            levelsSessionCache.removeLevel(round, randomLevelIndex);
-            return randomLevel;
-        } catch (IndexOutOfBoundsException e) {
-            throw new EntityNotFoundException(String.format("Не найден уровень с индексом %d", randomLevelIndex));
+            List<Long> ids = Arrays.stream(levelIds).boxed().toList();
+            Map<Long, T> levelsById = new HashMap<>();
+            for (T level : levelCache.getLevels(this.round, ids, levelRepository::findWithAnimalsByIdIn)) {
+                levelsById.put(level.getId(), level);
+            }
+
+            for (Long id : ids) {
+                T level = levelsById.get(id);
+                if (level != null) {
+                    dealtLevels.add(level);
+                } else {
+                    log.warn("Уровень с id {} из снимка раунда {} уже удалён", id, round);
+                }
+            }
         }
+
+        return dealtLevels;
     }
 
     /**
@@ -124,10 +283,10 @@ public abstract class LevelService<T extends Level, R extends JpaRepository<T, L
      * @param userAnswer ответ пользователя
      */
     public boolean isCorrectAnswer(Long levelId, String userAnswer) throws EntityNotFoundException {
-        T level = getLevelById(levelId);
-        Animal userAnimal = animalService.getAnimalByName(userAnswer);
+        LevelAnswerKey answerKey = getLevelAnswerKey(levelId);
+        Long userAnimalId = animalService.getAnimalIdByName(userAnswer);
 
-        return level.getCorrectAnimal().equals(userAnimal);
+        return answerKey.correctAnimalId().equals(userAnimalId);
     }
 
     /**
@@ -135,7 +294,28 @@ public abstract class LevelService<T extends Level, R extends JpaRepository<T, L
      * @param levelId идентификатор уровня
      */
     public Animal getLevelCorrectAnimal(Long levelId) throws EntityNotFoundException {
-        T level = getLevelById(levelId);
-        return level.getCorrectAnimal();
+        LevelAnswerKey answerKey = getLevelAnswerKey(levelId);
+        return animalService.getAnimalById(answerKey.correctAnimalId());
+    }
+
+    /**
+     * Возвращает ключ ответа уровня из каталога уровней, без обращения к БД
+     * @param levelId идентификатор уровня
+     * @throws EntityNotFoundException если уровень не найден
+     */
+    protected LevelAnswerKey getLevelAnswerKey(Long levelId) throws EntityNotFoundException {
+        LevelCatalogSnapshot snapshot;
+        try {
+            snapshot = levelCatalog.getSnapshot(round);
+        } catch (NoSuchRoundException e) {
+            throw new IllegalStateException(e);
+        }
+
+        LevelAnswerKey answerKey = snapshot.findAnswerKey(levelId);
+        if (answerKey == null) {
+            throw new EntityNotFoundException(String.format("Уровень с id %d не найден", levelId));
+        }
+
+        return answerKey;
     }
 }
@@ -1,10 +1,14 @@
 package com.good.animalsgame.app.service;
 
-import com.good.animalsgame.app.cache.LevelsSessionCache;
+import com.good.animalsgame.app.cache.LevelCache;
+import com.good.animalsgame.app.cache.LevelCatalog;
+import com.good.animalsgame.app.cache.LevelProgress;
 import com.good.animalsgame.app.repository.SecondRoundLevelRepository;
+import com.good.animalsgame.domain.LevelAnswerKey;
 import com.good.animalsgame.domain.SecondRoundLevel;
 import com.good.animalsgame.exception.EntityNotFoundException;
 import com.good.animalsgame.exception.IncorrectLevelException;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
 /**
@@ -13,14 +17,19 @@ import org.springframework.stereotype.Service;
 @Service
 public class SecondRoundLevelService extends LevelService<SecondRoundLevel, SecondRoundLevelRepository> {
 
-    public SecondRoundLevelService(LevelsSessionCache levelsSessionCache,
+    private static final int SECOND_ROUND_NUMBER = 2;
+
+    public SecondRoundLevelService(LevelProgress levelProgress,
+                                   LevelCatalog levelCatalog,
+                                   LevelCache levelCache,
                                    SecondRoundLevelRepository secondRoundLevelRepository,
-                                   AnimalService animalService) {
-        super(levelsSessionCache, secondRoundLevelRepository, animalService);
+                                   AnimalService animalService,
+                                   ApplicationEventPublisher eventPublisher) {
+        super(SECOND_ROUND_NUMBER, levelProgress, levelCatalog, levelCache, secondRoundLevelRepository, animalService, eventPublisher);
     }
 
     @Override
-    public SecondRoundLevel createLevel(SecondRoundLevel level) throws IncorrectLevelException {
+    public void validateLevel(SecondRoundLevel level) throws IncorrectLevelException {
         if (level == null) {
             throw new IllegalArgumentException("Уровень не может быть null");
         }
@@ -36,7 +45,7 @@ public class SecondRoundLevelService extends LevelService<SecondRoundLevel, Seco
             );
         }
 
-        return super.createLevel(level);
+        super.validateLevel(level);
     }
 
     /**
@@ -46,8 +55,8 @@ public class SecondRoundLevelService extends LevelService<SecondRoundLevel, Seco
      * @param userAnswer ответ пользователя
      */
     public boolean isCorrectYesNoAnswer(Long levelId, boolean userAnswer) throws EntityNotFoundException {
-        SecondRoundLevel level = getLevelById(levelId);
-        boolean rightAnswerForLevel = (level.getCorrectAnimal() == level.getAnimalInQuestion());
+        LevelAnswerKey answerKey = getLevelAnswerKey(levelId);
+        boolean rightAnswerForLevel = answerKey.correctAnimalId().equals(answerKey.animalInQuestionId());
         return userAnswer == rightAnswerForLevel;
     }
 }
@@ -1,5 +1,8 @@
 package com.good.animalsgame.app.service;
 
+import com.good.animalsgame.app.cache.UiTextBundle;
+import com.good.animalsgame.app.cache.UiTextBundleCache;
+import com.good.animalsgame.app.event.UiTextsChangedEvent;
 import com.good.animalsgame.app.repository.UiTextRepository;
 import com.good.animalsgame.domain.Language;
 import com.good.animalsgame.domain.UiText;
@@ -8,6 +11,7 @@ import com.good.animalsgame.exception.EntityNotFoundException;
 import com.good.animalsgame.exception.LanguageException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
@@ -20,10 +24,16 @@ import java.util.Optional;
 public class UiTextService {
 
     private final UiTextRepository uiTextRepository;
+    private final UiTextBundleCache uiTextBundleCache;
+    private final ApplicationEventPublisher eventPublisher;
     private final Logger log = LoggerFactory.getLogger(this.getClass());
 
-    public UiTextService(UiTextRepository uiTextRepository) {
+    public UiTextService(UiTextRepository uiTextRepository,
+                         UiTextBundleCache uiTextBundleCache,
+                         ApplicationEventPublisher eventPublisher) {
         this.uiTextRepository = uiTextRepository;
+        this.uiTextBundleCache = uiTextBundleCache;
+        this.eventPublisher = eventPublisher;
     }
 
     /**
@@ -37,6 +47,7 @@ public class UiTextService {
         }
 
         uiTextRepository.save(uiText);
+        eventPublisher.publishEvent(new UiTextsChangedEvent(uiText.getId()));
         log.info("Создан UI-текст: {}", uiText.getTitle());
     }
 
@@ -68,6 +79,7 @@ public class UiTextService {
     public void deleteUiText(Long id) throws EntityNotFoundException {
         if (uiTextRepository.existsById(id)) {
             uiTextRepository.deleteById(id);
+            eventPublisher.publishEvent(new UiTextsChangedEvent(id));
         } else {
             throw new EntityNotFoundException("Не найден UI-текст с ID " + id);
         }
@@ -80,6 +92,15 @@ public class UiTextService {
         return uiTextRepository.findAll();
     }
 
+    /**
+     * Возвращает заранее сериализованный набор всех текстов интерфейса на языке
+     * @param language язык
+     * @throws LanguageException если язык не найден
+     */
+    public UiTextBundle getUiTextBundle(String language) throws LanguageException {
+        return uiTextBundleCache.getBundle(getLanguageEnumValue(language));
+    }
+
     /**
      * Добавляет UI-тексту язык
      * @param id идентификатор
@@ -89,13 +110,7 @@ public class UiTextService {
      */
     public void addLanguage(Long id, String language, String text) throws EntityNotFoundException, LanguageException {
         UiText uiText = getUiTextById(id);
-        Language languageConst;
-
-        try {
-            languageConst = Language.valueOf(language);
-        } catch (IllegalArgumentException e) {
-            throw new LanguageException("Нет языка " + language);
-        }
+        Language languageConst = getLanguageEnumValue(language);
 
         if (uiText.getTexts().containsKey(languageConst)) {
             throw new LanguageException("Язык " + language + " уже есть!");
@@ -104,6 +119,7 @@ public class UiTextService {
         uiText.getTexts().put(languageConst, text);
 
         uiTextRepository.save(uiText);
+        eventPublisher.publishEvent(new UiTextsChangedEvent(id));
         log.info("Добавлен язык {} к UI-тексту {}", language, id);
     }
 
@@ -115,13 +131,7 @@ public class UiTextService {
      */
     public void removeLanguage(Long id, String language) throws EntityNotFoundException, LanguageException {
         UiText uiText = getUiTextById(id);
-        Language languageConst;
-
-        try {
-            languageConst = Language.valueOf(language);
-        } catch (IllegalArgumentException e) {
-            throw new LanguageException("Нет языка " + language);
-        }
+        Language languageConst = getLanguageEnumValue(language);
 
         if (!uiText.getTexts().containsKey(languageConst)) {
             throw new LanguageException("Язык " + language + " отсутствует у текста!");
@@ -134,6 +144,20 @@ public class UiTextService {
         uiText.getTexts().remove(languageConst);
 
         uiTextRepository.save(uiText);
+        eventPublisher.publishEvent(new UiTextsChangedEvent(id));
         log.info("Удалён язык {} у UI-текста {}", language, id);
     }
+
+    /**
+     * Возвращает язык по названию
+     * @param language название языка
+     * @throws LanguageException если язык не найден
+     */
+    private Language getLanguageEnumValue(String language) throws LanguageException {
+        try {
+            return Language.valueOf(language);
+        } catch (IllegalArgumentException e) {
+            throw new LanguageException("Нет языка " + language);
+        }
+    }
 }
@@ -0,0 +1,22 @@
+package com.good.animalsgame.app.storage;
+
+import lombok.Getter;
+
+/**
+ * Поддерживаемые форматы картинок уровней
+ */
+@Getter
+public enum ImageFormat {
+    JPEG("image/jpeg"),
+    PNG("image/png"),
+    WEBP("image/webp");
+
+    /**
+     * MIME-тип формата
+     */
+    private final String contentType;
+
+    ImageFormat(String contentType) {
+        this.contentType = contentType;
+    }
+}
@@ -0,0 +1,10 @@
+package com.good.animalsgame.app.storage;
+
+/**
+ * Сведения о картинке из её заголовка
+ * @param format формат
+ * @param width ширина в пикселях
+ * @param height высота в пикселях
+ */
+public record ImageHeader(ImageFormat format, int width, int height) {
+}
@@ -0,0 +1,214 @@
+package com.good.animalsgame.app.storage;
+
+import org.springframework.core.io.InputStreamSource;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Optional;
+
+/**
+ * Чтение формата и размеров картинки по заголовку, без декодирования растра.
+ * Поддерживаются JPEG (маркер SOF), PNG (чанк IHDR) и WebP (чанки VP8, VP8L и VP8X).
+ * Из потока читаются только байты заголовка, остальные сегменты пропускаются через skip,
+ * поэтому на одну картинку выделяется один буфер в несколько десятков байт
+ */
+public final class ImageHeaderReader {
+
+    /**
+     * Размер буфера - наибольший из читаемых за раз фрагментов заголовка
+     */
+    private static final int BUFFER_SIZE = 12;
+
+    private static final byte[] PNG_SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+
+    private ImageHeaderReader() {
+    }
+
+    /**
+     * Читает заголовок картинки из источника, открывая и закрывая его поток
+     *
+     * @param source картинка, например загруженный файл
+     * @return заголовок или пустой результат, если формат не поддерживается или заголовок повреждён
+     */
+    public static Optional<ImageHeader> read(InputStreamSource source) throws IOException {
+        try (InputStream inputStream = source.getInputStream()) {
+            return read(inputStream);
+        }
+    }
+
+    /**
+     * Читает заголовок картинки из начала потока. Поток не закрывается и остаётся прочитанным частично
+     *
+     * @param inputStream содержимое картинки
+     * @return заголовок или пустой результат, если формат не поддерживается или заголовок повреждён
+     */
+    public static Optional<ImageHeader> read(InputStream inputStream) throws IOException {
+        byte[] buffer = new byte[BUFFER_SIZE];
+        try {
+            readFully(inputStream, buffer, 0, 2);
+            if (u8(buffer, 0) == 0xFF && u8(buffer, 1) == 0xD8) {
+                return readJpeg(inputStream, buffer);
+            }
+
+            readFully(inputStream, buffer, 2, 10);
+            if (startsWith(buffer, PNG_SIGNATURE)) {
+                return readPng(inputStream, buffer);
+            }
+            if (isAscii(buffer, 0, "RIFF") && isAscii(buffer, 8, "WEBP")) {
+                return readWebp(inputStream, buffer);
+            }
+            return Optional.empty();
+        } catch (EOFException e) {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * PNG: после сигнатуры первым идёт чанк IHDR - длина, тип, ширина и высота (big-endian)
+     */
+    private static Optional<ImageHeader> readPng(InputStream inputStream, byte[] buffer) throws IOException {
+        // первые 4 байта длины IHDR уже прочитаны вместе с сигнатурой
+        readFully(inputStream, buffer, 0, 12);
+        if (!isAscii(buffer, 0, "IHDR")) {
+            return Optional.empty();
+        }
+        return header(ImageFormat.PNG, s32be(buffer, 4), s32be(buffer, 8));
+    }
+
+    /**
+     * JPEG: сегменты маркер-длина пропускаются до первого маркера SOF, в котором лежат высота и ширина
+     */
+    private static Optional<ImageHeader> readJpeg(InputStream inputStream, byte[] buffer) throws IOException {
+        while (true) {
+            int marker = nextJpegMarker(inputStream);
+            if (marker == 0xD9 || marker == 0xDA) {
+                // конец картинки или начало данных - SOF не найден
+                return Optional.empty();
+            }
+            if (marker == 0x01 || (marker >= 0xD0 && marker <= 0xD8)) {
+                // маркеры без длины
+                continue;
+            }
+
+            readFully(inputStream, buffer, 0, 2);
+            int length = u16be(buffer, 0);
+            if (length < 2) {
+                return Optional.empty();
+            }
+
+            if (isStartOfFrame(marker)) {
+                readFully(inputStream, buffer, 0, 5);
+                return header(ImageFormat.JPEG, u16be(buffer, 3), u16be(buffer, 1));
+            }
+            inputStream.skipNBytes(length - 2);
+        }
+    }
+
+    /**
+     * Читает следующий маркер JPEG, пропуская байты-заполнители 0xFF
+     */
+    private static int nextJpegMarker(InputStream inputStream) throws IOException {
+        int value = readByte(inputStream);
+        if (value != 0xFF) {
+            throw new EOFException("Ожидался маркер JPEG");
+        }
+        do {
+            value = readByte(inputStream);
+        } while (value == 0xFF);
+        return value;
+    }
+
+    /**
+     * SOF0-SOF15, кроме DHT (C4), JPG (C8) и DAC (CC)
+     */
+    private static boolean isStartOfFrame(int marker) {
+        return marker >= 0xC0 && marker <= 0xCF && marker != 0xC4 && marker != 0xC8 && marker != 0xCC;
+    }
+
+    /**
+     * WebP: RIFF-контейнер, размеры лежат в первом чанке - VP8 (с потерями), VP8L (без потерь) или VP8X (расширенный)
+     */
+    private static Optional<ImageHeader> readWebp(InputStream inputStream, byte[] buffer) throws IOException {
+        readFully(inputStream, buffer, 0, 8);
+        if (isAscii(buffer, 0, "VP8 ")) {
+            // тег кадра (3 байта), стартовый код 9D 01 2A, ширина и высота по 14 бит little-endian
+            readFully(inputStream, buffer, 0, 10);
+            if (u8(buffer, 3) != 0x9D || u8(buffer, 4) != 0x01 || u8(buffer, 5) != 0x2A) {
+                return Optional.empty();
+            }
+            return header(ImageFormat.WEBP, u16le(buffer, 6) & 0x3FFF, u16le(buffer, 8) & 0x3FFF);
+        }
+        if (isAscii(buffer, 0, "VP8L")) {
+            // сигнатура 0x2F, затем ширина - 1 и высота - 1 по 14 бит
+            readFully(inputStream, buffer, 0, 5);
+            if (u8(buffer, 0) != 0x2F) {
+                return Optional.empty();
+            }
+            long bits = u8(buffer, 1) | u8(buffer, 2) << 8 | u8(buffer, 3) << 16 | (long) u8(buffer, 4) << 24;
+            return header(ImageFormat.WEBP, (int) (bits & 0x3FFF) + 1, (int) ((bits >> 14) & 0x3FFF) + 1);
+        }
+        if (isAscii(buffer, 0, "VP8X")) {
+            // флаги (4 байта), затем ширина - 1 и высота - 1 по 24 бита little-endian
+            readFully(inputStream, buffer, 0, 10);
+            return header(ImageFormat.WEBP, u24le(buffer, 4) + 1, u24le(buffer, 7) + 1);
+        }
+        return Optional.empty();
+    }
+
+    private static Optional<ImageHeader> header(ImageFormat format, int width, int height) {
+        return width > 0 && height > 0 ? Optional.of(new ImageHeader(format, width, height)) : Optional.empty();
+    }
+
+    private static void readFully(InputStream inputStream, byte[] buffer, int offset, int length) throws IOException {
+        if (inputStream.readNBytes(buffer, offset, length) < length) {
+            throw new EOFException("Заголовок картинки обрывается");
+        }
+    }
+
+    private static int readByte(InputStream inputStream) throws IOException {
+        int value = inputStream.read();
+        if (value < 0) {
+            throw new EOFException("Заголовок картинки обрывается");
+        }
+        return value;
+    }
+
+    private static boolean startsWith(byte[] buffer, byte[] prefix) {
+        for (int i = 0; i < prefix.length; i++) {
+            if (buffer[i] != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isAscii(byte[] buffer, int offset, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            if (buffer[offset + i] != value.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int u8(byte[] buffer, int offset) {
+        return buffer[offset] & 0xFF;
+    }
+
+    private static int u16be(byte[] buffer, int offset) {
+        return u8(buffer, offset) << 8 | u8(buffer, offset + 1);
+    }
+
+    private static int u16le(byte[] buffer, int offset) {
+        return u8(buffer, offset) | u8(buffer, offset + 1) << 8;
+    }
+
+    private static int u24le(byte[] buffer, int offset) {
+        return u8(buffer, offset) | u8(buffer, offset + 1) << 8 | u8(buffer, offset + 2) << 16;
+    }
+
+    private static int s32be(byte[] buffer, int offset) {
+        return u16be(buffer, offset) << 16 | u16be(buffer, offset + 2);
+    }
+}
@@ -0,0 +1,14 @@
+package com.good.animalsgame.app.storage;
+
+/**
+ * Заглушка картинки, которую клиент показывает до её загрузки
+ * @param blurHash BlurHash картинки, пустая строка - картинку не удалось разобрать
+ * @param color основной цвет картинки в виде #rrggbb или null
+ */
+public record ImagePlaceholder(String blurHash, String color) {
+
+    /**
+     * Заглушка картинки, которую не удалось разобрать: сохраняется, чтобы картинка не разбиралась повторно
+     */
+    public static final ImagePlaceholder UNKNOWN = new ImagePlaceholder("", null);
+}
@@ -0,0 +1,170 @@
+package com.good.animalsgame.app.storage;
+
+import com.good.animalsgame.app.event.LevelImagesAddedEvent;
+import com.good.animalsgame.app.repository.LevelRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.io.Resource;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Заглушки картинок уровней: BlurHash и основной цвет, по которым клиент рисует фон уровня сразу из JSON,
+ * ещё до загрузки картинки.
+ * Заглушки вычисляются в отдельном фоновом потоке по уменьшенной копии картинки и сохраняются в уровнях,
+ * поэтому чтение уровня их только отдаёт. Вычисление запускается после создания уровней
+ * и по расписанию images.placeholders.sweep-interval - так заглушки получают и уровни, созданные раньше
+ * или восстановленные из резервной копии
+ */
+@Service
+public class ImagePlaceholderService extends LevelImageProcessor<ImagePlaceholder> {
+
+    /**
+     * Компонент BlurHash по горизонтали и вертикали
+     */
+    private static final int COMPONENTS_X = 4;
+    private static final int COMPONENTS_Y = 3;
+
+    /**
+     * Длина большей стороны уменьшенной копии, по которой вычисляется заглушка
+     */
+    private static final int SAMPLE_SIZE = 32;
+
+    private final ImageStorage imageStorage;
+
+    /**
+     * @param levelRepositories номер раунда в виде строки (из имени бина) -> репозиторий
+     */
+    public ImagePlaceholderService(ImageStorage imageStorage,
+                                   Map<String, LevelRepository<?, ?>> levelRepositories,
+                                   TransactionTemplate transactionTemplate,
+                                   ApplicationEventPublisher eventPublisher,
+                                   @Value("${images.placeholders.enabled}") boolean enabled,
+                                   @Value("${images.placeholders.batch-size}") int batchSize) {
+        super("image-placeholders", levelRepositories, transactionTemplate, eventPublisher, enabled, batchSize);
+        this.imageStorage = imageStorage;
+    }
+
+    /**
+     * Запускает вычисление заглушек после фиксации транзакции, создавшей уровни
+     *
+     * @param event событие появления картинок
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onLevelImagesAdded(LevelImagesAddedEvent event) {
+        requestProcessing();
+    }
+
+    /**
+     * Запускает вычисление заглушек по расписанию для уровней, пропущенных при создании
+     */
+    @Scheduled(fixedDelayString = "${images.placeholders.sweep-interval}")
+    public void sweep() {
+        requestProcessing();
+    }
+
+    /**
+     * Вычисляет и сохраняет заглушки всех уровней, у которых их ещё нет.
+     * Каждая картинка разбирается один раз, даже если она есть у нескольких уровней и раундов
+     *
+     * @return количество уровней, получивших заглушки
+     */
+    public int fillPlaceholders() {
+        int updated = processAll();
+        if (updated > 0) {
+            log.info("Сохранены заглушки картинок уровней: {}", updated);
+        }
+        return updated;
+    }
+
+    @Override
+    protected List<String> findUnprocessed(LevelRepository<?, ?> levelRepository, Pageable pageable) {
+        return levelRepository.findImageHashesWithoutPlaceholder(pageable);
+    }
+
+    @Override
+    protected ImagePlaceholder process(String hash) {
+        return createPlaceholder(hash);
+    }
+
+    @Override
+    protected int update(LevelRepository<?, ?> levelRepository, String hash, ImagePlaceholder placeholder) {
+        return levelRepository.updateImagePlaceholder(hash, placeholder.blurHash(), placeholder.color());
+    }
+
+    /**
+     * Вычисляет заглушку картинки по её уменьшенной копии
+     *
+     * @param hash хэш картинки
+     * @return заглушка или {@link ImagePlaceholder#UNKNOWN}, если картинку не удалось прочитать
+     */
+    ImagePlaceholder createPlaceholder(String hash) {
+        Optional<Resource> resource = imageStorage.find(hash);
+        if (resource.isEmpty()) {
+            log.warn("Картинки {} нет в хранилище, заглушка не вычислена", hash);
+            return ImagePlaceholder.UNKNOWN;
+        }
+
+        try {
+            ImageProcessing.DecodedImage decoded = ImageProcessing.decode(resource.get(), SAMPLE_SIZE);
+            if (decoded == null) {
+                log.info("Формат картинки {} не поддерживается ImageIO, заглушка не вычислена", hash);
+                return ImagePlaceholder.UNKNOWN;
+            }
+
+            BufferedImage sample = sample(decoded);
+            return new ImagePlaceholder(BlurHash.encode(sample, COMPONENTS_X, COMPONENTS_Y), dominantColor(sample));
+        } catch (IOException | RuntimeException e) {
+            log.warn("Не удалось разобрать картинку {}: {}", hash, e.getMessage());
+            return ImagePlaceholder.UNKNOWN;
+        }
+    }
+
+    /**
+     * Уменьшает картинку так, чтобы большая сторона была не длиннее {@link #SAMPLE_SIZE}
+     */
+    private static BufferedImage sample(ImageProcessing.DecodedImage decoded) {
+        double scale = Math.min(1.0, (double) SAMPLE_SIZE / Math.max(decoded.sourceWidth(), decoded.sourceHeight()));
+        int width = Math.max(1, (int) Math.round(decoded.sourceWidth() * scale));
+        int height = Math.max(1, (int) Math.round(decoded.sourceHeight() * scale));
+        return ImageProcessing.resize(decoded.image(), width, height);
+    }
+
+    /**
+     * Основной цвет: пиксели раскладываются по корзинам из 4 старших бит каждого канала,
+     * результат - средний цвет самой заполненной корзины
+     */
+    static String dominantColor(BufferedImage image) {
+        int[] counts = new int[1 << 12];
+        long[][] sums = new long[1 << 12][3];
+        int dominant = 0;
+        for (int y = 0; y < image.getHeight(); y++) {
+            for (int x = 0; x < image.getWidth(); x++) {
+                int rgb = image.getRGB(x, y);
+                int r = (rgb >> 16) & 0xFF;
+                int g = (rgb >> 8) & 0xFF;
+                int b = rgb & 0xFF;
+                int bucket = (r >> 4) << 8 | (g >> 4) << 4 | (b >> 4);
+                counts[bucket]++;
+                sums[bucket][0] += r;
+                sums[bucket][1] += g;
+                sums[bucket][2] += b;
+                if (counts[bucket] > counts[dominant]) {
+                    dominant = bucket;
+                }
+            }
+        }
+
+        int count = counts[dominant];
+        return String.format("#%02x%02x%02x", sums[dominant][0] / count, sums[dominant][1] / count, sums[dominant][2] / count);
+    }
+}
@@ -0,0 +1,112 @@
+package com.good.animalsgame.app.storage;
+
+import org.springframework.core.io.Resource;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.plugins.jpeg.JPEGImageWriteParam;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+
+/**
+ * Общие операции над картинками средствами ImageIO: чтение с прореживанием, уменьшение и кодирование в JPEG
+ */
+final class ImageProcessing {
+
+    private ImageProcessing() {
+    }
+
+    /**
+     * Прочитанная картинка
+     * @param image картинка, возможно прореженная
+     * @param sourceWidth ширина исходной картинки
+     * @param sourceHeight высота исходной картинки
+     */
+    record DecodedImage(BufferedImage image, int sourceWidth, int sourceHeight) {
+    }
+
+    /**
+     * Читает картинку с прореживанием пикселей: не меньше чем в два раза шире нужной ширины,
+     * чтобы последующее сглаживающее уменьшение не теряло деталей. Большие картинки не раскодируются в память целиком
+     *
+     * @param resource картинка
+     * @param targetWidth ширина, до которой картинку будут уменьшать, Integer.MAX_VALUE - читать без прореживания
+     * @return картинка или null, если её формат не поддерживается ImageIO
+     */
+    static DecodedImage decode(Resource resource, int targetWidth) throws IOException {
+        try (InputStream inputStream = resource.getInputStream();
+             ImageInputStream imageStream = ImageIO.createImageInputStream(inputStream)) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(imageStream);
+            if (!readers.hasNext()) {
+                return null;
+            }
+
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(imageStream, true, true);
+                int sourceWidth = reader.getWidth(0);
+                int sourceHeight = reader.getHeight(0);
+
+                ImageReadParam param = reader.getDefaultReadParam();
+                int subsampling = (int) Math.max(1, sourceWidth / (2L * Math.max(1, targetWidth)));
+                param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                return new DecodedImage(reader.read(0, param), sourceWidth, sourceHeight);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * Масштабирует картинку на белом фоне - в JPEG нет прозрачности
+     */
+    static BufferedImage resize(BufferedImage image, int width, int height) {
+        BufferedImage resized = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = resized.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.setColor(Color.WHITE);
+            graphics.fillRect(0, 0, width, height);
+            graphics.drawImage(image, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+        return resized;
+    }
+
+    /**
+     * Кодирует картинку в JPEG с заданным качеством и оптимизированными таблицами Хаффмана
+     *
+     * @param image картинка
+     * @param quality качество от 0 до 1
+     */
+    static byte[] encodeJpeg(BufferedImage image, float quality) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        JPEGImageWriteParam param = (JPEGImageWriteParam) writer.getDefaultWriteParam();
+        param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+        param.setCompressionQuality(quality);
+        param.setOptimizeHuffmanTables(true);
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        try (ImageOutputStream imageStream = ImageIO.createImageOutputStream(outputStream)) {
+            writer.setOutput(imageStream);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return outputStream.toByteArray();
+    }
+}
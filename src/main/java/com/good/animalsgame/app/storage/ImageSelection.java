@@ -0,0 +1,11 @@
+package com.good.animalsgame.app.storage;
+
+/**
+ * Картинка, выбранная для ответа на запрос картинки уровня нужной ширины
+ * @param hash хэш картинки в хранилище
+ * @param contentType MIME-тип
+ * @param pending true, если отдаётся исходная картинка, потому что подходящая копия ещё не готова.
+ *                Такой ответ нельзя кэшировать навсегда
+ */
+public record ImageSelection(String hash, String contentType, boolean pending) {
+}
@@ -0,0 +1,46 @@
+package com.good.animalsgame.app.storage;
+
+import org.springframework.core.io.Resource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Optional;
+
+/**
+ * Хранилище картинок, адресуемое по содержимому (SHA-256).
+ * Одинаковые картинки хранятся в одном экземпляре
+ */
+public interface ImageStorage {
+
+    /**
+     * Сохраняет картинку, читая поток до конца
+     *
+     * @param inputStream содержимое картинки
+     * @return хэш и размер сохранённой картинки
+     */
+    StoredImage store(InputStream inputStream) throws IOException;
+
+    /**
+     * Сохраняет картинку, только если хэш содержимого совпадает с ожидаемым.
+     * При несовпадении содержимое не остаётся в хранилище
+     *
+     * @param inputStream содержимое картинки
+     * @param expectedHash ожидаемый SHA-256 содержимого в hex
+     * @return хэш и размер прочитанного содержимого
+     */
+    StoredImage store(InputStream inputStream, String expectedHash) throws IOException;
+
+    /**
+     * Ищет картинку по хэшу
+     *
+     * @param hash SHA-256 содержимого в hex
+     */
+    Optional<Resource> find(String hash);
+
+    /**
+     * Проверяет, есть ли картинка в хранилище
+     *
+     * @param hash SHA-256 содержимого в hex
+     */
+    boolean exists(String hash);
+}
@@ -0,0 +1,348 @@
+package com.good.animalsgame.app.storage;
+
+import com.good.animalsgame.app.event.LevelImagesAddedEvent;
+import com.good.animalsgame.app.repository.ImageTileRepository;
+import com.good.animalsgame.app.repository.LevelRepository;
+import com.good.animalsgame.domain.ImageTile;
+import com.good.animalsgame.exception.EntityNotFoundException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.io.Resource;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.event.IIOReadUpdateListener;
+import javax.imageio.metadata.IIOMetadata;
+import javax.imageio.metadata.IIOMetadataFormatImpl;
+import javax.imageio.stream.FileImageInputStream;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Пирамиды тайлов больших картинок уровней (панорамы, подробные сцены): клиент загружает только тайлы
+ * видимой области на текущем приближении, а не всю картинку в исходном разрешении.
+ * Тайлы строятся в отдельном фоновом потоке для картинок, у которых большая сторона не меньше images.tiles.min-size,
+ * и сохраняются в хранилище картинок. Картинка раскодируется один раз целиком в память, а готовые полосы строк
+ * передаются построителю пирамиды по ходу раскодирования. Картинки больше images.tiles.max-pixels не раскодируются
+ * и остаются без тайлов: размер берётся из заголовка до раскодирования.
+ * Построение запускается после создания уровней и по расписанию images.tiles.sweep-interval.
+ * Координаты животного остаются в пикселях исходной картинки - на уровне пирамиды zoom они уменьшаются в 2^(maxZoom - zoom) раз
+ */
+@Service
+public class ImageTileService extends LevelImageProcessor<Integer> {
+
+    /**
+     * Сторона тайла в пикселях. Крайние тайлы справа и снизу могут быть меньше
+     */
+    public static final int TILE_SIZE = 256;
+
+    /**
+     * Уровень пирамиды у картинки, которую не удалось разбить на тайлы
+     */
+    static final int UNTILED = -1;
+
+    private final ImageStorage imageStorage;
+    private final ImageTileRepository imageTileRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int minSize;
+    private final float jpegQuality;
+    private final long maxPixels;
+
+    /**
+     * @param levelRepositories номер раунда в виде строки (из имени бина) -> репозиторий
+     */
+    public ImageTileService(ImageStorage imageStorage,
+                            ImageTileRepository imageTileRepository,
+                            Map<String, LevelRepository<?, ?>> levelRepositories,
+                            TransactionTemplate transactionTemplate,
+                            ApplicationEventPublisher eventPublisher,
+                            @Value("${images.tiles.enabled}") boolean enabled,
+                            @Value("${images.tiles.min-size}") int minSize,
+                            @Value("${images.tiles.jpeg-quality}") float jpegQuality,
+                            @Value("${images.tiles.max-pixels}") long maxPixels,
+                            @Value("${images.tiles.batch-size}") int batchSize) {
+        super("image-tiles", levelRepositories, transactionTemplate, eventPublisher, enabled, batchSize);
+        this.imageStorage = imageStorage;
+        this.imageTileRepository = imageTileRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.minSize = minSize;
+        this.jpegQuality = jpegQuality;
+        this.maxPixels = maxPixels;
+    }
+
+    /**
+     * Запускает построение тайлов после фиксации транзакции, создавшей уровни
+     *
+     * @param event событие появления картинок
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onLevelImagesAdded(LevelImagesAddedEvent event) {
+        requestProcessing();
+    }
+
+    /**
+     * Запускает построение тайлов по расписанию для уровней, пропущенных при создании
+     */
+    @Scheduled(fixedDelayString = "${images.tiles.sweep-interval}")
+    public void sweep() {
+        requestProcessing();
+    }
+
+    /**
+     * Возвращает хэш тайла картинки в хранилище
+     *
+     * @param imageHash хэш исходной картинки
+     * @param zoom уровень пирамиды
+     * @param x номер тайла по горизонтали
+     * @param y номер тайла по вертикали
+     * @throws EntityNotFoundException если такого тайла нет или пирамида ещё не построена
+     */
+    public String getTileHash(String imageHash, int zoom, int x, int y) throws EntityNotFoundException {
+        return imageTileRepository.findBySourceHashAndZoomAndXAndY(imageHash, zoom, x, y)
+                .map(ImageTile::getTileHash)
+                .orElseThrow(() -> new EntityNotFoundException(String.format("Тайл %d/%d/%d картинки %s не найден", zoom, x, y, imageHash)));
+    }
+
+    /**
+     * Строит тайлы всех больших картинок уровней, у которых их ещё нет.
+     * Каждая картинка разбивается один раз, даже если она есть у нескольких уровней и раундов
+     *
+     * @return количество уровней, получивших тайлы
+     */
+    public int fillTiles() {
+        int updated = processAll();
+        if (updated > 0) {
+            log.info("Построены тайлы картинок уровней: {}", updated);
+        }
+        return updated;
+    }
+
+    @Override
+    protected List<String> findUnprocessed(LevelRepository<?, ?> levelRepository, Pageable pageable) {
+        return levelRepository.findImageHashesWithoutTiles(minSize, pageable);
+    }
+
+    @Override
+    protected Integer process(String hash) {
+        return createTiles(hash);
+    }
+
+    @Override
+    protected int update(LevelRepository<?, ?> levelRepository, String hash, Integer zoom) {
+        return levelRepository.updateImageTileZoom(hash, zoom);
+    }
+
+    /**
+     * Строит пирамиду тайлов картинки, если её ещё нет, и сохраняет тайлы одной транзакцией
+     *
+     * @param hash хэш картинки
+     * @return наибольший уровень пирамиды или {@link #UNTILED}, если картинку не удалось разбить
+     */
+    int createTiles(String hash) {
+        Integer existingZoom = imageTileRepository.findMaxZoomBySourceHash(hash);
+        if (existingZoom != null) {
+            return existingZoom;
+        }
+
+        Optional<Resource> resource = imageStorage.find(hash);
+        if (resource.isEmpty()) {
+            log.warn("Картинки {} нет в хранилище, тайлы не построены", hash);
+            return UNTILED;
+        }
+
+        List<ImageTile> tiles = new ArrayList<>();
+        try {
+            Integer maxZoom = readTiles(resource.get(), maxPixels, (zoom, x, y, tile) -> {
+                StoredImage storedTile = imageStorage.store(new ByteArrayInputStream(ImageProcessing.encodeJpeg(tile, jpegQuality)));
+                tiles.add(ImageTile.builder()
+                        .sourceHash(hash)
+                        .zoom(zoom)
+                        .x(x)
+                        .y(y)
+                        .tileHash(storedTile.hash())
+                        .build());
+            });
+            if (maxZoom == null) {
+                log.info("Формат картинки {} не поддерживается ImageIO, тайлы не построены", hash);
+                return UNTILED;
+            }
+
+            transactionTemplate.executeWithoutResult(status -> imageTileRepository.saveAll(tiles));
+            log.info("Картинка {} разбита на {} тайлов, уровней пирамиды: {}", hash, tiles.size(), maxZoom + 1);
+            return maxZoom;
+        } catch (IOException | RuntimeException e) {
+            log.warn("Не удалось разбить на тайлы картинку {}: {}", hash, e.getMessage());
+            return UNTILED;
+        }
+    }
+
+    /**
+     * Раскодирует картинку за один проход и передаёт её построителю пирамиды.
+     * Картинка из файла хранилища читается напрямую, без копирования потока во временный кэш ImageIO
+     *
+     * @param maxPixels наибольшее количество пикселей картинки
+     * @return наибольший уровень пирамиды или null, если формат картинки не поддерживается ImageIO
+     * @throws IOException в том числе если картинка больше maxPixels - такая картинка не раскодируется
+     */
+    static Integer readTiles(Resource resource, long maxPixels, TilePyramidBuilder.TileSink sink) throws IOException {
+        if (resource.isFile()) {
+            try (ImageInputStream imageStream = new FileImageInputStream(resource.getFile())) {
+                return readTiles(imageStream, maxPixels, sink);
+            }
+        }
+
+        try (InputStream inputStream = resource.getInputStream();
+             ImageInputStream imageStream = ImageIO.createImageInputStream(inputStream)) {
+            return readTiles(imageStream, maxPixels, sink);
+        }
+    }
+
+    private static Integer readTiles(ImageInputStream imageStream, long maxPixels, TilePyramidBuilder.TileSink sink) throws IOException {
+        Iterator<ImageReader> readers = ImageIO.getImageReaders(imageStream);
+        if (!readers.hasNext()) {
+            return null;
+        }
+
+        ImageReader reader = readers.next();
+        try {
+            reader.setInput(imageStream, true, false);
+            int width = reader.getWidth(0);
+            int height = reader.getHeight(0);
+            // размер из заголовка: вся картинка раскодируется в память, до 4 байт на пиксель
+            if ((long) width * height > maxPixels) {
+                throw new IOException(String.format("Картинка %dx%d больше images.tiles.max-pixels (%d)", width, height, maxPixels));
+            }
+            TilePyramidBuilder builder = new TilePyramidBuilder(width, height, sink);
+
+            RowFeeder feeder = new RowFeeder(builder, isSingleScan(reader.getImageMetadata(0)));
+            reader.addIIOReadUpdateListener(feeder);
+            BufferedImage image;
+            try {
+                image = reader.read(0);
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            feeder.feed(image, height);
+            builder.finish();
+            return builder.getMaxZoom();
+        } finally {
+            reader.dispose();
+        }
+    }
+
+    /**
+     * Раскодируется ли картинка одним проходом сверху вниз. У чересстрочных PNG и GIF и прогрессивных JPEG
+     * первые проходы дают неточные строки, поэтому такие картинки передаются построителю после раскодирования
+     */
+    private static boolean isSingleScan(IIOMetadata metadata) {
+        if (metadata == null || !metadata.isStandardMetadataFormatSupported()) {
+            return false;
+        }
+
+        Node root = metadata.getAsTree(IIOMetadataFormatImpl.standardMetadataFormatName);
+        for (Node node = root.getFirstChild(); node != null; node = node.getNextSibling()) {
+            if (!"Compression".equals(node.getNodeName())) {
+                continue;
+            }
+            for (Node child = node.getFirstChild(); child != null; child = child.getNextSibling()) {
+                if ("NumProgressiveScans".equals(child.getNodeName())) {
+                    return "1".equals(((Element) child).getAttribute("value"));
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Передаёт построителю пирамиды строки картинки полосами по мере раскодирования,
+     * пока они приходят по порядку сверху вниз. Остальные строки передаются после раскодирования
+     */
+    private static final class RowFeeder implements IIOReadUpdateListener {
+
+        private final TilePyramidBuilder builder;
+        private boolean streaming;
+        private int decodedRows;
+        private int fedRows;
+
+        RowFeeder(TilePyramidBuilder builder, boolean streaming) {
+            this.builder = builder;
+            this.streaming = streaming;
+        }
+
+        @Override
+        public void imageUpdate(ImageReader source, BufferedImage theImage, int minX, int minY, int width, int height,
+                                int periodX, int periodY, int[] bands) {
+            if (!streaming) {
+                return;
+            }
+            if (minX != 0 || width != theImage.getWidth() || periodX != 1 || periodY != 1 || minY != decodedRows) {
+                streaming = false;
+                return;
+            }
+
+            decodedRows += height;
+            if (decodedRows - fedRows >= TILE_SIZE) {
+                try {
+                    feed(theImage, decodedRows);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        }
+
+        /**
+         * Передаёт построителю строки картинки, ещё не переданные, до заданной
+         *
+         * @param image раскодируемая картинка
+         * @param rows количество готовых строк сверху
+         */
+        void feed(BufferedImage image, int rows) throws IOException {
+            if (rows > fedRows) {
+                // копия на белом фоне без прозрачности, как ждёт построитель
+                builder.addRows(ImageProcessing.resize(image.getSubimage(0, fedRows, image.getWidth(), rows - fedRows),
+                        image.getWidth(), rows - fedRows));
+                fedRows = rows;
+            }
+        }
+
+        @Override
+        public void passStarted(ImageReader source, BufferedImage theImage, int pass, int minPass, int maxPass,
+                                int minX, int minY, int periodX, int periodY, int[] bands) {
+        }
+
+        @Override
+        public void passComplete(ImageReader source, BufferedImage theImage) {
+        }
+
+        @Override
+        public void thumbnailPassStarted(ImageReader source, BufferedImage theThumbnail, int pass, int minPass, int maxPass,
+                                         int minX, int minY, int periodX, int periodY, int[] bands) {
+        }
+
+        @Override
+        public void thumbnailUpdate(ImageReader source, BufferedImage theThumbnail, int minX, int minY, int width, int height,
+                                    int periodX, int periodY, int[] bands) {
+        }
+
+        @Override
+        public void thumbnailPassComplete(ImageReader source, BufferedImage theThumbnail) {
+        }
+    }
+}
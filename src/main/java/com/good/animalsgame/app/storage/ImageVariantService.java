@@ -0,0 +1,272 @@
+package com.good.animalsgame.app.storage;
+
+import com.good.animalsgame.app.event.LevelImagesAddedEvent;
+import com.good.animalsgame.app.repository.ImageVariantRepository;
+import com.good.animalsgame.domain.ImageVariant;
+import com.good.animalsgame.domain.LevelImage;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Уменьшенные копии картинок уровней для экранов разной ширины.
+ * Копии в JPEG шириной images.variants.widths создаются после сохранения уровней в ограниченном пуле потоков
+ * средствами ImageIO и хранятся в хранилище картинок рядом с исходными. Картинка уменьшается только
+ * до ширин меньше её собственной. Пока копия не готова, вместо неё отдаётся исходная картинка,
+ * а недостающие копии старых уровней создаются при первом запросе.
+ * Если очередь пула заполнена, картинка пропускается и будет уменьшена при первом запросе копии.
+ * Готовые копии запоминаются в памяти, поэтому повторный запрос копии не обращается к БД
+ */
+@Service
+public class ImageVariantService {
+
+    private final ImageStorage imageStorage;
+    private final ImageVariantRepository imageVariantRepository;
+    private final boolean enabled;
+    private final List<Integer> widths;
+    private final float jpegQuality;
+    private final ThreadPoolExecutor executor;
+    private final Logger log = LoggerFactory.getLogger(this.getClass());
+
+    /**
+     * Хэши картинок, копии которых сейчас создаются или ждут в очереди
+     */
+    private final Set<String> pendingHashes = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Готовые копии: хэш исходной картинки и ширина копии -> картинка для ответа.
+     * Заполняется при создании копий и при первой копии, найденной в БД.
+     * Копии не изменяются и не удаляются, поэтому записи не устаревают, а их число ограничено
+     * числом картинок, умноженным на число ширин
+     */
+    private final ConcurrentMap<VariantKey, ImageSelection> readyVariants = new ConcurrentHashMap<>();
+
+    public ImageVariantService(ImageStorage imageStorage,
+                               ImageVariantRepository imageVariantRepository,
+                               @Value("${images.variants.enabled}") boolean enabled,
+                               @Value("${images.variants.widths}") List<Integer> widths,
+                               @Value("${images.variants.jpeg-quality}") float jpegQuality,
+                               @Value("${images.variants.threads}") int threads,
+                               @Value("${images.variants.queue-capacity}") int queueCapacity) {
+        this.imageStorage = imageStorage;
+        this.imageVariantRepository = imageVariantRepository;
+        this.enabled = enabled;
+        this.widths = widths.stream().sorted().distinct().toList();
+        this.jpegQuality = jpegQuality;
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "image-variants-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Ставит в очередь создание копий картинок новых уровней после фиксации транзакции
+     *
+     * @param event событие появления картинок
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onLevelImagesAdded(LevelImagesAddedEvent event) {
+        event.imageWidths().forEach(this::requestVariants);
+    }
+
+    /**
+     * Возвращает размеры копий для картинки заданного размера, по возрастанию ширины.
+     * Размеры вычисляются без обращения к БД, независимо от того, готовы ли сами копии
+     *
+     * @param sourceWidth ширина исходной картинки
+     * @param sourceHeight высота исходной картинки
+     * @return размеры копий или пустой список, если размеры картинки неизвестны или она уже не шире самой узкой копии
+     */
+    public List<ImageVariantSize> getVariantSizes(Integer sourceWidth, Integer sourceHeight) {
+        if (!enabled || sourceWidth == null || sourceHeight == null) {
+            return List.of();
+        }
+
+        List<ImageVariantSize> sizes = new ArrayList<>();
+        for (int width : widths) {
+            if (width < sourceWidth) {
+                sizes.add(ImageVariantSize.of(width, sourceWidth, sourceHeight));
+            }
+        }
+        return sizes;
+    }
+
+    /**
+     * Выбирает ширину копии для экрана заданной ширины: самую узкую копию, которая не уже экрана
+     *
+     * @param sourceWidth ширина исходной картинки
+     * @param width нужная ширина
+     * @return ширина копии или пустое значение, если подходит только исходная картинка
+     */
+    public Optional<Integer> getVariantWidth(Integer sourceWidth, Integer width) {
+        if (!enabled || width == null || sourceWidth == null) {
+            return Optional.empty();
+        }
+
+        return widths.stream()
+                .filter(candidate -> candidate >= width && candidate < sourceWidth)
+                .findFirst();
+    }
+
+    /**
+     * Выбирает картинку для ответа: самую узкую копию, которая не уже запрошенной ширины,
+     * или исходную картинку, если такой копии не бывает. Если подходящая копия ещё не создана,
+     * её создание ставится в очередь, а отдаётся исходная картинка
+     *
+     * @param levelImage исходная картинка уровня
+     * @param width нужная ширина, если null - исходная картинка
+     */
+    public ImageSelection selectImage(LevelImage levelImage, Integer width) {
+        ImageSelection original = new ImageSelection(levelImage.hash(), levelImage.contentType(), false);
+        Optional<Integer> variantWidth = getVariantWidth(levelImage.width(), width);
+        if (variantWidth.isEmpty()) {
+            return original;
+        }
+
+        VariantKey key = new VariantKey(levelImage.hash(), variantWidth.get());
+        ImageSelection ready = readyVariants.get(key);
+        if (ready != null) {
+            return ready;
+        }
+
+        // копию могли создать до запуска или на другом экземпляре приложения
+        Optional<ImageVariant> variant = imageVariantRepository.findBySourceHashAndWidth(levelImage.hash(), variantWidth.get());
+        if (variant.isPresent()) {
+            return remember(variant.get());
+        }
+
+        requestVariants(levelImage.hash(), levelImage.width());
+        return new ImageSelection(levelImage.hash(), levelImage.contentType(), true);
+    }
+
+    /**
+     * Ставит в очередь создание копий картинки, если они нужны и ещё не создаются
+     *
+     * @param hash хэш картинки
+     * @param sourceWidth ширина картинки
+     */
+    private void requestVariants(String hash, Integer sourceWidth) {
+        if (!enabled || hash == null || sourceWidth == null || widths.isEmpty() || sourceWidth <= widths.get(0)) {
+            return;
+        }
+        if (!pendingHashes.add(hash)) {
+            return;
+        }
+
+        try {
+            executor.execute(() -> {
+                try {
+                    createVariants(hash);
+                } catch (Exception e) {
+                    log.warn("Не удалось создать копии картинки {}: {}", hash, e.getMessage());
+                } finally {
+                    pendingHashes.remove(hash);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            pendingHashes.remove(hash);
+            log.debug("Очередь уменьшения картинок заполнена, картинка {} будет уменьшена при запросе", hash);
+        }
+    }
+
+    /**
+     * Создаёт недостающие копии картинки.
+     * Картинка декодируется отдельно для каждой ширины с прореживанием пикселей при чтении,
+     * поэтому большие исходники не раскодируются в память целиком
+     *
+     * @param hash хэш картинки
+     */
+    void createVariants(String hash) throws IOException {
+        Set<Integer> existingWidths = imageVariantRepository.findBySourceHash(hash).stream()
+                .map(ImageVariant::getWidth)
+                .collect(Collectors.toSet());
+
+        Resource resource = imageStorage.find(hash).orElse(null);
+        if (resource == null) {
+            log.warn("Картинки {} нет в хранилище, копии не созданы", hash);
+            return;
+        }
+
+        List<ImageVariant> variants = new ArrayList<>();
+        for (int width : widths) {
+            if (existingWidths.contains(width)) {
+                continue;
+            }
+
+            ImageProcessing.DecodedImage decoded = ImageProcessing.decode(resource, width);
+            if (decoded == null) {
+                log.info("Формат картинки {} не поддерживается ImageIO, копии не созданы", hash);
+                return;
+            }
+            if (width >= decoded.sourceWidth()) {
+                break;
+            }
+
+            ImageVariantSize size = ImageVariantSize.of(width, decoded.sourceWidth(), decoded.sourceHeight());
+            byte[] jpeg = ImageProcessing.encodeJpeg(ImageProcessing.resize(decoded.image(), size.width(), size.height()), jpegQuality);
+            StoredImage storedImage = imageStorage.store(new ByteArrayInputStream(jpeg));
+
+            variants.add(ImageVariant.builder()
+                    .sourceHash(hash)
+                    .width(size.width())
+                    .height(size.height())
+                    .variantHash(storedImage.hash())
+                    .size(storedImage.size())
+                    .contentType(MediaType.IMAGE_JPEG_VALUE)
+                    .build());
+        }
+
+        if (variants.isEmpty()) {
+            return;
+        }
+
+        imageVariantRepository.saveAll(variants);
+        variants.forEach(this::remember);
+        log.info("Создано копий картинки {}: {}", hash, variants.size());
+    }
+
+    private ImageSelection remember(ImageVariant variant) {
+        ImageSelection selection = new ImageSelection(variant.getVariantHash(), variant.getContentType(), false);
+        readyVariants.put(new VariantKey(variant.getSourceHash(), variant.getWidth()), selection);
+        return selection;
+    }
+
+    /**
+     * Копия картинки заданной ширины
+     * @param sourceHash хэш исходной картинки
+     * @param width ширина копии
+     */
+    private record VariantKey(String sourceHash, int width) {
+    }
+}
@@ -0,0 +1,39 @@
+package com.good.animalsgame.app.storage;
+
+import com.good.animalsgame.domain.Coordinates;
+
+/**
+ * Размер уменьшенной копии картинки
+ * @param width ширина в пикселях
+ * @param height высота в пикселях
+ * @param scale во сколько раз копия меньше исходной картинки, от 0 до 1
+ */
+public record ImageVariantSize(int width, int height, double scale) {
+
+    /**
+     * Размер копии заданной ширины с сохранением пропорций картинки
+     *
+     * @param width ширина копии
+     * @param sourceWidth ширина исходной картинки
+     * @param sourceHeight высота исходной картинки
+     */
+    public static ImageVariantSize of(int width, int sourceWidth, int sourceHeight) {
+        double scale = (double) width / sourceWidth;
+        int height = Math.max(1, (int) Math.round(sourceHeight * scale));
+        return new ImageVariantSize(width, height, scale);
+    }
+
+    /**
+     * Пересчитывает координаты области исходной картинки в координаты копии.
+     * Область не выходит за пределы копии и не становится пустой
+     *
+     * @param coordinates координаты на исходной картинке
+     */
+    public Coordinates scale(Coordinates coordinates) {
+        int x = Math.min((int) Math.floor(coordinates.x() * scale), width - 1);
+        int y = Math.min((int) Math.floor(coordinates.y() * scale), height - 1);
+        int scaledWidth = Math.max(1, Math.min((int) Math.ceil(coordinates.width() * scale), width - x));
+        int scaledHeight = Math.max(1, Math.min((int) Math.ceil(coordinates.height() * scale), height - y));
+        return new Coordinates(x, y, scaledWidth, scaledHeight);
+    }
+}
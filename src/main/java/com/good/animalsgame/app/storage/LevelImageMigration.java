@@ -0,0 +1,191 @@
+package com.good.animalsgame.app.storage;
+
+import com.good.animalsgame.domain.Level;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Table;
+import jakarta.persistence.metamodel.EntityType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.Resource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Перенос картинок уровней из колонки level_image (bytea или large object) в хранилище картинок.
+ * Запускается при старте приложения, если images.migration.enabled=true.
+ * MIME-тип и размеры картинки определяются по её заголовку и сохраняются вместе с хэшем.
+ * Каждая пачка переносится в отдельной транзакции, поэтому перенос можно прервать и продолжить.
+ */
+@Component
+@ConditionalOnProperty(name = "images.migration.enabled", havingValue = "true")
+public class LevelImageMigration implements ApplicationRunner {
+
+    private static final String LEGACY_IMAGE_COLUMN = "level_image";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ImageStorage imageStorage;
+    private final EntityManagerFactory entityManagerFactory;
+    private final Logger log = LoggerFactory.getLogger(this.getClass());
+
+    /**
+     * Количество уровней в одной транзакции
+     */
+    private final int batchSize;
+
+    public LevelImageMigration(JdbcTemplate jdbcTemplate,
+                               TransactionTemplate transactionTemplate,
+                               ImageStorage imageStorage,
+                               EntityManagerFactory entityManagerFactory,
+                               @Value("${images.migration.batch-size}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.imageStorage = imageStorage;
+        this.entityManagerFactory = entityManagerFactory;
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        for (String table : getLevelTables()) {
+            migrateTable(table);
+        }
+    }
+
+    /**
+     * Переносит картинки одной таблицы уровней пачками
+     *
+     * @param table таблица уровней
+     */
+    private void migrateTable(String table) {
+        if (!hasLegacyImageColumn(table)) {
+            log.info("В таблице {} нет колонки {}, перенос не нужен", table, LEGACY_IMAGE_COLUMN);
+            return;
+        }
+
+        int total = 0;
+        Integer migrated;
+        do {
+            migrated = transactionTemplate.execute(status -> migrateBatch(table));
+            total += migrated != null ? migrated : 0;
+        } while (migrated != null && migrated > 0);
+
+        log.info("Перенесено картинок из таблицы {}: {}", table, total);
+    }
+
+    /**
+     * Переносит одну пачку картинок
+     *
+     * @param table таблица уровней
+     * @return количество перенесённых картинок
+     */
+    private int migrateBatch(String table) {
+        List<MigratedImage> migratedImages = new ArrayList<>();
+        jdbcTemplate.query(
+                String.format("SELECT level_id, %s FROM %s WHERE %s IS NOT NULL AND image_hash IS NULL ORDER BY level_id LIMIT ?",
+                        LEGACY_IMAGE_COLUMN, table, LEGACY_IMAGE_COLUMN),
+                resultSet -> {
+                    migratedImages.add(migrateRow(resultSet));
+                },
+                batchSize);
+
+        for (MigratedImage migratedImage : migratedImages) {
+            if (migratedImage.largeObjectId() != null) {
+                jdbcTemplate.queryForObject("SELECT lo_unlink(?)", Integer.class, migratedImage.largeObjectId());
+            }
+            ImageHeader header = migratedImage.header();
+            jdbcTemplate.update(
+                    String.format("UPDATE %s SET image_hash = ?, image_size = ?, image_content_type = ?, image_width = ?, image_height = ?, %s = NULL " +
+                            "WHERE level_id = ?", table, LEGACY_IMAGE_COLUMN),
+                    migratedImage.storedImage().hash(), migratedImage.storedImage().size(),
+                    header != null ? header.format().getContentType() : null,
+                    header != null ? header.width() : null,
+                    header != null ? header.height() : null,
+                    migratedImage.levelId());
+        }
+
+        return migratedImages.size();
+    }
+
+    /**
+     * Сохраняет картинку текущей строки в хранилище
+     */
+    private MigratedImage migrateRow(ResultSet resultSet) throws SQLException {
+        long levelId = resultSet.getLong(1);
+        int columnType = resultSet.getMetaData().getColumnType(2);
+        boolean isBytea = columnType == Types.BINARY || columnType == Types.VARBINARY || columnType == Types.LONGVARBINARY;
+
+        Long largeObjectId = isBytea ? null : resultSet.getLong(2);
+        try (InputStream imageStream = isBytea ? resultSet.getBinaryStream(2) : resultSet.getBlob(2).getBinaryStream()) {
+            StoredImage storedImage = imageStorage.store(imageStream);
+            return new MigratedImage(levelId, storedImage, largeObjectId, readHeader(storedImage));
+        } catch (IOException e) {
+            throw new UncheckedIOException(String.format("Не удалось перенести картинку уровня %d", levelId), e);
+        }
+    }
+
+    /**
+     * Определяет формат и размеры перенесённой картинки по её байтам в хранилище
+     *
+     * @return заголовок или null, если формат не поддерживается
+     */
+    private ImageHeader readHeader(StoredImage storedImage) throws IOException {
+        Optional<Resource> resource = imageStorage.find(storedImage.hash());
+        if (resource.isEmpty()) {
+            return null;
+        }
+
+        ImageHeader header = ImageHeaderReader.read(resource.get()).orElse(null);
+        if (header == null) {
+            log.warn("Формат картинки {} не распознан, MIME-тип не сохранён", storedImage.hash());
+        }
+        return header;
+    }
+
+    private boolean hasLegacyImageColumn(String table) {
+        Integer count = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM information_schema.columns WHERE table_name = ? AND column_name = ?",
+                Integer.class, table, LEGACY_IMAGE_COLUMN);
+        return count != null && count > 0;
+    }
+
+    /**
+     * Возвращает таблицы всех сущностей-уровней
+     */
+    private List<String> getLevelTables() {
+        List<String> tables = new ArrayList<>();
+        for (EntityType<?> entityType : entityManagerFactory.getMetamodel().getEntities()) {
+            Class<?> javaType = entityType.getJavaType();
+            Table table = javaType.getAnnotation(Table.class);
+            if (Level.class.isAssignableFrom(javaType) && table != null) {
+                tables.add(table.name());
+            }
+        }
+        return tables;
+    }
+
+    /**
+     * Перенесённая картинка
+     * @param levelId идентификатор уровня
+     * @param storedImage картинка в хранилище
+     * @param largeObjectId OID large object, если картинка хранилась не в bytea
+     * @param header формат и размеры картинки, null - формат не распознан
+     */
+    private record MigratedImage(long levelId, StoredImage storedImage, Long largeObjectId, ImageHeader header) {
+    }
+}
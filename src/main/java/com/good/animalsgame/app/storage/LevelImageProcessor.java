@@ -0,0 +1,153 @@
+package com.good.animalsgame.app.storage;
+
+import com.good.animalsgame.app.event.LevelImagesProcessedEvent;
+import com.good.animalsgame.app.repository.LevelRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Абстрактный фоновый обработчик картинок уровней: в отдельном потоке находит уровни без результата обработки,
+ * вычисляет его по одному разу для каждой картинки и сохраняет в уровнях пачками
+ *
+ * @param <T> результат обработки одной картинки
+ */
+abstract class LevelImageProcessor<T> {
+
+    private final String name;
+    private final Map<String, LevelRepository<?, ?>> levelRepositories;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final boolean enabled;
+    private final int batchSize;
+    private final ThreadPoolExecutor executor;
+    protected final Logger log = LoggerFactory.getLogger(this.getClass());
+
+    /**
+     * @param name имя фонового потока
+     * @param levelRepositories номер раунда в виде строки (из имени бина) -> репозиторий
+     * @param enabled запускать ли обработку
+     * @param batchSize количество картинок, обрабатываемых за одну транзакцию
+     */
+    protected LevelImageProcessor(String name,
+                                  Map<String, LevelRepository<?, ?>> levelRepositories,
+                                  TransactionTemplate transactionTemplate,
+                                  ApplicationEventPublisher eventPublisher,
+                                  boolean enabled,
+                                  int batchSize) {
+        this.name = name;
+        this.levelRepositories = levelRepositories;
+        this.transactionTemplate = transactionTemplate;
+        this.eventPublisher = eventPublisher;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+
+        // один поток и одно место в очереди: запросы, пришедшие во время прохода, сливаются в один следующий проход
+        this.executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(1),
+                runnable -> {
+                    Thread thread = new Thread(runnable, name);
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.DiscardPolicy());
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Запускает проход в фоновом потоке, если обработка включена
+     */
+    protected void requestProcessing() {
+        if (!enabled) {
+            return;
+        }
+
+        executor.execute(() -> {
+            try {
+                processAll();
+            } catch (Exception e) {
+                log.warn("Фоновая обработка картинок {} прервана: {}", name, e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Обрабатывает картинки всех уровней, у которых ещё нет результата.
+     * Каждая картинка обрабатывается один раз, даже если она есть у нескольких уровней и раундов.
+     * Раунды, в которых обновились уровни, получают {@link LevelImagesProcessedEvent}
+     *
+     * @return количество обновлённых уровней
+     */
+    protected synchronized int processAll() {
+        Map<String, T> results = new HashMap<>();
+        int updated = 0;
+        for (Map.Entry<String, LevelRepository<?, ?>> entry : levelRepositories.entrySet()) {
+            LevelRepository<?, ?> levelRepository = entry.getValue();
+            int roundUpdated = 0;
+            List<String> imageHashes;
+            do {
+                imageHashes = findUnprocessed(levelRepository, PageRequest.of(0, batchSize));
+                if (imageHashes.isEmpty()) {
+                    break;
+                }
+                for (String imageHash : imageHashes) {
+                    results.computeIfAbsent(imageHash, this::process);
+                }
+
+                List<String> batch = imageHashes;
+                Integer batchUpdated = transactionTemplate.execute(status -> {
+                    int count = 0;
+                    for (String imageHash : batch) {
+                        count += update(levelRepository, imageHash, results.get(imageHash));
+                    }
+                    return count;
+                });
+                roundUpdated += batchUpdated != null ? batchUpdated : 0;
+            } while (imageHashes.size() == batchSize);
+
+            if (roundUpdated > 0) {
+                eventPublisher.publishEvent(new LevelImagesProcessedEvent(Integer.parseInt(entry.getKey())));
+                updated += roundUpdated;
+            }
+        }
+        return updated;
+    }
+
+    /**
+     * Находит хэши картинок уровней раунда, ещё не получивших результат
+     *
+     * @param levelRepository репозиторий уровней раунда
+     * @param pageable первая страница размером в пачку: обработанные уровни из выборки уходят
+     */
+    protected abstract List<String> findUnprocessed(LevelRepository<?, ?> levelRepository, Pageable pageable);
+
+    /**
+     * Обрабатывает картинку. Ошибки не выбрасываются, а превращаются в результат-отметку,
+     * чтобы картинка не выбиралась повторно
+     *
+     * @param hash хэш картинки
+     */
+    protected abstract T process(String hash);
+
+    /**
+     * Сохраняет результат в уровнях раунда с этой картинкой
+     *
+     * @return количество обновлённых уровней
+     */
+    protected abstract int update(LevelRepository<?, ?> levelRepository, String hash, T result);
+}
@@ -0,0 +1,194 @@
+package com.good.animalsgame.app.storage;
+
+import com.good.animalsgame.app.cache.RevealImageCache;
+import com.good.animalsgame.domain.Coordinates;
+import com.good.animalsgame.domain.Level;
+import com.good.animalsgame.exception.EntityNotFoundException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Service;
+
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.geom.Area;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.Locale;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Картинки ответа: картинка уровня с выделенной областью животного, отрисованная на сервере.
+ * Клиенту после ответа не нужно заново скачивать и раскодировать картинку, чтобы нарисовать выделение, -
+ * он получает готовую картинку одним запросом. Картинки отрисовываются при первом запросе
+ * и хранятся в {@link RevealImageCache}; ширина округляется вверх до ширины копии из images.variants.widths,
+ * поэтому на все экраны приходится несколько вариантов картинки.
+ * Ширина отрисовки не больше images.reveal.max-width, а одновременно отрисовывается не больше
+ * images.reveal.max-concurrent-renders картинок: промахи кэша по разным картинкам не раскодируют их все разом
+ */
+@Service
+public class RevealImageService {
+
+    /**
+     * Версия отрисовки в ключе: при изменении отрисовки клиенты и кэш получат новые картинки
+     */
+    private static final String RENDER_VERSION = "r1";
+
+    private static final Color OUTLINE_COLOR = new Color(0xFF, 0xD4, 0x00);
+
+    private static final Color DIM_COLOR = new Color(0, 0, 0, 150);
+
+    /**
+     * Поле вокруг области животного при обрезке, в долях большей стороны области
+     */
+    private static final double CROP_PADDING = 0.25;
+
+    private final ImageStorage imageStorage;
+    private final ImageVariantService imageVariantService;
+    private final RevealImageCache revealImageCache;
+    private final float jpegQuality;
+    private final int maxWidth;
+
+    /**
+     * Разрешения на одновременные отрисовки
+     */
+    private final Semaphore renders;
+
+    public RevealImageService(ImageStorage imageStorage,
+                              ImageVariantService imageVariantService,
+                              RevealImageCache revealImageCache,
+                              @Value("${images.reveal.jpeg-quality}") float jpegQuality,
+                              @Value("${images.reveal.max-width}") int maxWidth,
+                              @Value("${images.reveal.max-concurrent-renders}") int maxConcurrentRenders) {
+        this.imageStorage = imageStorage;
+        this.imageVariantService = imageVariantService;
+        this.revealImageCache = revealImageCache;
+        this.jpegQuality = jpegQuality;
+        this.maxWidth = maxWidth;
+        this.renders = new Semaphore(maxConcurrentRenders, true);
+    }
+
+    /**
+     * Возвращает ключ картинки ответа, по которому её можно проверить по ETag, не отрисовывая
+     *
+     * @param level уровень
+     * @param style способ показать животное
+     * @param width ширина экрана, если null - исходная ширина картинки, но не больше images.reveal.max-width
+     * @throws EntityNotFoundException если у уровня нет картинки
+     */
+    public RevealKey getRevealKey(Level level, RevealStyle style, Integer width) throws EntityNotFoundException {
+        if (level.getImageHash() == null) {
+            throw new EntityNotFoundException(String.format("Картинка уровня с id %d ещё не перенесена в хранилище", level.getId()));
+        }
+
+        int renderWidth = getRenderWidth(level.getImageWidth(), width);
+        String key = String.format("%s-%d-%s-%d-%s", RENDER_VERSION, level.getId(), level.getImageHash().substring(0, 16),
+                renderWidth, style.name().toLowerCase(Locale.ROOT));
+        return new RevealKey(key, renderWidth, style);
+    }
+
+    /**
+     * Возвращает картинку ответа в JPEG из кэша или отрисовывает её
+     *
+     * @param level уровень
+     * @param revealKey ключ картинки из {@link #getRevealKey}
+     * @throws EntityNotFoundException если картинки нет в хранилище или её формат не поддерживается
+     */
+    public byte[] getRevealImage(Level level, RevealKey revealKey) throws EntityNotFoundException, IOException {
+        return revealImageCache.get(revealKey.key(), () -> render(level, revealKey));
+    }
+
+    /**
+     * Ширина отрисовки: ширина копии или 0 - исходная ширина картинки, если она известна и не больше {@link #maxWidth}
+     */
+    private int getRenderWidth(Integer sourceWidth, Integer width) {
+        int variantWidth = imageVariantService.getVariantWidth(sourceWidth, width).orElse(0);
+        if (variantWidth > 0 && variantWidth <= maxWidth) {
+            return variantWidth;
+        }
+        return sourceWidth != null && sourceWidth <= maxWidth ? 0 : maxWidth;
+    }
+
+    private byte[] render(Level level, RevealKey revealKey) throws EntityNotFoundException, IOException {
+        try {
+            renders.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Ожидание отрисовки картинки прервано", e);
+        }
+        try {
+            return draw(level, revealKey);
+        } finally {
+            renders.release();
+        }
+    }
+
+    private byte[] draw(Level level, RevealKey revealKey) throws EntityNotFoundException, IOException {
+        Resource resource = imageStorage.find(level.getImageHash())
+                .orElseThrow(() -> new EntityNotFoundException(String.format("Картинка %s не найдена в хранилище", level.getImageHash())));
+
+        ImageProcessing.DecodedImage decoded = ImageProcessing.decode(resource, revealKey.width() > 0 ? revealKey.width() : Integer.MAX_VALUE);
+        if (decoded == null) {
+            throw new EntityNotFoundException(String.format("Формат картинки уровня с id %d не поддерживает отрисовку ответа", level.getId()));
+        }
+
+        // картинка, ширина которой не была известна, не растягивается до предела
+        int width = revealKey.width() > 0 ? Math.min(revealKey.width(), decoded.sourceWidth()) : decoded.sourceWidth();
+        ImageVariantSize size = ImageVariantSize.of(width, decoded.sourceWidth(), decoded.sourceHeight());
+        BufferedImage image = ImageProcessing.resize(decoded.image(), size.width(), size.height());
+
+        Coordinates coordinates = level.getAnimalCoordinates();
+        if (coordinates != null) {
+            Coordinates region = size.scale(coordinates);
+            image = switch (revealKey.style()) {
+                case HIGHLIGHT -> highlight(image, region);
+                case CROP -> crop(image, region);
+            };
+        }
+
+        return ImageProcessing.encodeJpeg(image, jpegQuality);
+    }
+
+    /**
+     * Затемняет картинку вне области и обводит область
+     */
+    private static BufferedImage highlight(BufferedImage image, Coordinates region) {
+        Rectangle regionRectangle = new Rectangle(region.x(), region.y(), region.width(), region.height());
+        Area outside = new Area(new Rectangle(0, 0, image.getWidth(), image.getHeight()));
+        outside.subtract(new Area(regionRectangle));
+        int stroke = Math.max(2, Math.min(image.getWidth(), image.getHeight()) / 150);
+
+        Graphics2D graphics = image.createGraphics();
+        try {
+            graphics.setColor(DIM_COLOR);
+            graphics.fill(outside);
+            graphics.setColor(OUTLINE_COLOR);
+            graphics.setStroke(new BasicStroke(stroke));
+            graphics.draw(regionRectangle);
+        } finally {
+            graphics.dispose();
+        }
+        return image;
+    }
+
+    /**
+     * Вырезает область с полем вокруг, не выходя за края картинки
+     */
+    private static BufferedImage crop(BufferedImage image, Coordinates region) {
+        int padding = (int) Math.round(Math.max(region.width(), region.height()) * CROP_PADDING);
+        int left = Math.max(0, region.x() - padding);
+        int top = Math.max(0, region.y() - padding);
+        int right = Math.min(image.getWidth(), region.x() + region.width() + padding);
+        int bottom = Math.min(image.getHeight(), region.y() + region.height() + padding);
+
+        BufferedImage cropped = new BufferedImage(right - left, bottom - top, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = cropped.createGraphics();
+        try {
+            graphics.drawImage(image, -left, -top, null);
+        } finally {
+            graphics.dispose();
+        }
+        return cropped;
+    }
+}
@@ -0,0 +1,10 @@
+package com.good.animalsgame.app.storage;
+
+/**
+ * Ключ картинки ответа
+ * @param key строковый ключ - имя в кэше и ETag
+ * @param width ширина копии картинки, 0 - исходная ширина
+ * @param style способ показать животное
+ */
+public record RevealKey(String key, int width, RevealStyle style) {
+}
@@ -0,0 +1,17 @@
+package com.good.animalsgame.app.storage;
+
+/**
+ * Способ показать животное на картинке ответа
+ */
+public enum RevealStyle {
+
+    /**
+     * Вся картинка, область животного обведена, остальное затемнено
+     */
+    HIGHLIGHT,
+
+    /**
+     * Только область животного с небольшим полем вокруг
+     */
+    CROP
+}
@@ -0,0 +1,9 @@
+package com.good.animalsgame.app.storage;
+
+/**
+ * Результат сохранения картинки в хранилище
+ * @param hash SHA-256 содержимого в hex, он же ключ в хранилище
+ * @param size размер в байтах
+ */
+public record StoredImage(String hash, long size) {
+}
@@ -0,0 +1,161 @@
+package com.good.animalsgame.app.storage;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+
+/**
+ * Нарезает картинку на пирамиду квадратных тайлов {@link ImageTileService#TILE_SIZE}.
+ * Уровень maxZoom - исходное разрешение, каждый следующий вниз уменьшен вдвое, уровень 0 помещается в один тайл.
+ * Картинка подаётся полосами сверху вниз, и построитель её целиком не копирует: на каждом уровне накапливается
+ * одна строка тайлов, а заполненная строка уменьшается вдвое усреднением 2x2 и передаётся уровню ниже.
+ * Память под саму картинку - забота вызывающего: {@link ImageTileService} раскодирует её целиком
+ */
+final class TilePyramidBuilder {
+
+    private static final int TILE_SIZE = ImageTileService.TILE_SIZE;
+
+    /**
+     * Получатель готовых тайлов
+     */
+    @FunctionalInterface
+    interface TileSink {
+
+        void accept(int zoom, int x, int y, BufferedImage tile) throws IOException;
+    }
+
+    private final int maxZoom;
+    private final int[] widths;
+    private final int[][] bands;
+    private final int[] filledRows;
+    private final int[] tileRows;
+    private final TileSink sink;
+
+    /**
+     * @param width ширина картинки
+     * @param height высота картинки
+     * @param sink получатель тайлов
+     */
+    TilePyramidBuilder(int width, int height, TileSink sink) {
+        this.maxZoom = maxZoom(width, height);
+        this.widths = new int[maxZoom + 1];
+        this.bands = new int[maxZoom + 1][];
+        this.filledRows = new int[maxZoom + 1];
+        this.tileRows = new int[maxZoom + 1];
+        this.sink = sink;
+
+        int levelWidth = width;
+        for (int zoom = maxZoom; zoom >= 0; zoom--) {
+            widths[zoom] = levelWidth;
+            bands[zoom] = new int[levelWidth * TILE_SIZE];
+            levelWidth = (levelWidth + 1) / 2;
+        }
+    }
+
+    /**
+     * Наибольший уровень пирамиды: сколько раз картинку нужно уменьшить вдвое, чтобы она поместилась в один тайл
+     *
+     * @param width ширина картинки
+     * @param height высота картинки
+     */
+    static int maxZoom(int width, int height) {
+        int size = Math.max(width, height);
+        int zoom = 0;
+        while (size > TILE_SIZE) {
+            size = (size + 1) / 2;
+            zoom++;
+        }
+        return zoom;
+    }
+
+    int getMaxZoom() {
+        return maxZoom;
+    }
+
+    /**
+     * Добавляет следующую полосу картинки в исходном разрешении
+     *
+     * @param strip полоса во всю ширину картинки без прозрачности
+     */
+    void addRows(BufferedImage strip) throws IOException {
+        int width = widths[maxZoom];
+        if (strip.getWidth() != width) {
+            throw new IllegalArgumentException(String.format("Ширина полосы %d не совпадает с шириной картинки %d", strip.getWidth(), width));
+        }
+
+        int[] rows = strip.getRGB(0, 0, width, strip.getHeight(), null, 0, width);
+        push(maxZoom, rows, strip.getHeight());
+    }
+
+    /**
+     * Выдаёт неполные нижние строки тайлов всех уровней. Вызывается после последней полосы
+     */
+    void finish() throws IOException {
+        for (int zoom = maxZoom; zoom >= 0; zoom--) {
+            flush(zoom);
+        }
+    }
+
+    private void push(int zoom, int[] rows, int rowCount) throws IOException {
+        int width = widths[zoom];
+        int offset = 0;
+        while (offset < rowCount) {
+            int count = Math.min(TILE_SIZE - filledRows[zoom], rowCount - offset);
+            System.arraycopy(rows, offset * width, bands[zoom], filledRows[zoom] * width, count * width);
+            filledRows[zoom] += count;
+            offset += count;
+            if (filledRows[zoom] == TILE_SIZE) {
+                flush(zoom);
+            }
+        }
+    }
+
+    /**
+     * Нарезает накопленную строку тайлов уровня и передаёт её уменьшенную копию уровню ниже
+     */
+    private void flush(int zoom) throws IOException {
+        int rows = filledRows[zoom];
+        if (rows == 0) {
+            return;
+        }
+
+        int width = widths[zoom];
+        int[] band = bands[zoom];
+        for (int x = 0; x * TILE_SIZE < width; x++) {
+            int tileWidth = Math.min(TILE_SIZE, width - x * TILE_SIZE);
+            BufferedImage tile = new BufferedImage(tileWidth, rows, BufferedImage.TYPE_INT_RGB);
+            tile.setRGB(0, 0, tileWidth, rows, band, x * TILE_SIZE, width);
+            sink.accept(zoom, x, tileRows[zoom], tile);
+        }
+        tileRows[zoom]++;
+        filledRows[zoom] = 0;
+
+        if (zoom > 0) {
+            push(zoom - 1, downscale(band, width, rows, widths[zoom - 1]), (rows + 1) / 2);
+        }
+    }
+
+    /**
+     * Уменьшает полосу вдвое, усредняя квадраты 2x2. Нечётные края усредняются с повтором крайнего пикселя
+     */
+    private static int[] downscale(int[] band, int width, int rows, int halfWidth) {
+        int halfRows = (rows + 1) / 2;
+        int[] half = new int[halfWidth * halfRows];
+        for (int y = 0; y < halfRows; y++) {
+            int top = 2 * y * width;
+            int bottom = Math.min(2 * y + 1, rows - 1) * width;
+            for (int x = 0; x < halfWidth; x++) {
+                int left = 2 * x;
+                int right = Math.min(2 * x + 1, width - 1);
+                half[y * halfWidth + x] = average(band[top + left], band[top + right], band[bottom + left], band[bottom + right]);
+            }
+        }
+        return half;
+    }
+
+    private static int average(int a, int b, int c, int d) {
+        int red = (((a >> 16) & 0xFF) + ((b >> 16) & 0xFF) + ((c >> 16) & 0xFF) + ((d >> 16) & 0xFF) + 2) >> 2;
+        int green = (((a >> 8) & 0xFF) + ((b >> 8) & 0xFF) + ((c >> 8) & 0xFF) + ((d >> 8) & 0xFF) + 2) >> 2;
+        int blue = ((a & 0xFF) + (b & 0xFF) + (c & 0xFF) + (d & 0xFF) + 2) >> 2;
+        return red << 16 | green << 8 | blue;
+    }
+}
@@ -2,12 +2,17 @@ package com.good.animalsgame.domain;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.BatchSize;
 
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 /**
- * Сущность животного
+ * Сущность животного.
+ * Все связи ленивые: что загружать, решает конкретный запрос репозитория
  */
 @Entity
 @Table(name = "animals")
@@ -30,6 +35,7 @@ public class Animal {
     @Getter
     @Column(name = "animal_name")
     @ElementCollection
+    @BatchSize(size = 50)
     @CollectionTable(
             name = "animal_name",
             joinColumns = @JoinColumn(name = "animal_id")
@@ -43,6 +49,7 @@ public class Animal {
     @Getter
     @Column(name = "animal_description", columnDefinition = "TEXT")
     @ElementCollection
+    @BatchSize(size = 50)
     @CollectionTable(
             name = "animal_description",
             joinColumns = @JoinColumn(name = "animal_id")
@@ -50,21 +57,50 @@ public class Animal {
     @MapKeyColumn(name = "language")
     private Map<Language, String> descriptions;
 
+    /**
+     * Нормализованные названия животного на всех языках - ключи поиска по названию.
+     * Уникальны среди всех животных, пересчитываются из {@link #names}
+     */
+    @Getter
+    @Column(name = "name_key")
+    @ElementCollection
+    @BatchSize(size = 50)
+    @CollectionTable(
+            name = "animal_name_key",
+            joinColumns = @JoinColumn(name = "animal_id"),
+            uniqueConstraints = @UniqueConstraint(name = "uk_animal_name_key", columnNames = "name_key")
+    )
+    @Builder.Default
+    private Set<String> nameKeys = new HashSet<>();
+
     /**
      * Уровни с животным в списке
      */
-    @ManyToMany(mappedBy = "animals", fetch = FetchType.EAGER)
+    @ManyToMany(mappedBy = "animals")
     private List<Level> associatedLevels;
 
     /**
      * Уровни, где это животное - правильный вариант
      */
-    @OneToMany(mappedBy = "correctAnimal", cascade = CascadeType.MERGE, fetch = FetchType.EAGER)
+    @OneToMany(mappedBy = "correctAnimal", cascade = CascadeType.MERGE)
     private List<Level> correctAnswerLevels;
 
     /**
      * Уровни второго раунда, где это животное указано в вопросе
      */
-    @OneToMany(mappedBy = "animalInQuestion", cascade = CascadeType.MERGE, fetch = FetchType.EAGER)
+    @OneToMany(mappedBy = "animalInQuestion", cascade = CascadeType.MERGE)
     private List<SecondRoundLevel> secondRoundLevels;
+
+    /**
+     * Пересчитывает ключи поиска по текущим названиям.
+     * Вызывается автоматически перед созданием и явно после изменения названий
+     */
+    @PrePersist
+    public void updateNameKeys() {
+        Set<String> actualKeys = names.values().stream()
+                .map(AnimalNameNormalizer::normalize)
+                .collect(Collectors.toSet());
+        nameKeys.retainAll(actualKeys);
+        nameKeys.addAll(actualKeys);
+    }
 }
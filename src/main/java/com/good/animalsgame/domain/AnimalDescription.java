@@ -0,0 +1,10 @@
+package com.good.animalsgame.domain;
+
+/**
+ * Описание животного на одном языке - строка проекции для выгрузки каталога
+ * @param animalId идентификатор животного
+ * @param language язык
+ * @param description описание
+ */
+public record AnimalDescription(Long animalId, Language language, String description) {
+}
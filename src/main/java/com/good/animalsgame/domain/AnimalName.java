@@ -0,0 +1,10 @@
+package com.good.animalsgame.domain;
+
+/**
+ * Название животного на одном языке - строка проекции для словаря названий
+ * @param animalId идентификатор животного
+ * @param language язык
+ * @param name название
+ */
+public record AnimalName(Long animalId, Language language, String name) {
+}
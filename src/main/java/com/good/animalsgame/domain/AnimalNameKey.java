@@ -0,0 +1,9 @@
+package com.good.animalsgame.domain;
+
+/**
+ * Нормализованное название животного - строка проекции для поиска животных по названиям
+ * @param nameKey нормализованное название
+ * @param animalId идентификатор животного
+ */
+public record AnimalNameKey(String nameKey, Long animalId) {
+}
@@ -0,0 +1,23 @@
+package com.good.animalsgame.domain;
+
+import java.text.Normalizer;
+import java.util.Locale;
+
+/**
+ * Приведение названия животного к ключу поиска.
+ * Ключ не зависит от регистра, пробелов по краям и способа записи составных символов Юникода
+ */
+public final class AnimalNameNormalizer {
+
+    private AnimalNameNormalizer() {
+    }
+
+    /**
+     * Возвращает ключ поиска для названия животного
+     *
+     * @param name название животного
+     */
+    public static String normalize(String name) {
+        return Normalizer.normalize(name.strip(), Normalizer.Form.NFC).toLowerCase(Locale.ROOT);
+    }
+}
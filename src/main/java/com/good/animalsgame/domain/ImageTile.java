@@ -0,0 +1,63 @@
+package com.good.animalsgame.domain;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/**
+ * Тайл пирамиды большой картинки уровня: квадрат картинки, уменьшенной в 2^(maxZoom - zoom) раз.
+ * Тайлы привязаны к исходной картинке, а не к уровню, и сами лежат в хранилище картинок,
+ * поэтому одинаковые тайлы (например, однотонное небо) хранятся один раз
+ */
+@Entity
+@Table(name = "image_tiles", uniqueConstraints = @UniqueConstraint(name = "uk_image_tile", columnNames = {"source_hash", "zoom", "x", "y"}))
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class ImageTile {
+
+    /**
+     * Идентификатор
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Getter
+    private Long id;
+
+    /**
+     * Хэш исходной картинки
+     */
+    @Column(name = "source_hash", length = 64, nullable = false)
+    @Getter
+    private String sourceHash;
+
+    /**
+     * Уровень пирамиды, 0 - вся картинка в одном тайле
+     */
+    @Column(name = "zoom", nullable = false)
+    @Getter
+    private int zoom;
+
+    /**
+     * Номер тайла по горизонтали, слева направо
+     */
+    @Column(name = "x", nullable = false)
+    @Getter
+    private int x;
+
+    /**
+     * Номер тайла по вертикали, сверху вниз
+     */
+    @Column(name = "y", nullable = false)
+    @Getter
+    private int y;
+
+    /**
+     * Хэш тайла в JPEG, ключ в хранилище картинок
+     */
+    @Column(name = "tile_hash", length = 64, nullable = false)
+    @Getter
+    private String tileHash;
+}
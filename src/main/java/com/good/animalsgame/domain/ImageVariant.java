@@ -0,0 +1,69 @@
+package com.good.animalsgame.domain;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/**
+ * Уменьшенная копия картинки уровня, ограниченная по ширине.
+ * Копии привязаны к исходной картинке, а не к уровню, поэтому общая картинка нескольких уровней уменьшается один раз
+ */
+@Entity
+@Table(name = "image_variants", uniqueConstraints = @UniqueConstraint(name = "uk_image_variant", columnNames = {"source_hash", "width"}))
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class ImageVariant {
+
+    /**
+     * Идентификатор
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Getter
+    private Long id;
+
+    /**
+     * Хэш исходной картинки
+     */
+    @Column(name = "source_hash", length = 64, nullable = false)
+    @Getter
+    private String sourceHash;
+
+    /**
+     * Ширина копии в пикселях
+     */
+    @Column(name = "width", nullable = false)
+    @Getter
+    private int width;
+
+    /**
+     * Высота копии в пикселях
+     */
+    @Column(name = "height", nullable = false)
+    @Getter
+    private int height;
+
+    /**
+     * Хэш копии, ключ в хранилище картинок
+     */
+    @Column(name = "variant_hash", length = 64, nullable = false)
+    @Getter
+    private String variantHash;
+
+    /**
+     * Размер копии в байтах
+     */
+    @Column(name = "size", nullable = false)
+    @Getter
+    private long size;
+
+    /**
+     * MIME-тип копии
+     */
+    @Column(name = "content_type", nullable = false)
+    @Getter
+    private String contentType;
+}
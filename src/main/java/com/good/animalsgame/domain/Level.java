@@ -16,10 +16,13 @@ import java.util.Set;
 public abstract class Level {
 
     /**
-     * Идентификатор уровня
+     * Идентификатор уровня.
+     * Последовательность выдаёт идентификаторы блоками по 50 (оптимизатор pooled),
+     * поэтому вставки уровней идут пачками JDBC без обращения к последовательности на каждый уровень
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "level_seq")
+    @SequenceGenerator(name = "level_seq", sequenceName = "level_seq", allocationSize = 50)
     @Getter
     @Column(name = "level_id")
     private Long id;
@@ -27,7 +30,7 @@ public abstract class Level {
     /**
      * Список животных на уровне
      */
-    @ManyToMany(fetch = FetchType.EAGER)
+    @ManyToMany
     @JoinTable(
             name = "level_animals",
             joinColumns = @JoinColumn(name = "level_id"),
@@ -39,19 +42,70 @@ public abstract class Level {
     /**
      * Корректное животное
      */
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "correct_animal")
     @Getter
     private Animal correctAnimal;
 
     /**
-     * Картинка без выделенного животного
+     * SHA-256 картинки без выделенного животного, ключ в хранилище картинок
      */
-    @Lob
-    @Column(name = "level_image")
+    @Column(name = "image_hash", length = 64)
     @Getter
     @Setter
-    private byte[] levelImage;
+    private String imageHash;
+
+    /**
+     * Размер картинки в байтах
+     */
+    @Column(name = "image_size")
+    @Getter
+    @Setter
+    private Long imageSize;
+
+    /**
+     * MIME-тип картинки
+     */
+    @Column(name = "image_content_type")
+    @Getter
+    private String imageContentType;
+
+    /**
+     * Ширина картинки в пикселях, из заголовка картинки
+     */
+    @Column(name = "image_width")
+    @Getter
+    private Integer imageWidth;
+
+    /**
+     * Высота картинки в пикселях, из заголовка картинки
+     */
+    @Column(name = "image_height")
+    @Getter
+    private Integer imageHeight;
+
+    /**
+     * BlurHash картинки - размытая заглушка, которую клиент рисует до загрузки картинки.
+     * Вычисляется в фоне после создания уровня, до этого null, пустая строка - картинку не удалось разобрать
+     */
+    @Column(name = "image_blur_hash", length = 64)
+    @Getter
+    private String imageBlurHash;
+
+    /**
+     * Основной цвет картинки в виде #rrggbb, вычисляется вместе с {@link #imageBlurHash}
+     */
+    @Column(name = "image_color", length = 7)
+    @Getter
+    private String imageColor;
+
+    /**
+     * Наибольший уровень пирамиды тайлов картинки (исходное разрешение).
+     * Строится в фоне только для больших картинок, до этого null, -1 - картинку не удалось разбить на тайлы
+     */
+    @Column(name = "image_tile_zoom")
+    @Getter
+    private Integer imageTileZoom;
 
     /**
      * Координаты животного на картинке
@@ -0,0 +1,14 @@
+package com.good.animalsgame.domain;
+
+/**
+ * Ключ ответа уровня - идентификаторы животных, нужные для проверки ответа
+ * @param levelId идентификатор уровня
+ * @param correctAnimalId идентификатор верного животного
+ * @param animalInQuestionId идентификатор животного в вопросе (только для второго раунда)
+ */
+public record LevelAnswerKey(Long levelId, Long correctAnimalId, Long animalInQuestionId) {
+
+    public LevelAnswerKey(Long levelId, Long correctAnimalId) {
+        this(levelId, correctAnimalId, null);
+    }
+}
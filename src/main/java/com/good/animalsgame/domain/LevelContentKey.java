@@ -0,0 +1,10 @@
+package com.good.animalsgame.domain;
+
+/**
+ * Содержимое уровня, по которому при восстановлении из выгрузки уровень считается уже существующим
+ * @param imageHash хэш картинки
+ * @param correctAnimalId идентификатор верного животного
+ * @param animalCoordinates координаты животного на картинке
+ */
+public record LevelContentKey(String imageHash, Long correctAnimalId, Coordinates animalCoordinates) {
+}
@@ -0,0 +1,11 @@
+package com.good.animalsgame.domain;
+
+/**
+ * Метаданные картинки уровня. Сама картинка лежит в хранилище картинок
+ * @param hash SHA-256 содержимого в hex
+ * @param contentType MIME-тип
+ * @param size размер в байтах
+ * @param width ширина в пикселях, если известна
+ */
+public record LevelImage(String hash, String contentType, Long size, Integer width) {
+}
@@ -0,0 +1,54 @@
+package com.good.animalsgame.domain;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.data.domain.Persistable;
+
+/**
+ * История игрока в раунде: уже показанные ему уровни, сохраняемые между сессиями.
+ * Айди уровней хранятся сжатым Roaring-битмапом
+ */
+@Entity
+@Table(name = "player_progress")
+@NoArgsConstructor
+public class PlayerProgress implements Persistable<PlayerProgressId> {
+
+    /**
+     * Игрок и раунд
+     */
+    @EmbeddedId
+    @Getter
+    private PlayerProgressId id;
+
+    /**
+     * Сериализованный Roaring-битмап айди показанных уровней
+     */
+    @Column(name = "seen_levels", nullable = false, length = 16 * 1024 * 1024)
+    @Getter
+    @Setter
+    private byte[] seenLevels;
+
+    /**
+     * Признак ещё не сохранённой записи, чтобы сохранение нового ключа не начиналось с SELECT
+     */
+    @Transient
+    private boolean isNew = true;
+
+    public PlayerProgress(PlayerProgressId id, byte[] seenLevels) {
+        this.id = id;
+        this.seenLevels = seenLevels;
+    }
+
+    @Override
+    public boolean isNew() {
+        return isNew;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markNotNew() {
+        isNew = false;
+    }
+}
@@ -0,0 +1,16 @@
+package com.good.animalsgame.domain;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+
+import java.io.Serializable;
+
+/**
+ * Ключ истории игрока в раунде
+ * @param playerId идентификатор игрока
+ * @param round номер раунда
+ */
+@Embeddable
+public record PlayerProgressId(@Column(name = "player_id", length = 36) String playerId,
+                               @Column(name = "round") int round) implements Serializable {
+}
@@ -17,7 +17,7 @@ public class SecondRoundLevel extends Level {
     /**
      * Животное в вопросе
      */
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "animal_in_question")
     @Getter
     private Animal animalInQuestion;
@@ -0,0 +1,10 @@
+package com.good.animalsgame.domain;
+
+/**
+ * Текст интерфейса на одном языке - строка проекции для кэша наборов текстов
+ * @param title название текста
+ * @param language язык
+ * @param text текст
+ */
+public record UiTextEntry(String title, Language language, String text) {
+}
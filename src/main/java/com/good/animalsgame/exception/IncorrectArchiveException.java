@@ -0,0 +1,10 @@
+package com.good.animalsgame.exception;
+
+/**
+ * Исключение, когда архив с уровнями, его манифест или выгрузка каталога некорректны
+ */
+public class IncorrectArchiveException extends Exception {
+    public IncorrectArchiveException(String message) {
+        super(message);
+    }
+}
@@ -1,20 +1,35 @@
 package com.good.animalsgame.extern.api.assembler.level;
 
 import com.good.animalsgame.app.service.AnimalService;
+import com.good.animalsgame.app.storage.ImageHeader;
+import com.good.animalsgame.app.storage.ImageHeaderReader;
+import com.good.animalsgame.app.storage.ImageStorage;
+import com.good.animalsgame.app.storage.ImageTileService;
+import com.good.animalsgame.app.storage.ImageVariantService;
+import com.good.animalsgame.app.storage.ImageVariantSize;
+import com.good.animalsgame.app.storage.StoredImage;
 import com.good.animalsgame.domain.Animal;
+import com.good.animalsgame.domain.Coordinates;
 import com.good.animalsgame.domain.FirstRoundLevel;
 import com.good.animalsgame.domain.Language;
 import com.good.animalsgame.exception.EntityNotFoundException;
+import com.good.animalsgame.exception.IncorrectLevelException;
 import com.good.animalsgame.exception.LanguageException;
-import com.good.animalsgame.extern.api.assembler.CustomMultipartFile;
 import com.good.animalsgame.extern.api.controller.FirstRoundLevelController;
 import com.good.animalsgame.extern.api.dto.level.FirstRoundLevelDTO;
+import com.good.animalsgame.extern.api.dto.level.ImageTilesDTO;
+import com.good.animalsgame.extern.api.dto.level.ImageVariantDTO;
 import lombok.NonNull;
 import org.springframework.hateoas.server.mvc.RepresentationModelAssemblerSupport;
 import org.springframework.stereotype.Component;
+import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -25,10 +40,14 @@ import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
 public class FirstRoundLevelAssembler extends RepresentationModelAssemblerSupport<FirstRoundLevel, FirstRoundLevelDTO> {
 
     private final AnimalService animalService;
+    private final ImageStorage imageStorage;
+    private final ImageVariantService imageVariantService;
 
-    public FirstRoundLevelAssembler(AnimalService animalService) {
+    public FirstRoundLevelAssembler(AnimalService animalService, ImageStorage imageStorage, ImageVariantService imageVariantService) {
         super(FirstRoundLevelController.class, FirstRoundLevelDTO.class);
         this.animalService = animalService;
+        this.imageStorage = imageStorage;
+        this.imageVariantService = imageVariantService;
     }
 
     /**
@@ -40,7 +59,11 @@ public class FirstRoundLevelAssembler extends RepresentationModelAssemblerSuppor
         FirstRoundLevelDTO firstRoundLevelDTO = instantiateModel(firstRoundLevel);
 
         firstRoundLevelDTO.setId(firstRoundLevel.getId());
-        firstRoundLevelDTO.setLevelImage(new CustomMultipartFile(firstRoundLevel.getLevelImage(), "image", "image/jpeg"));
+        firstRoundLevelDTO.setImageUrl(getImageUrl(firstRoundLevel));
+        firstRoundLevelDTO.setImageVariants(getImageVariants(firstRoundLevel));
+        firstRoundLevelDTO.setImageTiles(getImageTiles(firstRoundLevel));
+        firstRoundLevelDTO.setImagePlaceholder(getImagePlaceholder(firstRoundLevel));
+        firstRoundLevelDTO.setImageColor(firstRoundLevel.getImageColor());
         firstRoundLevelDTO.setAnimalNames(firstRoundLevel.getAnimals()
                 .stream()
                 .map(animal -> animal.getNames().get(Language.RUSSIAN))
@@ -60,37 +83,144 @@ public class FirstRoundLevelAssembler extends RepresentationModelAssemblerSuppor
      * @param language язык
      */
     public @NonNull FirstRoundLevelDTO toModel(@NonNull FirstRoundLevel firstRoundLevel, String language) throws LanguageException, EntityNotFoundException {
-        FirstRoundLevelDTO firstRoundLevelDTO = instantiateModel(firstRoundLevel);
+        Set<Long> animalIds = new HashSet<>();
+        collectAnimalIds(firstRoundLevel, animalIds);
 
-        Set<String> animalNames = new HashSet<>();
-        for (Animal animal : firstRoundLevel.getAnimals()) {
-            animalNames.add(animalService.getAnimalSingleLanguageData(animal.getId(), language).name());
-        }
+        return toModel(firstRoundLevel, animalService.getAnimalNames(animalIds, language), language);
+    }
 
-        firstRoundLevelDTO.setId(firstRoundLevel.getId());
-        firstRoundLevelDTO.setLevelImage(new CustomMultipartFile(firstRoundLevel.getLevelImage(), "image", "image/jpeg"));
-        firstRoundLevelDTO.setAnimalNames(animalNames);
-        firstRoundLevelDTO.setCorrectAnimalName(animalService.getAnimalSingleLanguageData(firstRoundLevel.getCorrectAnimal().getId(), language).name());
-        firstRoundLevelDTO.setAnimalCoordinates(firstRoundLevel.getAnimalCoordinates());
+    /**
+     * Маппит несколько уровней 1 раунда в DTO на выбранном языке.
+     * Названия животных всех уровней получаются одним обращением к словарю названий
+     * @param firstRoundLevels уровни 1 раунда
+     * @param language язык
+     */
+    public List<FirstRoundLevelDTO> toModels(List<FirstRoundLevel> firstRoundLevels, String language) throws LanguageException, EntityNotFoundException {
+        Set<Long> animalIds = new HashSet<>();
+        for (FirstRoundLevel firstRoundLevel : firstRoundLevels) {
+            collectAnimalIds(firstRoundLevel, animalIds);
+        }
 
-        firstRoundLevelDTO.add(linkTo(methodOn(FirstRoundLevelController.class).getLevelById(firstRoundLevel.getId(), language)).withSelfRel());
-        firstRoundLevelDTO.add(linkTo(methodOn(FirstRoundLevelController.class).getRandomLevel(language)).withSelfRel());
+        Map<Long, String> animalNames = animalService.getAnimalNames(animalIds, language);
 
-        return firstRoundLevelDTO;
+        List<FirstRoundLevelDTO> firstRoundLevelDTOs = new ArrayList<>(firstRoundLevels.size());
+        for (FirstRoundLevel firstRoundLevel : firstRoundLevels) {
+            firstRoundLevelDTOs.add(toModel(firstRoundLevel, animalNames, language));
+        }
+        return firstRoundLevelDTOs;
     }
 
-    public FirstRoundLevel toEntity(FirstRoundLevelDTO firstRoundLevelDTO) throws EntityNotFoundException, IOException {
+    /**
+     * Собирает уровень из DTO без сохранения картинки: хэш и размер картинки проставляет {@link #storeImage}
+     * после проверки уровня, чтобы отклонённые уровни не оставляли файлов в хранилище
+     * @param firstRoundLevelDTO DTO уровня с загруженной картинкой
+     */
+    public FirstRoundLevel toEntity(FirstRoundLevelDTO firstRoundLevelDTO) throws EntityNotFoundException, IncorrectLevelException, IOException {
         Set<Animal> animals = new HashSet<>();
         for (String animalName : firstRoundLevelDTO.getAnimalNames()) {
             Animal animal = animalService.getAnimalByName(animalName);
             animals.add(animal);
         }
 
+        ImageHeader imageHeader = ImageHeaderReader.read(firstRoundLevelDTO.getLevelImage())
+                .orElseThrow(() -> new IncorrectLevelException("Картинка уровня должна быть в формате JPEG, PNG или WebP"));
+
         return FirstRoundLevel.builder()
                 .animals(animals)
                 .correctAnimal(animalService.getAnimalByName(firstRoundLevelDTO.getCorrectAnimalName()))
-                .levelImage(firstRoundLevelDTO.getLevelImage().getBytes())
+                .imageContentType(imageHeader.format().getContentType())
+                .imageWidth(imageHeader.width())
+                .imageHeight(imageHeader.height())
                 .animalCoordinates(firstRoundLevelDTO.getAnimalCoordinates())
                 .build();
     }
+
+    /**
+     * Сохраняет картинку уровня в хранилище и проставляет уровню её хэш и размер
+     * @param firstRoundLevel проверенный уровень
+     * @param levelImage загруженная картинка уровня
+     */
+    public void storeImage(FirstRoundLevel firstRoundLevel, MultipartFile levelImage) throws IOException {
+        StoredImage storedImage;
+        try (InputStream imageStream = levelImage.getInputStream()) {
+            storedImage = imageStorage.store(imageStream);
+        }
+        firstRoundLevel.setImageHash(storedImage.hash());
+        firstRoundLevel.setImageSize(storedImage.size());
+    }
+
+    /**
+     * Возвращает ссылку на картинку уровня
+     * @param firstRoundLevel уровень
+     */
+    private String getImageUrl(FirstRoundLevel firstRoundLevel) {
+        return linkTo(methodOn(FirstRoundLevelController.class).getLevelImage(firstRoundLevel.getId(), null, null)).toUri().toString();
+    }
+
+    /**
+     * Возвращает BlurHash картинки уровня или null, если он ещё не вычислен или картинку не удалось разобрать
+     *
+     * @param firstRoundLevel уровень
+     */
+    private String getImagePlaceholder(FirstRoundLevel firstRoundLevel) {
+        String blurHash = firstRoundLevel.getImageBlurHash();
+        return blurHash == null || blurHash.isEmpty() ? null : blurHash;
+    }
+
+    /**
+     * Возвращает уменьшенные копии картинки уровня со ссылками и координатами животного на каждой
+     * @param firstRoundLevel уровень
+     */
+    private List<ImageVariantDTO> getImageVariants(FirstRoundLevel firstRoundLevel) {
+        List<ImageVariantDTO> imageVariants = new ArrayList<>();
+        for (ImageVariantSize size : imageVariantService.getVariantSizes(firstRoundLevel.getImageWidth(), firstRoundLevel.getImageHeight())) {
+            String imageUrl = linkTo(methodOn(FirstRoundLevelController.class).getLevelImage(firstRoundLevel.getId(), size.width(), null)).toUri().toString();
+            Coordinates animalCoordinates = firstRoundLevel.getAnimalCoordinates() != null ? size.scale(firstRoundLevel.getAnimalCoordinates()) : null;
+            imageVariants.add(new ImageVariantDTO(size.width(), size.height(), imageUrl, animalCoordinates));
+        }
+        return imageVariants;
+    }
+
+    /**
+     * Возвращает пирамиду тайлов картинки уровня или null, если её нет
+     * @param firstRoundLevel уровень
+     */
+    private ImageTilesDTO getImageTiles(FirstRoundLevel firstRoundLevel) {
+        Integer tileZoom = firstRoundLevel.getImageTileZoom();
+        if (tileZoom == null || tileZoom < 0) {
+            return null;
+        }
+
+        String tileUrl = linkTo(FirstRoundLevelController.class).slash(firstRoundLevel.getId()).slash("tiles").toUri() + "/{z}/{x}/{y}";
+        return new ImageTilesDTO(ImageTileService.TILE_SIZE, tileZoom, firstRoundLevel.getImageWidth(), firstRoundLevel.getImageHeight(), tileUrl);
+    }
+
+    private FirstRoundLevelDTO toModel(FirstRoundLevel firstRoundLevel, Map<Long, String> animalNames, String language) {
+        FirstRoundLevelDTO firstRoundLevelDTO = instantiateModel(firstRoundLevel);
+
+        firstRoundLevelDTO.setId(firstRoundLevel.getId());
+        firstRoundLevelDTO.setImageUrl(getImageUrl(firstRoundLevel));
+        firstRoundLevelDTO.setImageVariants(getImageVariants(firstRoundLevel));
+        firstRoundLevelDTO.setImageTiles(getImageTiles(firstRoundLevel));
+        firstRoundLevelDTO.setImagePlaceholder(getImagePlaceholder(firstRoundLevel));
+        firstRoundLevelDTO.setImageColor(firstRoundLevel.getImageColor());
+        firstRoundLevelDTO.setAnimalNames(firstRoundLevel.getAnimals()
+                .stream()
+                .map(animal -> animalNames.get(animal.getId()))
+                .collect(Collectors.toSet()));
+        firstRoundLevelDTO.setCorrectAnimalName(animalNames.get(firstRoundLevel.getCorrectAnimal().getId()));
+        firstRoundLevelDTO.setAnimalCoordinates(firstRoundLevel.getAnimalCoordinates());
+
+        firstRoundLevelDTO.add(linkTo(methodOn(FirstRoundLevelController.class).getLevelById(firstRoundLevel.getId(), language)).withSelfRel());
+        firstRoundLevelDTO.add(linkTo(methodOn(FirstRoundLevelController.class).getRandomLevel(language)).withSelfRel());
+
+        return firstRoundLevelDTO;
+    }
+
+    private static void collectAnimalIds(FirstRoundLevel firstRoundLevel, Set<Long> animalIds) {
+        for (Animal animal : firstRoundLevel.getAnimals()) {
+            animalIds.add(animal.getId());
+        }
+        animalIds.add(firstRoundLevel.getCorrectAnimal().getId());
+    }
 }
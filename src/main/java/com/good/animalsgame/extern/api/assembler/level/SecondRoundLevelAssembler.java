@@ -1,20 +1,35 @@
 package com.good.animalsgame.extern.api.assembler.level;
 
 import com.good.animalsgame.app.service.AnimalService;
+import com.good.animalsgame.app.storage.ImageHeader;
+import com.good.animalsgame.app.storage.ImageHeaderReader;
+import com.good.animalsgame.app.storage.ImageStorage;
+import com.good.animalsgame.app.storage.ImageTileService;
+import com.good.animalsgame.app.storage.ImageVariantService;
+import com.good.animalsgame.app.storage.ImageVariantSize;
+import com.good.animalsgame.app.storage.StoredImage;
 import com.good.animalsgame.domain.Animal;
+import com.good.animalsgame.domain.Coordinates;
 import com.good.animalsgame.domain.Language;
 import com.good.animalsgame.domain.SecondRoundLevel;
 import com.good.animalsgame.exception.EntityNotFoundException;
+import com.good.animalsgame.exception.IncorrectLevelException;
 import com.good.animalsgame.exception.LanguageException;
-import com.good.animalsgame.extern.api.assembler.CustomMultipartFile;
 import com.good.animalsgame.extern.api.controller.SecondRoundLevelController;
 import com.good.animalsgame.extern.api.dto.level.SecondRoundLevelDTO;
+import com.good.animalsgame.extern.api.dto.level.ImageTilesDTO;
+import com.good.animalsgame.extern.api.dto.level.ImageVariantDTO;
 import lombok.NonNull;
 import org.springframework.hateoas.server.mvc.RepresentationModelAssemblerSupport;
 import org.springframework.stereotype.Component;
+import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -25,10 +40,14 @@ import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
 public class SecondRoundLevelAssembler extends RepresentationModelAssemblerSupport<SecondRoundLevel, SecondRoundLevelDTO> {
 
     private final AnimalService animalService;
+    private final ImageStorage imageStorage;
+    private final ImageVariantService imageVariantService;
 
-    public SecondRoundLevelAssembler(AnimalService animalService) {
+    public SecondRoundLevelAssembler(AnimalService animalService, ImageStorage imageStorage, ImageVariantService imageVariantService) {
         super(SecondRoundLevelController.class, SecondRoundLevelDTO.class);
         this.animalService = animalService;
+        this.imageStorage = imageStorage;
+        this.imageVariantService = imageVariantService;
     }
 
     /**
@@ -48,7 +67,11 @@ public class SecondRoundLevelAssembler extends RepresentationModelAssemblerSuppo
         }
         secondRoundLevelDTO.setCorrectAnimalName(secondRoundLevel.getCorrectAnimal().getNames().get(Language.RUSSIAN));
         secondRoundLevelDTO.setAnimalNameInQuestion(secondRoundLevel.getAnimalInQuestion().getNames().get(Language.RUSSIAN));
-        secondRoundLevelDTO.setLevelImage(new CustomMultipartFile(secondRoundLevel.getLevelImage(), "image", "image/jpeg"));
+        secondRoundLevelDTO.setImageUrl(getImageUrl(secondRoundLevel));
+        secondRoundLevelDTO.setImageVariants(getImageVariants(secondRoundLevel));
+        secondRoundLevelDTO.setImageTiles(getImageTiles(secondRoundLevel));
+        secondRoundLevelDTO.setImagePlaceholder(getImagePlaceholder(secondRoundLevel));
+        secondRoundLevelDTO.setImageColor(secondRoundLevel.getImageColor());
         secondRoundLevelDTO.setAnimalCoordinates(secondRoundLevel.getAnimalCoordinates());
 
         secondRoundLevelDTO.add(linkTo(methodOn(SecondRoundLevelController.class).getLevelById(secondRoundLevel.getId(), "RUSSIAN")).withSelfRel());
@@ -63,41 +86,149 @@ public class SecondRoundLevelAssembler extends RepresentationModelAssemblerSuppo
      * @param language язык
      */
     public @NonNull SecondRoundLevelDTO toModel(@NonNull SecondRoundLevel secondRoundLevel, String language) throws LanguageException, EntityNotFoundException {
-        SecondRoundLevelDTO secondRoundLevelDTO = instantiateModel(secondRoundLevel);
+        Set<Long> animalIds = new HashSet<>();
+        collectAnimalIds(secondRoundLevel, animalIds);
 
-        secondRoundLevelDTO.setId(secondRoundLevel.getId());
-        if (!secondRoundLevel.getAnimals().isEmpty()) {
-            Set<String> animalNames = new HashSet<>();
-            for (Animal animal : secondRoundLevel.getAnimals()) {
-                animalNames.add(animalService.getAnimalSingleLanguageData(animal.getId(), language).name());
-            }
+        return toModel(secondRoundLevel, animalService.getAnimalNames(animalIds, language), language);
+    }
 
-            secondRoundLevelDTO.setAnimalNames(animalNames);
+    /**
+     * Маппит несколько уровней 2 раунда в DTO на выбранном языке.
+     * Названия животных всех уровней получаются одним обращением к словарю названий
+     * @param secondRoundLevels уровни 2 раунда
+     * @param language язык
+     */
+    public List<SecondRoundLevelDTO> toModels(List<SecondRoundLevel> secondRoundLevels, String language) throws LanguageException, EntityNotFoundException {
+        Set<Long> animalIds = new HashSet<>();
+        for (SecondRoundLevel secondRoundLevel : secondRoundLevels) {
+            collectAnimalIds(secondRoundLevel, animalIds);
         }
-        secondRoundLevelDTO.setCorrectAnimalName(animalService.getAnimalSingleLanguageData(secondRoundLevel.getCorrectAnimal().getId(), language).name());
-        secondRoundLevelDTO.setAnimalNameInQuestion(animalService.getAnimalSingleLanguageData(secondRoundLevel.getAnimalInQuestion().getId(), language).name());
-        secondRoundLevelDTO.setLevelImage(new CustomMultipartFile(secondRoundLevel.getLevelImage(), "image", "image/jpeg"));
-        secondRoundLevelDTO.setAnimalCoordinates(secondRoundLevel.getAnimalCoordinates());
 
-        secondRoundLevelDTO.add(linkTo(methodOn(SecondRoundLevelController.class).getLevelById(secondRoundLevel.getId(), language)).withSelfRel());
-        secondRoundLevelDTO.add(linkTo(methodOn(SecondRoundLevelController.class).getRandomLevel(language)).withSelfRel());
+        Map<Long, String> animalNames = animalService.getAnimalNames(animalIds, language);
 
-        return secondRoundLevelDTO;
+        List<SecondRoundLevelDTO> secondRoundLevelDTOs = new ArrayList<>(secondRoundLevels.size());
+        for (SecondRoundLevel secondRoundLevel : secondRoundLevels) {
+            secondRoundLevelDTOs.add(toModel(secondRoundLevel, animalNames, language));
+        }
+        return secondRoundLevelDTOs;
     }
 
-    public SecondRoundLevel toEntity(SecondRoundLevelDTO secondRoundLevelDTO) throws EntityNotFoundException, IOException {
+    /**
+     * Собирает уровень из DTO без сохранения картинки: хэш и размер картинки проставляет {@link #storeImage}
+     * после проверки уровня, чтобы отклонённые уровни не оставляли файлов в хранилище
+     * @param secondRoundLevelDTO DTO уровня с загруженной картинкой
+     */
+    public SecondRoundLevel toEntity(SecondRoundLevelDTO secondRoundLevelDTO) throws EntityNotFoundException, IncorrectLevelException, IOException {
         Set<Animal> animals = new HashSet<>();
         for (String animalName : secondRoundLevelDTO.getAnimalNames()) {
             Animal animal = animalService.getAnimalByName(animalName);
             animals.add(animal);
         }
 
+        ImageHeader imageHeader = ImageHeaderReader.read(secondRoundLevelDTO.getLevelImage())
+                .orElseThrow(() -> new IncorrectLevelException("Картинка уровня должна быть в формате JPEG, PNG или WebP"));
+
         return SecondRoundLevel.builder()
                 .animals(animals)
                 .correctAnimal(animalService.getAnimalByName(secondRoundLevelDTO.getCorrectAnimalName()))
                 .animalInQuestion(animalService.getAnimalByName(secondRoundLevelDTO.getAnimalNameInQuestion()))
-                .levelImage(secondRoundLevelDTO.getLevelImage().getBytes())
+                .imageContentType(imageHeader.format().getContentType())
+                .imageWidth(imageHeader.width())
+                .imageHeight(imageHeader.height())
                 .animalCoordinates(secondRoundLevelDTO.getAnimalCoordinates())
                 .build();
     }
+
+    /**
+     * Сохраняет картинку уровня в хранилище и проставляет уровню её хэш и размер
+     * @param secondRoundLevel проверенный уровень
+     * @param levelImage загруженная картинка уровня
+     */
+    public void storeImage(SecondRoundLevel secondRoundLevel, MultipartFile levelImage) throws IOException {
+        StoredImage storedImage;
+        try (InputStream imageStream = levelImage.getInputStream()) {
+            storedImage = imageStorage.store(imageStream);
+        }
+        secondRoundLevel.setImageHash(storedImage.hash());
+        secondRoundLevel.setImageSize(storedImage.size());
+    }
+
+    /**
+     * Возвращает ссылку на картинку уровня
+     * @param secondRoundLevel уровень
+     */
+    private String getImageUrl(SecondRoundLevel secondRoundLevel) {
+        return linkTo(methodOn(SecondRoundLevelController.class).getLevelImage(secondRoundLevel.getId(), null, null)).toUri().toString();
+    }
+
+    /**
+     * Возвращает BlurHash картинки уровня или null, если он ещё не вычислен или картинку не удалось разобрать
+     *
+     * @param secondRoundLevel уровень
+     */
+    private String getImagePlaceholder(SecondRoundLevel secondRoundLevel) {
+        String blurHash = secondRoundLevel.getImageBlurHash();
+        return blurHash == null || blurHash.isEmpty() ? null : blurHash;
+    }
+
+    /**
+     * Возвращает уменьшенные копии картинки уровня со ссылками и координатами животного на каждой
+     * @param secondRoundLevel уровень
+     */
+    private List<ImageVariantDTO> getImageVariants(SecondRoundLevel secondRoundLevel) {
+        List<ImageVariantDTO> imageVariants = new ArrayList<>();
+        for (ImageVariantSize size : imageVariantService.getVariantSizes(secondRoundLevel.getImageWidth(), secondRoundLevel.getImageHeight())) {
+            String imageUrl = linkTo(methodOn(SecondRoundLevelController.class).getLevelImage(secondRoundLevel.getId(), size.width(), null)).toUri().toString();
+            Coordinates animalCoordinates = secondRoundLevel.getAnimalCoordinates() != null ? size.scale(secondRoundLevel.getAnimalCoordinates()) : null;
+            imageVariants.add(new ImageVariantDTO(size.width(), size.height(), imageUrl, animalCoordinates));
+        }
+        return imageVariants;
+    }
+
+    /**
+     * Возвращает пирамиду тайлов картинки уровня или null, если её нет
+     * @param secondRoundLevel уровень
+     */
+    private ImageTilesDTO getImageTiles(SecondRoundLevel secondRoundLevel) {
+        Integer tileZoom = secondRoundLevel.getImageTileZoom();
+        if (tileZoom == null || tileZoom < 0) {
+            return null;
+        }
+
+        String tileUrl = linkTo(SecondRoundLevelController.class).slash(secondRoundLevel.getId()).slash("tiles").toUri() + "/{z}/{x}/{y}";
+        return new ImageTilesDTO(ImageTileService.TILE_SIZE, tileZoom, secondRoundLevel.getImageWidth(), secondRoundLevel.getImageHeight(), tileUrl);
+    }
+
+    private SecondRoundLevelDTO toModel(SecondRoundLevel secondRoundLevel, Map<Long, String> animalNames, String language) {
+        SecondRoundLevelDTO secondRoundLevelDTO = instantiateModel(secondRoundLevel);
+
+        secondRoundLevelDTO.setId(secondRoundLevel.getId());
+        if (!secondRoundLevel.getAnimals().isEmpty()) {
+            secondRoundLevelDTO.setAnimalNames(secondRoundLevel.getAnimals()
+                    .stream()
+                    .map(animal -> animalNames.get(animal.getId()))
+                    .collect(Collectors.toSet()));
+        }
+        secondRoundLevelDTO.setCorrectAnimalName(animalNames.get(secondRoundLevel.getCorrectAnimal().getId()));
+        secondRoundLevelDTO.setAnimalNameInQuestion(animalNames.get(secondRoundLevel.getAnimalInQuestion().getId()));
+        secondRoundLevelDTO.setImageUrl(getImageUrl(secondRoundLevel));
+        secondRoundLevelDTO.setImageVariants(getImageVariants(secondRoundLevel));
+        secondRoundLevelDTO.setImageTiles(getImageTiles(secondRoundLevel));
+        secondRoundLevelDTO.setImagePlaceholder(getImagePlaceholder(secondRoundLevel));
+        secondRoundLevelDTO.setImageColor(secondRoundLevel.getImageColor());
+        secondRoundLevelDTO.setAnimalCoordinates(secondRoundLevel.getAnimalCoordinates());
+
+        secondRoundLevelDTO.add(linkTo(methodOn(SecondRoundLevelController.class).getLevelById(secondRoundLevel.getId(), language)).withSelfRel());
+        secondRoundLevelDTO.add(linkTo(methodOn(SecondRoundLevelController.class).getRandomLevel(language)).withSelfRel());
+
+        return secondRoundLevelDTO;
+    }
+
+    private static void collectAnimalIds(SecondRoundLevel secondRoundLevel, Set<Long> animalIds) {
+        for (Animal animal : secondRoundLevel.getAnimals()) {
+            animalIds.add(animal.getId());
+        }
+        animalIds.add(secondRoundLevel.getCorrectAnimal().getId());
+        animalIds.add(secondRoundLevel.getAnimalInQuestion().getId());
+    }
 }
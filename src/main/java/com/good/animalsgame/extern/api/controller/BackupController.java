@@ -0,0 +1,99 @@
+package com.good.animalsgame.extern.api.controller;
+
+import com.good.animalsgame.app.backup.CatalogExportService;
+import com.good.animalsgame.app.backup.CatalogImportReport;
+import com.good.animalsgame.app.backup.CatalogImportService;
+import com.good.animalsgame.exception.IncorrectArchiveException;
+import com.good.animalsgame.extern.api.dto.ErrorDTO;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+@RestController
+@RequestMapping("/admin")
+@Tag(name = "BackupController", description = "Контроллер для выгрузки и восстановления каталога игры")
+public class BackupController {
+
+    /**
+     * MIME-тип выгрузки каталога, по записи JSON на строку
+     */
+    public static final String NDJSON_VALUE = "application/x-ndjson";
+
+    /**
+     * MIME-тип архива картинок
+     */
+    public static final String TAR_VALUE = "application/x-tar";
+
+    private final CatalogExportService catalogExportService;
+    private final CatalogImportService catalogImportService;
+
+    public BackupController(CatalogExportService catalogExportService, CatalogImportService catalogImportService) {
+        this.catalogExportService = catalogExportService;
+        this.catalogImportService = catalogImportService;
+    }
+
+    @Operation(summary = "Выгрузить каталог игры",
+            description = "Потоком отдает животных, тексты интерфейса и уровни всех раундов в формате NDJSON. Картинки уровней указываются хэшем")
+    @ApiResponse(responseCode = "200", description = "Выгрузка каталога")
+    @GetMapping(value = "/export", produces = NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportCatalog() {
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"catalog.ndjson\"")
+                .body(catalogExportService::exportCatalog);
+    }
+
+    @Operation(summary = "Выгрузить картинки уровней", description = "Потоком отдает картинки всех уровней архивом tar, имя файла - хэш картинки")
+    @ApiResponse(responseCode = "200", description = "Архив картинок")
+    @GetMapping(value = "/export/images", produces = TAR_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportImages() {
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"images.tar\"")
+                .body(catalogExportService::exportImages);
+    }
+
+    @Operation(summary = "Восстановить каталог игры",
+            description = "Восстанавливает каталог из выгрузки NDJSON. Уже существующие записи пропускаются, поэтому выгрузку можно загружать повторно")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Выгрузка обработана, в ответе количество созданных, пропущенных и ошибочных записей"),
+            @ApiResponse(responseCode = "400", description = "Строку выгрузки не удалось разобрать")
+    })
+    @PostMapping(value = "/import", consumes = NDJSON_VALUE)
+    public ResponseEntity<Object> importCatalog(HttpServletRequest request) {
+        try (InputStream inputStream = request.getInputStream()) {
+            CatalogImportReport report = catalogImportService.importCatalog(inputStream);
+            return ResponseEntity.ok(report);
+        } catch (IncorrectArchiveException e) {
+            return new ResponseEntity<>(new ErrorDTO(e.getMessage()), HttpStatus.BAD_REQUEST);
+        } catch (IOException e) {
+            return new ResponseEntity<>(new ErrorDTO(e.getMessage()), HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    @Operation(summary = "Восстановить картинки уровней",
+            description = "Сохраняет в хранилище картинки из архива tar. Картинки, которые уже есть в хранилище, пропускаются")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Архив обработан"),
+            @ApiResponse(responseCode = "500", description = "Архив поврежден или ошибка хранилища")
+    })
+    @PostMapping(value = "/import/images", consumes = TAR_VALUE)
+    public ResponseEntity<Object> importImages(HttpServletRequest request) {
+        try (InputStream inputStream = request.getInputStream()) {
+            return ResponseEntity.ok(catalogImportService.importImages(inputStream));
+        } catch (IOException e) {
+            return new ResponseEntity<>(new ErrorDTO(e.getMessage()), HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+}
@@ -1,8 +1,15 @@
 package com.good.animalsgame.extern.api.controller;
 
 import com.good.animalsgame.app.service.FirstRoundLevelService;
+import com.good.animalsgame.app.storage.ImageSelection;
+import com.good.animalsgame.app.storage.ImageTileService;
+import com.good.animalsgame.app.storage.ImageVariantService;
+import com.good.animalsgame.app.storage.RevealImageService;
+import com.good.animalsgame.app.storage.RevealKey;
+import com.good.animalsgame.app.storage.RevealStyle;
 import com.good.animalsgame.domain.Animal;
 import com.good.animalsgame.domain.FirstRoundLevel;
+import com.good.animalsgame.domain.LevelImage;
 import com.good.animalsgame.exception.*;
 import com.good.animalsgame.extern.api.assembler.AnimalAssembler;
 import com.good.animalsgame.extern.api.assembler.level.FirstRoundLevelAssembler;
@@ -10,21 +17,25 @@ import com.good.animalsgame.extern.api.dto.AnimalDTO;
 import com.good.animalsgame.extern.api.dto.ErrorDTO;
 import com.good.animalsgame.extern.api.dto.level.FirstRoundLevelDTO;
 import com.good.animalsgame.extern.api.dto.StringUserAnswerDTO;
+import com.good.animalsgame.extern.infrastructure.storage.ImageResponseFactory;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
+import org.springframework.core.io.Resource;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 @RestController
@@ -35,15 +46,27 @@ public class FirstRoundLevelController {
     private final FirstRoundLevelAssembler firstRoundLevelAssembler;
     private final FirstRoundLevelService firstRoundLevelService;
     private final AnimalAssembler animalAssembler;
+    private final ImageResponseFactory imageResponseFactory;
+    private final ImageVariantService imageVariantService;
+    private final RevealImageService revealImageService;
+    private final ImageTileService imageTileService;
 
     private static final int FIRST_ROUND_NUMBER = 1;
 
     public FirstRoundLevelController(FirstRoundLevelAssembler firstRoundLevelAssembler,
                                      FirstRoundLevelService firstRoundLevelService,
-                                     AnimalAssembler animalAssembler) {
+                                     AnimalAssembler animalAssembler,
+                                     ImageResponseFactory imageResponseFactory,
+                                     ImageVariantService imageVariantService,
+                                     RevealImageService revealImageService,
+                                     ImageTileService imageTileService) {
         this.firstRoundLevelAssembler = firstRoundLevelAssembler;
         this.firstRoundLevelService = firstRoundLevelService;
         this.animalAssembler = animalAssembler;
+        this.imageResponseFactory = imageResponseFactory;
+        this.imageVariantService = imageVariantService;
+        this.revealImageService = revealImageService;
+        this.imageTileService = imageTileService;
     }
 
     @Operation(summary = "Создать уровень 1 раунда", description = "Создает уровень 1 раунда")
@@ -59,6 +82,8 @@ public class FirstRoundLevelController {
         try {
             firstRoundLevelDTO.setLevelImage(levelImage);
             FirstRoundLevel firstRoundLevel = firstRoundLevelAssembler.toEntity(firstRoundLevelDTO);
+            firstRoundLevelService.validateLevel(firstRoundLevel);
+            firstRoundLevelAssembler.storeImage(firstRoundLevel, levelImage);
             firstRoundLevelService.createLevel(firstRoundLevel);
 
             return new ResponseEntity<>(firstRoundLevelAssembler.toModel(firstRoundLevel), HttpStatus.CREATED);
@@ -76,7 +101,6 @@ public class FirstRoundLevelController {
             @ApiResponse(responseCode = "200", description = "Уровень успешно найден"),
             @ApiResponse(responseCode = "404", description = "Уровень не найден или ошибка поиска языка")
     })
-    @Transactional
     @GetMapping("/{id}")
     public ResponseEntity<Object> getLevelById(@PathVariable long id, @RequestParam String language) {
         try {
@@ -87,6 +111,81 @@ public class FirstRoundLevelController {
         }
     }
 
+    @Operation(summary = "Получить картинку уровня 1 раунда", description = "Возвращает байты картинки уровня 1 раунда с кэшированием по ETag. " +
+            "Параметр width выбирает подходящий по ширине вариант картинки; пока вариант готовится, отдаётся оригинал")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Картинка успешно найдена"),
+            @ApiResponse(responseCode = "304", description = "Картинка не изменилась"),
+            @ApiResponse(responseCode = "404", description = "Уровень не найден")
+    })
+    @Transactional
+    @GetMapping("/{id}/image")
+    public ResponseEntity<Resource> getLevelImage(@PathVariable long id,
+                                                  @RequestParam(required = false) Integer width,
+                                                  ServletWebRequest webRequest) {
+        try {
+            LevelImage levelImage = firstRoundLevelService.getLevelImage(id);
+            ImageSelection image = imageVariantService.selectImage(levelImage, width);
+            return imageResponseFactory.createResponse(image.hash(), image.contentType(), image.pending(), webRequest);
+        } catch (EntityNotFoundException e) {
+            return ResponseEntity.notFound().build();
+        } catch (IOException e) {
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    @Operation(summary = "Получить картинку ответа уровня 1 раунда", description = "Возвращает картинку уровня 1 раунда в JPEG " +
+            "с выделенной областью животного: style=HIGHLIGHT - вся картинка с обводкой, CROP - только область животного. " +
+            "Параметр width выбирает ширину так же, как у картинки уровня. Картинка отрисовывается один раз и дальше отдаётся из кэша")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Картинка успешно получена"),
+            @ApiResponse(responseCode = "304", description = "Картинка не изменилась"),
+            @ApiResponse(responseCode = "404", description = "Уровень не найден или его картинку нельзя отрисовать")
+    })
+    @GetMapping("/{id}/reveal")
+    public ResponseEntity<Resource> getRevealImage(@PathVariable long id,
+                                                   @RequestParam(defaultValue = "HIGHLIGHT") RevealStyle style,
+                                                   @RequestParam(required = false) Integer width,
+                                                   ServletWebRequest webRequest) {
+        try {
+            FirstRoundLevel level = firstRoundLevelService.getLevelById(id);
+            RevealKey revealKey = revealImageService.getRevealKey(level, style, width);
+            if (webRequest.checkNotModified(revealKey.key())) {
+                return null;
+            }
+            return imageResponseFactory.createResponse(revealImageService.getRevealImage(level, revealKey), revealKey.key());
+        } catch (EntityNotFoundException e) {
+            return ResponseEntity.notFound().build();
+        } catch (IOException e) {
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    @Operation(summary = "Получить тайл картинки уровня 1 раунда", description = "Возвращает JPEG-тайл 256x256 из пирамиды большой картинки уровня 1 раунда. " +
+            "На уровне zoom картинка уменьшена в 2^(maxZoom - zoom) раз, x и y - номер тайла слева и сверху. " +
+            "Пирамида есть только у больших картинок, её параметры - в поле imageTiles уровня")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Тайл успешно найден"),
+            @ApiResponse(responseCode = "304", description = "Тайл не изменился"),
+            @ApiResponse(responseCode = "404", description = "Уровень или тайл не найден")
+    })
+    @GetMapping("/{id}/tiles/{zoom}/{x}/{y}")
+    public ResponseEntity<Resource> getLevelTile(@PathVariable long id,
+                                                 @PathVariable int zoom,
+                                                 @PathVariable int x,
+                                                 @PathVariable int y,
+                                                 ServletWebRequest webRequest) {
+        try {
+            LevelImage levelImage = firstRoundLevelService.getLevelImage(id);
+            String tileHash = imageTileService.getTileHash(levelImage.hash(), zoom, x, y);
+            return imageResponseFactory.createResponse(tileHash, MediaType.IMAGE_JPEG_VALUE, webRequest);
+        } catch (EntityNotFoundException e) {
+            return ResponseEntity.notFound().build();
+        } catch (IOException e) {
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
     @Operation(summary = "Удалить уровень 1 раунда по ID", description = "Удаляет по идентификатору уровень 1 раунда")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Уровень успешно удалён"),
@@ -106,6 +205,7 @@ public class FirstRoundLevelController {
     @Operation(summary = "Получить рандомный уровень 1 раунда", description = "Возвращает рандомный уровень 1 раунда")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Уровень успешно найден"),
+            @ApiResponse(responseCode = "400", description = "Некорректный идентификатор игрока"),
             @ApiResponse(responseCode = "404", description = "Внутренняя ошибка поиска уровня или отсутствует язык у уровня или в целом"),
             @ApiResponse(responseCode = "204", description = "Все уровни были показаны - больше нечего возвращать")
     })
@@ -114,6 +214,30 @@ public class FirstRoundLevelController {
         try {
             FirstRoundLevel firstRoundLevel = firstRoundLevelService.getRandomLevel(FIRST_ROUND_NUMBER);
             return ResponseEntity.ok(firstRoundLevelAssembler.toModel(firstRoundLevel, language));
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(new ErrorDTO(e.getMessage()), HttpStatus.BAD_REQUEST);
+        } catch (EntityNotFoundException | NoSuchRoundException | LanguageException e) {
+            return new ResponseEntity<>(new ErrorDTO(e.getMessage()), HttpStatus.NOT_FOUND);
+        } catch (NoLevelsLeftException e) {
+            return ResponseEntity.noContent().build();
+        }
+    }
+
+    @Operation(summary = "Выдать несколько рандомных уровней 1 раунда",
+            description = "Возвращает до count ещё не показанных уровней 1 раунда за один запрос")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Уровни успешно найдены"),
+            @ApiResponse(responseCode = "400", description = "Некорректное количество уровней или идентификатор игрока"),
+            @ApiResponse(responseCode = "404", description = "Внутренняя ошибка поиска уровня или отсутствует язык у уровня или в целом"),
+            @ApiResponse(responseCode = "204", description = "Все уровни были показаны - больше нечего возвращать")
+    })
+    @GetMapping("/deal")
+    public ResponseEntity<Object> dealLevels(@RequestParam int count, @RequestParam String language) {
+        try {
+            List<FirstRoundLevel> firstRoundLevels = firstRoundLevelService.dealLevels(FIRST_ROUND_NUMBER, count);
+            return ResponseEntity.ok(firstRoundLevelAssembler.toModels(firstRoundLevels, language));
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(new ErrorDTO(e.getMessage()), HttpStatus.BAD_REQUEST);
         } catch (EntityNotFoundException | NoSuchRoundException | LanguageException e) {
             return new ResponseEntity<>(new ErrorDTO(e.getMessage()), HttpStatus.NOT_FOUND);
         } catch (NoLevelsLeftException e) {
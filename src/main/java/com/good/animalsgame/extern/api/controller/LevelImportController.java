@@ -0,0 +1,71 @@
+package com.good.animalsgame.extern.api.controller;
+
+import com.good.animalsgame.app.importing.LevelImportReport;
+import com.good.animalsgame.app.importing.LevelImportService;
+import com.good.animalsgame.exception.IncorrectArchiveException;
+import com.good.animalsgame.extern.api.dto.ErrorDTO;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestPart;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+@RestController
+@RequestMapping("/levels")
+@Tag(name = "LevelImportController", description = "Контроллер для импорта уровней из архива")
+public class LevelImportController {
+
+    private final LevelImportService levelImportService;
+
+    public LevelImportController(LevelImportService levelImportService) {
+        this.levelImportService = levelImportService;
+    }
+
+    @Operation(summary = "Импортировать уровни из архива",
+            description = "Создает уровни 1 и 2 раунда из ZIP-архива с картинками и манифестом manifest.json или manifest.csv. " +
+                    "Записи с ошибками пропускаются и перечисляются в ответе")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Архив импортирован, в ответе количество созданных и пропущенных уровней"),
+            @ApiResponse(responseCode = "400", description = "Файл не ZIP-архив, в нём нет манифеста или манифест некорректен")
+    })
+    @PostMapping(value = "/import", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<Object> importLevels(@RequestPart("archive") MultipartFile archive) {
+        Path archiveFile = null;
+        try {
+            archiveFile = Files.createTempFile("levels-import", ".zip");
+            archive.transferTo(archiveFile);
+
+            LevelImportReport report = levelImportService.importArchive(archiveFile);
+            return ResponseEntity.ok(report);
+        } catch (IncorrectArchiveException e) {
+            return new ResponseEntity<>(new ErrorDTO(e.getMessage()), HttpStatus.BAD_REQUEST);
+        } catch (IOException e) {
+            return new ResponseEntity<>(new ErrorDTO(e.getMessage()), HttpStatus.INTERNAL_SERVER_ERROR);
+        } finally {
+            deleteQuietly(archiveFile);
+        }
+    }
+
+    private static void deleteQuietly(Path file) {
+        if (file == null) {
+            return;
+        }
+
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException ignored) {
+            // временный файл удалится вместе с временным каталогом
+        }
+    }
+}
@@ -1,28 +1,39 @@
 package com.good.animalsgame.extern.api.controller;
 
 import com.good.animalsgame.app.service.SecondRoundLevelService;
+import com.good.animalsgame.app.storage.ImageSelection;
+import com.good.animalsgame.app.storage.ImageTileService;
+import com.good.animalsgame.app.storage.ImageVariantService;
+import com.good.animalsgame.app.storage.RevealImageService;
+import com.good.animalsgame.app.storage.RevealKey;
+import com.good.animalsgame.app.storage.RevealStyle;
 import com.good.animalsgame.domain.Animal;
 import com.good.animalsgame.domain.SecondRoundLevel;
+import com.good.animalsgame.domain.LevelImage;
 import com.good.animalsgame.exception.*;
 import com.good.animalsgame.extern.api.assembler.AnimalAssembler;
 import com.good.animalsgame.extern.api.assembler.level.SecondRoundLevelAssembler;
 import com.good.animalsgame.extern.api.dto.*;
 import com.good.animalsgame.extern.api.dto.level.SecondRoundLevelDTO;
+import com.good.animalsgame.extern.infrastructure.storage.ImageResponseFactory;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
+import org.springframework.core.io.Resource;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 @RestController
@@ -33,15 +44,27 @@ public class SecondRoundLevelController {
     private final SecondRoundLevelAssembler secondRoundLevelAssembler;
     private final SecondRoundLevelService secondRoundLevelService;
     private final AnimalAssembler animalAssembler;
+    private final ImageResponseFactory imageResponseFactory;
+    private final ImageVariantService imageVariantService;
+    private final RevealImageService revealImageService;
+    private final ImageTileService imageTileService;
 
     private static final int SECOND_ROUND_NUMBER = 2;
 
     public SecondRoundLevelController(SecondRoundLevelAssembler secondRoundLevelAssembler,
                                       SecondRoundLevelService secondRoundLevelService,
-                                      AnimalAssembler animalAssembler) {
+                                      AnimalAssembler animalAssembler,
+                                      ImageResponseFactory imageResponseFactory,
+                                      ImageVariantService imageVariantService,
+                                      RevealImageService revealImageService,
+                                      ImageTileService imageTileService) {
         this.secondRoundLevelAssembler = secondRoundLevelAssembler;
         this.secondRoundLevelService = secondRoundLevelService;
         this.animalAssembler = animalAssembler;
+        this.imageResponseFactory = imageResponseFactory;
+        this.imageVariantService = imageVariantService;
+        this.revealImageService = revealImageService;
+        this.imageTileService = imageTileService;
     }
 
     @Operation(summary = "Создать уровень 2 раунда", description = "Создает уровень 2 раунда")
@@ -57,6 +80,8 @@ public class SecondRoundLevelController {
         try {
             secondRoundLevelDTO.setLevelImage(levelImage);
             SecondRoundLevel secondRoundLevel = secondRoundLevelAssembler.toEntity(secondRoundLevelDTO);
+            secondRoundLevelService.validateLevel(secondRoundLevel);
+            secondRoundLevelAssembler.storeImage(secondRoundLevel, levelImage);
             secondRoundLevelService.createLevel(secondRoundLevel);
 
             return new ResponseEntity<>(secondRoundLevelAssembler.toModel(secondRoundLevel), HttpStatus.CREATED);
@@ -74,7 +99,6 @@ public class SecondRoundLevelController {
             @ApiResponse(responseCode = "200", description = "Уровень успешно найден"),
             @ApiResponse(responseCode = "404", description = "Уровень не найден или ошибка поиска языка")
     })
-    @Transactional
     @GetMapping("/{id}")
     public ResponseEntity<Object> getLevelById(@PathVariable long id, @RequestParam String language) {
         try {
@@ -85,6 +109,81 @@ public class SecondRoundLevelController {
         }
     }
 
+    @Operation(summary = "Получить картинку уровня 2 раунда", description = "Возвращает байты картинки уровня 2 раунда с кэшированием по ETag. " +
+            "Параметр width выбирает подходящий по ширине вариант картинки; пока вариант готовится, отдаётся оригинал")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Картинка успешно найдена"),
+            @ApiResponse(responseCode = "304", description = "Картинка не изменилась"),
+            @ApiResponse(responseCode = "404", description = "Уровень не найден")
+    })
+    @Transactional
+    @GetMapping("/{id}/image")
+    public ResponseEntity<Resource> getLevelImage(@PathVariable long id,
+                                                  @RequestParam(required = false) Integer width,
+                                                  ServletWebRequest webRequest) {
+        try {
+            LevelImage levelImage = secondRoundLevelService.getLevelImage(id);
+            ImageSelection image = imageVariantService.selectImage(levelImage, width);
+            return imageResponseFactory.createResponse(image.hash(), image.contentType(), image.pending(), webRequest);
+        } catch (EntityNotFoundException e) {
+            return ResponseEntity.notFound().build();
+        } catch (IOException e) {
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    @Operation(summary = "Получить картинку ответа уровня 2 раунда", description = "Возвращает картинку уровня 2 раунда в JPEG " +
+            "с выделенной областью животного: style=HIGHLIGHT - вся картинка с обводкой, CROP - только область животного. " +
+            "Параметр width выбирает ширину так же, как у картинки уровня. Картинка отрисовывается один раз и дальше отдаётся из кэша")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Картинка успешно получена"),
+            @ApiResponse(responseCode = "304", description = "Картинка не изменилась"),
+            @ApiResponse(responseCode = "404", description = "Уровень не найден или его картинку нельзя отрисовать")
+    })
+    @GetMapping("/{id}/reveal")
+    public ResponseEntity<Resource> getRevealImage(@PathVariable long id,
+                                                   @RequestParam(defaultValue = "HIGHLIGHT") RevealStyle style,
+                                                   @RequestParam(required = false) Integer width,
+                                                   ServletWebRequest webRequest) {
+        try {
+            SecondRoundLevel level = secondRoundLevelService.getLevelById(id);
+            RevealKey revealKey = revealImageService.getRevealKey(level, style, width);
+            if (webRequest.checkNotModified(revealKey.key())) {
+                return null;
+            }
+            return imageResponseFactory.createResponse(revealImageService.getRevealImage(level, revealKey), revealKey.key());
+        } catch (EntityNotFoundException e) {
+            return ResponseEntity.notFound().build();
+        } catch (IOException e) {
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    @Operation(summary = "Получить тайл картинки уровня 2 раунда", description = "Возвращает JPEG-тайл 256x256 из пирамиды большой картинки уровня 2 раунда. " +
+            "На уровне zoom картинка уменьшена в 2^(maxZoom - zoom) раз, x и y - номер тайла слева и сверху. " +
+            "Пирамида есть только у больших картинок, её параметры - в поле imageTiles уровня")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Тайл успешно найден"),
+            @ApiResponse(responseCode = "304", description = "Тайл не изменился"),
+            @ApiResponse(responseCode = "404", description = "Уровень или тайл не найден")
+    })
+    @GetMapping("/{id}/tiles/{zoom}/{x}/{y}")
+    public ResponseEntity<Resource> getLevelTile(@PathVariable long id,
+                                                 @PathVariable int zoom,
+                                                 @PathVariable int x,
+                                                 @PathVariable int y,
+                                                 ServletWebRequest webRequest) {
+        try {
+            LevelImage levelImage = secondRoundLevelService.getLevelImage(id);
+            String tileHash = imageTileService.getTileHash(levelImage.hash(), zoom, x, y);
+            return imageResponseFactory.createResponse(tileHash, MediaType.IMAGE_JPEG_VALUE, webRequest);
+        } catch (EntityNotFoundException e) {
+            return ResponseEntity.notFound().build();
+        } catch (IOException e) {
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
     @Operation(summary = "Удалить уровень 2 раунда по ID", description = "Удаляет по идентификатору уровень 2 раунда")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Уровень успешно удалён"),
@@ -104,15 +203,39 @@ public class SecondRoundLevelController {
     @Operation(summary = "Получить рандомный уровень 2 раунда", description = "Возвращает рандомный уровень 2 раунда")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Уровень успешно найден"),
+            @ApiResponse(responseCode = "400", description = "Некорректный идентификатор игрока"),
             @ApiResponse(responseCode = "404", description = "Внутренняя ошибка поиска уровня или отсутствует язык у уровня или в целом"),
             @ApiResponse(responseCode = "204", description = "Все уровни были показаны - больше нечего возвращать")
     })
-    @Transactional
     @GetMapping("/random-level")
     public ResponseEntity<Object> getRandomLevel(@RequestParam String language) {
         try {
             SecondRoundLevel secondRoundLevel = secondRoundLevelService.getRandomLevel(SECOND_ROUND_NUMBER);
             return ResponseEntity.ok(secondRoundLevelAssembler.toModel(secondRoundLevel, language));
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(new ErrorDTO(e.getMessage()), HttpStatus.BAD_REQUEST);
+        } catch (EntityNotFoundException | NoSuchRoundException | LanguageException e) {
+            return new ResponseEntity<>(new ErrorDTO(e.getMessage()), HttpStatus.NOT_FOUND);
+        } catch (NoLevelsLeftException e) {
+            return ResponseEntity.noContent().build();
+        }
+    }
+
+    @Operation(summary = "Выдать несколько рандомных уровней 2 раунда",
+            description = "Возвращает до count ещё не показанных уровней 2 раунда за один запрос")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Уровни успешно найдены"),
+            @ApiResponse(responseCode = "400", description = "Некорректное количество уровней или идентификатор игрока"),
+            @ApiResponse(responseCode = "404", description = "Внутренняя ошибка поиска уровня или отсутствует язык у уровня или в целом"),
+            @ApiResponse(responseCode = "204", description = "Все уровни были показаны - больше нечего возвращать")
+    })
+    @GetMapping("/deal")
+    public ResponseEntity<Object> dealLevels(@RequestParam int count, @RequestParam String language) {
+        try {
+            List<SecondRoundLevel> secondRoundLevels = secondRoundLevelService.dealLevels(SECOND_ROUND_NUMBER, count);
+            return ResponseEntity.ok(secondRoundLevelAssembler.toModels(secondRoundLevels, language));
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(new ErrorDTO(e.getMessage()), HttpStatus.BAD_REQUEST);
         } catch (EntityNotFoundException | NoSuchRoundException | LanguageException e) {
             return new ResponseEntity<>(new ErrorDTO(e.getMessage()), HttpStatus.NOT_FOUND);
         } catch (NoLevelsLeftException e) {
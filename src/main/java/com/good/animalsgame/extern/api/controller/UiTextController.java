@@ -1,5 +1,6 @@
 package com.good.animalsgame.extern.api.controller;
 
+import com.good.animalsgame.app.cache.UiTextBundle;
 import com.good.animalsgame.app.service.UiTextService;
 import com.good.animalsgame.domain.UiText;
 import com.good.animalsgame.exception.EntityDuplicateException;
@@ -14,10 +15,14 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
 
 import java.util.List;
 
@@ -114,6 +119,36 @@ public class UiTextController {
         return ResponseEntity.ok(uiTextDtos);
     }
 
+    @Operation(summary = "Получить набор UI-текстов на языке",
+            description = "Возвращает все UI-тексты на языке в виде название -> текст. Поддерживает If-None-Match и gzip")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Набор UI-текстов успешно получен"),
+            @ApiResponse(responseCode = "304", description = "Набор не изменился с прошлого запроса"),
+            @ApiResponse(responseCode = "404", description = "Язык не найден")
+    })
+    @GetMapping("/bundle/{language}")
+    public ResponseEntity<Object> getUiTextBundle(@PathVariable String language, ServletWebRequest webRequest) {
+        try {
+            UiTextBundle bundle = uiTextService.getUiTextBundle(language);
+            if (webRequest.checkNotModified(bundle.eTag())) {
+                return null;
+            }
+
+            ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .eTag(bundle.eTag())
+                    .cacheControl(CacheControl.noCache())
+                    .varyBy(HttpHeaders.ACCEPT_ENCODING);
+
+            if (acceptsGzip(webRequest.getHeader(HttpHeaders.ACCEPT_ENCODING))) {
+                return response.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(bundle.gzippedJson());
+            }
+            return response.body(bundle.json());
+        } catch (LanguageException e) {
+            return new ResponseEntity<>(new ErrorDTO(e.getMessage()), HttpStatus.NOT_FOUND);
+        }
+    }
+
     @Operation(summary = "Добавить язык к UI-тексту", description = "Добавляет язык к UI-тексту")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Язык успешно добавлен"),
@@ -152,4 +187,23 @@ public class UiTextController {
             return ResponseEntity.status(HttpStatus.CONFLICT).body(new ErrorDTO(e.getMessage()));
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Проверяет, принимает ли клиент ответ, сжатый gzip
+     *
+     * @param acceptEncoding значение заголовка Accept-Encoding
+     */
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.split(";");
+            if (parts[0].strip().equalsIgnoreCase("gzip")) {
+                return parts.length == 1 || !parts[1].strip().matches("q=0(\\.0*)?");
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,27 @@
+package com.good.animalsgame.extern.api.dto.level;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+@Schema(description = "DTO пирамиды тайлов большого изображения уровня. На уровне zoom изображение уменьшено в 2^(maxZoom - zoom) раз, " +
+        "координаты животного уровня даны для maxZoom")
+public class ImageTilesDTO {
+
+    @Schema(description = "Сторона тайла в пикселях, крайние тайлы справа и снизу могут быть меньше", example = "256")
+    private int tileSize;
+
+    @Schema(description = "Наибольший уровень пирамиды - исходное разрешение, на уровне 0 изображение помещается в один тайл", example = "5")
+    private int maxZoom;
+
+    @Schema(description = "Ширина изображения в исходном разрешении")
+    private int width;
+
+    @Schema(description = "Высота изображения в исходном разрешении")
+    private int height;
+
+    @Schema(description = "Шаблон ссылки на тайл", example = "http://localhost:8080/first-round/1/tiles/{z}/{x}/{y}")
+    private String tileUrl;
+}
@@ -0,0 +1,24 @@
+package com.good.animalsgame.extern.api.dto.level;
+
+import com.good.animalsgame.domain.Coordinates;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+@Schema(description = "DTO уменьшенной копии изображения уровня")
+public class ImageVariantDTO {
+
+    @Schema(description = "Ширина копии в пикселях")
+    private int width;
+
+    @Schema(description = "Высота копии в пикселях")
+    private int height;
+
+    @Schema(description = "Ссылка на копию изображения")
+    private String imageUrl;
+
+    @Schema(description = "Координаты и размер области животного на копии")
+    private Coordinates animalCoordinates;
+}
@@ -1,15 +1,15 @@
 package com.good.animalsgame.extern.api.dto.level;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
-import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import com.good.animalsgame.domain.Coordinates;
-import com.good.animalsgame.extern.api.assembler.MultipartFileSerializer;
 import io.swagger.v3.oas.annotations.media.Schema;
 import jakarta.validation.constraints.NotNull;
 import lombok.Data;
 import org.springframework.hateoas.RepresentationModel;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.util.List;
 import java.util.Set;
 
 @Data
@@ -32,8 +32,24 @@ public class SecondRoundLevelDTO extends RepresentationModel<SecondRoundLevelDTO
     @Schema(description = "Название животного, о котором задан вопрос", example = "Тигр")
     private String animalNameInQuestion;
 
-    @Schema(description = "Изображение уровня")
-    @JsonSerialize(using = MultipartFileSerializer.class)
+    @Schema(description = "Ссылка на изображение уровня", accessMode = Schema.AccessMode.READ_ONLY)
+    private String imageUrl;
+
+    @Schema(description = "Уменьшенные копии изображения по ширине, с координатами животного на каждой", accessMode = Schema.AccessMode.READ_ONLY)
+    private List<ImageVariantDTO> imageVariants;
+
+    @Schema(description = "Пирамида тайлов для приближения большого изображения, null - изображение небольшое или тайлы ещё не построены",
+            accessMode = Schema.AccessMode.READ_ONLY)
+    private ImageTilesDTO imageTiles;
+
+    @Schema(description = "BlurHash изображения - размытая заглушка до загрузки изображения, null - ещё не вычислена",
+            example = "LEHV6nWB2yk8pyo0adR*.7kCMdnj", accessMode = Schema.AccessMode.READ_ONLY)
+    private String imagePlaceholder;
+
+    @Schema(description = "Основной цвет изображения, null - ещё не вычислен", example = "#8a6e4b", accessMode = Schema.AccessMode.READ_ONLY)
+    private String imageColor;
+
+    @JsonIgnore
     private MultipartFile levelImage;
 
     @NotNull
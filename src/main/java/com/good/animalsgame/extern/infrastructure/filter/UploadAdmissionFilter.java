@@ -0,0 +1,111 @@
+package com.good.animalsgame.extern.infrastructure.filter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.good.animalsgame.extern.api.dto.ErrorDTO;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Ограничение одновременных загрузок файлов (multipart-запросов).
+ * Загрузка допускается, только если свободно место среди одновременных загрузок и в общем объёме
+ * загружаемых байт, иначе сразу отвечает 503 с заголовком Retry-After, не читая тело запроса.
+ * Объём загрузки берётся из Content-Length, загрузка без него считается максимально допустимой.
+ * Фильтр срабатывает до разбора multipart, поэтому отклонённый запрос не попадает на диск
+ */
+@Component
+public class UploadAdmissionFilter extends OncePerRequestFilter {
+
+    /**
+     * Единица учёта объёма - килобайт, чтобы общий объём помещался в количество разрешений семафора
+     */
+    private static final long UNIT = 1024;
+
+    /**
+     * Разрешения на одновременные загрузки
+     */
+    private final Semaphore uploads;
+
+    /**
+     * Разрешения на объём загрузок в килобайтах
+     */
+    private final Semaphore bytes;
+
+    private final int maxUploadUnits;
+    private final long maxRequestSize;
+    private final String retryAfterSeconds;
+    private final ObjectMapper objectMapper;
+    private final Logger log = LoggerFactory.getLogger(this.getClass());
+
+    public UploadAdmissionFilter(@Value("${uploads.admission.max-concurrent}") int maxConcurrent,
+                                 @Value("${uploads.admission.max-total-size}") DataSize maxTotalSize,
+                                 @Value("${spring.servlet.multipart.max-request-size}") DataSize maxRequestSize,
+                                 @Value("${uploads.admission.retry-after}") Duration retryAfter,
+                                 ObjectMapper objectMapper) {
+        this.uploads = new Semaphore(maxConcurrent);
+        this.maxUploadUnits = toUnits(maxTotalSize.toBytes());
+        this.bytes = new Semaphore(maxUploadUnits);
+        this.maxRequestSize = maxRequestSize.toBytes();
+        this.retryAfterSeconds = String.valueOf(Math.max(1, retryAfter.toSeconds()));
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String contentType = request.getContentType();
+        return !HttpMethod.POST.matches(request.getMethod())
+                || contentType == null
+                || !contentType.toLowerCase().startsWith("multipart/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        long contentLength = request.getContentLengthLong();
+        int units = Math.min(toUnits(contentLength >= 0 ? contentLength : maxRequestSize), maxUploadUnits);
+
+        if (!uploads.tryAcquire()) {
+            reject(response, "Слишком много одновременных загрузок, повторите позже");
+            return;
+        }
+        try {
+            if (!bytes.tryAcquire(units)) {
+                reject(response, "Превышен общий объём одновременных загрузок, повторите позже");
+                return;
+            }
+            try {
+                filterChain.doFilter(request, response);
+            } finally {
+                bytes.release(units);
+            }
+        } finally {
+            uploads.release();
+        }
+    }
+
+    private void reject(HttpServletResponse response, String message) throws IOException {
+        log.warn("Загрузка отклонена: {}", message);
+        response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+        response.setHeader(HttpHeaders.RETRY_AFTER, retryAfterSeconds);
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding("UTF-8");
+        objectMapper.writeValue(response.getOutputStream(), new ErrorDTO(message));
+    }
+
+    private static int toUnits(long size) {
+        return (int) Math.min(Integer.MAX_VALUE, Math.max(1, (size + UNIT - 1) / UNIT));
+    }
+}
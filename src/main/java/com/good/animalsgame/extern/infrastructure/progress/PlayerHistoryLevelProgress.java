@@ -0,0 +1,83 @@
+package com.good.animalsgame.extern.infrastructure.progress;
+
+import com.good.animalsgame.app.cache.LevelProgress;
+import com.good.animalsgame.app.cache.PlayerHistory;
+import com.good.animalsgame.exception.NoLevelsLeftException;
+import com.good.animalsgame.exception.NoSuchRoundException;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.annotation.RequestScope;
+
+import java.util.UUID;
+
+/**
+ * Прогресс игрока с постоянной историей (game.history.enabled=true).
+ * Если запрос содержит идентификатор игрока в заголовке {@link #PLAYER_HEADER},
+ * уровни выдаются из {@link PlayerHistory} - игрок не увидит их повторно и в следующих сессиях.
+ * Запросы без идентификатора обслуживает реализация, выбранная настройкой game.progress.mode
+ */
+@Component
+@Primary
+@RequestScope
+@ConditionalOnProperty(name = "game.history.enabled", havingValue = "true")
+public class PlayerHistoryLevelProgress implements LevelProgress {
+
+    /**
+     * Заголовок запроса с идентификатором игрока (UUID)
+     */
+    public static final String PLAYER_HEADER = "X-Player-Id";
+
+    private final PlayerHistory playerHistory;
+    private final LevelProgress modeLevelProgress;
+    private final HttpServletRequest request;
+
+    public PlayerHistoryLevelProgress(PlayerHistory playerHistory,
+                                      @Qualifier(LevelProgress.MODE_QUALIFIER) LevelProgress modeLevelProgress,
+                                      HttpServletRequest request) {
+        this.playerHistory = playerHistory;
+        this.modeLevelProgress = modeLevelProgress;
+        this.request = request;
+    }
+
+    @Override
+    public long drawLevelId(int round) throws NoSuchRoundException, NoLevelsLeftException {
+        String playerId = getPlayerId();
+        if (playerId == null) {
+            return modeLevelProgress.drawLevelId(round);
+        }
+
+        return playerHistory.drawLevelIds(playerId, round, 1)[0];
+    }
+
+    @Override
+    public long[] drawLevelIds(int round, int count) throws NoSuchRoundException, NoLevelsLeftException {
+        String playerId = getPlayerId();
+        if (playerId == null) {
+            return modeLevelProgress.drawLevelIds(round, count);
+        }
+
+        return playerHistory.drawLevelIds(playerId, round, count);
+    }
+
+    /**
+     * Возвращает идентификатор игрока из заголовка в каноническом виде
+     *
+     * @return идентификатор или null, если заголовка нет
+     * @throws IllegalArgumentException если идентификатор не является UUID
+     */
+    private String getPlayerId() {
+        String header = request.getHeader(PLAYER_HEADER);
+        if (header == null || header.isBlank()) {
+            return null;
+        }
+
+        try {
+            return UUID.fromString(header.trim()).toString();
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(String.format("Некорректный идентификатор игрока: %s", header), e);
+        }
+    }
+}
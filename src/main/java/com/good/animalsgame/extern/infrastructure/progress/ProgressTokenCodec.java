@@ -0,0 +1,304 @@
+package com.good.animalsgame.extern.infrastructure.progress;
+
+import com.good.animalsgame.app.cache.RoundProgress;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.BufferUnderflowException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Кодирует прогресс игрока по раундам в компактный подписанный токен и обратно.
+ * Формат: версия формата, затем для каждого раунда - номер, ключ перестановки, размер снимка и позиция в перестановке,
+ * с которой продолжается выдача, и выданные уровни в одном из двух видов,
+ * какой короче: количество и айди в виде varint-разностей соседних значений или битовая карта айди от наименьшего
+ * выданного. Оба вида не зависят от снимка раунда, поэтому добавление и удаление уровней прогресс не сбрасывает.
+ * Выданные уровни раунда занимают не больше {@link #MAX_SEEN_BYTES} байт: если не помещаются, в токене остаётся
+ * карта самых больших айди, а более старые уровни могут выпасть игроку снова. Так токен остаётся
+ * в пределах лимита заголовков запроса (8 КБ у Tomcat) при любом количестве уровней.
+ * Полезная нагрузка подписывается HMAC-SHA256, токен передаётся в base64url без выравнивания.
+ * Подделанный или повреждённый токен считается пустым прогрессом.
+ */
+@Component
+@ConditionalOnProperty(name = "game.progress.mode", havingValue = "token")
+public class ProgressTokenCodec {
+
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+
+    /**
+     * Версия 1 - только айди разностями, читается для совместимости со старыми токенами
+     */
+    private static final byte DELTA_FORMAT_VERSION = 1;
+
+    /**
+     * Версия 3 - без позиции в перестановке, выдача по таким токенам начинается с начала перестановки
+     */
+    private static final byte NO_POSITION_FORMAT_VERSION = 3;
+
+    private static final byte FORMAT_VERSION = 4;
+
+    /**
+     * Наибольший размер выданных уровней одного раунда в токене, байт.
+     * Два раунда с подписью занимают в base64 около 5,5 КБ
+     */
+    static final int MAX_SEEN_BYTES = 2048;
+
+    /**
+     * Айди, которые покрывает битовая карта наибольшего размера: место за вычетом двух varint её заголовка
+     */
+    private static final long MAX_BITMAP_SPAN = (MAX_SEEN_BYTES - 2L * 10) * 8;
+
+    /**
+     * Вид выданных уровней раунда в токене
+     */
+    private static final byte SEEN_AS_DELTAS = 0;
+    private static final byte SEEN_AS_BITMAP = 1;
+
+    /**
+     * Длина подписи в токене, байт
+     */
+    private static final int SIGNATURE_LENGTH = 16;
+
+    private final SecretKeySpec secretKey;
+    private final Logger log = LoggerFactory.getLogger(this.getClass());
+
+    public ProgressTokenCodec(@Value("${game.progress.token-secret}") String secret) {
+        if (secret == null || secret.isBlank()) {
+            throw new IllegalStateException("Для game.progress.mode=token нужно задать game.progress.token-secret");
+        }
+        this.secretKey = new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), HMAC_ALGORITHM);
+    }
+
+    /**
+     * Кодирует прогресс в подписанный токен
+     *
+     * @param rounds номер раунда -> прогресс
+     */
+    public String encode(Map<Integer, RoundProgress> rounds) {
+        ByteArrayOutputStream payload = new ByteArrayOutputStream();
+        payload.write(FORMAT_VERSION);
+        new TreeMap<>(rounds).forEach((round, progress) -> {
+            writeVarLong(payload, round);
+            writeLong(payload, progress.seed());
+            writeVarLong(payload, progress.snapshotSize());
+            writeVarLong(payload, progress.position());
+
+            writeSeen(payload, round, progress.seenLevelIds());
+        });
+
+        byte[] body = payload.toByteArray();
+        byte[] token = Arrays.copyOf(body, body.length + SIGNATURE_LENGTH);
+        System.arraycopy(sign(body), 0, token, body.length, SIGNATURE_LENGTH);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(token);
+    }
+
+    /**
+     * Декодирует токен, проверяя подпись
+     *
+     * @param token токен, может быть null
+     * @return номер раунда -> прогресс; пустая карта, если токена нет или он недействителен
+     */
+    public Map<Integer, RoundProgress> decode(String token) {
+        if (token == null || token.isBlank()) {
+            return new HashMap<>();
+        }
+
+        try {
+            byte[] bytes = Base64.getUrlDecoder().decode(token);
+            if (bytes.length <= SIGNATURE_LENGTH) {
+                throw new IllegalArgumentException("Токен слишком короткий");
+            }
+
+            byte[] body = Arrays.copyOf(bytes, bytes.length - SIGNATURE_LENGTH);
+            byte[] signature = Arrays.copyOfRange(bytes, body.length, bytes.length);
+            if (!MessageDigest.isEqual(signature, Arrays.copyOf(sign(body), SIGNATURE_LENGTH))) {
+                throw new IllegalArgumentException("Неверная подпись");
+            }
+
+            return readRounds(ByteBuffer.wrap(body));
+        } catch (IllegalArgumentException | BufferUnderflowException | ArithmeticException e) {
+            log.warn("Отклонён токен прогресса: {}", e.getMessage());
+            return new HashMap<>();
+        }
+    }
+
+    private Map<Integer, RoundProgress> readRounds(ByteBuffer body) {
+        byte version = body.get();
+        if (version != FORMAT_VERSION && version != NO_POSITION_FORMAT_VERSION && version != DELTA_FORMAT_VERSION) {
+            // в том числе версия 2 с картой позиций снимка: прогресс по ней больше не восстановить
+            throw new IllegalArgumentException("Неизвестная версия формата");
+        }
+
+        Map<Integer, RoundProgress> rounds = new HashMap<>();
+        while (body.hasRemaining()) {
+            int round = Math.toIntExact(readVarLong(body));
+            long seed = body.getLong();
+            int snapshotSize = 0;
+            int position = 0;
+            if (version == FORMAT_VERSION) {
+                snapshotSize = Math.toIntExact(readVarLong(body));
+                position = Math.toIntExact(readVarLong(body));
+            }
+            byte seenFormat = version == DELTA_FORMAT_VERSION ? SEEN_AS_DELTAS : body.get();
+            long[] seenLevelIds = switch (seenFormat) {
+                case SEEN_AS_DELTAS -> readDeltas(body);
+                case SEEN_AS_BITMAP -> readBitmap(body);
+                default -> throw new IllegalArgumentException("Неизвестный вид выданных уровней");
+            };
+            rounds.put(round, new RoundProgress(seed, seenLevelIds, snapshotSize, position));
+        }
+        return rounds;
+    }
+
+    /**
+     * Пишет выданные уровни раунда в более коротком виде, не длиннее {@link #MAX_SEEN_BYTES}
+     */
+    private void writeSeen(ByteArrayOutputStream payload, int round, long[] seenLevelIds) {
+        byte[] deltas = encodeDeltas(seenLevelIds);
+        byte[] bitmap = encodeBitmap(seenLevelIds, 0);
+        if (bitmap != null && bitmap.length < deltas.length) {
+            payload.write(SEEN_AS_BITMAP);
+            payload.writeBytes(bitmap);
+            return;
+        }
+        if (deltas.length <= MAX_SEEN_BYTES) {
+            payload.write(SEEN_AS_DELTAS);
+            payload.writeBytes(deltas);
+            return;
+        }
+
+        // не помещается: остаются самые большие айди, которые покрывает карта наибольшего размера
+        long from = seenLevelIds[seenLevelIds.length - 1] - MAX_BITMAP_SPAN + 1;
+        int first = Arrays.binarySearch(seenLevelIds, from);
+        first = first >= 0 ? first : -first - 1;
+        log.debug("Выданные уровни раунда {} не помещаются в токен, забыто {} из {}", round, first, seenLevelIds.length);
+        payload.write(SEEN_AS_BITMAP);
+        payload.writeBytes(encodeBitmap(seenLevelIds, first));
+    }
+
+    /**
+     * Количество и айди уровней varint-разностями соседних значений
+     */
+    private static byte[] encodeDeltas(long[] seenLevelIds) {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        writeVarLong(output, seenLevelIds.length);
+        long previous = 0;
+        for (long levelId : seenLevelIds) {
+            writeVarLong(output, levelId - previous);
+            previous = levelId;
+        }
+        return output.toByteArray();
+    }
+
+    private static long[] readDeltas(ByteBuffer body) {
+        int count = Math.toIntExact(readVarLong(body));
+        if (count > body.remaining()) {
+            throw new IllegalArgumentException("Некорректное количество уровней");
+        }
+
+        long[] seenLevelIds = new long[count];
+        long previous = 0;
+        for (int i = 0; i < count; i++) {
+            previous += readVarLong(body);
+            seenLevelIds[i] = previous;
+        }
+        return seenLevelIds;
+    }
+
+    /**
+     * Наименьший айди, количество бит и битовая карта айди от наименьшего: бит i - уровень с айди first + i
+     *
+     * @param seenLevelIds отсортированные айди выданных уровней
+     * @param from индекс первого айди, попадающего в карту
+     * @return карта или null, если уровней нет или айди разбросаны шире {@link #MAX_BITMAP_SPAN}
+     */
+    private static byte[] encodeBitmap(long[] seenLevelIds, int from) {
+        if (from >= seenLevelIds.length) {
+            return null;
+        }
+        long first = seenLevelIds[from];
+        long span = seenLevelIds[seenLevelIds.length - 1] - first + 1;
+        if (span <= 0 || span > MAX_BITMAP_SPAN) {
+            return null;
+        }
+
+        byte[] bitmap = new byte[(int) ((span + 7) / 8)];
+        for (int i = from; i < seenLevelIds.length; i++) {
+            int bit = (int) (seenLevelIds[i] - first);
+            bitmap[bit >> 3] |= (byte) (1 << (bit & 7));
+        }
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        writeVarLong(output, first);
+        writeVarLong(output, span);
+        output.writeBytes(bitmap);
+        return output.toByteArray();
+    }
+
+    private static long[] readBitmap(ByteBuffer body) {
+        long first = readVarLong(body);
+        long span = readVarLong(body);
+        if (span <= 0 || span > MAX_BITMAP_SPAN) {
+            throw new IllegalArgumentException("Некорректный размер карты уровней");
+        }
+        byte[] bitmap = new byte[(int) ((span + 7) / 8)];
+        body.get(bitmap);
+
+        long[] seenLevelIds = new long[(int) span];
+        int count = 0;
+        for (int bit = 0; bit < span; bit++) {
+            if ((bitmap[bit >> 3] & (1 << (bit & 7))) != 0) {
+                seenLevelIds[count++] = first + bit;
+            }
+        }
+        return Arrays.copyOf(seenLevelIds, count);
+    }
+
+    private byte[] sign(byte[] body) {
+        try {
+            Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(secretKey);
+            return mac.doFinal(body);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HMAC-SHA256 недоступен", e);
+        }
+    }
+
+    private static void writeLong(ByteArrayOutputStream output, long value) {
+        output.writeBytes(ByteBuffer.allocate(Long.BYTES).putLong(value).array());
+    }
+
+    private static void writeVarLong(ByteArrayOutputStream output, long value) {
+        while ((value & ~0x7FL) != 0) {
+            output.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        output.write((int) value);
+    }
+
+    private static long readVarLong(ByteBuffer input) {
+        long value = 0;
+        for (int shift = 0; shift < Long.SIZE; shift += 7) {
+            byte b = input.get();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Слишком длинное число");
+    }
+}
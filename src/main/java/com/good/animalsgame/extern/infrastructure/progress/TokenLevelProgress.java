@@ -0,0 +1,84 @@
+package com.good.animalsgame.extern.infrastructure.progress;
+
+import com.good.animalsgame.app.cache.LevelCatalog;
+import com.good.animalsgame.app.cache.LevelProgress;
+import com.good.animalsgame.app.cache.RoundProgress;
+import com.good.animalsgame.exception.NoLevelsLeftException;
+import com.good.animalsgame.exception.NoSuchRoundException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.annotation.RequestScope;
+
+import java.security.SecureRandom;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Прогресс игрока без состояния на сервере (game.progress.mode=token).
+ * Клиент присылает прогресс в заголовке {@link #PROGRESS_HEADER}, после выдачи уровней
+ * новый прогресс возвращается в том же заголовке ответа. Токен подписан, поэтому запрос
+ * может обработать любой узел, а перезапуск узла прогресс не сбрасывает.
+ * Параллельные запросы с одним и тем же токеном не согласуются между собой и могут получить один уровень.
+ */
+@Component
+@RequestScope
+@Qualifier(LevelProgress.MODE_QUALIFIER)
+@ConditionalOnProperty(name = "game.progress.mode", havingValue = "token")
+public class TokenLevelProgress implements LevelProgress {
+
+    /**
+     * Заголовок запроса и ответа с токеном прогресса
+     */
+    public static final String PROGRESS_HEADER = "X-Game-Progress";
+
+    private static final Random SEED_GENERATOR = new SecureRandom();
+
+    private final LevelCatalog levelCatalog;
+    private final ProgressTokenCodec progressTokenCodec;
+    private final HttpServletRequest request;
+    private final HttpServletResponse response;
+
+    /**
+     * Номер раунда -> прогресс, читается из токена при первом обращении
+     */
+    private Map<Integer, RoundProgress> rounds;
+
+    public TokenLevelProgress(LevelCatalog levelCatalog,
+                              ProgressTokenCodec progressTokenCodec,
+                              HttpServletRequest request,
+                              HttpServletResponse response) {
+        this.levelCatalog = levelCatalog;
+        this.progressTokenCodec = progressTokenCodec;
+        this.request = request;
+        this.response = response;
+    }
+
+    @Override
+    public long drawLevelId(int round) throws NoSuchRoundException, NoLevelsLeftException {
+        return drawLevelIds(round, 1)[0];
+    }
+
+    @Override
+    public long[] drawLevelIds(int round, int count) throws NoSuchRoundException, NoLevelsLeftException {
+        if (rounds == null) {
+            rounds = progressTokenCodec.decode(request.getHeader(PROGRESS_HEADER));
+        }
+
+        RoundProgress roundProgress = rounds.get(round);
+        if (roundProgress == null) {
+            roundProgress = RoundProgress.start(SEED_GENERATOR.nextLong());
+        }
+
+        RoundProgress.Draw draw = roundProgress.draw(levelCatalog.getSnapshot(round), count);
+        if (draw.levelIds().length == 0) {
+            throw new NoLevelsLeftException(String.format("Уровней в раунде %d больше нет", round));
+        }
+
+        rounds.put(round, draw.progress());
+        response.setHeader(PROGRESS_HEADER, progressTokenCodec.encode(rounds));
+        return draw.levelIds();
+    }
+}
@@ -0,0 +1,113 @@
+package com.good.animalsgame.extern.infrastructure.storage;
+
+import com.good.animalsgame.app.storage.ImageStorage;
+import com.good.animalsgame.app.storage.StoredImage;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.*;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+/**
+ * Хранилище картинок в локальной файловой системе.
+ * Картинка с хэшем abcd... лежит в файле {root}/ab/cd/abcd...
+ */
+@Component
+@ConditionalOnProperty(name = "images.storage.type", havingValue = "filesystem", matchIfMissing = true)
+public class FileSystemImageStorage implements ImageStorage {
+
+    private static final Pattern HASH_PATTERN = Pattern.compile("[0-9a-f]{64}");
+
+    /**
+     * Корневая папка хранилища
+     */
+    private final Path root;
+
+    /**
+     * Папка для недописанных файлов, на том же разделе, что и хранилище
+     */
+    private final Path tempDirectory;
+
+    public FileSystemImageStorage(@Value("${images.storage.root}") String root) throws IOException {
+        this.root = Paths.get(root).toAbsolutePath().normalize();
+        this.tempDirectory = this.root.resolve("tmp");
+        Files.createDirectories(tempDirectory);
+    }
+
+    @Override
+    public StoredImage store(InputStream inputStream) throws IOException {
+        return store(inputStream, null);
+    }
+
+    @Override
+    public StoredImage store(InputStream inputStream, String expectedHash) throws IOException {
+        Path tempFile = Files.createTempFile(tempDirectory, "image", ".part");
+        try {
+            MessageDigest digest = newDigest();
+            long size;
+            try (InputStream digestStream = new DigestInputStream(inputStream, digest)) {
+                size = Files.copy(digestStream, tempFile, StandardCopyOption.REPLACE_EXISTING);
+            }
+
+            String hash = HexFormat.of().formatHex(digest.digest());
+            if (expectedHash != null && !expectedHash.equals(hash)) {
+                return new StoredImage(hash, size);
+            }
+
+            Path target = resolve(hash);
+            if (!Files.exists(target)) {
+                Files.createDirectories(target.getParent());
+                try {
+                    Files.move(tempFile, target, StandardCopyOption.ATOMIC_MOVE);
+                } catch (FileAlreadyExistsException e) {
+                    // та же картинка сохранена параллельно - содержимое совпадает
+                }
+            }
+
+            return new StoredImage(hash, size);
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    @Override
+    public Optional<Resource> find(String hash) {
+        if (!isValidHash(hash)) {
+            return Optional.empty();
+        }
+
+        Path path = resolve(hash);
+        return Files.isRegularFile(path) ? Optional.of(new FileSystemResource(path)) : Optional.empty();
+    }
+
+    @Override
+    public boolean exists(String hash) {
+        return isValidHash(hash) && Files.isRegularFile(resolve(hash));
+    }
+
+    private Path resolve(String hash) {
+        return root.resolve(hash.substring(0, 2)).resolve(hash.substring(2, 4)).resolve(hash);
+    }
+
+    private static boolean isValidHash(String hash) {
+        return hash != null && HASH_PATTERN.matcher(hash).matches();
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 недоступен", e);
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.good.animalsgame.extern.infrastructure.storage;
+
+import com.good.animalsgame.app.storage.ImageStorage;
+import com.good.animalsgame.exception.EntityNotFoundException;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Формирует ответы с картинками из хранилища и картинками, отрисованными приложением.
+ * Если контейнер поддерживает sendfile (Tomcat NIO), файл отдаётся ядром напрямую в сокет,
+ * без копирования в heap. Иначе содержимое потоково копируется из файла.
+ */
+@Component
+public class ImageResponseFactory {
+
+    private static final String SENDFILE_SUPPORT_ATTRIBUTE = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME_ATTRIBUTE = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START_ATTRIBUTE = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END_ATTRIBUTE = "org.apache.tomcat.sendfile.end";
+
+    /**
+     * Картинки адресуются по содержимому и никогда не меняются
+     */
+    private static final CacheControl IMMUTABLE = CacheControl.maxAge(365, TimeUnit.DAYS).cachePublic().immutable();
+
+    private final ImageStorage imageStorage;
+
+    public ImageResponseFactory(ImageStorage imageStorage) {
+        this.imageStorage = imageStorage;
+    }
+
+    /**
+     * Формирует ответ с картинкой. ETag - хэш содержимого
+     *
+     * @param hash        хэш картинки
+     * @param contentType MIME-тип, если null - image/jpeg
+     * @param webRequest  текущий запрос
+     * @return ответ или null, если клиент прислал актуальный If-None-Match и уже получил 304
+     * @throws EntityNotFoundException если картинки нет в хранилище
+     */
+    public ResponseEntity<Resource> createResponse(String hash, String contentType, ServletWebRequest webRequest)
+            throws EntityNotFoundException, IOException {
+        return createResponse(hash, contentType, false, webRequest);
+    }
+
+    /**
+     * Формирует ответ с картинкой. ETag - хэш содержимого
+     *
+     * @param hash        хэш картинки
+     * @param contentType MIME-тип, если null - image/jpeg
+     * @param temporary   true, если по этой ссылке позже будет отдаваться другая картинка:
+     *                    тогда клиент перепроверяет ответ по ETag, а не кэширует его навсегда
+     * @param webRequest  текущий запрос
+     * @return ответ или null, если клиент прислал актуальный If-None-Match и уже получил 304
+     * @throws EntityNotFoundException если картинки нет в хранилище
+     */
+    public ResponseEntity<Resource> createResponse(String hash, String contentType, boolean temporary, ServletWebRequest webRequest)
+            throws EntityNotFoundException, IOException {
+        if (webRequest.checkNotModified(hash)) {
+            return null;
+        }
+
+        Resource resource = imageStorage.find(hash)
+                .orElseThrow(() -> new EntityNotFoundException(String.format("Картинка %s не найдена в хранилище", hash)));
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(contentType != null ? MediaType.parseMediaType(contentType) : MediaType.IMAGE_JPEG)
+                .contentLength(resource.contentLength())
+                .eTag(hash)
+                .cacheControl(temporary ? CacheControl.noCache() : IMMUTABLE);
+
+        HttpServletRequest request = webRequest.getRequest();
+        if (resource.isFile() && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT_ATTRIBUTE))) {
+            File file = resource.getFile();
+            request.setAttribute(SENDFILE_FILENAME_ATTRIBUTE, file.getAbsolutePath());
+            request.setAttribute(SENDFILE_START_ATTRIBUTE, 0L);
+            request.setAttribute(SENDFILE_END_ATTRIBUTE, file.length());
+            return response.build();
+        }
+
+        return response.body(resource);
+    }
+
+    /**
+     * Формирует ответ с картинкой в JPEG, отрисованной приложением
+     *
+     * @param content содержимое картинки
+     * @param eTag    ETag, однозначно определяющий содержимое
+     */
+    public ResponseEntity<Resource> createResponse(byte[] content, String eTag) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.IMAGE_JPEG)
+                .contentLength(content.length)
+                .eTag(eTag)
+                .cacheControl(IMMUTABLE)
+                .body(new ByteArrayResource(content));
+    }
+}
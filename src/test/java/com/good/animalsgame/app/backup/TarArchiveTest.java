@@ -0,0 +1,58 @@
+package com.good.animalsgame.app.backup;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class TarArchiveTest {
+
+    @Test
+    void testWriteAndRead() throws IOException {
+        byte[] first = "первый файл".getBytes(StandardCharsets.UTF_8);
+        byte[] second = new byte[1500];
+        for (int i = 0; i < second.length; i++) {
+            second[i] = (byte) i;
+        }
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        try (TarWriter tarWriter = new TarWriter(outputStream)) {
+            tarWriter.writeEntry("first", first.length, new ByteArrayInputStream(first));
+            tarWriter.writeEntry("second", second.length, new ByteArrayInputStream(second));
+            tarWriter.writeEntry("third", 0, new ByteArrayInputStream(new byte[0]));
+        }
+        assertEquals(0, outputStream.size() % TarWriter.BLOCK_SIZE);
+
+        TarReader tarReader = new TarReader(new ByteArrayInputStream(outputStream.toByteArray()));
+
+        TarReader.Entry entry = tarReader.next();
+        assertEquals("first", entry.name());
+        assertArrayEquals(first, entry.content().readAllBytes());
+
+        entry = tarReader.next();
+        assertEquals("second", entry.name());
+        assertEquals(1500, entry.size());
+        // содержимое не дочитано - следующий файл всё равно читается с начала
+        assertEquals(0, entry.content().read());
+
+        entry = tarReader.next();
+        assertEquals("third", entry.name());
+        assertEquals(0, entry.content().readAllBytes().length);
+
+        assertNull(tarReader.next());
+    }
+
+    @Test
+    void testSizeMismatch() {
+        TarWriter tarWriter = new TarWriter(new ByteArrayOutputStream());
+
+        assertThrows(IOException.class, () -> tarWriter.writeEntry("file", 10, new ByteArrayInputStream(new byte[5])));
+    }
+}
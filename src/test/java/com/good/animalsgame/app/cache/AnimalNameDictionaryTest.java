@@ -0,0 +1,103 @@
+package com.good.animalsgame.app.cache;
+
+import com.good.animalsgame.app.event.AnimalsChangedEvent;
+import com.good.animalsgame.app.localization.LanguageFallbackProperties;
+import com.good.animalsgame.app.localization.LanguageFallbacks;
+import com.good.animalsgame.app.repository.AnimalRepository;
+import com.good.animalsgame.domain.AnimalName;
+import com.good.animalsgame.domain.Language;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AnimalNameDictionaryTest {
+
+    private AnimalNameDictionary animalNameDictionary;
+
+    @Mock
+    private AnimalRepository animalRepository;
+
+    @BeforeEach
+    void setUp() {
+        animalNameDictionary = new AnimalNameDictionary(animalRepository,
+                new LanguageFallbacks(new LanguageFallbackProperties(Map.of(Language.UKRAINIAN, List.of(Language.ENGLISH)), Language.RUSSIAN)));
+    }
+
+    @Test
+    void testGetName() {
+        when(animalRepository.findAllNames()).thenReturn(List.of(
+                new AnimalName(7L, Language.RUSSIAN, "Тигр"),
+                new AnimalName(3L, Language.RUSSIAN, "Лев"),
+                new AnimalName(3L, Language.ENGLISH, "Lion")
+        ));
+
+        assertEquals("Лев", animalNameDictionary.getName(3L, Language.RUSSIAN));
+        assertEquals("Lion", animalNameDictionary.getName(3L, Language.ENGLISH));
+        assertEquals("Тигр", animalNameDictionary.getName(7L, Language.RUSSIAN));
+        assertNull(animalNameDictionary.getName(5L, Language.RUSSIAN));
+        assertTrue(animalNameDictionary.contains(7L));
+        assertFalse(animalNameDictionary.contains(5L));
+        verify(animalRepository, times(1)).findAllNames();
+    }
+
+    @Test
+    void testGetNameFallback() {
+        when(animalRepository.findAllNames()).thenReturn(List.of(
+                new AnimalName(3L, Language.RUSSIAN, "Лев"),
+                new AnimalName(3L, Language.ENGLISH, "Lion"),
+                new AnimalName(7L, Language.RUSSIAN, "Тигр"),
+                new AnimalName(9L, Language.GERMAN, "Zebra")
+        ));
+
+        assertEquals("Lion", animalNameDictionary.getName(3L, Language.UKRAINIAN));
+        assertEquals("Лев", animalNameDictionary.getName(3L, Language.ITALIAN));
+        assertEquals("Тигр", animalNameDictionary.getName(7L, Language.UKRAINIAN));
+        assertEquals("Тигр", animalNameDictionary.getName(7L, Language.ENGLISH));
+        assertEquals("Zebra", animalNameDictionary.getName(9L, Language.RUSSIAN));
+        verify(animalRepository, times(1)).findAllNames();
+    }
+
+    @Test
+    void testFindAnimalId() {
+        when(animalRepository.findAllNames()).thenReturn(List.of(
+                new AnimalName(3L, Language.RUSSIAN, "Лев"),
+                new AnimalName(3L, Language.ENGLISH, "Lion"),
+                new AnimalName(7L, Language.RUSSIAN, "Тигр")
+        ));
+
+        assertEquals(3L, animalNameDictionary.findAnimalId("лев"));
+        assertEquals(3L, animalNameDictionary.findAnimalId(" LION "));
+        assertEquals(7L, animalNameDictionary.findAnimalId("ТИГР"));
+        assertNull(animalNameDictionary.findAnimalId("Зебра"));
+    }
+
+    @Test
+    void testEmptyDictionary() {
+        when(animalRepository.findAllNames()).thenReturn(List.of());
+
+        assertNull(animalNameDictionary.getName(1L, Language.RUSSIAN));
+        assertFalse(animalNameDictionary.contains(1L));
+    }
+
+    @Test
+    void testReloadedAfterAnimalsChanged() {
+        when(animalRepository.findAllNames())
+                .thenReturn(List.of(new AnimalName(1L, Language.RUSSIAN, "Лев")))
+                .thenReturn(List.of(new AnimalName(1L, Language.RUSSIAN, "Лев"), new AnimalName(1L, Language.ENGLISH, "Lion")));
+
+        assertEquals("Лев", animalNameDictionary.getName(1L, Language.ENGLISH));
+        animalNameDictionary.onAnimalsChanged(new AnimalsChangedEvent(1L));
+
+        assertEquals("Lion", animalNameDictionary.getName(1L, Language.ENGLISH));
+        verify(animalRepository, times(2)).findAllNames();
+    }
+}
@@ -0,0 +1,123 @@
+package com.good.animalsgame.app.cache;
+
+import com.good.animalsgame.app.event.AnimalsChangedEvent;
+import com.good.animalsgame.app.event.LevelsChangedEvent;
+import com.good.animalsgame.domain.FirstRoundLevel;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LevelCacheTest {
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    private final List<Collection<Long>> batchLoads = new ArrayList<>();
+
+    private final Function<Long, Optional<FirstRoundLevel>> loader = levelId -> {
+        loads.incrementAndGet();
+        return levelId > 100 ? Optional.empty() : Optional.of(level(levelId));
+    };
+
+    private final Function<Collection<Long>, List<FirstRoundLevel>> batchLoader = levelIds -> {
+        batchLoads.add(List.copyOf(levelIds));
+        return levelIds.stream().map(LevelCacheTest::level).toList();
+    };
+
+    @Test
+    void testLevelLoadedOnce() {
+        LevelCache levelCache = new LevelCache(true, 10);
+
+        FirstRoundLevel first = levelCache.getLevel(1, 1L, loader).orElseThrow();
+        FirstRoundLevel second = levelCache.getLevel(1, 1L, loader).orElseThrow();
+
+        assertSame(first, second);
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void testMissingLevelNotCached() {
+        LevelCache levelCache = new LevelCache(true, 10);
+
+        assertTrue(levelCache.getLevel(1, 101L, loader).isEmpty());
+        assertTrue(levelCache.getLevel(1, 101L, loader).isEmpty());
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void testDisabledCacheLoadsEveryTime() {
+        LevelCache levelCache = new LevelCache(false, 10);
+
+        levelCache.getLevel(1, 1L, loader);
+        levelCache.getLevel(1, 1L, loader);
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void testLevelsLoadedOnlyForMissing() {
+        LevelCache levelCache = new LevelCache(true, 10);
+        levelCache.getLevel(1, 2L, loader);
+
+        List<FirstRoundLevel> levels = levelCache.getLevels(1, List.of(1L, 2L, 3L), batchLoader);
+
+        assertEquals(3, levels.size());
+        assertEquals(List.of(List.of(1L, 3L)), batchLoads);
+        assertEquals(3, levelCache.getLevels(1, List.of(1L, 2L, 3L), batchLoader).size());
+        assertEquals(1, batchLoads.size());
+    }
+
+    @Test
+    void testSizeLimited() {
+        LevelCache levelCache = new LevelCache(true, 2);
+
+        levelCache.getLevel(1, 1L, loader);
+        levelCache.getLevel(1, 2L, loader);
+        levelCache.getLevel(1, 1L, loader);
+        // вытесняется давно не запрошенный уровень 2, а новый уровень 3 попадает в кэш
+        levelCache.getLevel(1, 3L, loader);
+        levelCache.getLevel(1, 3L, loader);
+        levelCache.getLevel(1, 1L, loader);
+        assertEquals(3, loads.get());
+
+        levelCache.getLevel(1, 2L, loader);
+        assertEquals(4, loads.get());
+    }
+
+    @Test
+    void testInvalidatedAfterLevelsChanged() {
+        LevelCache levelCache = new LevelCache(true, 10);
+        levelCache.getLevel(1, 1L, loader);
+        levelCache.getLevel(2, 1L, loader);
+
+        levelCache.onLevelsChanged(new LevelsChangedEvent(1));
+        levelCache.getLevel(1, 1L, loader);
+        levelCache.getLevel(2, 1L, loader);
+
+        assertEquals(3, loads.get());
+    }
+
+    @Test
+    void testInvalidatedAfterAnimalsChanged() {
+        LevelCache levelCache = new LevelCache(true, 10);
+        levelCache.getLevel(1, 1L, loader);
+        levelCache.getLevel(2, 1L, loader);
+
+        levelCache.onAnimalsChanged(new AnimalsChangedEvent(1L));
+        levelCache.getLevel(1, 1L, loader);
+        levelCache.getLevel(2, 1L, loader);
+
+        assertEquals(4, loads.get());
+    }
+
+    private static FirstRoundLevel level(long levelId) {
+        return FirstRoundLevel.builder().id(levelId).build();
+    }
+}
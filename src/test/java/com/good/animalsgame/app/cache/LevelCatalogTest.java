@@ -0,0 +1,110 @@
+package com.good.animalsgame.app.cache;
+
+import com.good.animalsgame.app.event.LevelsChangedEvent;
+import com.good.animalsgame.app.repository.LevelRepository;
+import com.good.animalsgame.domain.LevelAnswerKey;
+import com.good.animalsgame.exception.NoSuchRoundException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class LevelCatalogTest {
+
+    private LevelCatalog levelCatalog;
+
+    @Mock
+    private LevelRepository<?, ?> firstRoundRepository;
+
+    @BeforeEach
+    void setUp() {
+        levelCatalog = new LevelCatalog(Map.of("1", firstRoundRepository));
+    }
+
+    @Test
+    void testGetSnapshot() throws NoSuchRoundException {
+        when(firstRoundRepository.findAnswerKeys()).thenReturn(List.of(new LevelAnswerKey(3L, 30L), new LevelAnswerKey(1L, 10L), new LevelAnswerKey(2L, 20L)));
+
+        LevelCatalogSnapshot snapshot = levelCatalog.getSnapshot(1);
+
+        assertArrayEquals(new long[]{1L, 2L, 3L}, snapshot.levelIds());
+        assertEquals(new LevelAnswerKey(3L, 30L), snapshot.findAnswerKey(3L));
+        assertNull(snapshot.findAnswerKey(4L));
+        assertSame(snapshot, levelCatalog.getSnapshot(1));
+        verify(firstRoundRepository, times(1)).findAnswerKeys();
+    }
+
+    @Test
+    void testGetSnapshotWithQuestion() throws NoSuchRoundException {
+        LevelRepository<?, ?> secondRoundRepository = mock(LevelRepository.class);
+        when(secondRoundRepository.findAnswerKeys()).thenReturn(List.of(new LevelAnswerKey(5L, 10L, 11L)));
+        levelCatalog = new LevelCatalog(Map.of("2", secondRoundRepository));
+
+        LevelCatalogSnapshot snapshot = levelCatalog.getSnapshot(2);
+
+        assertEquals(new LevelAnswerKey(5L, 10L, 11L), snapshot.findAnswerKey(5L));
+    }
+
+    @Test
+    void testGetSnapshotError() {
+        Exception e = assertThrows(NoSuchRoundException.class, () -> levelCatalog.getSnapshot(9));
+        assertEquals("Не найден раунд 9!", e.getMessage());
+    }
+
+    @Test
+    void testSnapshotReloadedAfterLevelsChanged() throws NoSuchRoundException {
+        when(firstRoundRepository.findAnswerKeys())
+                .thenReturn(List.of(new LevelAnswerKey(1L, 10L)))
+                .thenReturn(List.of(new LevelAnswerKey(1L, 10L), new LevelAnswerKey(2L, 20L)));
+
+        LevelCatalogSnapshot first = levelCatalog.getSnapshot(1);
+        levelCatalog.onLevelsChanged(new LevelsChangedEvent(1));
+        LevelCatalogSnapshot second = levelCatalog.getSnapshot(1);
+
+        assertEquals(1, first.size());
+        assertEquals(2, second.size());
+        assertTrue(second.version() > first.version());
+    }
+
+    @Test
+    void testConcurrentLoadsAreCoalesced() throws Exception {
+        CountDownLatch loadStarted = new CountDownLatch(1);
+        CountDownLatch releaseLoad = new CountDownLatch(1);
+        when(firstRoundRepository.findAnswerKeys()).thenAnswer(invocation -> {
+            loadStarted.countDown();
+            releaseLoad.await();
+            return List.of(new LevelAnswerKey(1L, 10L), new LevelAnswerKey(2L, 20L));
+        });
+
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<LevelCatalogSnapshot>> futures = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                futures.add(executor.submit(() -> levelCatalog.getSnapshot(1)));
+            }
+
+            assertTrue(loadStarted.await(5, TimeUnit.SECONDS));
+            releaseLoad.countDown();
+
+            LevelCatalogSnapshot expected = futures.getFirst().get(5, TimeUnit.SECONDS);
+            for (Future<LevelCatalogSnapshot> future : futures) {
+                assertSame(expected, future.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        verify(firstRoundRepository, times(1)).findAnswerKeys();
+    }
+}
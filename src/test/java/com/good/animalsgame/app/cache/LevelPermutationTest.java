@@ -0,0 +1,42 @@
+package com.good.animalsgame.app.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.BitSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LevelPermutationTest {
+
+    @Test
+    void testIndexAtIsBijection() {
+        for (int size : new int[]{1, 2, 3, 7, 64, 100, 1000, 4097}) {
+            BitSet seen = new BitSet(size);
+            for (int position = 0; position < size; position++) {
+                int index = LevelPermutation.indexAt(42L, size, position);
+                assertTrue(index >= 0 && index < size);
+                assertFalse(seen.get(index), "Повтор индекса " + index + " для размера " + size);
+                seen.set(index);
+            }
+            assertEquals(size, seen.cardinality());
+        }
+    }
+
+    @Test
+    void testIndexAtDependsOnSeed() {
+        int size = 1000;
+        int differentPositions = 0;
+        for (int position = 0; position < size; position++) {
+            if (LevelPermutation.indexAt(1L, size, position) != LevelPermutation.indexAt(2L, size, position)) {
+                differentPositions++;
+            }
+        }
+
+        assertTrue(differentPositions > size / 2);
+    }
+
+    @Test
+    void testIndexAtOutOfRange() {
+        assertThrows(IndexOutOfBoundsException.class, () -> LevelPermutation.indexAt(1L, 3, 3));
+    }
+}
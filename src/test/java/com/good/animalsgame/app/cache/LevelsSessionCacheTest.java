@@ -1,6 +1,7 @@
 package com.good.animalsgame.app.cache;
 
-import com.good.animalsgame.app.repository.LevelRepository;
+import com.good.animalsgame.domain.LevelAnswerKey;
+import com.good.animalsgame.exception.NoLevelsLeftException;
 import com.good.animalsgame.exception.NoSuchRoundException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -9,9 +10,12 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
@@ -22,35 +26,33 @@ class LevelsSessionCacheTest {
 
     private LevelsSessionCache levelsSessionCache;
 
-    private Map<String, LevelRepository<?, ?>> levelRepositories = new HashMap<>();
-
-    private final Map<Integer, List<Long>> roundsCache = new HashMap<>();
-
     @Mock
-    private LevelRepository<?, ?> firstRoundRepository;
-
-    @Mock
-    private LevelRepository<?, ?> secondRoundRepository;
+    private LevelCatalog levelCatalog;
 
     @BeforeEach
     void setUp() {
-        levelRepositories.put("1", firstRoundRepository);
-        levelRepositories.put("2", secondRoundRepository);
+        levelsSessionCache = new LevelsSessionCache(levelCatalog);
+    }
 
-        levelsSessionCache = new LevelsSessionCache(levelRepositories);
+    private void mockFirstRound(long... levelIds) throws NoSuchRoundException {
+        when(levelCatalog.getRounds()).thenReturn(Set.of(1));
+        List<LevelAnswerKey> answerKeys = Arrays.stream(levelIds)
+                .mapToObj(levelId -> new LevelAnswerKey(levelId, 1L))
+                .toList();
+        when(levelCatalog.getSnapshot(1)).thenReturn(LevelCatalogSnapshot.of(1, answerKeys));
     }
 
     @Test
     void testGetRoundSize() throws NoSuchRoundException {
-        when(firstRoundRepository.findLevelIds()).thenReturn(List.of(1L, 2L, 3L));
+        mockFirstRound(1L, 2L, 3L);
         levelsSessionCache.init();
 
         assertEquals(3, levelsSessionCache.getRoundSize(1));
     }
 
     @Test
-    void testGetRoundSizeError() {
-        when(firstRoundRepository.findLevelIds()).thenReturn(List.of(1L, 2L, 3L));
+    void testGetRoundSizeError() throws NoSuchRoundException {
+        mockFirstRound(1L, 2L, 3L);
         levelsSessionCache.init();
 
         Exception e = assertThrows(NoSuchRoundException.class, () -> levelsSessionCache.getRoundSize(9));
@@ -58,37 +60,112 @@ class LevelsSessionCacheTest {
     }
 
     @Test
-    void testGetLevelId() throws NoSuchRoundException {
-        when(firstRoundRepository.findLevelIds()).thenReturn(List.of(1L, 2L, 3L));
+    void testDrawLevelId() throws NoSuchRoundException, NoLevelsLeftException {
+        mockFirstRound(1L, 2L, 3L);
         levelsSessionCache.init();
 
-        assertEquals(2L, levelsSessionCache.getLevelId(1, 1));
+        Set<Long> drawn = new HashSet<>();
+        for (int i = 0; i < 3; i++) {
+            drawn.add(levelsSessionCache.drawLevelId(1));
+        }
+
+        assertEquals(Set.of(1L, 2L, 3L), drawn);
+        assertEquals(0, levelsSessionCache.getRoundSize(1));
     }
 
     @Test
-    void testGetLevelIdError() {
-        when(firstRoundRepository.findLevelIds()).thenReturn(List.of(10L, 20L, 30L));
+    void testDrawLevelIds() throws NoSuchRoundException, NoLevelsLeftException {
+        mockFirstRound(1L, 2L, 3L, 4L, 5L);
         levelsSessionCache.init();
 
-        Exception e = assertThrows(NoSuchRoundException.class, () -> levelsSessionCache.getLevelId(9, 0));
-        assertEquals("Не найден раунд 9!", e.getMessage());
+        long[] first = levelsSessionCache.drawLevelIds(1, 2);
+        long[] rest = levelsSessionCache.drawLevelIds(1, 10);
+
+        Set<Long> drawn = new HashSet<>();
+        Arrays.stream(first).forEach(drawn::add);
+        Arrays.stream(rest).forEach(drawn::add);
+
+        assertEquals(2, first.length);
+        assertEquals(3, rest.length);
+        assertEquals(Set.of(1L, 2L, 3L, 4L, 5L), drawn);
+        assertEquals(0, levelsSessionCache.getRoundSize(1));
+        assertThrows(NoLevelsLeftException.class, () -> levelsSessionCache.drawLevelIds(1, 1));
     }
 
     @Test
-    void testRemoveLevel() throws NoSuchRoundException {
-        when(firstRoundRepository.findLevelIds()).thenReturn(new ArrayList<>(List.of(1L, 2L, 3L)));
+    void testDrawLevelIdDecreasesRoundSize() throws NoSuchRoundException, NoLevelsLeftException {
+        mockFirstRound(1L, 2L, 3L);
         levelsSessionCache.init();
 
-        levelsSessionCache.removeLevel(1, 1);
+        levelsSessionCache.drawLevelId(1);
         assertEquals(2, levelsSessionCache.getRoundSize(1));
     }
 
     @Test
-    void testRemoveLevelError() {
-        when(firstRoundRepository.findLevelIds()).thenReturn(new ArrayList<>(List.of(1L, 2L, 3L)));
+    void testDrawLevelIdNoLevelsLeft() throws NoSuchRoundException, NoLevelsLeftException {
+        mockFirstRound(1L);
+        levelsSessionCache.init();
+
+        levelsSessionCache.drawLevelId(1);
+
+        Exception e = assertThrows(NoLevelsLeftException.class, () -> levelsSessionCache.drawLevelId(1));
+        assertEquals("Уровней в раунде 1 больше нет", e.getMessage());
+    }
+
+    @Test
+    void testDrawLevelIdError() throws NoSuchRoundException {
+        mockFirstRound(10L, 20L, 30L);
         levelsSessionCache.init();
 
-        Exception e = assertThrows(NoSuchRoundException.class, () -> levelsSessionCache.removeLevel(9, 0));
+        Exception e = assertThrows(NoSuchRoundException.class, () -> levelsSessionCache.drawLevelId(9));
         assertEquals("Не найден раунд 9!", e.getMessage());
     }
-}
\ No newline at end of file
+
+    @Test
+    void testConcurrentDrawsHaveNoDuplicatesAndNoLostLevels() throws Exception {
+        int levelsCount = 10_000;
+        long[] levelIds = new long[levelsCount];
+        for (int i = 0; i < levelsCount; i++) {
+            levelIds[i] = i + 1;
+        }
+        mockFirstRound(levelIds);
+        levelsSessionCache.init();
+
+        int threads = 16;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        Set<Long> drawn = ConcurrentHashMap.newKeySet();
+        AtomicInteger duplicates = new AtomicInteger();
+        AtomicInteger exhausted = new AtomicInteger();
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    while (true) {
+                        try {
+                            if (!drawn.add(levelsSessionCache.drawLevelId(1))) {
+                                duplicates.incrementAndGet();
+                            }
+                        } catch (NoLevelsLeftException e) {
+                            exhausted.incrementAndGet();
+                            return null;
+                        }
+                    }
+                }));
+            }
+
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(0, duplicates.get());
+        assertEquals(levelsCount, drawn.size());
+        assertEquals(threads, exhausted.get());
+        assertEquals(0, levelsSessionCache.getRoundSize(1));
+    }
+}
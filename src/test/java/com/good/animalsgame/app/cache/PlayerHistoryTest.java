@@ -0,0 +1,187 @@
+package com.good.animalsgame.app.cache;
+
+import com.good.animalsgame.app.repository.PlayerProgressRepository;
+import com.good.animalsgame.domain.LevelAnswerKey;
+import com.good.animalsgame.domain.PlayerProgress;
+import com.good.animalsgame.domain.PlayerProgressId;
+import com.good.animalsgame.exception.NoLevelsLeftException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PlayerHistoryTest {
+
+    private static final String PLAYER_ID = "8d7a1c52-0f7e-4b5a-9a43-2f1d3f0c9b11";
+
+    private static final PlayerProgressId PROGRESS_ID = new PlayerProgressId(PLAYER_ID, 1);
+
+    @Mock
+    private PlayerProgressRepository playerProgressRepository;
+
+    @Mock
+    private LevelCatalog levelCatalog;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    private PlayerHistory playerHistory;
+
+    @BeforeEach
+    void setUp() {
+        playerHistory = new PlayerHistory(playerProgressRepository, levelCatalog, transactionTemplate, Duration.ofMinutes(10));
+    }
+
+    @Test
+    void testDrawWithoutRepeats() throws Exception {
+        when(levelCatalog.getSnapshot(1)).thenReturn(snapshot(LongStream.rangeClosed(1, 50).toArray()));
+        when(playerProgressRepository.findById(PROGRESS_ID)).thenReturn(Optional.empty());
+
+        Set<Long> drawn = new HashSet<>();
+        for (int i = 0; i < 10; i++) {
+            long[] levelIds = playerHistory.drawLevelIds(PLAYER_ID, 1, 5);
+            assertEquals(5, levelIds.length);
+            Arrays.stream(levelIds).forEach(levelId -> assertTrue(drawn.add(levelId)));
+        }
+
+        assertEquals(50, drawn.size());
+        assertThrows(NoLevelsLeftException.class, () -> playerHistory.drawLevelIds(PLAYER_ID, 1, 1));
+        verify(playerProgressRepository, times(1)).findById(PROGRESS_ID);
+    }
+
+    @Test
+    void testDrawSkipsStoredHistory() throws Exception {
+        when(levelCatalog.getSnapshot(1)).thenReturn(snapshot(1L, 2L, 3L, 4L));
+        when(playerProgressRepository.findById(PROGRESS_ID))
+                .thenReturn(Optional.of(new PlayerProgress(PROGRESS_ID, serialize(RoaringBitmap.bitmapOf(1, 3, 7)))));
+
+        long[] levelIds = playerHistory.drawLevelIds(PLAYER_ID, 1, 10);
+
+        assertEquals(Set.of(2L, 4L), Set.of(levelIds[0], levelIds[1]));
+        assertEquals(2, levelIds.length);
+        assertThrows(NoLevelsLeftException.class, () -> playerHistory.drawLevelIds(PLAYER_ID, 1, 1));
+    }
+
+    @Test
+    void testFlushCreatesHistory() throws Exception {
+        runTransactions();
+        when(levelCatalog.getSnapshot(1)).thenReturn(snapshot(1L, 2L, 3L));
+        when(playerProgressRepository.findById(PROGRESS_ID)).thenReturn(Optional.empty());
+        when(playerProgressRepository.findAllById(List.of(PROGRESS_ID))).thenReturn(List.of());
+
+        playerHistory.drawLevelIds(PLAYER_ID, 1, 3);
+        playerHistory.flush();
+        playerHistory.flush();
+
+        ArgumentCaptor<List<PlayerProgress>> captor = captor();
+        verify(playerProgressRepository, times(1)).saveAll(captor.capture());
+        PlayerProgress saved = captor.getValue().get(0);
+        assertEquals(PROGRESS_ID, saved.getId());
+        assertEquals(RoaringBitmap.bitmapOf(1, 2, 3), deserialize(saved.getSeenLevels()));
+    }
+
+    @Test
+    void testFlushMergesWithStoredHistory() throws Exception {
+        runTransactions();
+        PlayerProgress stored = new PlayerProgress(PROGRESS_ID, serialize(RoaringBitmap.bitmapOf(1)));
+        when(levelCatalog.getSnapshot(1)).thenReturn(snapshot(1L, 2L));
+        when(playerProgressRepository.findById(PROGRESS_ID)).thenReturn(Optional.of(stored));
+        // другой узел успел записать уровень 5
+        PlayerProgress concurrent = new PlayerProgress(PROGRESS_ID, serialize(RoaringBitmap.bitmapOf(1, 5)));
+        when(playerProgressRepository.findAllById(List.of(PROGRESS_ID))).thenReturn(List.of(concurrent));
+
+        assertArrayEquals(new long[]{2L}, playerHistory.drawLevelIds(PLAYER_ID, 1, 1));
+        playerHistory.flush();
+
+        assertEquals(RoaringBitmap.bitmapOf(1, 2, 5), deserialize(concurrent.getSeenLevels()));
+        verify(playerProgressRepository).saveAll(List.of());
+    }
+
+    @Test
+    void testFlushRetriedAfterFailure() throws Exception {
+        when(levelCatalog.getSnapshot(1)).thenReturn(snapshot(1L, 2L));
+        when(playerProgressRepository.findById(PROGRESS_ID)).thenReturn(Optional.empty());
+        doThrow(new IllegalStateException("БД недоступна"))
+                .doAnswer(invocation -> {
+                    invocation.<Consumer<TransactionStatus>>getArgument(0).accept(null);
+                    return null;
+                })
+                .when(transactionTemplate).executeWithoutResult(any());
+        when(playerProgressRepository.findAllById(List.of(PROGRESS_ID))).thenReturn(List.of());
+
+        playerHistory.drawLevelIds(PLAYER_ID, 1, 1);
+        playerHistory.flush();
+        playerHistory.flush();
+
+        verify(transactionTemplate, times(2)).executeWithoutResult(any());
+        verify(playerProgressRepository, times(1)).saveAll(any());
+    }
+
+    @Test
+    void testIdleHistoryEvicted() throws Exception {
+        playerHistory = new PlayerHistory(playerProgressRepository, levelCatalog, transactionTemplate, Duration.ZERO);
+        runTransactions();
+        when(levelCatalog.getSnapshot(1)).thenReturn(snapshot(1L, 2L));
+        when(playerProgressRepository.findById(PROGRESS_ID)).thenReturn(Optional.empty());
+        when(playerProgressRepository.findAllById(List.of(PROGRESS_ID))).thenReturn(List.of());
+
+        playerHistory.drawLevelIds(PLAYER_ID, 1, 1);
+        playerHistory.flush();
+        Thread.sleep(2);
+        playerHistory.flush();
+        playerHistory.drawLevelIds(PLAYER_ID, 1, 1);
+
+        verify(playerProgressRepository, times(2)).findById(PROGRESS_ID);
+    }
+
+    private void runTransactions() {
+        doAnswer(invocation -> {
+            invocation.<Consumer<TransactionStatus>>getArgument(0).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ArgumentCaptor<List<PlayerProgress>> captor() {
+        return ArgumentCaptor.forClass(List.class);
+    }
+
+    private static LevelCatalogSnapshot snapshot(long... levelIds) {
+        return LevelCatalogSnapshot.of(1, Arrays.stream(levelIds)
+                .mapToObj(levelId -> new LevelAnswerKey(levelId, 1L))
+                .toList());
+    }
+
+    private static byte[] serialize(RoaringBitmap bitmap) {
+        ByteBuffer buffer = ByteBuffer.allocate(bitmap.serializedSizeInBytes());
+        bitmap.serialize(buffer);
+        return buffer.array();
+    }
+
+    private static RoaringBitmap deserialize(byte[] bytes) throws IOException {
+        RoaringBitmap bitmap = new RoaringBitmap();
+        bitmap.deserialize(ByteBuffer.wrap(bytes));
+        return bitmap;
+    }
+}
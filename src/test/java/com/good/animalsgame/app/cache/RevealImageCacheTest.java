@@ -0,0 +1,143 @@
+package com.good.animalsgame.app.cache;
+
+import com.good.animalsgame.exception.EntityNotFoundException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RevealImageCacheTest {
+
+    @TempDir
+    private Path root;
+
+    @Test
+    void testRenderedOnce() throws Exception {
+        RevealImageCache cache = createCache(1000, 1000);
+        AtomicInteger renders = new AtomicInteger();
+
+        byte[] first = cache.get("key", () -> render(renders, 10));
+        byte[] second = cache.get("key", () -> render(renders, 10));
+
+        assertSame(first, second);
+        assertEquals(1, renders.get());
+        assertTrue(Files.isRegularFile(root.resolve("key.jpg")));
+    }
+
+    @Test
+    void testMemoryEvictsLeastRecentlyUsed() throws Exception {
+        RevealImageCache cache = createCache(25, 1000);
+        AtomicInteger renders = new AtomicInteger();
+
+        byte[] first = cache.get("first", () -> render(renders, 10));
+        cache.get("second", () -> render(renders, 10));
+        cache.get("first", () -> render(renders, 10));
+        cache.get("third", () -> render(renders, 10));
+
+        // first запрошена позже second, поэтому в памяти осталась она
+        assertSame(first, cache.get("first", () -> render(renders, 10)));
+        // second вытеснена из памяти, но прочитана с диска без отрисовки
+        assertArrayEquals(new byte[10], cache.get("second", () -> render(renders, 10)));
+        assertEquals(3, renders.get());
+    }
+
+    @Test
+    void testDiskEvictsLeastRecentlyUsed() throws Exception {
+        RevealImageCache cache = createCache(0, 25);
+        AtomicInteger renders = new AtomicInteger();
+
+        cache.get("first", () -> render(renders, 10));
+        cache.get("second", () -> render(renders, 10));
+        cache.get("first", () -> render(renders, 10));
+        cache.get("third", () -> render(renders, 10));
+
+        assertTrue(Files.exists(root.resolve("first.jpg")));
+        assertFalse(Files.exists(root.resolve("second.jpg")));
+        assertTrue(Files.exists(root.resolve("third.jpg")));
+        cache.get("second", () -> render(renders, 10));
+        assertEquals(4, renders.get());
+    }
+
+    @Test
+    void testDiskSurvivesRestart() throws Exception {
+        AtomicInteger renders = new AtomicInteger();
+        createCache(1000, 1000).get("key", () -> render(renders, 10));
+        Files.writeString(root.resolve("key123.part"), "недописанный файл");
+
+        RevealImageCache restarted = createCache(1000, 1000);
+
+        assertArrayEquals(new byte[10], restarted.get("key", () -> render(renders, 10)));
+        assertEquals(1, renders.get());
+        assertFalse(Files.exists(root.resolve("key123.part")));
+    }
+
+    @Test
+    void testConcurrentRendersDeduplicated() throws Exception {
+        RevealImageCache cache = createCache(1000, 1000);
+        AtomicInteger renders = new AtomicInteger();
+        CountDownLatch rendering = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<byte[]>> results = new ArrayList<>();
+            results.add(executor.submit(() -> cache.get("key", () -> {
+                rendering.countDown();
+                try {
+                    assertTrue(release.await(5, TimeUnit.SECONDS));
+                } catch (InterruptedException e) {
+                    throw new IOException(e);
+                }
+                return render(renders, 10);
+            })));
+            assertTrue(rendering.await(5, TimeUnit.SECONDS));
+            for (int i = 0; i < 3; i++) {
+                results.add(executor.submit(() -> cache.get("key", () -> render(renders, 10))));
+            }
+            // ждущие потоки не должны отрисовать картинку сами
+            Thread.sleep(100);
+            release.countDown();
+
+            for (Future<byte[]> result : results) {
+                assertEquals(10, result.get(5, TimeUnit.SECONDS).length);
+            }
+            assertEquals(1, renders.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testRenderErrorNotCached() throws Exception {
+        RevealImageCache cache = createCache(1000, 1000);
+        AtomicInteger renders = new AtomicInteger();
+
+        assertThrows(EntityNotFoundException.class, () -> cache.get("key", () -> {
+            throw new EntityNotFoundException("Картинка не найдена");
+        }));
+
+        assertEquals(10, cache.get("key", () -> render(renders, 10)).length);
+        assertThrows(IllegalArgumentException.class, () -> cache.get("../key", () -> render(renders, 10)));
+    }
+
+    private RevealImageCache createCache(long maxMemorySize, long maxDiskSize) throws IOException {
+        return new RevealImageCache(root.toString(), DataSize.ofBytes(maxMemorySize), DataSize.ofBytes(maxDiskSize));
+    }
+
+    private static byte[] render(AtomicInteger renders, int size) {
+        renders.incrementAndGet();
+        return new byte[size];
+    }
+}
@@ -0,0 +1,94 @@
+package com.good.animalsgame.app.cache;
+
+import com.good.animalsgame.domain.LevelAnswerKey;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RoundProgressTest {
+
+    private static LevelCatalogSnapshot snapshot(long... levelIds) {
+        return LevelCatalogSnapshot.of(1, Arrays.stream(levelIds)
+                .mapToObj(levelId -> new LevelAnswerKey(levelId, 1L))
+                .toList());
+    }
+
+    @Test
+    void testDrawWithoutRepeats() {
+        LevelCatalogSnapshot snapshot = snapshot(LongStream.rangeClosed(1, 50).toArray());
+        RoundProgress progress = RoundProgress.start(42L);
+
+        Set<Long> drawn = new HashSet<>();
+        for (int i = 0; i < 10; i++) {
+            RoundProgress.Draw draw = progress.draw(snapshot, 5);
+            assertEquals(5, draw.levelIds().length);
+            Arrays.stream(draw.levelIds()).forEach(levelId -> assertTrue(drawn.add(levelId)));
+            progress = draw.progress();
+        }
+
+        assertEquals(50, drawn.size());
+        assertEquals(0, progress.draw(snapshot, 1).levelIds().length);
+    }
+
+    @Test
+    void testDrawFewerLeft() {
+        RoundProgress.Draw draw = RoundProgress.start(7L).draw(snapshot(1L, 2L, 3L), 10);
+
+        assertEquals(3, draw.levelIds().length);
+        assertArrayEquals(new long[]{1L, 2L, 3L}, draw.progress().seenLevelIds());
+    }
+
+    @Test
+    void testDrawAfterLevelsChanged() {
+        RoundProgress progress = new RoundProgress(3L, new long[]{1L, 2L, 3L});
+
+        RoundProgress.Draw draw = progress.draw(snapshot(2L, 3L, 4L, 5L), 10);
+
+        assertEquals(Set.of(4L, 5L), Set.of(draw.levelIds()[0], draw.levelIds()[1]));
+        assertEquals(List.of(2L, 3L, 4L, 5L), Arrays.stream(draw.progress().seenLevelIds()).boxed().toList());
+    }
+
+    @Test
+    void testDrawResumesFromPosition() {
+        LevelCatalogSnapshot snapshot = snapshot(LongStream.rangeClosed(1, 1000).toArray());
+        RoundProgress progress = RoundProgress.start(11L);
+        for (int i = 0; i < 30; i++) {
+            progress = progress.draw(snapshot, 20).progress();
+        }
+        assertEquals(1000, progress.snapshotSize());
+
+        // продолжение с позиции выдаёт то же, что и проход перестановки с начала
+        RoundProgress.Draw resumed = progress.draw(snapshot, 20);
+        RoundProgress.Draw rescanned = new RoundProgress(11L, progress.seenLevelIds()).draw(snapshot, 20);
+        assertArrayEquals(rescanned.levelIds(), resumed.levelIds());
+        assertArrayEquals(rescanned.progress().seenLevelIds(), resumed.progress().seenLevelIds());
+        assertTrue(isSorted(resumed.progress().seenLevelIds()));
+    }
+
+    @Test
+    void testDrawWrapsAroundToSkippedLevels() {
+        LevelCatalogSnapshot snapshot = snapshot(LongStream.rangeClosed(1, 20).toArray());
+        RoundProgress progress = RoundProgress.start(5L).draw(snapshot, 20).progress();
+
+        // уровень забыт при сжатии прогресса - он выдаётся снова, хотя его позиция уже пройдена
+        long[] forgotten = Arrays.stream(progress.seenLevelIds()).filter(levelId -> levelId != 7L).toArray();
+        RoundProgress.Draw draw = new RoundProgress(5L, forgotten, 20, progress.position()).draw(snapshot, 5);
+
+        assertArrayEquals(new long[]{7L}, draw.levelIds());
+    }
+
+    private static boolean isSorted(long[] levelIds) {
+        for (int i = 1; i < levelIds.length; i++) {
+            if (levelIds[i - 1] >= levelIds[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
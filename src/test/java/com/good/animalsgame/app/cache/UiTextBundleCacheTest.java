@@ -0,0 +1,98 @@
+package com.good.animalsgame.app.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.good.animalsgame.app.event.UiTextsChangedEvent;
+import com.good.animalsgame.app.localization.LanguageFallbackProperties;
+import com.good.animalsgame.app.localization.LanguageFallbacks;
+import com.good.animalsgame.app.repository.UiTextRepository;
+import com.good.animalsgame.domain.Language;
+import com.good.animalsgame.domain.UiTextEntry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UiTextBundleCacheTest {
+
+    private UiTextBundleCache uiTextBundleCache;
+
+    @Mock
+    private UiTextRepository uiTextRepository;
+
+    @BeforeEach
+    void setUp() {
+        uiTextBundleCache = new UiTextBundleCache(uiTextRepository, new ObjectMapper(),
+                new LanguageFallbacks(new LanguageFallbackProperties(Map.of(Language.UKRAINIAN, List.of(Language.ENGLISH)), Language.RUSSIAN)));
+    }
+
+    @Test
+    void testGetBundle() throws IOException {
+        when(uiTextRepository.findAllEntries()).thenReturn(List.of(
+                new UiTextEntry("start", Language.RUSSIAN, "Начать"),
+                new UiTextEntry("exit", Language.RUSSIAN, "Выйти"),
+                new UiTextEntry("start", Language.ENGLISH, "Start")
+        ));
+
+        UiTextBundle russian = uiTextBundleCache.getBundle(Language.RUSSIAN);
+        UiTextBundle english = uiTextBundleCache.getBundle(Language.ENGLISH);
+        UiTextBundle ukrainian = uiTextBundleCache.getBundle(Language.UKRAINIAN);
+
+        assertEquals("{\"exit\":\"Выйти\",\"start\":\"Начать\"}", new String(russian.json(), StandardCharsets.UTF_8));
+        assertArrayEquals(russian.json(), gunzip(russian.gzippedJson()));
+        assertEquals("{\"exit\":\"Выйти\",\"start\":\"Start\"}", new String(english.json(), StandardCharsets.UTF_8));
+        assertEquals("{\"exit\":\"Выйти\",\"start\":\"Start\"}", new String(ukrainian.json(), StandardCharsets.UTF_8));
+        assertTrue(russian.eTag().startsWith("W/\""));
+        assertNotEquals(russian.eTag(), english.eTag());
+        verify(uiTextRepository, times(1)).findAllEntries();
+    }
+
+    @Test
+    void testETagDependsOnlyOnContent() {
+        when(uiTextRepository.findAllEntries())
+                .thenReturn(List.of(new UiTextEntry("start", Language.ENGLISH, "Start")))
+                .thenReturn(List.of(new UiTextEntry("start", Language.ENGLISH, "Start")))
+                .thenReturn(List.of(new UiTextEntry("start", Language.ENGLISH, "Begin")));
+
+        String first = uiTextBundleCache.getBundle(Language.ENGLISH).eTag();
+        uiTextBundleCache.invalidate();
+        String unchanged = uiTextBundleCache.getBundle(Language.ENGLISH).eTag();
+        uiTextBundleCache.invalidate();
+        String changed = uiTextBundleCache.getBundle(Language.ENGLISH).eTag();
+
+        assertEquals(first, unchanged);
+        assertNotEquals(first, changed);
+    }
+
+    @Test
+    void testReloadAfterUiTextsChanged() {
+        when(uiTextRepository.findAllEntries())
+                .thenReturn(List.of(new UiTextEntry("start", Language.ENGLISH, "Start")))
+                .thenReturn(List.of(new UiTextEntry("start", Language.ENGLISH, "Begin")));
+
+        assertEquals("{\"start\":\"Start\"}", new String(uiTextBundleCache.getBundle(Language.ENGLISH).json(), StandardCharsets.UTF_8));
+
+        uiTextBundleCache.onUiTextsChanged(new UiTextsChangedEvent(1L));
+
+        assertEquals("{\"start\":\"Begin\"}", new String(uiTextBundleCache.getBundle(Language.ENGLISH).json(), StandardCharsets.UTF_8));
+        verify(uiTextRepository, times(2)).findAllEntries();
+    }
+
+    private static byte[] gunzip(byte[] content) throws IOException {
+        try (InputStream input = new GZIPInputStream(new ByteArrayInputStream(content))) {
+            return input.readAllBytes();
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.good.animalsgame.app.importing;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.good.animalsgame.domain.Coordinates;
+import com.good.animalsgame.exception.IncorrectArchiveException;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class LevelManifestTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void testJsonManifest() throws Exception {
+        String json = "[{\"round\": 2, \"image\": \"a.png\", \"animalNames\": [\"Лев\", \"Тигр\"], \"correctAnimalName\": \"Лев\", "
+                + "\"animalNameInQuestion\": \"Тигр\", \"animalCoordinates\": {\"x\": 1, \"y\": 2, \"width\": 3, \"height\": 4}}, "
+                + "{\"round\": 1, \"image\": \"b.png\"}]";
+
+        try (LevelManifest manifest = open(LevelManifest.JSON_NAME, json)) {
+            LevelManifestEntry first = manifest.next();
+            assertEquals(new LevelManifestEntry(1, 2, "a.png", List.of("Лев", "Тигр"), "Лев", "Тигр", new Coordinates(1, 2, 3, 4)), first);
+
+            LevelManifestEntry second = manifest.next();
+            assertEquals(2, second.number());
+            assertNull(second.animalCoordinates());
+
+            assertNull(manifest.next());
+        }
+    }
+
+    @Test
+    void testJsonManifestNotArray() throws Exception {
+        try (LevelManifest manifest = open(LevelManifest.JSON_NAME, "{\"round\": 1}")) {
+            assertThrows(IncorrectArchiveException.class, manifest::next);
+        }
+    }
+
+    @Test
+    void testCsvManifest() throws Exception {
+        String csv = "\uFEFFimage,round,correctAnimalName,animalNames,x,y,width,height\n"
+                + "\"a,b.png\",1,Лев,Лев | Тигр|Зебра|Жираф,1,2,3,4\n"
+                + "\n"
+                + "\"c\"\"d.png\",1,Лев,,,,,\n";
+
+        try (LevelManifest manifest = open(LevelManifest.CSV_NAME, csv)) {
+            LevelManifestEntry first = manifest.next();
+            assertEquals(new LevelManifestEntry(1, 1, "a,b.png", List.of("Лев", "Тигр", "Зебра", "Жираф"), "Лев", null, new Coordinates(1, 2, 3, 4)), first);
+
+            LevelManifestEntry second = manifest.next();
+            assertEquals("c\"d.png", second.image());
+            assertEquals(List.of(), second.animalNames());
+            assertNull(second.animalCoordinates());
+
+            assertNull(manifest.next());
+        }
+    }
+
+    @Test
+    void testCsvManifestWithoutRequiredColumn() throws Exception {
+        try (LevelManifest manifest = open(LevelManifest.CSV_NAME, "round,image\n1,a.png\n")) {
+            assertThrows(IncorrectArchiveException.class, manifest::next);
+        }
+    }
+
+    @Test
+    void testCsvManifestWithNotNumber() throws Exception {
+        String csv = "round,image,animalNames,correctAnimalName,x,y,width,height\n"
+                + "один,a.png,Лев,Лев,1,2,3,4\n";
+
+        try (LevelManifest manifest = open(LevelManifest.CSV_NAME, csv)) {
+            assertThrows(IncorrectArchiveException.class, manifest::next);
+        }
+    }
+
+    private LevelManifest open(String name, String content) throws IOException {
+        return LevelManifest.open(name, new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)), objectMapper);
+    }
+}
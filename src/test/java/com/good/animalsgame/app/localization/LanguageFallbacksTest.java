@@ -0,0 +1,61 @@
+package com.good.animalsgame.app.localization;
+
+import com.good.animalsgame.domain.Language;
+import org.junit.jupiter.api.Test;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LanguageFallbacksTest {
+
+    private final LanguageFallbacks languageFallbacks = new LanguageFallbacks(new LanguageFallbackProperties(Map.of(
+            Language.BRAZILIAN_PORTUGUESE, List.of(Language.PORTUGUESE),
+            Language.PORTUGUESE, List.of(Language.ENGLISH),
+            Language.UKRAINIAN, List.of(Language.RUSSIAN),
+            Language.RUSSIAN, List.of(Language.UKRAINIAN)
+    ), Language.RUSSIAN));
+
+    @Test
+    void testGetChain() {
+        List<Language> chain = languageFallbacks.getChain(Language.BRAZILIAN_PORTUGUESE);
+
+        assertEquals(List.of(Language.BRAZILIAN_PORTUGUESE, Language.PORTUGUESE, Language.ENGLISH, Language.RUSSIAN, Language.UKRAINIAN),
+                chain.subList(0, 5));
+        assertEquals(Language.values().length, chain.size());
+    }
+
+    @Test
+    void testGetChainCycle() {
+        assertEquals(List.of(Language.UKRAINIAN, Language.RUSSIAN, Language.ENGLISH),
+                languageFallbacks.getChain(Language.UKRAINIAN).subList(0, 3));
+        assertEquals(List.of(Language.ITALIAN, Language.RUSSIAN, Language.UKRAINIAN, Language.ENGLISH),
+                languageFallbacks.getChain(Language.ITALIAN).subList(0, 4));
+    }
+
+    @Test
+    void testResolve() {
+        Map<Language, String> values = new EnumMap<>(Map.of(Language.ENGLISH, "Lion", Language.GERMAN, "Löwe"));
+
+        assertEquals(Language.ENGLISH, languageFallbacks.resolve(values, Language.BRAZILIAN_PORTUGUESE));
+        assertEquals(Language.GERMAN, languageFallbacks.resolve(values, Language.GERMAN));
+        assertEquals(Language.ENGLISH, languageFallbacks.resolve(values, Language.ITALIAN));
+        assertNull(languageFallbacks.resolve(Map.of(), Language.ITALIAN));
+    }
+
+    @Test
+    void testFlatten() {
+        Map<Language, String[]> values = new EnumMap<>(Language.class);
+        values.put(Language.RUSSIAN, new String[]{"Лев", null});
+        values.put(Language.PORTUGUESE, new String[]{null, "Tigre"});
+
+        Map<Language, String[]> flattened = languageFallbacks.flatten(values, 2);
+
+        assertArrayEquals(new String[]{"Лев", "Tigre"}, flattened.get(Language.BRAZILIAN_PORTUGUESE));
+        assertArrayEquals(new String[]{"Лев", "Tigre"}, flattened.get(Language.UKRAINIAN));
+        assertArrayEquals(new String[]{"Лев", "Tigre"}, flattened.get(Language.RUSSIAN));
+        assertEquals(Language.values().length, flattened.size());
+    }
+}
@@ -0,0 +1,85 @@
+package com.good.animalsgame.app.service;
+
+import com.good.animalsgame.app.repository.AnimalRepository;
+import com.good.animalsgame.domain.Animal;
+import com.good.animalsgame.domain.Language;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class AnimalNameKeyBackfillTest {
+
+    @Mock
+    private AnimalRepository animalRepository;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @InjectMocks
+    private AnimalNameKeyBackfill animalNameKeyBackfill;
+
+    @Test
+    void testFillBatch() {
+        Animal lion = Animal.builder()
+                .id(1L)
+                .names(Map.of(Language.RUSSIAN, "Лев", Language.ENGLISH, "Lion"))
+                .build();
+        Animal panda = Animal.builder()
+                .id(2L)
+                .names(Map.of(Language.ENGLISH, "Panda", Language.ITALIAN, "Panda"))
+                .build();
+
+        when(animalRepository.findWithoutNameKeys(eq(0L), any(Pageable.class))).thenReturn(List.of(lion, panda));
+        when(animalRepository.findExistingNameKeys(anyCollection())).thenReturn(List.of());
+
+        AnimalNameKeyBackfill.BatchResult result = animalNameKeyBackfill.fillBatch(0L);
+
+        assertEquals(new AnimalNameKeyBackfill.BatchResult(2, 2L), result);
+        assertEquals(Set.of("лев", "lion"), lion.getNameKeys());
+        assertEquals(Set.of("panda"), panda.getNameKeys());
+    }
+
+    @Test
+    void testFillBatchSkipsTakenNames() {
+        Animal lion = Animal.builder()
+                .id(1L)
+                .names(Map.of(Language.RUSSIAN, "Лев", Language.ENGLISH, "Lion"))
+                .build();
+        Animal lionDuplicate = Animal.builder()
+                .id(2L)
+                .names(Map.of(Language.RUSSIAN, "лев"))
+                .build();
+
+        when(animalRepository.findWithoutNameKeys(eq(0L), any(Pageable.class))).thenReturn(List.of(lion, lionDuplicate));
+        when(animalRepository.findExistingNameKeys(anyCollection())).thenReturn(List.of("lion"));
+
+        AnimalNameKeyBackfill.BatchResult result = animalNameKeyBackfill.fillBatch(0L);
+
+        assertEquals(new AnimalNameKeyBackfill.BatchResult(1, 2L), result);
+        assertEquals(Set.of("лев"), lion.getNameKeys());
+        assertTrue(lionDuplicate.getNameKeys().isEmpty());
+    }
+
+    @Test
+    void testFillBatchEmpty() {
+        when(animalRepository.findWithoutNameKeys(eq(5L), any(Pageable.class))).thenReturn(List.of());
+
+        assertEquals(new AnimalNameKeyBackfill.BatchResult(0, 0), animalNameKeyBackfill.fillBatch(5L));
+    }
+}
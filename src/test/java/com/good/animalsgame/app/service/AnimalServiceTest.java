@@ -1,5 +1,9 @@
 package com.good.animalsgame.app.service;
 
+import com.good.animalsgame.app.cache.AnimalNameDictionary;
+import com.good.animalsgame.app.event.AnimalsChangedEvent;
+import com.good.animalsgame.app.localization.LanguageFallbackProperties;
+import com.good.animalsgame.app.localization.LanguageFallbacks;
 import com.good.animalsgame.app.repository.AnimalRepository;
 import com.good.animalsgame.domain.Animal;
 import com.good.animalsgame.domain.Language;
@@ -10,7 +14,9 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 
 import java.util.*;
 
@@ -23,12 +29,22 @@ class AnimalServiceTest {
     @Mock
     private AnimalRepository animalRepository;
 
+    @Mock
+    private AnimalNameDictionary animalNameDictionary;
+
+    @Spy
+    private LanguageFallbacks languageFallbacks =
+            new LanguageFallbacks(new LanguageFallbackProperties(Map.of(Language.UKRAINIAN, List.of(Language.ENGLISH)), Language.RUSSIAN));
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     @InjectMocks
     private AnimalService animalService;
 
     @Test
     void testCreateAnimal() throws EntityDuplicateException {
-        when(animalRepository.findByName("Лев")).thenReturn(Optional.empty());
+        when(animalRepository.findExistingNameKeys(Set.of("лев"))).thenReturn(List.of());
 
         Animal animal = Animal.builder()
                 .id(1L)
@@ -39,6 +55,7 @@ class AnimalServiceTest {
         animalService.createAnimal(animal);
 
         verify(animalRepository).save(animal);
+        verify(eventPublisher).publishEvent(new AnimalsChangedEvent(1L));
     }
 
     @Test
@@ -49,13 +66,7 @@ class AnimalServiceTest {
                 .descriptions(Map.of(Language.RUSSIAN, "Большая кошка"))
                 .build();
 
-        Animal animalInBase = Animal.builder()
-                .id(2L)
-                .names(Map.of(Language.RUSSIAN, "Лев", Language.ENGLISH, "Lion"))
-                .descriptions(Map.of(Language.RUSSIAN, "Большая кошка"))
-                .build();
-
-        when(animalRepository.findByName("Лев")).thenReturn(Optional.of(animalInBase));
+        when(animalRepository.findExistingNameKeys(Set.of("лев"))).thenReturn(List.of("лев"));
 
         Exception e = assertThrows(EntityDuplicateException.class, () -> animalService.createAnimal(animal));
 
@@ -85,13 +96,30 @@ class AnimalServiceTest {
                 .descriptions(Map.of(Language.RUSSIAN, "Большая кошка", Language.ENGLISH, "A big cat"))
                 .build();
 
-        when(animalRepository.findByName("Лев")).thenReturn(Optional.of(animal));
+        when(animalRepository.findByNameKey("лев")).thenReturn(Optional.of(animal));
 
-        Animal result = animalService.getAnimalByName("Лев");
+        Animal result = animalService.getAnimalByName(" ЛЕВ ");
 
         assertEquals("Лев", result.getNames().get(Language.RUSSIAN));
     }
 
+    @Test
+    void testGetAnimalIdByName() throws EntityNotFoundException {
+        when(animalNameDictionary.findAnimalId("Лев")).thenReturn(1L);
+
+        assertEquals(1L, animalService.getAnimalIdByName("Лев"));
+        verifyNoInteractions(animalRepository);
+    }
+
+    @Test
+    void testGetAnimalIdByNameNotFound() {
+        when(animalNameDictionary.findAnimalId("Лев")).thenReturn(null);
+
+        Exception e = assertThrows(EntityNotFoundException.class, () -> animalService.getAnimalIdByName("Лев"));
+
+        assertEquals("Животное с названием Лев не найдено", e.getMessage());
+    }
+
     @Test
     void testGetAnimalByIdNotFound() {
         when(animalRepository.findById(1L)).thenReturn(Optional.empty());
@@ -103,7 +131,7 @@ class AnimalServiceTest {
 
     @Test
     void testGetAnimalByNameNotFound() {
-        when(animalRepository.findByName("Лев")).thenReturn(Optional.empty());
+        when(animalRepository.findByNameKey("лев")).thenReturn(Optional.empty());
 
         Exception e = assertThrows(EntityNotFoundException.class, () -> animalService.getAnimalByName("Лев"));
 
@@ -117,6 +145,7 @@ class AnimalServiceTest {
         animalService.deleteAnimalById(1L);
 
         verify(animalRepository).deleteById(1L);
+        verify(eventPublisher).publishEvent(new AnimalsChangedEvent(1L));
     }
 
     @Test
@@ -151,7 +180,7 @@ class AnimalServiceTest {
     }
 
     @Test
-    void testGetAnimalSingleLanguageDataExists() {
+    void testGetAnimalSingleLanguageDataFallback() throws EntityNotFoundException, LanguageException {
         Animal animal = Animal.builder()
                 .id(1L)
                 .names(Map.of(Language.RUSSIAN, "Лев", Language.ENGLISH, "Lion"))
@@ -160,11 +189,84 @@ class AnimalServiceTest {
 
         when(animalRepository.findById(1L)).thenReturn(Optional.of(animal));
 
+        AnimalSingleLanguageData ukrainian = animalService.getAnimalSingleLanguageData(1L, "UKRAINIAN");
+        AnimalSingleLanguageData italian = animalService.getAnimalSingleLanguageData(1L, "ITALIAN");
+
+        assertEquals("Lion", ukrainian.name());
+        assertEquals("A big cat", ukrainian.description());
+        assertEquals("Лев", italian.name());
+        assertEquals("Большая кошка", italian.description());
+    }
+
+    @Test
+    void testGetAnimalSingleLanguageDataNoNames() {
+        Animal animal = Animal.builder()
+                .id(1L)
+                .names(Map.of())
+                .descriptions(Map.of())
+                .build();
+
+        when(animalRepository.findById(1L)).thenReturn(Optional.of(animal));
+
         Exception e = assertThrows(LanguageException.class, () -> animalService.getAnimalSingleLanguageData(1L, "ITALIAN"));
 
         assertEquals("Язык ITALIAN отсутствует у животного!", e.getMessage());
     }
 
+    @Test
+    void testGetAnimalName() throws EntityNotFoundException, LanguageException {
+        when(animalNameDictionary.getName(1L, Language.ENGLISH)).thenReturn("Lion");
+
+        assertEquals("Lion", animalService.getAnimalName(1L, "ENGLISH"));
+        verifyNoInteractions(animalRepository);
+    }
+
+    @Test
+    void testGetAnimalNameLanguageMissing() {
+        when(animalNameDictionary.getName(1L, Language.ITALIAN)).thenReturn(null);
+        when(animalNameDictionary.contains(1L)).thenReturn(true);
+
+        Exception e = assertThrows(LanguageException.class, () -> animalService.getAnimalName(1L, "ITALIAN"));
+
+        assertEquals("Язык ITALIAN отсутствует у животного!", e.getMessage());
+    }
+
+    @Test
+    void testGetAnimalNameAnimalMissing() {
+        when(animalNameDictionary.getName(1L, Language.ITALIAN)).thenReturn(null);
+        when(animalNameDictionary.contains(1L)).thenReturn(false);
+
+        Exception e = assertThrows(EntityNotFoundException.class, () -> animalService.getAnimalName(1L, "ITALIAN"));
+
+        assertEquals("Животное с id 1 не найдено", e.getMessage());
+    }
+
+    @Test
+    void testGetAnimalNames() throws EntityNotFoundException, LanguageException {
+        when(animalNameDictionary.getNames(Set.of(1L, 2L), Language.ENGLISH)).thenReturn(Map.of(1L, "Lion", 2L, "Tiger"));
+
+        assertEquals(Map.of(1L, "Lion", 2L, "Tiger"), animalService.getAnimalNames(Set.of(1L, 2L), "ENGLISH"));
+        verifyNoInteractions(animalRepository);
+    }
+
+    @Test
+    void testGetAnimalNamesAnimalMissing() {
+        when(animalNameDictionary.getNames(Set.of(1L, 2L), Language.ENGLISH)).thenReturn(Map.of(1L, "Lion"));
+        when(animalNameDictionary.contains(2L)).thenReturn(false);
+
+        Exception e = assertThrows(EntityNotFoundException.class, () -> animalService.getAnimalNames(Set.of(1L, 2L), "ENGLISH"));
+
+        assertEquals("Животное с id 2 не найдено", e.getMessage());
+    }
+
+    @Test
+    void testGetAnimalNameInvalidLanguage() {
+        Exception e = assertThrows(LanguageException.class, () -> animalService.getAnimalName(1L, "INVALID"));
+
+        assertEquals("Нет языка INVALID", e.getMessage());
+        verifyNoInteractions(animalNameDictionary);
+    }
+
     @Test
     void testAddLanguage() throws EntityNotFoundException, LanguageException {
         Animal animal = Animal.builder()
@@ -180,7 +282,9 @@ class AnimalServiceTest {
 
         assertEquals("Lion", animal.getNames().get(Language.ENGLISH));
         assertEquals("Big cat", animal.getDescriptions().get(Language.ENGLISH));
+        assertEquals(Set.of("лев", "lion"), animal.getNameKeys());
         verify(animalRepository).save(animal);
+        verify(eventPublisher).publishEvent(new AnimalsChangedEvent(1L));
     }
 
     @Test
@@ -215,6 +319,24 @@ class AnimalServiceTest {
         assertEquals("Язык RUSSIAN уже есть!", e.getMessage());
     }
 
+    @Test
+    void testAddLanguageNameTakenByOtherAnimal() {
+        Animal animal = Animal.builder()
+                .id(1L)
+                .names(new HashMap<>(Map.of(Language.RUSSIAN, "Лев")))
+                .descriptions(new HashMap<>(Map.of(Language.RUSSIAN, "Большая кошка")))
+                .build();
+
+        when(animalRepository.findById(1L)).thenReturn(Optional.of(animal));
+        when(animalRepository.findIdByNameKey("tiger")).thenReturn(Optional.of(2L));
+
+        AnimalSingleLanguageData animalSingleLanguageData = new AnimalSingleLanguageData("Tiger", "Big cat");
+        Exception e = assertThrows(LanguageException.class, () -> animalService.addLanguage(1L, "ENGLISH", animalSingleLanguageData));
+
+        assertEquals("Название Tiger уже есть у другого животного!", e.getMessage());
+        verify(animalRepository, never()).save(animal);
+    }
+
     @Test
     void testRemoveLanguage() throws EntityNotFoundException, LanguageException {
         Animal animal = Animal.builder()
@@ -229,7 +351,9 @@ class AnimalServiceTest {
 
         assertFalse(animal.getNames().containsKey(Language.ENGLISH));
         assertFalse(animal.getDescriptions().containsKey(Language.ENGLISH));
+        assertEquals(Set.of("лев"), animal.getNameKeys());
         verify(animalRepository).save(animal);
+        verify(eventPublisher).publishEvent(new AnimalsChangedEvent(1L));
     }
 
     @Test
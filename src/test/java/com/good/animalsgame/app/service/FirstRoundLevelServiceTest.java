@@ -1,17 +1,26 @@
 package com.good.animalsgame.app.service;
 
-import com.good.animalsgame.app.cache.LevelsSessionCache;
+import com.good.animalsgame.app.cache.LevelCache;
+import com.good.animalsgame.app.cache.LevelCatalog;
+import com.good.animalsgame.app.cache.LevelCatalogSnapshot;
+import com.good.animalsgame.app.cache.LevelProgress;
+import com.good.animalsgame.app.event.LevelsChangedEvent;
 import com.good.animalsgame.app.repository.FirstRoundLevelRepository;
 import com.good.animalsgame.domain.Animal;
+import com.good.animalsgame.domain.Coordinates;
 import com.good.animalsgame.domain.FirstRoundLevel;
 import com.good.animalsgame.domain.Language;
+import com.good.animalsgame.domain.LevelAnswerKey;
+import com.good.animalsgame.domain.LevelImage;
 import com.good.animalsgame.domain.SecondRoundLevel;
 import com.good.animalsgame.exception.*;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 
 import java.util.*;
 
@@ -22,7 +31,13 @@ import static org.mockito.Mockito.*;
 class FirstRoundLevelServiceTest {
 
     @Mock
-    private LevelsSessionCache levelsSessionCache;
+    private LevelProgress levelProgress;
+
+    @Mock
+    private LevelCatalog levelCatalog;
+
+    @Spy
+    private LevelCache levelCache = new LevelCache(false, 0);
 
     @Mock
     private FirstRoundLevelRepository levelRepository;
@@ -30,6 +45,9 @@ class FirstRoundLevelServiceTest {
     @Mock
     private AnimalService animalService;
 
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     @InjectMocks
     private FirstRoundLevelService firstRoundLevelService;
 
@@ -69,6 +87,50 @@ class FirstRoundLevelServiceTest {
 
         assertNotNull(result);
         verify(levelRepository).save(level);
+        verify(eventPublisher).publishEvent(new LevelsChangedEvent(1));
+    }
+
+    @Test
+    void testCreateLevelWithCoordinatesInsideImage() throws IncorrectLevelException {
+        FirstRoundLevel level = FirstRoundLevel.builder()
+                .animals(Set.of())
+                .imageWidth(800)
+                .imageHeight(600)
+                .animalCoordinates(new Coordinates(700, 500, 100, 100))
+                .build();
+
+        when(levelRepository.save(level)).thenReturn(level);
+
+        assertNotNull(firstRoundLevelService.createLevel(level));
+        verify(levelRepository).save(level);
+    }
+
+    @Test
+    void testCreateLevelWithCoordinatesOutsideImage() {
+        FirstRoundLevel level = FirstRoundLevel.builder()
+                .animals(Set.of())
+                .imageWidth(800)
+                .imageHeight(600)
+                .animalCoordinates(new Coordinates(750, 500, 100, 100))
+                .build();
+
+        Exception e = assertThrows(IncorrectLevelException.class,
+                () -> firstRoundLevelService.createLevel(level));
+
+        assertEquals("Координаты животного выходят за пределы картинки 800x600", e.getMessage());
+        verify(levelRepository, never()).save(any());
+    }
+
+    @Test
+    void testCreateLevelWithEmptyArea() {
+        FirstRoundLevel level = FirstRoundLevel.builder()
+                .animals(Set.of())
+                .imageWidth(800)
+                .imageHeight(600)
+                .animalCoordinates(new Coordinates(10, 10, 0, 100))
+                .build();
+
+        assertThrows(IncorrectLevelException.class, () -> firstRoundLevelService.createLevel(level));
     }
 
     @Test
@@ -144,11 +206,41 @@ class FirstRoundLevelServiceTest {
         assertEquals("Верный ответ должен содержаться в списке!", e.getMessage());
     }
 
+    @Test
+    void testCreateLevels() throws IncorrectLevelException {
+        List<FirstRoundLevel> levels = List.of(
+                FirstRoundLevel.builder().animals(Set.of()).build(),
+                FirstRoundLevel.builder().animals(Set.of()).build()
+        );
+
+        when(levelRepository.saveAll(levels)).thenReturn(levels);
+
+        assertEquals(levels, firstRoundLevelService.createLevels(levels));
+        verify(eventPublisher, times(1)).publishEvent(new LevelsChangedEvent(1));
+    }
+
+    @Test
+    void testCreateLevelsWithIncorrectLevel() {
+        List<FirstRoundLevel> levels = List.of(
+                FirstRoundLevel.builder().animals(Set.of()).build(),
+                FirstRoundLevel.builder()
+                        .animals(Set.of())
+                        .imageWidth(800)
+                        .imageHeight(600)
+                        .animalCoordinates(new Coordinates(750, 500, 100, 100))
+                        .build()
+        );
+
+        assertThrows(IncorrectLevelException.class, () -> firstRoundLevelService.createLevels(levels));
+        verify(levelRepository, never()).saveAll(any());
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
     @Test
     void testGetLevelById() throws EntityNotFoundException {
         Long levelId = 1L;
         FirstRoundLevel level = new FirstRoundLevel();
-        when(levelRepository.findById(levelId)).thenReturn(Optional.of(level));
+        when(levelRepository.findWithAnimalsById(levelId)).thenReturn(Optional.of(level));
 
         FirstRoundLevel result = firstRoundLevelService.getLevelById(levelId);
 
@@ -158,13 +250,42 @@ class FirstRoundLevelServiceTest {
     @Test
     void testGetLevelByIdNotFound() {
         Long levelId = 1L;
-        when(levelRepository.findById(levelId)).thenReturn(Optional.empty());
+        when(levelRepository.findWithAnimalsById(levelId)).thenReturn(Optional.empty());
 
         Exception e = assertThrows(EntityNotFoundException.class, () -> firstRoundLevelService.getLevelById(levelId));
 
         assertEquals("Уровень с id 1 не найден", e.getMessage());
     }
 
+    @Test
+    void testGetLevelImage() throws EntityNotFoundException {
+        Long levelId = 1L;
+        LevelImage levelImage = new LevelImage("a".repeat(64), "image/png", 3L, 800);
+        when(levelRepository.findLevelImageById(levelId)).thenReturn(Optional.of(levelImage));
+
+        assertEquals(levelImage, firstRoundLevelService.getLevelImage(levelId));
+    }
+
+    @Test
+    void testGetLevelImageNotFound() {
+        Long levelId = 1L;
+        when(levelRepository.findLevelImageById(levelId)).thenReturn(Optional.empty());
+
+        Exception e = assertThrows(EntityNotFoundException.class, () -> firstRoundLevelService.getLevelImage(levelId));
+
+        assertEquals("Уровень с id 1 не найден", e.getMessage());
+    }
+
+    @Test
+    void testGetLevelImageNotMigrated() {
+        Long levelId = 1L;
+        when(levelRepository.findLevelImageById(levelId)).thenReturn(Optional.of(new LevelImage(null, null, null, null)));
+
+        Exception e = assertThrows(EntityNotFoundException.class, () -> firstRoundLevelService.getLevelImage(levelId));
+
+        assertEquals("Картинка уровня с id 1 ещё не перенесена в хранилище", e.getMessage());
+    }
+
     @Test
     void testDeleteLevel() throws EntityNotFoundException {
         Long levelId = 1L;
@@ -173,28 +294,42 @@ class FirstRoundLevelServiceTest {
         firstRoundLevelService.deleteLevel(levelId);
 
         verify(levelRepository).deleteById(levelId);
+        verify(eventPublisher).publishEvent(new LevelsChangedEvent(1));
     }
 
     @Test
-    void testGetRandomLevel() throws EntityNotFoundException, NoSuchRoundException, NoLevelsLeftException {
+    void testGetRandomLevel() throws NoSuchRoundException, NoLevelsLeftException {
         int round = 1;
         Long levelId = 1L;
         FirstRoundLevel level = new FirstRoundLevel();
 
-        when(levelsSessionCache.getRoundSize(round)).thenReturn(1);
-        when(levelsSessionCache.getLevelId(round, 0)).thenReturn(levelId);
-        when(levelRepository.findById(levelId)).thenReturn(Optional.of(level));
+        when(levelProgress.drawLevelId(round)).thenReturn(levelId);
+        when(levelRepository.findWithAnimalsById(levelId)).thenReturn(Optional.of(level));
 
         FirstRoundLevel result = firstRoundLevelService.getRandomLevel(round);
 
         assertNotNull(result);
-        verify(levelsSessionCache).removeLevel(round, 0);
     }
 
     @Test
-    void testGetRandomLevelNoLevelsLeft() throws NoSuchRoundException {
+    void testGetRandomLevelSkipsDeletedLevel() throws NoSuchRoundException, NoLevelsLeftException {
         int round = 1;
-        when(levelsSessionCache.getRoundSize(round)).thenReturn(0);
+        Long deletedLevelId = 1L;
+        Long levelId = 2L;
+        FirstRoundLevel level = new FirstRoundLevel();
+
+        when(levelProgress.drawLevelId(round)).thenReturn(deletedLevelId, levelId);
+        when(levelRepository.findWithAnimalsById(deletedLevelId)).thenReturn(Optional.empty());
+        when(levelRepository.findWithAnimalsById(levelId)).thenReturn(Optional.of(level));
+
+        assertSame(level, firstRoundLevelService.getRandomLevel(round));
+    }
+
+    @Test
+    void testGetRandomLevelNoLevelsLeft() throws NoSuchRoundException, NoLevelsLeftException {
+        int round = 1;
+        when(levelProgress.drawLevelId(round))
+                .thenThrow(new NoLevelsLeftException("Уровней в раунде 1 больше нет"));
 
         Exception e = assertThrows(NoLevelsLeftException.class, () -> firstRoundLevelService.getRandomLevel(round));
 
@@ -202,27 +337,83 @@ class FirstRoundLevelServiceTest {
     }
 
     @Test
-    void testIsCorrectAnswer() throws EntityNotFoundException {
+    void testDealLevels() throws NoSuchRoundException, NoLevelsLeftException {
+        FirstRoundLevel level1 = FirstRoundLevel.builder().id(1L).build();
+        FirstRoundLevel level2 = FirstRoundLevel.builder().id(2L).build();
+        FirstRoundLevel level3 = FirstRoundLevel.builder().id(3L).build();
+
+        when(levelProgress.drawLevelIds(1, 3)).thenReturn(new long[]{3L, 1L, 2L});
+        when(levelRepository.findWithAnimalsByIdIn(List.of(3L, 1L, 2L))).thenReturn(List.of(level1, level2, level3));
+
+        assertEquals(List.of(level3, level1, level2), firstRoundLevelService.dealLevels(1, 3));
+        verify(levelRepository, never()).findWithAnimalsById(anyLong());
+    }
+
+    @Test
+    void testDealLevelsSkipsDeletedLevel() throws NoSuchRoundException, NoLevelsLeftException {
+        FirstRoundLevel level1 = FirstRoundLevel.builder().id(1L).build();
+        FirstRoundLevel level3 = FirstRoundLevel.builder().id(3L).build();
+
+        when(levelProgress.drawLevelIds(1, 2)).thenReturn(new long[]{1L, 2L});
+        when(levelProgress.drawLevelIds(1, 1)).thenReturn(new long[]{3L});
+        when(levelRepository.findWithAnimalsByIdIn(List.of(1L, 2L))).thenReturn(List.of(level1));
+        when(levelRepository.findWithAnimalsByIdIn(List.of(3L))).thenReturn(List.of(level3));
+
+        assertEquals(List.of(level1, level3), firstRoundLevelService.dealLevels(1, 2));
+    }
+
+    @Test
+    void testDealLevelsFewerLeft() throws NoSuchRoundException, NoLevelsLeftException {
+        FirstRoundLevel level1 = FirstRoundLevel.builder().id(1L).build();
+
+        when(levelProgress.drawLevelIds(1, 2)).thenReturn(new long[]{1L, 2L});
+        when(levelProgress.drawLevelIds(1, 1)).thenThrow(new NoLevelsLeftException("Уровней в раунде 1 больше нет"));
+        when(levelRepository.findWithAnimalsByIdIn(List.of(1L, 2L))).thenReturn(List.of(level1));
+
+        assertEquals(List.of(level1), firstRoundLevelService.dealLevels(1, 2));
+    }
+
+    @Test
+    void testDealLevelsNoLevelsLeft() throws NoSuchRoundException, NoLevelsLeftException {
+        when(levelProgress.drawLevelIds(1, 5)).thenThrow(new NoLevelsLeftException("Уровней в раунде 1 больше нет"));
+
+        Exception e = assertThrows(NoLevelsLeftException.class, () -> firstRoundLevelService.dealLevels(1, 5));
+
+        assertEquals("Уровней в раунде 1 больше нет", e.getMessage());
+    }
+
+    @Test
+    void testDealLevelsInvalidCount() {
+        Exception e = assertThrows(IllegalArgumentException.class, () -> firstRoundLevelService.dealLevels(1, 21));
+
+        assertEquals("Количество уровней должно быть от 1 до 20", e.getMessage());
+        verifyNoInteractions(levelProgress);
+    }
+
+    @Test
+    void testIsCorrectAnswer() throws EntityNotFoundException, NoSuchRoundException {
         Long levelId = 1L;
         String userAnswer = "Лев";
-        Animal correctAnimal = Animal.builder()
-                .id(1L)
-                .names(Map.of(Language.RUSSIAN, "Лев"))
-                .descriptions(Map.of(Language.RUSSIAN, "Большая кошка"))
-                .build();
-
-        FirstRoundLevel level = FirstRoundLevel.builder()
-                .correctAnimal(correctAnimal)
-                .build();
 
-        when(levelRepository.findById(levelId)).thenReturn(Optional.of(level));
-        when(animalService.getAnimalByName(userAnswer)).thenReturn(correctAnimal);
+        when(levelCatalog.getSnapshot(1)).thenReturn(LevelCatalogSnapshot.of(1, List.of(new LevelAnswerKey(levelId, 1L))));
+        when(animalService.getAnimalIdByName(userAnswer)).thenReturn(1L);
 
         assertTrue(firstRoundLevelService.isCorrectAnswer(levelId, userAnswer));
     }
 
     @Test
-    void testGetLevelCorrectAnimal() throws EntityNotFoundException {
+    void testIsCorrectAnswerWrongAnimal() throws EntityNotFoundException, NoSuchRoundException {
+        Long levelId = 1L;
+        String userAnswer = "Тигр";
+
+        when(levelCatalog.getSnapshot(1)).thenReturn(LevelCatalogSnapshot.of(1, List.of(new LevelAnswerKey(levelId, 1L))));
+        when(animalService.getAnimalIdByName(userAnswer)).thenReturn(2L);
+
+        assertFalse(firstRoundLevelService.isCorrectAnswer(levelId, userAnswer));
+    }
+
+    @Test
+    void testGetLevelCorrectAnimal() throws EntityNotFoundException, NoSuchRoundException {
         Long levelId = 1L;
         Animal correctAnimal = Animal.builder()
                 .id(1L)
@@ -230,14 +421,21 @@ class FirstRoundLevelServiceTest {
                 .descriptions(Map.of(Language.RUSSIAN, "Большая кошка"))
                 .build();
 
-        FirstRoundLevel level = FirstRoundLevel.builder()
-                .correctAnimal(correctAnimal)
-                .build();
-
-        when(levelRepository.findById(levelId)).thenReturn(Optional.of(level));
+        when(levelCatalog.getSnapshot(1)).thenReturn(LevelCatalogSnapshot.of(1, List.of(new LevelAnswerKey(levelId, 1L))));
+        when(animalService.getAnimalById(1L)).thenReturn(correctAnimal);
 
         Animal result = firstRoundLevelService.getLevelCorrectAnimal(levelId);
 
         assertEquals(correctAnimal, result);
     }
+
+    @Test
+    void testGetLevelCorrectAnimalLevelNotFound() throws NoSuchRoundException {
+        Long levelId = 1L;
+        when(levelCatalog.getSnapshot(1)).thenReturn(LevelCatalogSnapshot.of(1, List.of()));
+
+        Exception e = assertThrows(EntityNotFoundException.class, () -> firstRoundLevelService.getLevelCorrectAnimal(levelId));
+
+        assertEquals("Уровень с id 1 не найден", e.getMessage());
+    }
 }
\ No newline at end of file
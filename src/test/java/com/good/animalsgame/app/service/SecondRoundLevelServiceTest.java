@@ -1,18 +1,26 @@
 package com.good.animalsgame.app.service;
 
-import com.good.animalsgame.app.cache.LevelsSessionCache;
+import com.good.animalsgame.app.cache.LevelCache;
+import com.good.animalsgame.app.cache.LevelCatalog;
+import com.good.animalsgame.app.cache.LevelCatalogSnapshot;
+import com.good.animalsgame.app.cache.LevelProgress;
+import com.good.animalsgame.app.event.LevelsChangedEvent;
 import com.good.animalsgame.app.repository.SecondRoundLevelRepository;
 import com.good.animalsgame.domain.Animal;
 import com.good.animalsgame.domain.Language;
+import com.good.animalsgame.domain.LevelAnswerKey;
 import com.good.animalsgame.domain.SecondRoundLevel;
 import com.good.animalsgame.exception.*;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 
 import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
@@ -24,7 +32,13 @@ import static org.mockito.Mockito.*;
 class SecondRoundLevelServiceTest {
 
     @Mock
-    private LevelsSessionCache levelsSessionCache;
+    private LevelProgress levelProgress;
+
+    @Mock
+    private LevelCatalog levelCatalog;
+
+    @Spy
+    private LevelCache levelCache = new LevelCache(false, 0);
 
     @Mock
     private SecondRoundLevelRepository levelRepository;
@@ -32,6 +46,9 @@ class SecondRoundLevelServiceTest {
     @Mock
     private AnimalService animalService;
 
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     @InjectMocks
     private SecondRoundLevelService secondRoundLevelService;
 
@@ -55,6 +72,7 @@ class SecondRoundLevelServiceTest {
 
         assertNotNull(result);
         verify(levelRepository).save(level);
+        verify(eventPublisher).publishEvent(new LevelsChangedEvent(2));
     }
 
     @Test
@@ -154,46 +172,18 @@ class SecondRoundLevelServiceTest {
     }
 
     @Test
-    void testIsCorrectYesNoAnswerMatchQuestion() throws EntityNotFoundException {
+    void testIsCorrectYesNoAnswerMatchQuestion() throws EntityNotFoundException, NoSuchRoundException {
         Long levelId = 1L;
-        Animal animal = Animal.builder()
-                .id(1L)
-                .names(Map.of(Language.RUSSIAN, "Лев"))
-                .descriptions(Map.of(Language.RUSSIAN, "Большая кошка"))
-                .build();
-
-        SecondRoundLevel level = SecondRoundLevel.builder()
-                .animalInQuestion(animal)
-                .correctAnimal(animal)
-                .build();
-
-        when(levelRepository.findById(levelId)).thenReturn(Optional.of(level));
+        when(levelCatalog.getSnapshot(2)).thenReturn(LevelCatalogSnapshot.of(1, List.of(new LevelAnswerKey(levelId, 1L, 1L))));
 
         assertTrue(secondRoundLevelService.isCorrectYesNoAnswer(levelId, true));
         assertFalse(secondRoundLevelService.isCorrectYesNoAnswer(levelId, false));
     }
 
     @Test
-    void testIsCorrectYesNoAnswerNotMatchQuestion() throws EntityNotFoundException {
+    void testIsCorrectYesNoAnswerNotMatchQuestion() throws EntityNotFoundException, NoSuchRoundException {
         Long levelId = 1L;
-        Animal questionAnimal = Animal.builder()
-                .id(1L)
-                .names(Map.of(Language.RUSSIAN, "Лев"))
-                .descriptions(Map.of(Language.RUSSIAN, "Большая кошка"))
-                .build();
-
-        Animal correctAnimal = Animal.builder()
-                .id(2L)
-                .names(Map.of(Language.RUSSIAN, "Тигр"))
-                .descriptions(Map.of(Language.RUSSIAN, "Большая кошка"))
-                .build();
-
-        SecondRoundLevel level = SecondRoundLevel.builder()
-                .animalInQuestion(questionAnimal)
-                .correctAnimal(correctAnimal)
-                .build();
-
-        when(levelRepository.findById(levelId)).thenReturn(Optional.of(level));
+        when(levelCatalog.getSnapshot(2)).thenReturn(LevelCatalogSnapshot.of(1, List.of(new LevelAnswerKey(levelId, 2L, 1L))));
 
         assertFalse(secondRoundLevelService.isCorrectYesNoAnswer(levelId, true));
         assertTrue(secondRoundLevelService.isCorrectYesNoAnswer(levelId, false));
@@ -203,7 +193,7 @@ class SecondRoundLevelServiceTest {
     void testGetLevelById() throws EntityNotFoundException {
         Long levelId = 1L;
         SecondRoundLevel level = new SecondRoundLevel();
-        when(levelRepository.findById(levelId)).thenReturn(Optional.of(level));
+        when(levelRepository.findWithAnimalsById(levelId)).thenReturn(Optional.of(level));
 
         SecondRoundLevel result = secondRoundLevelService.getLevelById(levelId);
 
@@ -213,7 +203,7 @@ class SecondRoundLevelServiceTest {
     @Test
     void testGetLevelByIdNotFound() {
         Long levelId = 1L;
-        when(levelRepository.findById(levelId)).thenReturn(Optional.empty());
+        when(levelRepository.findWithAnimalsById(levelId)).thenReturn(Optional.empty());
 
         Exception e = assertThrows(EntityNotFoundException.class, () -> secondRoundLevelService.getLevelById(levelId));
 
@@ -228,28 +218,42 @@ class SecondRoundLevelServiceTest {
         secondRoundLevelService.deleteLevel(levelId);
 
         verify(levelRepository).deleteById(levelId);
+        verify(eventPublisher).publishEvent(new LevelsChangedEvent(2));
     }
 
     @Test
-    void testGetRandomLevel() throws EntityNotFoundException, NoSuchRoundException, NoLevelsLeftException {
+    void testGetRandomLevel() throws NoSuchRoundException, NoLevelsLeftException {
         int round = 2;
         Long levelId = 1L;
         SecondRoundLevel level = new SecondRoundLevel();
 
-        when(levelsSessionCache.getRoundSize(round)).thenReturn(1);
-        when(levelsSessionCache.getLevelId(round, 0)).thenReturn(levelId);
-        when(levelRepository.findById(levelId)).thenReturn(Optional.of(level));
+        when(levelProgress.drawLevelId(round)).thenReturn(levelId);
+        when(levelRepository.findWithAnimalsById(levelId)).thenReturn(Optional.of(level));
 
         SecondRoundLevel result = secondRoundLevelService.getRandomLevel(round);
 
         assertNotNull(result);
-        verify(levelsSessionCache).removeLevel(round, 0);
     }
 
     @Test
-    void testGetRandomLevelNoLevelsLeft() throws NoSuchRoundException {
+    void testGetRandomLevelSkipsDeletedLevel() throws NoSuchRoundException, NoLevelsLeftException {
         int round = 2;
-        when(levelsSessionCache.getRoundSize(round)).thenReturn(0);
+        Long deletedLevelId = 1L;
+        Long levelId = 2L;
+        SecondRoundLevel level = new SecondRoundLevel();
+
+        when(levelProgress.drawLevelId(round)).thenReturn(deletedLevelId, levelId);
+        when(levelRepository.findWithAnimalsById(deletedLevelId)).thenReturn(Optional.empty());
+        when(levelRepository.findWithAnimalsById(levelId)).thenReturn(Optional.of(level));
+
+        assertSame(level, secondRoundLevelService.getRandomLevel(round));
+    }
+
+    @Test
+    void testGetRandomLevelNoLevelsLeft() throws NoSuchRoundException, NoLevelsLeftException {
+        int round = 2;
+        when(levelProgress.drawLevelId(round))
+                .thenThrow(new NoLevelsLeftException("Уровней в раунде 2 больше нет"));
 
         Exception e = assertThrows(NoLevelsLeftException.class, () -> secondRoundLevelService.getRandomLevel(round));
 
@@ -257,27 +261,29 @@ class SecondRoundLevelServiceTest {
     }
 
     @Test
-    void testIsCorrectAnswer() throws EntityNotFoundException {
+    void testIsCorrectAnswer() throws EntityNotFoundException, NoSuchRoundException {
         Long levelId = 1L;
         String userAnswer = "Лев";
-        Animal correctAnimal = Animal.builder()
-                .id(1L)
-                .names(Map.of(Language.RUSSIAN, "Лев"))
-                .descriptions(Map.of(Language.RUSSIAN, "Большая кошка"))
-                .build();
-
-        SecondRoundLevel level = SecondRoundLevel.builder()
-                .correctAnimal(correctAnimal)
-                .build();
 
-        when(levelRepository.findById(levelId)).thenReturn(Optional.of(level));
-        when(animalService.getAnimalByName(userAnswer)).thenReturn(correctAnimal);
+        when(levelCatalog.getSnapshot(2)).thenReturn(LevelCatalogSnapshot.of(1, List.of(new LevelAnswerKey(levelId, 1L))));
+        when(animalService.getAnimalIdByName(userAnswer)).thenReturn(1L);
 
         assertTrue(secondRoundLevelService.isCorrectAnswer(levelId, userAnswer));
     }
 
     @Test
-    void testGetLevelCorrectAnimal() throws EntityNotFoundException {
+    void testIsCorrectAnswerWrongAnimal() throws EntityNotFoundException, NoSuchRoundException {
+        Long levelId = 1L;
+        String userAnswer = "Тигр";
+
+        when(levelCatalog.getSnapshot(2)).thenReturn(LevelCatalogSnapshot.of(1, List.of(new LevelAnswerKey(levelId, 1L))));
+        when(animalService.getAnimalIdByName(userAnswer)).thenReturn(2L);
+
+        assertFalse(secondRoundLevelService.isCorrectAnswer(levelId, userAnswer));
+    }
+
+    @Test
+    void testGetLevelCorrectAnimal() throws EntityNotFoundException, NoSuchRoundException {
         Long levelId = 1L;
         Animal correctAnimal = Animal.builder()
                 .id(1L)
@@ -285,14 +291,21 @@ class SecondRoundLevelServiceTest {
                 .descriptions(Map.of(Language.RUSSIAN, "Большая кошка"))
                 .build();
 
-        SecondRoundLevel level = SecondRoundLevel.builder()
-                .correctAnimal(correctAnimal)
-                .build();
-
-        when(levelRepository.findById(levelId)).thenReturn(Optional.of(level));
+        when(levelCatalog.getSnapshot(2)).thenReturn(LevelCatalogSnapshot.of(1, List.of(new LevelAnswerKey(levelId, 1L))));
+        when(animalService.getAnimalById(1L)).thenReturn(correctAnimal);
 
         Animal result = secondRoundLevelService.getLevelCorrectAnimal(levelId);
 
         assertEquals(correctAnimal, result);
     }
+
+    @Test
+    void testGetLevelCorrectAnimalLevelNotFound() throws NoSuchRoundException {
+        Long levelId = 1L;
+        when(levelCatalog.getSnapshot(2)).thenReturn(LevelCatalogSnapshot.of(1, List.of()));
+
+        Exception e = assertThrows(EntityNotFoundException.class, () -> secondRoundLevelService.getLevelCorrectAnimal(levelId));
+
+        assertEquals("Уровень с id 1 не найден", e.getMessage());
+    }
 }
\ No newline at end of file
@@ -1,5 +1,8 @@
 package com.good.animalsgame.app.service;
 
+import com.good.animalsgame.app.cache.UiTextBundle;
+import com.good.animalsgame.app.cache.UiTextBundleCache;
+import com.good.animalsgame.app.event.UiTextsChangedEvent;
 import com.good.animalsgame.app.repository.UiTextRepository;
 import com.good.animalsgame.domain.Language;
 import com.good.animalsgame.domain.UiText;
@@ -11,6 +14,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 
 import java.util.HashMap;
 import java.util.List;
@@ -26,6 +30,12 @@ class UiTextServiceTest {
     @Mock
     private UiTextRepository uiTextRepository;
 
+    @Mock
+    private UiTextBundleCache uiTextBundleCache;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     @InjectMocks
     private UiTextService uiTextService;
 
@@ -43,6 +53,7 @@ class UiTextServiceTest {
         uiTextService.createUiText(uiText);
 
         verify(uiTextRepository).save(uiText);
+        verify(eventPublisher).publishEvent(new UiTextsChangedEvent(1L));
     }
 
     @Test
@@ -61,6 +72,7 @@ class UiTextServiceTest {
         assertEquals("UI-текст с названием title уже существует!", e.getMessage());
 
         verify(uiTextRepository, never()).save(uiText);
+        verifyNoInteractions(eventPublisher);
     }
 
     @Test
@@ -122,6 +134,7 @@ class UiTextServiceTest {
         when(uiTextRepository.existsById(1L)).thenReturn(true);
         uiTextService.deleteUiText(1L);
         verify(uiTextRepository).deleteById(1L);
+        verify(eventPublisher).publishEvent(new UiTextsChangedEvent(1L));
     }
 
     @Test
@@ -146,6 +159,22 @@ class UiTextServiceTest {
         assertTrue(foundTexts.contains(uiText2));
     }
 
+    @Test
+    void testGetUiTextBundle() throws LanguageException {
+        UiTextBundle bundle = new UiTextBundle(new byte[]{1}, new byte[]{2}, "W/\"etag\"");
+        when(uiTextBundleCache.getBundle(Language.ENGLISH)).thenReturn(bundle);
+
+        assertSame(bundle, uiTextService.getUiTextBundle("ENGLISH"));
+    }
+
+    @Test
+    void testGetUiTextBundleInvalidLanguage() {
+        Exception e = assertThrows(LanguageException.class, () -> uiTextService.getUiTextBundle("INVALID"));
+
+        assertEquals("Нет языка INVALID", e.getMessage());
+        verifyNoInteractions(uiTextBundleCache);
+    }
+
     @Test
     void testAddLanguage() throws LanguageException, EntityNotFoundException {
         UiText uiText = UiText.builder()
@@ -159,6 +188,7 @@ class UiTextServiceTest {
         uiTextService.addLanguage(1L, "ENGLISH", "e_text");
         assertEquals("e_text", uiText.getTexts().get(Language.ENGLISH));
         verify(uiTextRepository).save(uiText);
+        verify(eventPublisher).publishEvent(new UiTextsChangedEvent(1L));
     }
 
     @Test
@@ -205,6 +235,7 @@ class UiTextServiceTest {
 
         assertFalse(uiText.getTexts().containsKey(Language.ENGLISH));
         verify(uiTextRepository).save(uiText);
+        verify(eventPublisher).publishEvent(new UiTextsChangedEvent(1L));
     }
 
     @Test
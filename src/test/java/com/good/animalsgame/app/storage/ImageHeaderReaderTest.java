@@ -0,0 +1,133 @@
+package com.good.animalsgame.app.storage;
+
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ImageHeaderReaderTest {
+
+    @Test
+    void testPng() throws IOException {
+        byte[] png = encode("png", 37, 21);
+
+        assertEquals(Optional.of(new ImageHeader(ImageFormat.PNG, 37, 21)), read(png));
+    }
+
+    @Test
+    void testJpeg() throws IOException {
+        byte[] jpeg = encode("jpg", 640, 48);
+
+        assertEquals(Optional.of(new ImageHeader(ImageFormat.JPEG, 640, 48)), read(jpeg));
+    }
+
+    @Test
+    void testJpegWithLargeMetadataSegment() throws IOException {
+        byte[] jpeg = encode("jpg", 15, 300);
+        // сегмент APP1 на 60 КБ перед SOF, как у EXIF с миниатюрой
+        int payload = 60_000;
+        ByteBuffer withExif = ByteBuffer.allocate(jpeg.length + payload + 4);
+        withExif.put(jpeg, 0, 2)
+                .put((byte) 0xFF).put((byte) 0xE1).putShort((short) (payload + 2))
+                .put(new byte[payload])
+                .put(jpeg, 2, jpeg.length - 2);
+
+        assertEquals(Optional.of(new ImageHeader(ImageFormat.JPEG, 15, 300)), read(withExif.array()));
+    }
+
+    @Test
+    void testWebpLossy() throws IOException {
+        ByteBuffer chunk = littleEndian(10)
+                .put(new byte[]{0x10, 0x02, 0x00})
+                .put(new byte[]{(byte) 0x9D, 0x01, 0x2A})
+                .putShort((short) 320)
+                .putShort((short) 200);
+
+        assertEquals(Optional.of(new ImageHeader(ImageFormat.WEBP, 320, 200)), read(webp("VP8 ", chunk)));
+    }
+
+    @Test
+    void testWebpLossless() throws IOException {
+        ByteBuffer chunk = littleEndian(5)
+                .put((byte) 0x2F)
+                .putInt((640 - 1) | (480 - 1) << 14);
+
+        assertEquals(Optional.of(new ImageHeader(ImageFormat.WEBP, 640, 480)), read(webp("VP8L", chunk)));
+    }
+
+    @Test
+    void testWebpExtended() throws IOException {
+        ByteBuffer chunk = littleEndian(10)
+                .putInt(0)
+                .put(uint24(4000 - 1))
+                .put(uint24(3000 - 1));
+
+        assertEquals(Optional.of(new ImageHeader(ImageFormat.WEBP, 4000, 3000)), read(webp("VP8X", chunk)));
+    }
+
+    @Test
+    void testUnsupportedFormat() throws IOException {
+        assertTrue(read("GIF89a\u0001\u0000\u0001\u0000".getBytes(StandardCharsets.US_ASCII)).isEmpty());
+        assertTrue(read(new byte[]{1, 2, 3}).isEmpty());
+        assertTrue(read(new byte[0]).isEmpty());
+    }
+
+    @Test
+    void testTruncatedHeader() throws IOException {
+        byte[] png = encode("png", 10, 10);
+
+        assertTrue(read(Arrays.copyOf(png, 20)).isEmpty());
+    }
+
+    @Test
+    void testOnlyHeaderRead() throws IOException {
+        byte[] png = encode("png", 10, 10);
+        ByteArrayInputStream inputStream = new ByteArrayInputStream(png);
+
+        ImageHeaderReader.read(inputStream);
+
+        assertEquals(png.length - 24, inputStream.available());
+    }
+
+    private static Optional<ImageHeader> read(byte[] image) throws IOException {
+        return ImageHeaderReader.read(new ByteArrayInputStream(image));
+    }
+
+    private static byte[] encode(String format, int width, int height) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB), format, outputStream);
+        return outputStream.toByteArray();
+    }
+
+    private static byte[] webp(String chunkType, ByteBuffer chunk) {
+        byte[] chunkBytes = Arrays.copyOf(chunk.array(), chunk.position());
+        ByteBuffer riff = ByteBuffer.allocate(16 + chunkBytes.length).order(ByteOrder.LITTLE_ENDIAN)
+                .put("RIFF".getBytes(StandardCharsets.US_ASCII))
+                .putInt(8 + chunkBytes.length)
+                .put("WEBP".getBytes(StandardCharsets.US_ASCII))
+                .put(chunkType.getBytes(StandardCharsets.US_ASCII))
+                .put(chunkBytes);
+        return riff.array();
+    }
+
+    /**
+     * Чанк WebP: размер данных и место под сами данные
+     */
+    private static ByteBuffer littleEndian(int size) {
+        return ByteBuffer.allocate(4 + size).order(ByteOrder.LITTLE_ENDIAN).putInt(size);
+    }
+
+    private static byte[] uint24(int value) {
+        return new byte[]{(byte) value, (byte) (value >> 8), (byte) (value >> 16)};
+    }
+}
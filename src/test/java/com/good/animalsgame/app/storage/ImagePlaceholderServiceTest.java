@@ -0,0 +1,163 @@
+package com.good.animalsgame.app.storage;
+
+import com.good.animalsgame.app.event.LevelImagesProcessedEvent;
+import com.good.animalsgame.app.repository.LevelRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static com.good.animalsgame.app.storage.TestImages.HASH;
+import static com.good.animalsgame.app.storage.TestImages.png;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ImagePlaceholderServiceTest {
+
+    /**
+     * Постоянная компонента BlurHash для чистого красного: 0xFF0000 в base83
+     */
+    private static final String RED_DC = "TI:j";
+
+    @Mock
+    private ImageStorage imageStorage;
+
+    @Mock
+    private LevelRepository<?, ?> firstRoundLevelRepository;
+
+    @Mock
+    private LevelRepository<?, ?> secondRoundLevelRepository;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private ImagePlaceholderService imagePlaceholderService;
+
+    @BeforeEach
+    void setUp() {
+        Map<String, LevelRepository<?, ?>> levelRepositories = new LinkedHashMap<>();
+        levelRepositories.put("1", firstRoundLevelRepository);
+        levelRepositories.put("2", secondRoundLevelRepository);
+        imagePlaceholderService = new ImagePlaceholderService(imageStorage, levelRepositories, transactionTemplate,
+                eventPublisher, true, 2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        imagePlaceholderService.shutdown();
+    }
+
+    @Test
+    void testBlurHashOfSolidColor() {
+        BufferedImage image = solid(Color.RED, 8, 6);
+
+        // размер 4x3, затем постоянная компонента - точный цвет картинки
+        String blurHash = BlurHash.encode(image, 4, 3);
+        assertEquals('L', blurHash.charAt(0));
+        assertEquals(RED_DC, blurHash.substring(2, 6));
+        assertEquals("00" + RED_DC, BlurHash.encode(image, 1, 1));
+    }
+
+    @Test
+    void testBlurHashLength() {
+        BufferedImage image = new BufferedImage(20, 10, BufferedImage.TYPE_INT_RGB);
+        for (int x = 0; x < 20; x++) {
+            for (int y = 0; y < 10; y++) {
+                image.setRGB(x, y, (x * 12) << 16 | (y * 25) << 8 | 128);
+            }
+        }
+
+        String blurHash = BlurHash.encode(image, 4, 3);
+
+        assertEquals(28, blurHash.length());
+        assertThrows(IllegalArgumentException.class, () -> BlurHash.encode(image, 10, 3));
+    }
+
+    @Test
+    void testDominantColor() {
+        BufferedImage image = solid(new Color(0x20, 0xA0, 0x30), 8, 8);
+        Graphics2D graphics = image.createGraphics();
+        graphics.setColor(Color.BLUE);
+        graphics.fillRect(0, 0, 8, 3);
+        graphics.dispose();
+
+        assertEquals("#20a030", ImagePlaceholderService.dominantColor(image));
+    }
+
+    @Test
+    void testCreatePlaceholder() throws IOException {
+        when(imageStorage.find(HASH)).thenReturn(Optional.of(new ByteArrayResource(png(solid(Color.RED, 300, 200)))));
+
+        ImagePlaceholder placeholder = imagePlaceholderService.createPlaceholder(HASH);
+
+        assertEquals(28, placeholder.blurHash().length());
+        assertEquals(RED_DC, placeholder.blurHash().substring(2, 6));
+        assertEquals("#ff0000", placeholder.color());
+    }
+
+    @Test
+    void testCreatePlaceholderUnsupportedImage() {
+        when(imageStorage.find(HASH)).thenReturn(Optional.of(new ByteArrayResource(new byte[]{1, 2, 3})));
+
+        assertEquals(ImagePlaceholder.UNKNOWN, imagePlaceholderService.createPlaceholder(HASH));
+    }
+
+    @Test
+    void testFillPlaceholders() throws IOException {
+        String otherHash = "b".repeat(64);
+        String brokenHash = "c".repeat(64);
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                ((TransactionCallback<?>) invocation.getArgument(0)).doInTransaction(null));
+        when(imageStorage.find(HASH)).thenReturn(Optional.of(new ByteArrayResource(png(solid(Color.RED, 30, 20)))));
+        when(imageStorage.find(otherHash)).thenReturn(Optional.of(new ByteArrayResource(png(solid(Color.WHITE, 30, 20)))));
+        when(imageStorage.find(brokenHash)).thenReturn(Optional.empty());
+        when(firstRoundLevelRepository.findImageHashesWithoutPlaceholder(PageRequest.of(0, 2)))
+                .thenReturn(List.of(HASH, otherHash))
+                .thenReturn(List.of(brokenHash));
+        when(secondRoundLevelRepository.findImageHashesWithoutPlaceholder(PageRequest.of(0, 2)))
+                .thenReturn(List.of());
+        when(firstRoundLevelRepository.updateImagePlaceholder(anyString(), any(), any())).thenReturn(2);
+
+        assertEquals(6, imagePlaceholderService.fillPlaceholders());
+
+        verify(firstRoundLevelRepository).updateImagePlaceholder(eq(HASH), argThat(blurHash -> blurHash.startsWith(RED_DC, 2)), eq("#ff0000"));
+        verify(firstRoundLevelRepository).updateImagePlaceholder(eq(otherHash), anyString(), eq("#ffffff"));
+        verify(firstRoundLevelRepository).updateImagePlaceholder(brokenHash, "", null);
+        verify(firstRoundLevelRepository, times(2)).findImageHashesWithoutPlaceholder(any());
+        verify(eventPublisher).publishEvent(new LevelImagesProcessedEvent(1));
+        verify(eventPublisher, never()).publishEvent(new LevelImagesProcessedEvent(2));
+    }
+
+    private static BufferedImage solid(Color color, int width, int height) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+        graphics.setColor(color);
+        graphics.fillRect(0, 0, width, height);
+        graphics.dispose();
+        return image;
+    }
+}
@@ -0,0 +1,260 @@
+package com.good.animalsgame.app.storage;
+
+import com.good.animalsgame.app.event.LevelImagesProcessedEvent;
+import com.good.animalsgame.app.repository.ImageTileRepository;
+import com.good.animalsgame.app.repository.LevelRepository;
+import com.good.animalsgame.domain.ImageTile;
+import com.good.animalsgame.exception.EntityNotFoundException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+import static com.good.animalsgame.app.storage.TestImages.HASH;
+import static com.good.animalsgame.app.storage.TestImages.png;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ImageTileServiceTest {
+
+    @Mock
+    private ImageStorage imageStorage;
+
+    @Mock
+    private ImageTileRepository imageTileRepository;
+
+    @Mock
+    private LevelRepository<?, ?> firstRoundLevelRepository;
+
+    @Mock
+    private LevelRepository<?, ?> secondRoundLevelRepository;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private ImageTileService imageTileService;
+
+    @BeforeEach
+    void setUp() {
+        Map<String, LevelRepository<?, ?>> levelRepositories = new LinkedHashMap<>();
+        levelRepositories.put("1", firstRoundLevelRepository);
+        levelRepositories.put("2", secondRoundLevelRepository);
+        imageTileService = new ImageTileService(imageStorage, imageTileRepository, levelRepositories, transactionTemplate,
+                eventPublisher, true, 500, 0.85f, 600 * 300, 2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        imageTileService.shutdown();
+    }
+
+    @Test
+    void testMaxZoom() {
+        assertEquals(0, TilePyramidBuilder.maxZoom(256, 100));
+        assertEquals(1, TilePyramidBuilder.maxZoom(257, 100));
+        assertEquals(2, TilePyramidBuilder.maxZoom(300, 1000));
+        assertEquals(5, TilePyramidBuilder.maxZoom(5000, 300));
+    }
+
+    @Test
+    void testPyramid() throws IOException {
+        Map<String, BufferedImage> tiles = buildTiles(halfRedHalfBlue(), 300);
+
+        // 600x300 -> 300x150 -> 150x75: 3x2 + 2x1 + 1 тайл
+        assertEquals(9, tiles.size());
+        assertEquals(88, tiles.get("2/2/1").getWidth());
+        assertEquals(44, tiles.get("2/2/1").getHeight());
+        assertEquals(44, tiles.get("1/1/0").getWidth());
+        assertEquals(150, tiles.get("1/1/0").getHeight());
+
+        BufferedImage overview = tiles.get("0/0/0");
+        assertEquals(150, overview.getWidth());
+        assertEquals(75, overview.getHeight());
+        assertEquals(Color.RED.getRGB(), overview.getRGB(10, 10));
+        assertEquals(Color.BLUE.getRGB(), overview.getRGB(140, 70));
+    }
+
+    @Test
+    void testPyramidDoesNotDependOnStripHeight() throws IOException {
+        BufferedImage image = gradient();
+
+        assertSameTiles(buildTiles(image, 300), buildTiles(image, 70));
+    }
+
+    @Test
+    void testReadTilesFromFile(@TempDir Path directory) throws IOException {
+        BufferedImage image = gradient();
+        Path file = directory.resolve("image.png");
+        Files.write(file, png(image));
+
+        // строки передаются построителю по ходу раскодирования за один проход
+        Map<String, BufferedImage> tiles = new HashMap<>();
+        Integer maxZoom = ImageTileService.readTiles(new FileSystemResource(file), Long.MAX_VALUE,
+                (zoom, x, y, tile) -> assertNull(tiles.put(zoom + "/" + x + "/" + y, tile)));
+
+        assertEquals(2, maxZoom);
+        assertSameTiles(buildTiles(image, 300), tiles);
+    }
+
+    @Test
+    void testCreateTiles() throws IOException {
+        when(imageTileRepository.findMaxZoomBySourceHash(HASH)).thenReturn(null);
+        when(imageStorage.find(HASH)).thenReturn(Optional.of(new ByteArrayResource(png(halfRedHalfBlue()))));
+        when(imageStorage.store(any())).thenReturn(new StoredImage("b".repeat(64), 100));
+        doAnswer(invocation -> {
+            invocation.<Consumer<TransactionStatus>>getArgument(0).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+
+        assertEquals(2, imageTileService.createTiles(HASH));
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<ImageTile>> tiles = ArgumentCaptor.forClass(List.class);
+        verify(imageTileRepository).saveAll(tiles.capture());
+        assertEquals(9, tiles.getValue().size());
+        assertTrue(tiles.getValue().stream().allMatch(tile -> HASH.equals(tile.getSourceHash())));
+        verify(imageStorage, times(9)).store(any());
+    }
+
+    @Test
+    void testCreateTilesAlreadyBuilt() {
+        when(imageTileRepository.findMaxZoomBySourceHash(HASH)).thenReturn(3);
+
+        assertEquals(3, imageTileService.createTiles(HASH));
+
+        verifyNoInteractions(imageStorage);
+    }
+
+    @Test
+    void testCreateTilesUnsupportedImage() {
+        when(imageTileRepository.findMaxZoomBySourceHash(HASH)).thenReturn(null);
+        when(imageStorage.find(HASH)).thenReturn(Optional.of(new ByteArrayResource(new byte[]{1, 2, 3})));
+
+        assertEquals(ImageTileService.UNTILED, imageTileService.createTiles(HASH));
+
+        verify(imageTileRepository, never()).saveAll(any());
+    }
+
+    @Test
+    void testCreateTilesTooLarge() throws IOException {
+        when(imageTileRepository.findMaxZoomBySourceHash(HASH)).thenReturn(null);
+        when(imageStorage.find(HASH)).thenReturn(Optional.of(new ByteArrayResource(png(new BufferedImage(601, 300, BufferedImage.TYPE_INT_RGB)))));
+
+        // больше images.tiles.max-pixels - не раскодируется
+        assertEquals(ImageTileService.UNTILED, imageTileService.createTiles(HASH));
+
+        verify(imageStorage, never()).store(any());
+        verify(imageTileRepository, never()).saveAll(any());
+    }
+
+    @Test
+    void testFillTiles() {
+        String brokenHash = "c".repeat(64);
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                ((TransactionCallback<?>) invocation.getArgument(0)).doInTransaction(null));
+        when(imageTileRepository.findMaxZoomBySourceHash(HASH)).thenReturn(4);
+        when(imageTileRepository.findMaxZoomBySourceHash(brokenHash)).thenReturn(null);
+        when(imageStorage.find(brokenHash)).thenReturn(Optional.empty());
+        when(firstRoundLevelRepository.findImageHashesWithoutTiles(500, PageRequest.of(0, 2)))
+                .thenReturn(List.of(HASH));
+        when(secondRoundLevelRepository.findImageHashesWithoutTiles(500, PageRequest.of(0, 2)))
+                .thenReturn(List.of(HASH, brokenHash))
+                .thenReturn(List.of());
+        when(firstRoundLevelRepository.updateImageTileZoom(anyString(), anyInt())).thenReturn(1);
+        when(secondRoundLevelRepository.updateImageTileZoom(anyString(), anyInt())).thenReturn(1);
+
+        assertEquals(3, imageTileService.fillTiles());
+
+        verify(firstRoundLevelRepository).updateImageTileZoom(HASH, 4);
+        verify(secondRoundLevelRepository).updateImageTileZoom(HASH, 4);
+        verify(secondRoundLevelRepository).updateImageTileZoom(brokenHash, ImageTileService.UNTILED);
+        // общая картинка раундов проверяется один раз
+        verify(imageTileRepository, times(1)).findMaxZoomBySourceHash(HASH);
+        verify(eventPublisher).publishEvent(new LevelImagesProcessedEvent(1));
+        verify(eventPublisher).publishEvent(new LevelImagesProcessedEvent(2));
+    }
+
+    @Test
+    void testGetTileHashNotFound() {
+        when(imageTileRepository.findBySourceHashAndZoomAndXAndY(HASH, 9, 0, 0)).thenReturn(Optional.empty());
+
+        assertThrows(EntityNotFoundException.class, () -> imageTileService.getTileHash(HASH, 9, 0, 0));
+    }
+
+    /**
+     * Строит пирамиду, подавая картинку полосами заданной высоты
+     *
+     * @return "zoom/x/y" -> тайл
+     */
+    private static Map<String, BufferedImage> buildTiles(BufferedImage image, int stripHeight) throws IOException {
+        Map<String, BufferedImage> tiles = new HashMap<>();
+        TilePyramidBuilder builder = new TilePyramidBuilder(image.getWidth(), image.getHeight(),
+                (zoom, x, y, tile) -> assertNull(tiles.put(zoom + "/" + x + "/" + y, tile)));
+        for (int top = 0; top < image.getHeight(); top += stripHeight) {
+            builder.addRows(image.getSubimage(0, top, image.getWidth(), Math.min(stripHeight, image.getHeight() - top)));
+        }
+        builder.finish();
+        return tiles;
+    }
+
+    private static void assertSameTiles(Map<String, BufferedImage> expected, Map<String, BufferedImage> actual) {
+        assertEquals(expected.keySet(), actual.keySet());
+        for (Map.Entry<String, BufferedImage> entry : expected.entrySet()) {
+            BufferedImage tile = entry.getValue();
+            BufferedImage other = actual.get(entry.getKey());
+            assertArrayEquals(tile.getRGB(0, 0, tile.getWidth(), tile.getHeight(), null, 0, tile.getWidth()),
+                    other.getRGB(0, 0, other.getWidth(), other.getHeight(), null, 0, other.getWidth()), entry.getKey());
+        }
+    }
+
+    private static BufferedImage gradient() {
+        BufferedImage image = new BufferedImage(600, 300, BufferedImage.TYPE_INT_RGB);
+        for (int x = 0; x < 600; x++) {
+            for (int y = 0; y < 300; y++) {
+                image.setRGB(x, y, (x % 256) << 16 | (y % 256) << 8 | ((x + y) % 256));
+            }
+        }
+        return image;
+    }
+
+    private static BufferedImage halfRedHalfBlue() {
+        BufferedImage image = new BufferedImage(600, 300, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+        graphics.setColor(Color.RED);
+        graphics.fillRect(0, 0, 300, 300);
+        graphics.setColor(Color.BLUE);
+        graphics.fillRect(300, 0, 300, 300);
+        graphics.dispose();
+        return image;
+    }
+}
@@ -0,0 +1,221 @@
+package com.good.animalsgame.app.storage;
+
+import com.good.animalsgame.app.repository.ImageVariantRepository;
+import com.good.animalsgame.domain.Coordinates;
+import com.good.animalsgame.domain.ImageVariant;
+import com.good.animalsgame.domain.LevelImage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.http.MediaType;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static com.good.animalsgame.app.storage.TestImages.HASH;
+import static com.good.animalsgame.app.storage.TestImages.png;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ImageVariantServiceTest {
+
+    @Mock
+    private ImageStorage imageStorage;
+
+    @Mock
+    private ImageVariantRepository imageVariantRepository;
+
+    private ImageVariantService imageVariantService;
+
+    /**
+     * Содержимое картинок, сохранённых сервисом
+     */
+    private final List<byte[]> storedImages = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        imageVariantService = new ImageVariantService(imageStorage, imageVariantRepository, true,
+                List.of(1920, 480, 960), 0.8f, 1, 1);
+    }
+
+    @AfterEach
+    void tearDown() {
+        imageVariantService.shutdown();
+    }
+
+    @Test
+    void testCreateVariants() throws IOException {
+        stubImage(encodePng(2000, 1000));
+        stubStore();
+        when(imageVariantRepository.findBySourceHash(HASH)).thenReturn(List.of());
+
+        imageVariantService.createVariants(HASH);
+
+        List<ImageVariant> variants = captureSavedVariants();
+        assertEquals(List.of(480, 960, 1920), variants.stream().map(ImageVariant::getWidth).toList());
+        assertEquals(List.of(240, 480, 960), variants.stream().map(ImageVariant::getHeight).toList());
+        assertTrue(variants.stream().allMatch(variant -> MediaType.IMAGE_JPEG_VALUE.equals(variant.getContentType())));
+        assertTrue(variants.stream().allMatch(variant -> HASH.equals(variant.getSourceHash())));
+
+        assertEquals(3, storedImages.size());
+        for (int i = 0; i < storedImages.size(); i++) {
+            byte[] jpeg = storedImages.get(i);
+            assertEquals((byte) 0xFF, jpeg[0]);
+            assertEquals((byte) 0xD8, jpeg[1]);
+            BufferedImage decoded = ImageIO.read(new ByteArrayInputStream(jpeg));
+            assertEquals(variants.get(i).getWidth(), decoded.getWidth());
+            assertEquals(variants.get(i).getHeight(), decoded.getHeight());
+            assertEquals(jpeg.length, variants.get(i).getSize());
+        }
+    }
+
+    @Test
+    void testCreateVariantsSkipsExistingAndWiderWidths() throws IOException {
+        stubImage(encodePng(1000, 500));
+        stubStore();
+        when(imageVariantRepository.findBySourceHash(HASH)).thenReturn(List.of(variant(480, "b".repeat(64))));
+
+        imageVariantService.createVariants(HASH);
+
+        List<ImageVariant> variants = captureSavedVariants();
+        assertEquals(1, variants.size());
+        assertEquals(960, variants.getFirst().getWidth());
+        assertEquals(480, variants.getFirst().getHeight());
+        assertEquals(1, storedImages.size());
+    }
+
+    @Test
+    void testCreateVariantsUnsupportedFormat() throws IOException {
+        stubImage(new byte[]{'R', 'I', 'F', 'F', 0, 0, 0, 0, 'W', 'E', 'B', 'P'});
+        when(imageVariantRepository.findBySourceHash(HASH)).thenReturn(List.of());
+
+        imageVariantService.createVariants(HASH);
+
+        verify(imageStorage, never()).store(any());
+        verify(imageVariantRepository, never()).saveAll(any());
+    }
+
+    @Test
+    void testSelectImageWithoutWidth() {
+        ImageSelection selection = imageVariantService.selectImage(new LevelImage(HASH, MediaType.IMAGE_PNG_VALUE, 10L, 2000), null);
+
+        assertEquals(new ImageSelection(HASH, MediaType.IMAGE_PNG_VALUE, false), selection);
+        verifyNoInteractions(imageVariantRepository);
+    }
+
+    @Test
+    void testSelectImageReadyVariant() {
+        String variantHash = "c".repeat(64);
+        when(imageVariantRepository.findBySourceHashAndWidth(HASH, 960)).thenReturn(Optional.of(variant(960, variantHash)));
+
+        ImageSelection selection = imageVariantService.selectImage(new LevelImage(HASH, MediaType.IMAGE_PNG_VALUE, 10L, 2000), 500);
+
+        assertEquals(new ImageSelection(variantHash, MediaType.IMAGE_JPEG_VALUE, false), selection);
+
+        // найденная копия запоминается, повторный запрос не обращается к БД
+        assertEquals(selection, imageVariantService.selectImage(new LevelImage(HASH, MediaType.IMAGE_PNG_VALUE, 10L, 2000), 900));
+        verify(imageVariantRepository, times(1)).findBySourceHashAndWidth(HASH, 960);
+    }
+
+    @Test
+    void testSelectImageCreatedVariant() throws IOException {
+        stubImage(encodePng(2000, 1000));
+        stubStore();
+        when(imageVariantRepository.findBySourceHash(HASH)).thenReturn(List.of());
+        imageVariantService.createVariants(HASH);
+        String variantHash = captureSavedVariants().get(1).getVariantHash();
+
+        ImageSelection selection = imageVariantService.selectImage(new LevelImage(HASH, MediaType.IMAGE_PNG_VALUE, 10L, 2000), 500);
+
+        assertEquals(new ImageSelection(variantHash, MediaType.IMAGE_JPEG_VALUE, false), selection);
+        verify(imageVariantRepository, never()).findBySourceHashAndWidth(anyString(), anyInt());
+    }
+
+    @Test
+    void testSelectImagePendingVariant() {
+        when(imageVariantRepository.findBySourceHashAndWidth(HASH, 480)).thenReturn(Optional.empty());
+
+        ImageSelection selection = imageVariantService.selectImage(new LevelImage(HASH, MediaType.IMAGE_PNG_VALUE, 10L, 2000), 300);
+
+        assertEquals(new ImageSelection(HASH, MediaType.IMAGE_PNG_VALUE, true), selection);
+    }
+
+    @Test
+    void testSelectImageNarrowSource() {
+        ImageSelection selection = imageVariantService.selectImage(new LevelImage(HASH, MediaType.IMAGE_PNG_VALUE, 10L, 800), 900);
+
+        assertEquals(new ImageSelection(HASH, MediaType.IMAGE_PNG_VALUE, false), selection);
+        verifyNoInteractions(imageVariantRepository);
+    }
+
+    @Test
+    void testGetVariantSizes() {
+        List<ImageVariantSize> sizes = imageVariantService.getVariantSizes(1000, 500);
+
+        assertEquals(List.of(new ImageVariantSize(480, 240, 0.48), new ImageVariantSize(960, 480, 0.96)), sizes);
+        assertEquals(List.of(), imageVariantService.getVariantSizes(null, null));
+        assertEquals(List.of(), imageVariantService.getVariantSizes(480, 300));
+    }
+
+    @Test
+    void testScaleCoordinates() {
+        ImageVariantSize size = new ImageVariantSize(480, 240, 0.48);
+
+        assertEquals(new Coordinates(48, 24, 48, 24), size.scale(new Coordinates(100, 50, 100, 50)));
+        // область у края исходной картинки не выходит за пределы копии
+        assertEquals(new Coordinates(475, 235, 5, 5), size.scale(new Coordinates(990, 490, 20, 20)));
+    }
+
+    private void stubImage(byte[] content) {
+        when(imageStorage.find(HASH)).thenReturn(Optional.of(new ByteArrayResource(content)));
+    }
+
+    private void stubStore() throws IOException {
+        when(imageStorage.store(any())).thenAnswer(invocation -> {
+            byte[] content = ((InputStream) invocation.getArgument(0)).readAllBytes();
+            storedImages.add(content);
+            return new StoredImage(Integer.toString(storedImages.size()), content.length);
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<ImageVariant> captureSavedVariants() {
+        ArgumentCaptor<List<ImageVariant>> captor = ArgumentCaptor.forClass(List.class);
+        verify(imageVariantRepository).saveAll(captor.capture());
+        return captor.getValue();
+    }
+
+    private static ImageVariant variant(int width, String variantHash) {
+        return ImageVariant.builder()
+                .sourceHash(HASH)
+                .width(width)
+                .height(width / 2)
+                .variantHash(variantHash)
+                .size(1)
+                .contentType(MediaType.IMAGE_JPEG_VALUE)
+                .build();
+    }
+
+    private static byte[] encodePng(int width, int height) throws IOException {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        for (int x = 0; x < width; x += 10) {
+            for (int y = 0; y < height; y += 10) {
+                image.setRGB(x, y, 0xFF000000 | (x * 31 + y * 17));
+            }
+        }
+        return png(image);
+    }
+}
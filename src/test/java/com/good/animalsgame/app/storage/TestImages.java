@@ -0,0 +1,26 @@
+package com.good.animalsgame.app.storage;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+/**
+ * Общие данные тестов картинок
+ */
+final class TestImages {
+
+    /**
+     * Хэш исходной картинки в хранилище
+     */
+    static final String HASH = "a".repeat(64);
+
+    private TestImages() {
+    }
+
+    static byte[] png(BufferedImage image) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", outputStream);
+        return outputStream.toByteArray();
+    }
+}
@@ -0,0 +1,289 @@
+package com.good.animalsgame.extern.api.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.good.animalsgame.app.cache.AnimalNameDictionary;
+import com.good.animalsgame.app.repository.AnimalRepository;
+import com.good.animalsgame.app.repository.FirstRoundLevelRepository;
+import com.good.animalsgame.app.repository.SecondRoundLevelRepository;
+import com.good.animalsgame.app.repository.UiTextRepository;
+import com.good.animalsgame.app.storage.ImageStorage;
+import com.good.animalsgame.app.storage.StoredImage;
+import com.good.animalsgame.domain.Animal;
+import com.good.animalsgame.domain.Coordinates;
+import com.good.animalsgame.domain.FirstRoundLevel;
+import com.good.animalsgame.domain.Language;
+import com.good.animalsgame.domain.SecondRoundLevel;
+import com.good.animalsgame.domain.UiText;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Проверяет выгрузку каталога в NDJSON и повторяемое восстановление из неё
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "images.storage.root=target/test-images"
+})
+@AutoConfigureMockMvc
+@AutoConfigureTestDatabase
+class BackupEndpointTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private AnimalRepository animalRepository;
+
+    @Autowired
+    private UiTextRepository uiTextRepository;
+
+    @Autowired
+    private FirstRoundLevelRepository firstRoundLevelRepository;
+
+    @Autowired
+    private SecondRoundLevelRepository secondRoundLevelRepository;
+
+    @Autowired
+    private ImageStorage imageStorage;
+
+    @Autowired
+    private AnimalNameDictionary animalNameDictionary;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private StoredImage image;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        Animal lion = animalRepository.save(createAnimal("Лев", "Lion"));
+        Animal tiger = animalRepository.save(createAnimal("Тигр", "Tiger"));
+        Animal zebra = animalRepository.save(createAnimal("Зебра", "Zebra"));
+        Animal giraffe = animalRepository.save(createAnimal("Жираф", "Giraffe"));
+
+        uiTextRepository.save(UiText.builder()
+                .title("start")
+                .texts(new HashMap<>(Map.of(Language.RUSSIAN, "Начать", Language.ENGLISH, "Start")))
+                .build());
+
+        image = imageStorage.store(new ByteArrayInputStream("backup image".getBytes(StandardCharsets.UTF_8)));
+
+        for (int i = 0; i < 3; i++) {
+            firstRoundLevelRepository.save(FirstRoundLevel.builder()
+                    .animals(Set.of(lion, tiger, zebra, giraffe))
+                    .correctAnimal(zebra)
+                    .imageHash(image.hash())
+                    .imageSize(image.size())
+                    .imageContentType(MediaType.IMAGE_PNG_VALUE)
+                    .animalCoordinates(new Coordinates(i, 2, 3, 4))
+                    .build());
+        }
+        secondRoundLevelRepository.save(SecondRoundLevel.builder()
+                .animals(Set.of())
+                .correctAnimal(tiger)
+                .animalInQuestion(tiger)
+                .imageHash(image.hash())
+                .imageSize(image.size())
+                .imageContentType(MediaType.IMAGE_PNG_VALUE)
+                .animalCoordinates(new Coordinates(1, 2, 3, 4))
+                .build());
+
+        animalNameDictionary.invalidate();
+    }
+
+    @AfterEach
+    void tearDown() {
+        firstRoundLevelRepository.deleteAll();
+        secondRoundLevelRepository.deleteAll();
+        animalRepository.deleteAll();
+        uiTextRepository.deleteAll();
+        animalNameDictionary.invalidate();
+    }
+
+    @Test
+    void testExport() throws Exception {
+        List<JsonNode> records = readRecords(export());
+
+        assertEquals(4 + 1 + 3 + 1, records.size());
+        assertEquals(List.of("animal", "animal", "animal", "animal", "uiText", "level", "level", "level", "level"),
+                records.stream().map(record -> record.get("type").asText()).toList());
+
+        JsonNode firstRoundLevel = records.get(5);
+        assertEquals(1, firstRoundLevel.get("round").asInt());
+        assertEquals(4, firstRoundLevel.get("animalIds").size());
+        assertEquals(image.hash(), firstRoundLevel.get("imageHash").asText());
+
+        JsonNode secondRoundLevel = records.get(8);
+        assertEquals(2, secondRoundLevel.get("round").asInt());
+        assertEquals(secondRoundLevel.get("correctAnimalId"), secondRoundLevel.get("animalInQuestionId"));
+    }
+
+    @Test
+    void testExportQueryCountIndependentOfAnimals() throws Exception {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        export();
+        long statements = statistics.getPrepareStatementCount();
+
+        for (int i = 0; i < 10; i++) {
+            animalRepository.save(createAnimal("Кот " + i, "Cat " + i));
+        }
+        statistics.clear();
+        List<JsonNode> records = readRecords(export());
+
+        // животные, описания, тексты интерфейса и уровни двух раундов
+        assertEquals(5, statements);
+        assertEquals(statements, statistics.getPrepareStatementCount());
+        JsonNode cat = records.get(13);
+        assertEquals("Cat 9", cat.get("names").get("ENGLISH").asText());
+        assertEquals("Description", cat.get("descriptions").get("ENGLISH").asText());
+    }
+
+    @Test
+    void testRestoreIsIdempotent() throws Exception {
+        byte[] dump = export();
+
+        firstRoundLevelRepository.deleteAll();
+        secondRoundLevelRepository.deleteAll();
+        animalRepository.deleteAll();
+        uiTextRepository.deleteAll();
+
+        restore(dump)
+                .andExpect(jsonPath("$.created").value(9))
+                .andExpect(jsonPath("$.skipped").value(0))
+                .andExpect(jsonPath("$.failed").value(0));
+
+        restore(dump)
+                .andExpect(jsonPath("$.created").value(0))
+                .andExpect(jsonPath("$.skipped").value(9))
+                .andExpect(jsonPath("$.failed").value(0));
+
+        assertEquals(4, animalRepository.count());
+        assertEquals(1, uiTextRepository.count());
+        assertEquals(3, firstRoundLevelRepository.count());
+        assertEquals(1, secondRoundLevelRepository.count());
+
+        // уровни ссылаются на новых животных, а не на идентификаторы из выгрузки
+        Long zebraId = animalRepository.findIdByNameKey("зебра").orElseThrow();
+        FirstRoundLevel level = firstRoundLevelRepository.findWithAnimalsById(firstRoundLevelRepository.findAll().get(0).getId()).orElseThrow();
+        assertEquals(zebraId, level.getCorrectAnimal().getId());
+        assertEquals(Set.of("лев", "тигр", "зебра", "жираф"), level.getAnimals().stream()
+                .map(animal -> animalRepository.findById(animal.getId()).orElseThrow().getNames().get(Language.RUSSIAN).toLowerCase())
+                .collect(Collectors.toSet()));
+    }
+
+    @Test
+    void testRestoreLevelWithUnknownAnimal() throws Exception {
+        String dump = "{\"type\": \"level\", \"round\": 1, \"id\": 1, \"animalIds\": [], \"correctAnimalId\": 999, "
+                + "\"imageHash\": \"" + image.hash() + "\", \"animalCoordinates\": {\"x\": 1, \"y\": 2, \"width\": 3, \"height\": 4}}\n";
+
+        restore(dump.getBytes(StandardCharsets.UTF_8))
+                .andExpect(jsonPath("$.failed").value(1))
+                .andExpect(jsonPath("$.errors[0].entry").value(1))
+                .andExpect(jsonPath("$.errors[0].error").value("Животное с id 999 не найдено в выгрузке"));
+    }
+
+    @Test
+    void testRestoreMalformedDump() throws Exception {
+        mockMvc.perform(post("/admin/import")
+                        .contentType(BackupController.NDJSON_VALUE)
+                        .content("{\"type\": \"animal\", \"id\": 1, \"names\": {\"RUSSIAN\": \"Кот\"}}\n{\"type\": \"unknown\"}\n"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void testRestoreMalformedTrailingLineKeepsLevels() throws Exception {
+        byte[] dump = export();
+
+        firstRoundLevelRepository.deleteAll();
+        secondRoundLevelRepository.deleteAll();
+        animalRepository.deleteAll();
+        uiTextRepository.deleteAll();
+
+        mockMvc.perform(post("/admin/import")
+                        .contentType(BackupController.NDJSON_VALUE)
+                        .content(new String(dump, StandardCharsets.UTF_8) + "{\"type\": \"level\", \"round\": \n"))
+                .andExpect(status().isBadRequest());
+
+        // уровни из недописанной пачки сохранены, хотя последняя строка отклонена
+        assertEquals(4, animalRepository.count());
+        assertEquals(3, firstRoundLevelRepository.count());
+        assertEquals(1, secondRoundLevelRepository.count());
+    }
+
+    @Test
+    void testImagesRoundTrip() throws Exception {
+        MvcResult result = mockMvc.perform(get("/admin/export/images"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        byte[] tar = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsByteArray();
+
+        mockMvc.perform(post("/admin/import/images")
+                        .contentType(BackupController.TAR_VALUE)
+                        .content(tar))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.skipped").value(1))
+                .andExpect(jsonPath("$.failed").value(0));
+    }
+
+    private byte[] export() throws Exception {
+        MvcResult result = mockMvc.perform(get("/admin/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        return mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsByteArray();
+    }
+
+    private ResultActions restore(byte[] dump) throws Exception {
+        return mockMvc.perform(post("/admin/import")
+                        .contentType(BackupController.NDJSON_VALUE)
+                        .content(dump))
+                .andExpect(status().isOk());
+    }
+
+    private List<JsonNode> readRecords(byte[] dump) throws Exception {
+        return objectMapper.readerFor(JsonNode.class).<JsonNode>readValues(dump).readAll();
+    }
+
+    private Animal createAnimal(String russianName, String englishName) {
+        return Animal.builder()
+                .names(new HashMap<>(Map.of(Language.RUSSIAN, russianName, Language.ENGLISH, englishName)))
+                .descriptions(new HashMap<>(Map.of(Language.RUSSIAN, "Описание", Language.ENGLISH, "Description")))
+                .build();
+    }
+}
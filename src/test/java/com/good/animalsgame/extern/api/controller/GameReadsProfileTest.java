@@ -0,0 +1,116 @@
+package com.good.animalsgame.extern.api.controller;
+
+import com.good.animalsgame.app.cache.AnimalNameDictionary;
+import com.good.animalsgame.app.cache.LevelCatalog;
+import com.good.animalsgame.app.repository.AnimalRepository;
+import com.good.animalsgame.app.repository.FirstRoundLevelRepository;
+import com.good.animalsgame.domain.Animal;
+import com.good.animalsgame.domain.Coordinates;
+import com.good.animalsgame.domain.FirstRoundLevel;
+import com.good.animalsgame.domain.Language;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Проверяет, что в профиле game-reads игровые эндпоинты чтения после первой загрузки уровня не обращаются к БД
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "images.storage.root=target/query-count-images"
+})
+@ActiveProfiles("game-reads")
+@AutoConfigureMockMvc
+@AutoConfigureTestDatabase
+class GameReadsProfileTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private AnimalRepository animalRepository;
+
+    @Autowired
+    private FirstRoundLevelRepository firstRoundLevelRepository;
+
+    @Autowired
+    private LevelCatalog levelCatalog;
+
+    @Autowired
+    private AnimalNameDictionary animalNameDictionary;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    private FirstRoundLevel level;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        Animal lion = animalRepository.save(Animal.builder()
+                .names(new HashMap<>(Map.of(Language.RUSSIAN, "Лев", Language.ENGLISH, "Lion")))
+                .descriptions(new HashMap<>(Map.of(Language.RUSSIAN, "Описание", Language.ENGLISH, "Description")))
+                .build());
+        level = firstRoundLevelRepository.save(FirstRoundLevel.builder()
+                .correctAnimal(lion)
+                .animalCoordinates(new Coordinates(1, 2, 3, 4))
+                .build());
+
+        levelCatalog.invalidate(1);
+        for (Integer round : levelCatalog.getRounds()) {
+            levelCatalog.getSnapshot(round);
+        }
+        animalNameDictionary.invalidate();
+        animalNameDictionary.contains(lion.getId());
+    }
+
+    @AfterEach
+    void tearDown() {
+        firstRoundLevelRepository.deleteAll();
+        animalRepository.deleteAll();
+        levelCatalog.invalidate(1);
+    }
+
+    @Test
+    void testLevelByIdServedFromCache() throws Exception {
+        mockMvc.perform(get("/first-round/{id}", level.getId()).param("language", "ENGLISH"))
+                .andExpect(status().isOk());
+        statistics.clear();
+
+        mockMvc.perform(get("/first-round/{id}", level.getId()).param("language", "ENGLISH"))
+                .andExpect(status().isOk());
+
+        assertEquals(0, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void testRandomLevelServedFromCache() throws Exception {
+        mockMvc.perform(get("/first-round/{id}", level.getId()).param("language", "ENGLISH"))
+                .andExpect(status().isOk());
+        statistics.clear();
+
+        mockMvc.perform(get("/first-round/random-level").param("language", "ENGLISH"))
+                .andExpect(status().isOk());
+
+        assertEquals(0, statistics.getPrepareStatementCount());
+    }
+}
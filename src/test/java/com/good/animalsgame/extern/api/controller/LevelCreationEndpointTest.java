@@ -0,0 +1,152 @@
+package com.good.animalsgame.extern.api.controller;
+
+import com.good.animalsgame.app.cache.AnimalNameDictionary;
+import com.good.animalsgame.app.repository.AnimalRepository;
+import com.good.animalsgame.app.repository.FirstRoundLevelRepository;
+import com.good.animalsgame.app.storage.ImagePlaceholderService;
+import com.good.animalsgame.app.storage.ImageStorage;
+import com.good.animalsgame.domain.FirstRoundLevel;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.awt.image.BufferedImage;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.List;
+
+import static com.good.animalsgame.extern.api.controller.TestLevels.png;
+import static com.good.animalsgame.extern.api.controller.TestLevels.saveAnimal;
+import static org.hamcrest.Matchers.endsWith;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Проверяет создание уровня: размеры картинки читаются из её заголовка, а область животного
+ * должна лежать внутри картинки. Уменьшенные копии и заглушка картинки попадают в DTO уровня
+ */
+@SpringBootTest(properties = "images.storage.root=target/test-images")
+@AutoConfigureMockMvc
+@AutoConfigureTestDatabase
+class LevelCreationEndpointTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private AnimalRepository animalRepository;
+
+    @Autowired
+    private FirstRoundLevelRepository firstRoundLevelRepository;
+
+    @Autowired
+    private AnimalNameDictionary animalNameDictionary;
+
+    @Autowired
+    private ImagePlaceholderService imagePlaceholderService;
+
+    @Autowired
+    private ImageStorage imageStorage;
+
+    @BeforeEach
+    void setUp() {
+        for (String name : List.of("Лев", "Тигр", "Зебра", "Жираф")) {
+            saveAnimal(animalRepository, name);
+        }
+        animalNameDictionary.invalidate();
+    }
+
+    @AfterEach
+    void tearDown() {
+        firstRoundLevelRepository.deleteAll();
+        animalRepository.deleteAll();
+        animalNameDictionary.invalidate();
+    }
+
+    @Test
+    void testLevelCreatedWithImageDimensions() throws Exception {
+        createLevel(blankPng(400, 300), "{\"x\": 300, \"y\": 200, \"width\": 100, \"height\": 100}")
+                .andExpect(status().isCreated());
+
+        FirstRoundLevel level = firstRoundLevelRepository.findAll().get(0);
+        assertEquals(400, level.getImageWidth());
+        assertEquals(300, level.getImageHeight());
+        assertEquals(MediaType.IMAGE_PNG_VALUE, level.getImageContentType());
+    }
+
+    @Test
+    void testLevelCreatedWithImageVariants() throws Exception {
+        createLevel(blankPng(1000, 500), "{\"x\": 100, \"y\": 50, \"width\": 100, \"height\": 50}")
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.imageVariants.length()").value(2))
+                .andExpect(jsonPath("$.imageVariants[0].width").value(480))
+                .andExpect(jsonPath("$.imageVariants[0].height").value(240))
+                .andExpect(jsonPath("$.imageVariants[0].imageUrl").value(endsWith("/image?width=480")))
+                .andExpect(jsonPath("$.imageVariants[0].animalCoordinates.x").value(48))
+                .andExpect(jsonPath("$.imageVariants[0].animalCoordinates.width").value(48))
+                .andExpect(jsonPath("$.imageVariants[1].width").value(960));
+    }
+
+    @Test
+    void testLevelPlaceholder() throws Exception {
+        createLevel(blankPng(400, 300), "{\"x\": 0, \"y\": 0, \"width\": 100, \"height\": 100}")
+                .andExpect(status().isCreated());
+
+        imagePlaceholderService.fillPlaceholders();
+
+        FirstRoundLevel level = firstRoundLevelRepository.findAll().get(0);
+        assertEquals(28, level.getImageBlurHash().length());
+        mockMvc.perform(get("/first-round/{id}", level.getId()).param("language", "RUSSIAN"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imagePlaceholder").value(level.getImageBlurHash()))
+                .andExpect(jsonPath("$.imageColor").value("#000000"));
+    }
+
+    @Test
+    void testCoordinatesOutsideImage() throws Exception {
+        BufferedImage image = new BufferedImage(400, 300, BufferedImage.TYPE_INT_RGB);
+        image.setRGB(17, 23, 0x2c5e91);
+        byte[] imageBytes = png(image);
+
+        createLevel(imageBytes, "{\"x\": 350, \"y\": 200, \"width\": 100, \"height\": 100}")
+                .andExpect(status().isBadRequest());
+
+        assertEquals(0, firstRoundLevelRepository.count());
+        // картинка отклонённого уровня не сохраняется в хранилище
+        String hash = HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(imageBytes));
+        assertFalse(imageStorage.exists(hash));
+    }
+
+    @Test
+    void testUnsupportedImage() throws Exception {
+        createLevel(new byte[]{1, 2, 3}, "{\"x\": 0, \"y\": 0, \"width\": 1, \"height\": 1}")
+                .andExpect(status().isBadRequest());
+    }
+
+    private ResultActions createLevel(byte[] image, String coordinates) throws Exception {
+        String levelData = "{\"animalNames\": [\"Лев\", \"Тигр\", \"Зебра\", \"Жираф\"], "
+                + "\"correctAnimalName\": \"Лев\", \"animalCoordinates\": " + coordinates + "}";
+
+        return mockMvc.perform(multipart("/first-round")
+                .file(new MockMultipartFile("levelImage", "level.png", MediaType.IMAGE_PNG_VALUE, image))
+                .file(new MockMultipartFile("levelData", "", MediaType.APPLICATION_JSON_VALUE,
+                        levelData.getBytes(StandardCharsets.UTF_8))));
+    }
+
+    private static byte[] blankPng(int width, int height) throws Exception {
+        return png(new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB));
+    }
+}
@@ -0,0 +1,226 @@
+package com.good.animalsgame.extern.api.controller;
+
+import com.good.animalsgame.app.cache.AnimalNameDictionary;
+import com.good.animalsgame.app.cache.LevelCatalog;
+import com.good.animalsgame.app.repository.AnimalRepository;
+import com.good.animalsgame.app.repository.FirstRoundLevelRepository;
+import com.good.animalsgame.app.repository.SecondRoundLevelRepository;
+import com.good.animalsgame.app.storage.ImageStorage;
+import com.good.animalsgame.app.storage.StoredImage;
+import com.good.animalsgame.domain.Animal;
+import com.good.animalsgame.domain.Coordinates;
+import com.good.animalsgame.domain.FirstRoundLevel;
+import com.good.animalsgame.domain.Language;
+import com.good.animalsgame.domain.SecondRoundLevel;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Проверяет, сколько SQL-запросов выполняет каждый игровой эндпоинт.
+ * Количество не должно зависеть от числа уровней, связанных с животными
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "images.storage.root=target/query-count-images"
+})
+@AutoConfigureMockMvc
+@AutoConfigureTestDatabase
+class LevelEndpointsQueryCountTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private AnimalRepository animalRepository;
+
+    @Autowired
+    private FirstRoundLevelRepository firstRoundLevelRepository;
+
+    @Autowired
+    private SecondRoundLevelRepository secondRoundLevelRepository;
+
+    @Autowired
+    private ImageStorage imageStorage;
+
+    @Autowired
+    private LevelCatalog levelCatalog;
+
+    @Autowired
+    private AnimalNameDictionary animalNameDictionary;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    private Animal lion;
+
+    private FirstRoundLevel firstRoundLevel;
+
+    private SecondRoundLevel secondRoundLevel;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        lion = animalRepository.save(createAnimal("Лев", "Lion"));
+        Animal tiger = animalRepository.save(createAnimal("Тигр", "Tiger"));
+        Animal zebra = animalRepository.save(createAnimal("Зебра", "Zebra"));
+
+        StoredImage image = imageStorage.store(new ByteArrayInputStream(new byte[]{1, 2, 3}));
+
+        firstRoundLevel = firstRoundLevelRepository.save(FirstRoundLevel.builder()
+                .animals(Set.of(lion, tiger, zebra))
+                .correctAnimal(lion)
+                .imageHash(image.hash())
+                .imageSize(image.size())
+                .imageContentType(MediaType.IMAGE_PNG_VALUE)
+                .animalCoordinates(new Coordinates(1, 2, 3, 4))
+                .build());
+
+        // добавочные уровни с теми же животными: раньше их подтягивал каждый запрос животного
+        for (int i = 0; i < 5; i++) {
+            firstRoundLevelRepository.save(FirstRoundLevel.builder()
+                    .animals(Set.of(lion, tiger))
+                    .correctAnimal(tiger)
+                    .imageHash(image.hash())
+                    .imageSize(image.size())
+                    .imageContentType(MediaType.IMAGE_PNG_VALUE)
+                    .animalCoordinates(new Coordinates(1, 2, 3, 4))
+                    .build());
+        }
+
+        secondRoundLevel = secondRoundLevelRepository.save(SecondRoundLevel.builder()
+                .animals(Set.of(tiger, zebra))
+                .correctAnimal(tiger)
+                .animalInQuestion(lion)
+                .imageHash(image.hash())
+                .imageSize(image.size())
+                .imageContentType(MediaType.IMAGE_PNG_VALUE)
+                .animalCoordinates(new Coordinates(1, 2, 3, 4))
+                .build());
+
+        animalNameDictionary.invalidate();
+        animalNameDictionary.contains(lion.getId());
+        levelCatalog.invalidate(1);
+        levelCatalog.invalidate(2);
+        levelCatalog.getRounds().forEach(round -> {
+            try {
+                levelCatalog.getSnapshot(round);
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        firstRoundLevelRepository.deleteAll();
+        secondRoundLevelRepository.deleteAll();
+        animalRepository.deleteAll();
+    }
+
+    @Test
+    void testFirstRoundRandomLevel() throws Exception {
+        assertStatements(1, get("/first-round/random-level").param("language", "ENGLISH"));
+    }
+
+    @Test
+    void testFirstRoundDeal() throws Exception {
+        assertStatements(1, get("/first-round/deal").param("count", "5").param("language", "ENGLISH"));
+    }
+
+    @Test
+    void testFirstRoundLevelById() throws Exception {
+        assertStatements(1, get("/first-round/{id}", firstRoundLevel.getId()).param("language", "ENGLISH"));
+    }
+
+    @Test
+    void testFirstRoundIsCorrectAnswer() throws Exception {
+        assertStatements(0, post("/first-round/is-correct-answer/{id}", firstRoundLevel.getId())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"answer\": \"Лев\"}"));
+    }
+
+    @Test
+    void testFirstRoundCorrectAnimal() throws Exception {
+        assertStatements(2, get("/first-round/{id}/correct", firstRoundLevel.getId()));
+    }
+
+    @Test
+    void testFirstRoundLevelImage() throws Exception {
+        assertStatements(1, get("/first-round/{id}/image", firstRoundLevel.getId()));
+    }
+
+    @Test
+    void testSecondRoundRandomLevel() throws Exception {
+        assertStatements(1, get("/second-round/random-level").param("language", "ENGLISH"));
+    }
+
+    @Test
+    void testSecondRoundDeal() throws Exception {
+        assertStatements(1, get("/second-round/deal").param("count", "5").param("language", "ENGLISH"));
+    }
+
+    @Test
+    void testSecondRoundLevelById() throws Exception {
+        assertStatements(1, get("/second-round/{id}", secondRoundLevel.getId()).param("language", "ENGLISH"));
+    }
+
+    @Test
+    void testSecondRoundIsCorrectYesNoAnswer() throws Exception {
+        assertStatements(0, post("/second-round/is-correct-yes-no-answer/{id}", secondRoundLevel.getId())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"answer\": false}"));
+    }
+
+    @Test
+    void testSecondRoundCorrectAnimal() throws Exception {
+        assertStatements(2, get("/second-round/{id}/correct", secondRoundLevel.getId()));
+    }
+
+    @Test
+    void testAnimalById() throws Exception {
+        assertStatements(2, get("/animals/{id}", lion.getId()));
+    }
+
+    /**
+     * Выполняет запрос и проверяет, что он успешен и выполнил ровно ожидаемое количество SQL-запросов
+     */
+    private void assertStatements(long expected, RequestBuilder request) throws Exception {
+        statistics.clear();
+
+        mockMvc.perform(request).andExpect(status().isOk());
+
+        assertEquals(expected, statistics.getPrepareStatementCount());
+    }
+
+    private Animal createAnimal(String russianName, String englishName) {
+        return Animal.builder()
+                .names(new HashMap<>(Map.of(Language.RUSSIAN, russianName, Language.ENGLISH, englishName)))
+                .descriptions(new HashMap<>(Map.of(Language.RUSSIAN, "Описание", Language.ENGLISH, "Description")))
+                .build();
+    }
+}
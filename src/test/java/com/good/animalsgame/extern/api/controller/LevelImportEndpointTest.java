@@ -0,0 +1,235 @@
+package com.good.animalsgame.extern.api.controller;
+
+import com.good.animalsgame.app.cache.AnimalNameDictionary;
+import com.good.animalsgame.app.repository.AnimalRepository;
+import com.good.animalsgame.app.repository.FirstRoundLevelRepository;
+import com.good.animalsgame.app.repository.SecondRoundLevelRepository;
+import com.good.animalsgame.app.storage.ImageStorage;
+import com.good.animalsgame.domain.Animal;
+import com.good.animalsgame.domain.FirstRoundLevel;
+import com.good.animalsgame.domain.Language;
+import com.good.animalsgame.domain.SecondRoundLevel;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Проверяет импорт уровней из ZIP-архива: записи проверяются по правилам создания уровней,
+ * ошибочные пропускаются, а уровни вставляются пачками JDBC
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "images.storage.root=target/query-count-images"
+})
+@AutoConfigureMockMvc
+@AutoConfigureTestDatabase
+class LevelImportEndpointTest {
+
+    private static final String ANIMALS = "[\"Лев\", \"Тигр\", \"Зебра\", \"Жираф\"]";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private AnimalRepository animalRepository;
+
+    @Autowired
+    private FirstRoundLevelRepository firstRoundLevelRepository;
+
+    @Autowired
+    private SecondRoundLevelRepository secondRoundLevelRepository;
+
+    @Autowired
+    private AnimalNameDictionary animalNameDictionary;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private ImageStorage imageStorage;
+
+    @BeforeEach
+    void setUp() {
+        for (String name : List.of("Лев", "Тигр", "Зебра", "Жираф")) {
+            animalRepository.save(Animal.builder()
+                    .names(new HashMap<>(Map.of(Language.RUSSIAN, name)))
+                    .descriptions(new HashMap<>(Map.of(Language.RUSSIAN, "Описание")))
+                    .build());
+        }
+        animalNameDictionary.invalidate();
+    }
+
+    @AfterEach
+    void tearDown() {
+        firstRoundLevelRepository.deleteAll();
+        secondRoundLevelRepository.deleteAll();
+        animalRepository.deleteAll();
+        animalNameDictionary.invalidate();
+    }
+
+    @Test
+    void testJsonArchive() throws Exception {
+        StringBuilder manifest = new StringBuilder("[");
+        for (int i = 0; i < 120; i++) {
+            manifest.append("{\"round\": 1, \"image\": \"images/level.png\", \"animalNames\": ").append(ANIMALS)
+                    .append(", \"correctAnimalName\": \"Лев\", \"animalCoordinates\": {\"x\": 10, \"y\": 10, \"width\": 50, \"height\": 50}},");
+        }
+        for (int i = 0; i < 30; i++) {
+            manifest.append("{\"round\": 2, \"image\": \"images/level.png\", \"animalNames\": []")
+                    .append(", \"correctAnimalName\": \"тигр\", \"animalNameInQuestion\": \"Тигр\", \"animalCoordinates\": {\"x\": 10, \"y\": 10, \"width\": 50, \"height\": 50}},");
+        }
+        manifest.append("{\"round\": 1, \"image\": \"images/level.png\", \"animalNames\": [\"Лев\", \"Тигр\", \"Зебра\", \"Кот\"]")
+                .append(", \"correctAnimalName\": \"Лев\", \"animalCoordinates\": {\"x\": 10, \"y\": 10, \"width\": 50, \"height\": 50}},");
+        manifest.append("{\"round\": 1, \"image\": \"images/missing.png\", \"animalNames\": ").append(ANIMALS)
+                .append(", \"correctAnimalName\": \"Лев\", \"animalCoordinates\": {\"x\": 10, \"y\": 10, \"width\": 50, \"height\": 50}},");
+        manifest.append("{\"round\": 1, \"image\": \"images/level.png\", \"animalNames\": ").append(ANIMALS)
+                .append(", \"correctAnimalName\": \"Лев\", \"animalCoordinates\": {\"x\": 350, \"y\": 10, \"width\": 100, \"height\": 50}}");
+        manifest.append("]");
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        importArchive(zip("manifest.json", manifest.toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imported").value(150))
+                .andExpect(jsonPath("$.failed").value(3))
+                .andExpect(jsonPath("$.errors[0].entry").value(151))
+                .andExpect(jsonPath("$.errors[0].error").value("Животное с названием Кот не найдено"))
+                .andExpect(jsonPath("$.errors[1].entry").value(152))
+                .andExpect(jsonPath("$.errors[2].entry").value(153));
+
+        assertEquals(150, statistics.getEntityInsertCount());
+        // без пачек JDBC каждый уровень и каждая строка level_animals были бы отдельным запросом
+        assertTrue(statistics.getPrepareStatementCount() < 50, "Запросов: " + statistics.getPrepareStatementCount());
+
+        assertEquals(120, firstRoundLevelRepository.count());
+        assertEquals(30, secondRoundLevelRepository.count());
+
+        FirstRoundLevel firstRoundLevel = firstRoundLevelRepository.findWithAnimalsById(firstRoundLevelRepository.findAll().get(0).getId()).orElseThrow();
+        assertEquals(4, firstRoundLevel.getAnimals().size());
+        assertEquals(400, firstRoundLevel.getImageWidth());
+
+        SecondRoundLevel secondRoundLevel = secondRoundLevelRepository.findAll().get(0);
+        assertEquals(300, secondRoundLevel.getImageHeight());
+    }
+
+    @Test
+    void testCsvArchive() throws Exception {
+        String manifest = "round,image,animalNames,correctAnimalName,animalNameInQuestion,x,y,width,height\n"
+                + "1,level.png,Лев|Тигр|Зебра|Жираф,Лев,,10,10,50,50\n"
+                + "2,level.png,\"Лев|Тигр|Зебра|Жираф\",Лев,Жираф,10,10,50,50\n";
+
+        importArchive(zip("manifest.csv", manifest))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imported").value(2))
+                .andExpect(jsonPath("$.failed").value(0));
+
+        assertEquals(1, firstRoundLevelRepository.count());
+        assertEquals(1, secondRoundLevelRepository.count());
+    }
+
+    @Test
+    void testRejectedEntryDoesNotStoreImage() throws Exception {
+        // картинка 123x77 есть только у записи с областью животного за пределами картинки
+        byte[] image = png(123, 77);
+        String manifest = "[{\"round\": 1, \"image\": \"rejected.png\", \"animalNames\": " + ANIMALS
+                + ", \"correctAnimalName\": \"Лев\", \"animalCoordinates\": {\"x\": 100, \"y\": 10, \"width\": 50, \"height\": 50}}]";
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        try (ZipOutputStream zipStream = new ZipOutputStream(outputStream)) {
+            zipStream.putNextEntry(new ZipEntry("manifest.json"));
+            zipStream.write(manifest.getBytes(StandardCharsets.UTF_8));
+            zipStream.putNextEntry(new ZipEntry("rejected.png"));
+            zipStream.write(image);
+        }
+
+        importArchive(outputStream.toByteArray())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imported").value(0))
+                .andExpect(jsonPath("$.failed").value(1));
+
+        String hash = HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(image));
+        assertTrue(imageStorage.find(hash).isEmpty());
+    }
+
+    @Test
+    void testArchiveWithoutManifest() throws Exception {
+        importArchive(zip("levels.json", "[]"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void testMalformedManifestCreatesNothing() throws Exception {
+        String manifest = "[{\"round\": 1, \"image\": \"level.png\", \"animalNames\": " + ANIMALS
+                + ", \"correctAnimalName\": \"Лев\", \"animalCoordinates\": {\"x\": 10, \"y\": 10, \"width\": 50, \"height\": 50}}, {\"round\": ";
+
+        importArchive(zip("manifest.json", manifest))
+                .andExpect(status().isBadRequest());
+
+        assertEquals(0, firstRoundLevelRepository.count());
+    }
+
+    @Test
+    void testNotZipFile() throws Exception {
+        importArchive(new byte[]{1, 2, 3})
+                .andExpect(status().isBadRequest());
+    }
+
+    private ResultActions importArchive(byte[] archive) throws Exception {
+        return mockMvc.perform(multipart("/levels/import")
+                .file(new MockMultipartFile("archive", "pack.zip", "application/zip", archive)));
+    }
+
+    /**
+     * Архив с манифестом и одной картинкой 400x300, доступной как level.png и images/level.png
+     */
+    private static byte[] zip(String manifestName, String manifest) throws IOException {
+        byte[] image = png(400, 300);
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        try (ZipOutputStream zipStream = new ZipOutputStream(outputStream)) {
+            zipStream.putNextEntry(new ZipEntry(manifestName));
+            zipStream.write(manifest.getBytes(StandardCharsets.UTF_8));
+            zipStream.putNextEntry(new ZipEntry("level.png"));
+            zipStream.write(image);
+            zipStream.putNextEntry(new ZipEntry("images/level.png"));
+            zipStream.write(image);
+        }
+        return outputStream.toByteArray();
+    }
+
+    private static byte[] png(int width, int height) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB), "png", outputStream);
+        return outputStream.toByteArray();
+    }
+}
@@ -0,0 +1,135 @@
+package com.good.animalsgame.extern.api.controller;
+
+import com.good.animalsgame.app.cache.AnimalNameDictionary;
+import com.good.animalsgame.app.cache.LevelCatalog;
+import com.good.animalsgame.app.cache.PlayerHistory;
+import com.good.animalsgame.app.repository.AnimalRepository;
+import com.good.animalsgame.app.repository.FirstRoundLevelRepository;
+import com.good.animalsgame.app.repository.PlayerProgressRepository;
+import com.good.animalsgame.domain.Animal;
+import com.good.animalsgame.domain.Coordinates;
+import com.good.animalsgame.domain.FirstRoundLevel;
+import com.good.animalsgame.domain.Language;
+import com.good.animalsgame.domain.PlayerProgressId;
+import com.good.animalsgame.extern.infrastructure.progress.PlayerHistoryLevelProgress;
+import com.jayway.jsonpath.JsonPath;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Проверяет выдачу уровней по постоянной истории игрока: без повторений между сессиями и с записью истории в БД
+ */
+@SpringBootTest(properties = {
+        "game.history.enabled=true",
+        "game.history.flush-interval=1h",
+        "images.storage.root=target/query-count-images"
+})
+@AutoConfigureMockMvc
+@AutoConfigureTestDatabase
+class PlayerHistoryEndpointTest {
+
+    private static final int LEVELS_COUNT = 5;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private AnimalRepository animalRepository;
+
+    @Autowired
+    private FirstRoundLevelRepository firstRoundLevelRepository;
+
+    @Autowired
+    private PlayerProgressRepository playerProgressRepository;
+
+    @Autowired
+    private LevelCatalog levelCatalog;
+
+    @Autowired
+    private AnimalNameDictionary animalNameDictionary;
+
+    @Autowired
+    private PlayerHistory playerHistory;
+
+    @BeforeEach
+    void setUp() {
+        Animal lion = animalRepository.save(Animal.builder()
+                .names(new HashMap<>(Map.of(Language.RUSSIAN, "Лев")))
+                .descriptions(new HashMap<>(Map.of(Language.RUSSIAN, "Описание")))
+                .build());
+
+        for (int i = 0; i < LEVELS_COUNT; i++) {
+            firstRoundLevelRepository.save(FirstRoundLevel.builder()
+                    .correctAnimal(lion)
+                    .animalCoordinates(new Coordinates(1, 2, 3, 4))
+                    .build());
+        }
+        levelCatalog.invalidate(1);
+        animalNameDictionary.invalidate();
+    }
+
+    @AfterEach
+    void tearDown() {
+        firstRoundLevelRepository.deleteAll();
+        animalRepository.deleteAll();
+        playerProgressRepository.deleteAll();
+        levelCatalog.invalidate(1);
+    }
+
+    @Test
+    void testRandomLevelsWithoutRepeatsAcrossSessions() throws Exception {
+        String playerId = UUID.randomUUID().toString();
+        Set<Integer> levelIds = new HashSet<>();
+
+        // каждый запрос MockMvc начинается в новой сессии, повторов не даёт только история игрока
+        for (int i = 0; i < LEVELS_COUNT; i++) {
+            String content = mockMvc.perform(get("/first-round/random-level")
+                            .param("language", "RUSSIAN")
+                            .header(PlayerHistoryLevelProgress.PLAYER_HEADER, playerId))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString();
+            assertTrue(levelIds.add(JsonPath.read(content, "$.id")));
+        }
+
+        mockMvc.perform(get("/first-round/random-level")
+                        .param("language", "RUSSIAN")
+                        .header(PlayerHistoryLevelProgress.PLAYER_HEADER, playerId))
+                .andExpect(status().isNoContent());
+
+        playerHistory.flush();
+        assertTrue(playerProgressRepository.existsById(new PlayerProgressId(playerId, 1)));
+    }
+
+    @Test
+    void testWithoutPlayerIdUsesSession() throws Exception {
+        mockMvc.perform(get("/first-round/deal").param("count", "3").param("language", "RUSSIAN"))
+                .andExpect(status().isOk());
+
+        playerHistory.flush();
+        assertEquals(0, playerProgressRepository.count());
+    }
+
+    @Test
+    void testInvalidPlayerId() throws Exception {
+        mockMvc.perform(get("/first-round/random-level")
+                        .param("language", "RUSSIAN")
+                        .header(PlayerHistoryLevelProgress.PLAYER_HEADER, "not-a-uuid"))
+                .andExpect(status().isBadRequest());
+    }
+}
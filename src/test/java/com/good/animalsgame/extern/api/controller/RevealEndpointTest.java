@@ -0,0 +1,142 @@
+package com.good.animalsgame.extern.api.controller;
+
+import com.good.animalsgame.app.cache.AnimalNameDictionary;
+import com.good.animalsgame.app.repository.AnimalRepository;
+import com.good.animalsgame.app.repository.FirstRoundLevelRepository;
+import com.good.animalsgame.app.storage.ImageStorage;
+import com.good.animalsgame.domain.Animal;
+import com.good.animalsgame.domain.Coordinates;
+import com.good.animalsgame.domain.FirstRoundLevel;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+
+import static com.good.animalsgame.extern.api.controller.TestLevels.markedImage;
+import static com.good.animalsgame.extern.api.controller.TestLevels.saveAnimal;
+import static com.good.animalsgame.extern.api.controller.TestLevels.saveLevel;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Проверяет отрисовку картинки ответа: выделение области животного, обрезку по ней и кэширование по ETag
+ */
+@SpringBootTest(properties = "images.storage.root=target/test-images")
+@AutoConfigureMockMvc
+@AutoConfigureTestDatabase
+class RevealEndpointTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private AnimalRepository animalRepository;
+
+    @Autowired
+    private FirstRoundLevelRepository firstRoundLevelRepository;
+
+    @Autowired
+    private ImageStorage imageStorage;
+
+    @Autowired
+    private AnimalNameDictionary animalNameDictionary;
+
+    private FirstRoundLevel level;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        Animal lion = saveAnimal(animalRepository, "Лев");
+        animalNameDictionary.invalidate();
+
+        // белая картинка 1000x500 с красным квадратом на месте животного
+        Coordinates animalCoordinates = new Coordinates(100, 100, 200, 200);
+        level = saveLevel(firstRoundLevelRepository, imageStorage, lion, markedImage(1000, 500, animalCoordinates), animalCoordinates);
+    }
+
+    @AfterEach
+    void tearDown() {
+        firstRoundLevelRepository.deleteAll();
+        animalRepository.deleteAll();
+        animalNameDictionary.invalidate();
+    }
+
+    @Test
+    void testHighlight() throws Exception {
+        BufferedImage reveal = getReveal(get("/first-round/{id}/reveal", level.getId()));
+
+        assertEquals(1000, reveal.getWidth());
+        assertEquals(500, reveal.getHeight());
+        // внутри области картинка не изменилась, снаружи затемнена
+        assertTrue(new Color(reveal.getRGB(200, 200)).getRed() > 200);
+        assertTrue(new Color(reveal.getRGB(200, 200)).getGreen() < 60);
+        assertTrue(new Color(reveal.getRGB(800, 400)).getGreen() < 150);
+    }
+
+    @Test
+    void testCropVariant() throws Exception {
+        BufferedImage reveal = getReveal(get("/first-round/{id}/reveal", level.getId())
+                .param("style", "CROP")
+                .param("width", "400"));
+
+        // ширина 400 округляется до копии 480: область (48, 48, 96, 96) и поле 24 пикселя
+        assertEquals(144, reveal.getWidth());
+        assertEquals(144, reveal.getHeight());
+    }
+
+    @Test
+    void testWideImageClampedToMaxWidth() throws Exception {
+        FirstRoundLevel wideLevel = saveLevel(firstRoundLevelRepository, imageStorage, level.getCorrectAnimal(),
+                new BufferedImage(2400, 300, BufferedImage.TYPE_INT_RGB), new Coordinates(100, 100, 200, 100));
+
+        // без ширины экрана картинка отрисовывается не в исходной ширине, а в images.reveal.max-width
+        BufferedImage reveal = getReveal(get("/first-round/{id}/reveal", wideLevel.getId()));
+
+        assertEquals(1920, reveal.getWidth());
+        assertEquals(240, reveal.getHeight());
+    }
+
+    @Test
+    void testNotModified() throws Exception {
+        MvcResult result = mockMvc.perform(get("/first-round/{id}/reveal", level.getId()).param("width", "900"))
+                .andExpect(status().isOk())
+                .andReturn();
+        String eTag = result.getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get("/first-round/{id}/reveal", level.getId()).param("width", "960")
+                        .header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    void testLevelNotFound() throws Exception {
+        mockMvc.perform(get("/first-round/{id}/reveal", level.getId() + 1000))
+                .andExpect(status().isNotFound());
+    }
+
+    private BufferedImage getReveal(RequestBuilder request) throws Exception {
+        MvcResult result = mockMvc.perform(request)
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.IMAGE_JPEG))
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andReturn();
+        return ImageIO.read(new ByteArrayInputStream(result.getResponse().getContentAsByteArray()));
+    }
+}
@@ -0,0 +1,83 @@
+package com.good.animalsgame.extern.api.controller;
+
+import com.good.animalsgame.app.repository.AnimalRepository;
+import com.good.animalsgame.app.repository.FirstRoundLevelRepository;
+import com.good.animalsgame.app.storage.ImageStorage;
+import com.good.animalsgame.app.storage.StoredImage;
+import com.good.animalsgame.domain.Animal;
+import com.good.animalsgame.domain.Coordinates;
+import com.good.animalsgame.domain.FirstRoundLevel;
+import com.good.animalsgame.domain.Language;
+import org.springframework.http.MediaType;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Общие данные эндпоинт-тестов уровней: животные, картинки и уровни 1 раунда
+ */
+final class TestLevels {
+
+    private TestLevels() {
+    }
+
+    /**
+     * Сохраняет животное с названием и описанием на русском
+     */
+    static Animal saveAnimal(AnimalRepository animalRepository, String russianName) {
+        return animalRepository.save(Animal.builder()
+                .names(new HashMap<>(Map.of(Language.RUSSIAN, russianName)))
+                .descriptions(new HashMap<>(Map.of(Language.RUSSIAN, "Описание")))
+                .build());
+    }
+
+    /**
+     * Рисует белую картинку с красным прямоугольником на месте животного
+     */
+    static BufferedImage markedImage(int width, int height, Coordinates animalCoordinates) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+        graphics.setColor(Color.WHITE);
+        graphics.fillRect(0, 0, width, height);
+        graphics.setColor(Color.RED);
+        graphics.fillRect(animalCoordinates.x(), animalCoordinates.y(), animalCoordinates.width(), animalCoordinates.height());
+        graphics.dispose();
+        return image;
+    }
+
+    static byte[] png(BufferedImage image) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", outputStream);
+        return outputStream.toByteArray();
+    }
+
+    /**
+     * Сохраняет картинку в хранилище и уровень 1 раунда с ней, животное - единственный и верный ответ
+     */
+    static FirstRoundLevel saveLevel(FirstRoundLevelRepository firstRoundLevelRepository,
+                                     ImageStorage imageStorage,
+                                     Animal animal,
+                                     BufferedImage image,
+                                     Coordinates animalCoordinates) throws IOException {
+        StoredImage storedImage = imageStorage.store(new ByteArrayInputStream(png(image)));
+
+        return firstRoundLevelRepository.save(FirstRoundLevel.builder()
+                .animals(Set.of(animal))
+                .correctAnimal(animal)
+                .imageHash(storedImage.hash())
+                .imageSize(storedImage.size())
+                .imageContentType(MediaType.IMAGE_PNG_VALUE)
+                .imageWidth(image.getWidth())
+                .imageHeight(image.getHeight())
+                .animalCoordinates(animalCoordinates)
+                .build());
+    }
+}
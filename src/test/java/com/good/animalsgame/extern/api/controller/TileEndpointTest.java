@@ -0,0 +1,155 @@
+package com.good.animalsgame.extern.api.controller;
+
+import com.good.animalsgame.app.cache.AnimalNameDictionary;
+import com.good.animalsgame.app.repository.AnimalRepository;
+import com.good.animalsgame.app.repository.FirstRoundLevelRepository;
+import com.good.animalsgame.app.repository.ImageTileRepository;
+import com.good.animalsgame.app.storage.ImageStorage;
+import com.good.animalsgame.app.storage.ImageTileService;
+import com.good.animalsgame.domain.Animal;
+import com.good.animalsgame.domain.Coordinates;
+import com.good.animalsgame.domain.FirstRoundLevel;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+
+import static com.good.animalsgame.extern.api.controller.TestLevels.markedImage;
+import static com.good.animalsgame.extern.api.controller.TestLevels.saveAnimal;
+import static com.good.animalsgame.extern.api.controller.TestLevels.saveLevel;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.endsWith;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Проверяет построение пирамиды тайлов большой картинки уровня и отдачу тайлов
+ */
+@SpringBootTest(properties = "images.storage.root=target/test-images")
+@AutoConfigureMockMvc
+@AutoConfigureTestDatabase
+class TileEndpointTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private AnimalRepository animalRepository;
+
+    @Autowired
+    private FirstRoundLevelRepository firstRoundLevelRepository;
+
+    @Autowired
+    private ImageTileRepository imageTileRepository;
+
+    @Autowired
+    private ImageStorage imageStorage;
+
+    @Autowired
+    private ImageTileService imageTileService;
+
+    @Autowired
+    private AnimalNameDictionary animalNameDictionary;
+
+    private FirstRoundLevel level;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        Animal lion = saveAnimal(animalRepository, "Лев");
+        animalNameDictionary.invalidate();
+
+        // панорама 5000x300: 5000 -> 2500 -> 1250 -> 625 -> 313 -> 157, шесть уровней пирамиды
+        Coordinates animalCoordinates = new Coordinates(4000, 100, 200, 100);
+        level = saveLevel(firstRoundLevelRepository, imageStorage, lion, markedImage(5000, 300, animalCoordinates), animalCoordinates);
+    }
+
+    @AfterEach
+    void tearDown() {
+        firstRoundLevelRepository.deleteAll();
+        imageTileRepository.deleteAll();
+        animalRepository.deleteAll();
+        animalNameDictionary.invalidate();
+    }
+
+    @Test
+    void testLevelTiles() throws Exception {
+        mockMvc.perform(get("/first-round/{id}", level.getId()).param("language", "RUSSIAN"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imageTiles").doesNotExist());
+
+        assertEquals(1, imageTileService.fillTiles());
+
+        mockMvc.perform(get("/first-round/{id}", level.getId()).param("language", "RUSSIAN"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imageTiles.tileSize").value(256))
+                .andExpect(jsonPath("$.imageTiles.maxZoom").value(5))
+                .andExpect(jsonPath("$.imageTiles.width").value(5000))
+                .andExpect(jsonPath("$.imageTiles.height").value(300))
+                .andExpect(jsonPath("$.imageTiles.tileUrl").value(endsWith("/first-round/" + level.getId() + "/tiles/{z}/{x}/{y}")))
+                .andExpect(jsonPath("$.animalCoordinates.x").value(4000));
+    }
+
+    @Test
+    void testTile() throws Exception {
+        imageTileService.fillTiles();
+
+        // крайний тайл: 5000 - 19 * 256 = 136 по ширине, 300 - 256 = 44 по высоте
+        MvcResult result = mockMvc.perform(get("/first-round/{id}/tiles/{zoom}/{x}/{y}", level.getId(), 5, 19, 1))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.IMAGE_JPEG))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, containsString("immutable")))
+                .andReturn();
+        BufferedImage tile = ImageIO.read(new ByteArrayInputStream(result.getResponse().getContentAsByteArray()));
+        assertEquals(136, tile.getWidth());
+        assertEquals(44, tile.getHeight());
+
+        // животное на (4000, 100) попадает в тайл 15 уровня 5, уровень 0 - вся панорама в одном тайле
+        BufferedImage animalTile = getTile(5, 15, 0);
+        assertEquals(Color.RED.getRed(), new Color(animalTile.getRGB(4000 - 15 * 256 + 50, 150)).getRed(), 10);
+        BufferedImage overview = getTile(0, 0, 0);
+        assertEquals(157, overview.getWidth());
+        assertEquals(10, overview.getHeight());
+
+        String eTag = result.getResponse().getHeader(HttpHeaders.ETAG);
+        mockMvc.perform(get("/first-round/{id}/tiles/{zoom}/{x}/{y}", level.getId(), 5, 19, 1)
+                        .header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    void testTileNotFound() throws Exception {
+        mockMvc.perform(get("/first-round/{id}/tiles/{zoom}/{x}/{y}", level.getId(), 0, 0, 0))
+                .andExpect(status().isNotFound());
+
+        imageTileService.fillTiles();
+
+        mockMvc.perform(get("/first-round/{id}/tiles/{zoom}/{x}/{y}", level.getId(), 6, 0, 0))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(get("/first-round/{id}/tiles/{zoom}/{x}/{y}", level.getId() + 1000, 0, 0, 0))
+                .andExpect(status().isNotFound());
+    }
+
+    private BufferedImage getTile(int zoom, int x, int y) throws Exception {
+        MvcResult result = mockMvc.perform(get("/first-round/{id}/tiles/{zoom}/{x}/{y}", level.getId(), zoom, x, y))
+                .andExpect(status().isOk())
+                .andReturn();
+        return ImageIO.read(new ByteArrayInputStream(result.getResponse().getContentAsByteArray()));
+    }
+}
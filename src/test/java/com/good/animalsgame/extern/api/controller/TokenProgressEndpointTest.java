@@ -0,0 +1,133 @@
+package com.good.animalsgame.extern.api.controller;
+
+import com.good.animalsgame.app.cache.AnimalNameDictionary;
+import com.good.animalsgame.app.cache.LevelCatalog;
+import com.good.animalsgame.app.cache.LevelProgress;
+import com.good.animalsgame.app.repository.AnimalRepository;
+import com.good.animalsgame.app.repository.FirstRoundLevelRepository;
+import com.good.animalsgame.domain.Animal;
+import com.good.animalsgame.domain.Coordinates;
+import com.good.animalsgame.domain.FirstRoundLevel;
+import com.good.animalsgame.domain.Language;
+import com.good.animalsgame.extern.infrastructure.progress.TokenLevelProgress;
+import com.jayway.jsonpath.JsonPath;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Проверяет выдачу уровней без повторений, когда прогресс хранится в подписанном токене, а не в сессии
+ */
+@SpringBootTest(properties = {
+        "game.progress.mode=token",
+        "game.progress.token-secret=test-secret",
+        "images.storage.root=target/query-count-images"
+})
+@AutoConfigureMockMvc
+@AutoConfigureTestDatabase
+class TokenProgressEndpointTest {
+
+    private static final int LEVELS_COUNT = 5;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private AnimalRepository animalRepository;
+
+    @Autowired
+    private FirstRoundLevelRepository firstRoundLevelRepository;
+
+    @Autowired
+    private LevelCatalog levelCatalog;
+
+    @Autowired
+    private AnimalNameDictionary animalNameDictionary;
+
+    @Autowired
+    private LevelProgress levelProgress;
+
+    @BeforeEach
+    void setUp() {
+        Animal lion = animalRepository.save(Animal.builder()
+                .names(new HashMap<>(Map.of(Language.RUSSIAN, "Лев")))
+                .descriptions(new HashMap<>(Map.of(Language.RUSSIAN, "Описание")))
+                .build());
+
+        for (int i = 0; i < LEVELS_COUNT; i++) {
+            firstRoundLevelRepository.save(FirstRoundLevel.builder()
+                    .correctAnimal(lion)
+                    .animalCoordinates(new Coordinates(1, 2, 3, 4))
+                    .build());
+        }
+        levelCatalog.invalidate(1);
+        animalNameDictionary.invalidate();
+    }
+
+    @AfterEach
+    void tearDown() {
+        firstRoundLevelRepository.deleteAll();
+        animalRepository.deleteAll();
+        levelCatalog.invalidate(1);
+    }
+
+    @Test
+    void testTokenModeSelected() {
+        assertFalse(levelProgress.getClass().getName().contains("LevelsSessionCache"));
+    }
+
+    @Test
+    void testRandomLevelsWithoutRepeats() throws Exception {
+        Set<Integer> levelIds = new HashSet<>();
+        String token = null;
+
+        for (int i = 0; i < LEVELS_COUNT; i++) {
+            MvcResult result = mockMvc.perform(withToken(get("/first-round/random-level").param("language", "RUSSIAN"), token))
+                    .andExpect(status().isOk())
+                    .andReturn();
+
+            token = result.getResponse().getHeader(TokenLevelProgress.PROGRESS_HEADER);
+            assertNotNull(token);
+            assertTrue(levelIds.add(JsonPath.read(result.getResponse().getContentAsString(), "$.id")));
+        }
+
+        mockMvc.perform(withToken(get("/first-round/random-level").param("language", "RUSSIAN"), token))
+                .andExpect(status().isNoContent());
+    }
+
+    @Test
+    void testDealWithToken() throws Exception {
+        MvcResult first = mockMvc.perform(get("/first-round/deal").param("count", "3").param("language", "RUSSIAN"))
+                .andExpect(status().isOk())
+                .andReturn();
+        String token = first.getResponse().getHeader(TokenLevelProgress.PROGRESS_HEADER);
+
+        MvcResult second = mockMvc.perform(withToken(get("/first-round/deal").param("count", "3").param("language", "RUSSIAN"), token))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        Set<Integer> levelIds = new HashSet<>(JsonPath.read(first.getResponse().getContentAsString(), "$[*].id"));
+        levelIds.addAll(JsonPath.read(second.getResponse().getContentAsString(), "$[*].id"));
+        assertEquals(LEVELS_COUNT, levelIds.size());
+    }
+
+    private static MockHttpServletRequestBuilder withToken(MockHttpServletRequestBuilder request, String token) {
+        return token != null ? request.header(TokenLevelProgress.PROGRESS_HEADER, token) : request;
+    }
+}
@@ -0,0 +1,96 @@
+package com.good.animalsgame.extern.api.controller;
+
+import com.good.animalsgame.app.cache.UiTextBundleCache;
+import com.good.animalsgame.app.repository.UiTextRepository;
+import com.good.animalsgame.domain.Language;
+import com.good.animalsgame.domain.UiText;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.json.JsonCompareMode;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Проверяет условные запросы и сжатие для набора текстов интерфейса
+ */
+@SpringBootTest(properties = "images.storage.root=target/test-images")
+@AutoConfigureMockMvc
+@AutoConfigureTestDatabase
+class UiTextBundleEndpointTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UiTextRepository uiTextRepository;
+
+    @Autowired
+    private UiTextBundleCache uiTextBundleCache;
+
+    @BeforeEach
+    void setUp() {
+        uiTextRepository.save(UiText.builder()
+                .title("start")
+                .texts(new HashMap<>(Map.of(Language.RUSSIAN, "Начать", Language.ENGLISH, "Start")))
+                .build());
+        uiTextBundleCache.invalidate();
+    }
+
+    @AfterEach
+    void tearDown() {
+        uiTextRepository.deleteAll();
+        uiTextBundleCache.invalidate();
+    }
+
+    @Test
+    void testGetBundle() throws Exception {
+        mockMvc.perform(get("/ui-texts/bundle/{language}", "ENGLISH"))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andExpect(header().string(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING))
+                .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING))
+                .andExpect(content().json("{\"start\": \"Start\"}", JsonCompareMode.STRICT));
+    }
+
+    @Test
+    void testGetBundleNotModified() throws Exception {
+        MvcResult first = mockMvc.perform(get("/ui-texts/bundle/{language}", "RUSSIAN"))
+                .andExpect(status().isOk())
+                .andReturn();
+        String eTag = first.getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotNull(eTag);
+
+        mockMvc.perform(get("/ui-texts/bundle/{language}", "RUSSIAN").header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().bytes(new byte[0]));
+    }
+
+    @Test
+    void testGetBundleGzip() throws Exception {
+        mockMvc.perform(get("/ui-texts/bundle/{language}", "ENGLISH").header(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"));
+    }
+
+    @Test
+    void testGetBundleUnknownLanguage() throws Exception {
+        mockMvc.perform(get("/ui-texts/bundle/{language}", "KLINGON"))
+                .andExpect(status().isNotFound())
+                .andExpect(content().json("{\"error\": \"Нет языка KLINGON\"}"));
+    }
+}
@@ -0,0 +1,110 @@
+package com.good.animalsgame.extern.infrastructure.filter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UploadAdmissionFilterTest {
+
+    private final UploadAdmissionFilter filter = new UploadAdmissionFilter(
+            2, DataSize.ofMegabytes(10), DataSize.ofMegabytes(8), Duration.ofSeconds(7), new ObjectMapper());
+
+    @Test
+    void testUploadAdmitted() throws Exception {
+        MockFilterChain chain = new MockFilterChain();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(upload(DataSize.ofMegabytes(1)), response, chain);
+
+        assertNotNull(chain.getRequest());
+        assertEquals(200, response.getStatus());
+    }
+
+    @Test
+    void testTooManyConcurrentUploads() throws Exception {
+        AtomicReference<MockHttpServletResponse> rejected = new AtomicReference<>();
+        FilterChain third = (request, response) -> {
+            MockHttpServletResponse thirdResponse = new MockHttpServletResponse();
+            filter.doFilter(upload(DataSize.ofKilobytes(1)), thirdResponse, new MockFilterChain());
+            rejected.set(thirdResponse);
+        };
+        FilterChain second = (request, response) -> filter.doFilter(upload(DataSize.ofKilobytes(1)), new MockHttpServletResponse(), third);
+
+        filter.doFilter(upload(DataSize.ofKilobytes(1)), new MockHttpServletResponse(), second);
+
+        assertEquals(503, rejected.get().getStatus());
+        assertEquals("7", rejected.get().getHeader(HttpHeaders.RETRY_AFTER));
+        assertTrue(rejected.get().getContentAsString().contains("\"error\""));
+    }
+
+    @Test
+    void testTotalSizeExceeded() throws Exception {
+        AtomicReference<MockHttpServletResponse> rejected = new AtomicReference<>();
+        FilterChain second = (request, response) -> {
+            MockHttpServletResponse secondResponse = new MockHttpServletResponse();
+            filter.doFilter(upload(DataSize.ofMegabytes(4)), secondResponse, new MockFilterChain());
+            rejected.set(secondResponse);
+        };
+
+        filter.doFilter(upload(DataSize.ofMegabytes(7)), new MockHttpServletResponse(), second);
+
+        assertEquals(503, rejected.get().getStatus());
+    }
+
+    @Test
+    void testUploadWithoutLengthCountedAsMaximum() throws Exception {
+        AtomicReference<MockHttpServletResponse> rejected = new AtomicReference<>();
+        FilterChain second = (request, response) -> {
+            MockHttpServletResponse secondResponse = new MockHttpServletResponse();
+            filter.doFilter(upload(DataSize.ofMegabytes(3)), secondResponse, new MockFilterChain());
+            rejected.set(secondResponse);
+        };
+
+        MockHttpServletRequest chunked = upload(DataSize.ofBytes(0));
+        chunked.removeHeader(HttpHeaders.CONTENT_LENGTH);
+        chunked.setContent(null);
+        filter.doFilter(chunked, new MockHttpServletResponse(), second);
+
+        assertEquals(503, rejected.get().getStatus());
+    }
+
+    @Test
+    void testPermitsReleasedAfterUpload() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            MockHttpServletResponse response = new MockHttpServletResponse();
+            filter.doFilter(upload(DataSize.ofMegabytes(8)), response, new MockFilterChain());
+            assertEquals(200, response.getStatus());
+        }
+    }
+
+    @Test
+    void testOtherRequestsNotLimited() throws Exception {
+        filter.doFilter(upload(DataSize.ofMegabytes(9)), new MockHttpServletResponse(), (request, response) -> {
+            MockFilterChain chain = new MockFilterChain();
+            MockHttpServletRequest get = new MockHttpServletRequest("GET", "/first-round/random-level");
+            try {
+                filter.doFilter(get, new MockHttpServletResponse(), chain);
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+            assertNotNull(chain.getRequest());
+        });
+    }
+
+    private static MockHttpServletRequest upload(DataSize size) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/first-round");
+        request.setContentType("multipart/form-data; boundary=test");
+        request.setContent(new byte[(int) size.toBytes()]);
+        return request;
+    }
+}
@@ -0,0 +1,109 @@
+package com.good.animalsgame.extern.infrastructure.progress;
+
+import com.good.animalsgame.app.cache.RoundProgress;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProgressTokenCodecTest {
+
+    /**
+     * Лимит заголовков запроса Tomcat по умолчанию
+     */
+    private static final int MAX_HEADER_SIZE = 8 * 1024;
+
+    private final ProgressTokenCodec progressTokenCodec = new ProgressTokenCodec("secret");
+
+    @Test
+    void testEncodeDecode() {
+        String token = progressTokenCodec.encode(Map.of(
+                1, new RoundProgress(-5L, new long[]{3L, 10L, 1_000_000L}, 1200, 17),
+                2, RoundProgress.start(Long.MAX_VALUE)
+        ));
+
+        Map<Integer, RoundProgress> rounds = progressTokenCodec.decode(token);
+
+        assertEquals(2, rounds.size());
+        assertEquals(-5L, rounds.get(1).seed());
+        assertArrayEquals(new long[]{3L, 10L, 1_000_000L}, rounds.get(1).seenLevelIds());
+        assertEquals(1200, rounds.get(1).snapshotSize());
+        assertEquals(17, rounds.get(1).position());
+        assertEquals(Long.MAX_VALUE, rounds.get(2).seed());
+        assertEquals(0, rounds.get(2).seenLevelIds().length);
+    }
+
+    @Test
+    void testDecodeTampered() {
+        String token = progressTokenCodec.encode(Map.of(1, new RoundProgress(1L, new long[]{1L, 2L})));
+        char changed = token.charAt(3) == 'A' ? 'B' : 'A';
+        String tampered = token.substring(0, 3) + changed + token.substring(4);
+
+        assertTrue(progressTokenCodec.decode(tampered).isEmpty());
+        assertTrue(new ProgressTokenCodec("other").decode(token).isEmpty());
+    }
+
+    @Test
+    void testDecodeMissingOrMalformed() {
+        assertTrue(progressTokenCodec.decode(null).isEmpty());
+        assertTrue(progressTokenCodec.decode("").isEmpty());
+        assertTrue(progressTokenCodec.decode("not a token!").isEmpty());
+        assertTrue(progressTokenCodec.decode("AAAA").isEmpty());
+    }
+
+    @Test
+    void testSecretRequired() {
+        assertThrows(IllegalStateException.class, () -> new ProgressTokenCodec(" "));
+    }
+
+    @Test
+    void testBitmapOfDenseIds() {
+        // 10 000 уровней в каждом раунде, айди раунда идут подряд
+        Random random = new Random(42);
+        long[] firstSeen = LongStream.rangeClosed(1, 10_000).filter(levelId -> random.nextBoolean()).toArray();
+        long[] secondSeen = LongStream.rangeClosed(10_001, 19_999).toArray();
+
+        String token = progressTokenCodec.encode(Map.of(
+                1, new RoundProgress(1L, firstSeen),
+                2, new RoundProgress(2L, secondSeen)
+        ));
+
+        // две карты по 1250 байт
+        assertTrue(token.length() < 3_500, "Длина токена " + token.length());
+        Map<Integer, RoundProgress> rounds = progressTokenCodec.decode(token);
+        assertArrayEquals(firstSeen, rounds.get(1).seenLevelIds());
+        assertArrayEquals(secondSeen, rounds.get(2).seenLevelIds());
+    }
+
+    @Test
+    void testSparseIdsKeptExactly() {
+        // блоки айди разных узлов далеко друг от друга
+        long[] seen = LongStream.concat(LongStream.rangeClosed(1, 50), LongStream.rangeClosed(1_000_000, 1_000_050)).toArray();
+
+        String token = progressTokenCodec.encode(Map.of(1, new RoundProgress(3L, seen)));
+
+        assertArrayEquals(seen, progressTokenCodec.decode(token).get(1).seenLevelIds());
+    }
+
+    @Test
+    void testTokenSizeCapped() {
+        // 100 000 уровней в каждом раунде, айди раундов чередуются из общей последовательности
+        long[] firstSeen = LongStream.rangeClosed(1, 100_000).map(i -> 2 * i - 1).toArray();
+        long[] secondSeen = LongStream.rangeClosed(1, 100_000).map(i -> 2 * i).toArray();
+
+        String token = progressTokenCodec.encode(Map.of(
+                1, new RoundProgress(1L, firstSeen),
+                2, new RoundProgress(2L, secondSeen)
+        ));
+
+        assertTrue(token.length() < MAX_HEADER_SIZE * 3 / 4, "Длина токена " + token.length());
+        // в токене остаются самые большие айди раунда
+        long[] kept = progressTokenCodec.decode(token).get(1).seenLevelIds();
+        assertTrue(kept.length > 5_000);
+        assertArrayEquals(Arrays.copyOfRange(firstSeen, firstSeen.length - kept.length, firstSeen.length), kept);
+    }
+}
@@ -0,0 +1,90 @@
+package com.good.animalsgame.extern.infrastructure.storage;
+
+import com.good.animalsgame.app.storage.StoredImage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.Resource;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FileSystemImageStorageTest {
+
+    @TempDir
+    Path root;
+
+    private FileSystemImageStorage imageStorage;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        imageStorage = new FileSystemImageStorage(root.toString());
+    }
+
+    @Test
+    void testStoreAndFind() throws IOException {
+        byte[] content = "image".getBytes(StandardCharsets.UTF_8);
+
+        StoredImage storedImage = imageStorage.store(new ByteArrayInputStream(content));
+
+        assertEquals("6105d6cc76af400325e94d588ce511be5bfdbb73b437dc51eca43917d7a43e3d", storedImage.hash());
+        assertEquals(content.length, storedImage.size());
+        assertTrue(imageStorage.exists(storedImage.hash()));
+
+        Optional<Resource> resource = imageStorage.find(storedImage.hash());
+        assertTrue(resource.isPresent());
+        try (InputStream inputStream = resource.get().getInputStream()) {
+            assertArrayEquals(content, inputStream.readAllBytes());
+        }
+    }
+
+    @Test
+    void testStoreSameContentTwice() throws IOException {
+        byte[] content = "image".getBytes(StandardCharsets.UTF_8);
+
+        StoredImage first = imageStorage.store(new ByteArrayInputStream(content));
+        StoredImage second = imageStorage.store(new ByteArrayInputStream(content));
+
+        assertEquals(first, second);
+        try (Stream<Path> files = Files.walk(root)) {
+            assertEquals(1, files.filter(Files::isRegularFile).count());
+        }
+    }
+
+    @Test
+    void testStoreWithUnexpectedHashKeepsNothing() throws IOException {
+        byte[] content = "image".getBytes(StandardCharsets.UTF_8);
+
+        StoredImage storedImage = imageStorage.store(new ByteArrayInputStream(content), "b".repeat(64));
+
+        assertEquals("6105d6cc76af400325e94d588ce511be5bfdbb73b437dc51eca43917d7a43e3d", storedImage.hash());
+        assertFalse(imageStorage.exists(storedImage.hash()));
+        try (Stream<Path> files = Files.walk(root)) {
+            assertEquals(0, files.filter(Files::isRegularFile).count());
+        }
+    }
+
+    @Test
+    void testStoreWithExpectedHash() throws IOException {
+        byte[] content = "image".getBytes(StandardCharsets.UTF_8);
+
+        StoredImage storedImage = imageStorage.store(new ByteArrayInputStream(content),
+                "6105d6cc76af400325e94d588ce511be5bfdbb73b437dc51eca43917d7a43e3d");
+
+        assertTrue(imageStorage.exists(storedImage.hash()));
+    }
+
+    @Test
+    void testFindRejectsInvalidHash() {
+        assertTrue(imageStorage.find("../../etc/passwd").isEmpty());
+        assertFalse(imageStorage.exists("abc"));
+    }
+}